@@ -28,12 +28,14 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.StopWatch;
+import org.springframework.util.xml.StaxUtils;
 import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
 import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
 import org.springframework.ws.soap.stroap.StroapMessageFactory;
@@ -92,18 +94,23 @@ public class PerformanceTest {
 		String s = messageFactory.toString() + " streaming " + (streaming ? "enabled" : "disabled");
 		stopWatch.start(s);
 		logger.info(s);
-		for (int i = 0; i < ITERATIONS; i++) {
-			SoapMessage message = (SoapMessage) messageFactory.createWebServiceMessage();
-
-			marshal(message, streaming);
-
-			transformer.transform(message.getPayloadSource(), new StreamResult(os));
+		try {
+			for (int i = 0; i < ITERATIONS; i++) {
+				SoapMessage message = (SoapMessage) messageFactory.createWebServiceMessage();
 
-			message.writeTo(os);
+				marshal(message, streaming);
 
+				transformer.transform(message.getPayloadSource(), new StreamResult(os));
 
+				message.writeTo(os);
+			}
+		}
+		catch (Exception ex) {
+			System.err.println(s + " failed: " + ex);
+		}
+		finally {
+			stopWatch.stop();
 		}
-		stopWatch.stop();
 	}
 
 	private void marshal(SoapMessage message, boolean streaming) throws JAXBException {
@@ -114,7 +121,20 @@ public class PerformanceTest {
 			streamingMessage.setStreamingPayload(payload);
 		}
 		else {
-			marshaller.marshal(jaxbElement, message.getPayloadResult());
+			Result result = message.getPayloadResult();
+			// marshal to StAX results directly, like the Jaxb2Marshaller does
+			if (StaxUtils.isStaxResult(result)) {
+				XMLStreamWriter streamWriter = StaxUtils.getXMLStreamWriter(result);
+				if (streamWriter != null) {
+					marshaller.marshal(jaxbElement, streamWriter);
+				}
+				else {
+					marshaller.marshal(jaxbElement, StaxUtils.getXMLEventWriter(result));
+				}
+			}
+			else {
+				marshaller.marshal(jaxbElement, result);
+			}
 		}
 	}
 
@@ -131,6 +151,7 @@ public class PerformanceTest {
 			stroap(stopWatch, true, false);
 			stroap(stopWatch, false, true);
 			stroap(stopWatch, true, true);
+			stroap12(stopWatch, true, true);
 
 		}
 		finally {
@@ -158,6 +179,14 @@ public class PerformanceTest {
 		performanceTest.test(streaming);
 	}
 
+	private static void stroap12(StopWatch stopWatch, boolean caching, boolean streaming) throws Exception {
+		StroapMessageFactory smf = new StroapMessageFactory();
+		smf.setSoapVersion(SoapVersion.SOAP_12);
+		smf.setPayloadCaching(caching);
+		PerformanceTest performanceTest = new PerformanceTest(smf, stopWatch);
+		performanceTest.test(streaming);
+	}
+
 	@XmlRootElement(name = "root", namespace = "http://springframework.org")
 	public static class MyRootElement {
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.addressing.messageid;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.springframework.util.StopWatch;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Compares the throughput of the {@link UuidMessageIdStrategy} and the {@link TimeOrderedUuidMessageIdStrategy} when
+ * called from a number of concurrent threads.
+ *
+ * @author agent
+ */
+public class MessageIdStrategyPerformanceTest {
+
+	private static final Log logger = LogFactory.getLog(MessageIdStrategyPerformanceTest.class);
+
+	private static final int ITERATIONS = 1000000;
+
+	private final MessageIdStrategy strategy;
+
+	private final StopWatch stopWatch;
+
+	public MessageIdStrategyPerformanceTest(MessageIdStrategy strategy, StopWatch stopWatch) {
+		this.strategy = strategy;
+		this.stopWatch = stopWatch;
+	}
+
+	public void test(int threadCount) throws Exception {
+		String s = strategy.getClass().getSimpleName() + " with " + threadCount + " thread(s)";
+		logger.info(s);
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final CountDownLatch endLatch = new CountDownLatch(threadCount);
+		final int iterations = ITERATIONS / threadCount;
+		for (int i = 0; i < threadCount; i++) {
+			Thread thread = new Thread(new Runnable() {
+
+				public void run() {
+					try {
+						startLatch.await();
+						for (int j = 0; j < iterations; j++) {
+							strategy.newMessageId(null);
+						}
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+					finally {
+						endLatch.countDown();
+					}
+				}
+			});
+			thread.start();
+		}
+		stopWatch.start(s);
+		startLatch.countDown();
+		endLatch.await();
+		stopWatch.stop();
+	}
+
+	public static void main(String[] args) throws Exception {
+		StopWatch stopWatch = new StopWatch();
+		try {
+			int threads = Runtime.getRuntime().availableProcessors();
+			// warm up
+			new MessageIdStrategyPerformanceTest(new UuidMessageIdStrategy(), new StopWatch()).test(1);
+			new MessageIdStrategyPerformanceTest(new TimeOrderedUuidMessageIdStrategy(), new StopWatch()).test(1);
+
+			new MessageIdStrategyPerformanceTest(new UuidMessageIdStrategy(), stopWatch).test(1);
+			new MessageIdStrategyPerformanceTest(new TimeOrderedUuidMessageIdStrategy(), stopWatch).test(1);
+			new MessageIdStrategyPerformanceTest(new UuidMessageIdStrategy(), stopWatch).test(threads);
+			new MessageIdStrategyPerformanceTest(new TimeOrderedUuidMessageIdStrategy(), stopWatch).test(threads);
+		}
+		finally {
+			System.out.println(stopWatch.prettyPrint());
+		}
+	}
+
+}
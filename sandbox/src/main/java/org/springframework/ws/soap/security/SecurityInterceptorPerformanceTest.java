@@ -0,0 +1,151 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.security;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import javax.security.auth.callback.Callback;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import com.sun.xml.wss.impl.callback.PasswordCallback;
+import com.sun.xml.wss.impl.callback.UsernameCallback;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.StopWatch;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessageFactory;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.soap.security.callback.AbstractCallbackHandler;
+import org.springframework.ws.soap.security.wss4j2.Wss4jSecurityInterceptor;
+import org.springframework.ws.soap.security.xwss.XwsSecurityInterceptor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Compares the cost of securing an outbound message with a plain text username token, using the {@link
+ * XwsSecurityInterceptor} and the {@link Wss4jSecurityInterceptor} on both SAAJ and Axiom messages.
+ *
+ * @author agent
+ */
+public class SecurityInterceptorPerformanceTest {
+
+	private static final Log logger = LogFactory.getLog(SecurityInterceptorPerformanceTest.class);
+
+	private static final int ITERATIONS = 1000;
+
+	private static final String PAYLOAD = "<root xmlns='http://springframework.org'><child>content</child></root>";
+
+	private static final String XWSS_POLICY = "<xwss:SecurityConfiguration dumpMessages='false' " +
+			"xmlns:xwss='http://java.sun.com/xml/ns/xwss/config'>" +
+			"<xwss:UsernameToken digestPassword='false' useNonce='false'/>" + "</xwss:SecurityConfiguration>";
+
+	private final SoapMessageFactory messageFactory;
+
+	private final AbstractWsSecurityInterceptor interceptor;
+
+	private final StopWatch stopWatch;
+
+	private final Transformer transformer;
+
+	private final OutputStream os = new NullOutputStream();
+
+	public SecurityInterceptorPerformanceTest(SoapMessageFactory messageFactory,
+			AbstractWsSecurityInterceptor interceptor, StopWatch stopWatch) throws Exception {
+		this.messageFactory = messageFactory;
+		this.interceptor = interceptor;
+		this.stopWatch = stopWatch;
+		this.transformer = TransformerFactory.newInstance().newTransformer();
+	}
+
+	public void test() throws Exception {
+		String s = interceptor.getClass().getSimpleName() + " on " + messageFactory;
+		logger.info(s);
+		stopWatch.start(s);
+		for (int i = 0; i < ITERATIONS; i++) {
+			MessageContext messageContext = new DefaultMessageContext(messageFactory);
+			transformer.transform(new StreamSource(new StringReader(PAYLOAD)),
+					messageContext.getRequest().getPayloadResult());
+			interceptor.handleRequest(messageContext);
+			messageContext.getRequest().writeTo(os);
+		}
+		stopWatch.stop();
+	}
+
+	public static void main(String[] args) throws Exception {
+		StopWatch stopWatch = new StopWatch();
+		try {
+			SaajSoapMessageFactory saajMessageFactory = new SaajSoapMessageFactory();
+			saajMessageFactory.afterPropertiesSet();
+			AxiomSoapMessageFactory axiomMessageFactory = new AxiomSoapMessageFactory();
+
+			new SecurityInterceptorPerformanceTest(saajMessageFactory, xwss(), stopWatch).test();
+			new SecurityInterceptorPerformanceTest(axiomMessageFactory, xwss(), stopWatch).test();
+			new SecurityInterceptorPerformanceTest(saajMessageFactory, wss4j(), stopWatch).test();
+			new SecurityInterceptorPerformanceTest(axiomMessageFactory, wss4j(), stopWatch).test();
+		}
+		finally {
+			System.out.println(stopWatch.prettyPrint());
+		}
+	}
+
+	private static XwsSecurityInterceptor xwss() throws Exception {
+		XwsSecurityInterceptor interceptor = new XwsSecurityInterceptor();
+		interceptor.setPolicyConfiguration(new ByteArrayResource(XWSS_POLICY.getBytes("UTF-8")));
+		interceptor.setCallbackHandler(new AbstractCallbackHandler() {
+
+			@Override
+			protected void handleInternal(Callback callback) {
+				if (callback instanceof UsernameCallback) {
+					((UsernameCallback) callback).setUsername("Bert");
+				}
+				else if (callback instanceof PasswordCallback) {
+					((PasswordCallback) callback).setPassword("Ernie");
+				}
+			}
+		});
+		interceptor.afterPropertiesSet();
+		return interceptor;
+	}
+
+	private static Wss4jSecurityInterceptor wss4j() throws Exception {
+		Wss4jSecurityInterceptor interceptor = new Wss4jSecurityInterceptor();
+		interceptor.setSecurementActions("UsernameToken");
+		interceptor.setSecurementUsername("Bert");
+		interceptor.setSecurementPassword("Ernie");
+		interceptor.setSecurementPasswordType("PasswordText");
+		interceptor.afterPropertiesSet();
+		return interceptor;
+	}
+
+	private static class NullOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+		}
+	}
+
+}
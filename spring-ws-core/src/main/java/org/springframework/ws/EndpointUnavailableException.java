@@ -0,0 +1,43 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws;
+
+/**
+ * Exception thrown when the endpoint resolved for an incoming message request is unavailable, for instance because it
+ * has reached its maximum number of concurrent invocations. Unlike other endpoint exceptions, it is not resolved into
+ * a fault, but signalled by the transport (as a {@code 503 Service Unavailable} for HTTP).
+ *
+ * @author agent
+ * @see org.springframework.ws.transport.EndpointAvailabilityAwareWebServiceConnection#endpointUnavailable()
+ * @since 3.0.1
+ */
+@SuppressWarnings("serial")
+public class EndpointUnavailableException extends WebServiceException {
+
+	private final Object endpoint;
+
+	public EndpointUnavailableException(Object endpoint) {
+		super("Endpoint [" + endpoint + "] is unavailable");
+		this.endpoint = endpoint;
+	}
+
+	/** Returns the endpoint that is unavailable. */
+	public Object getEndpoint() {
+		return endpoint;
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.core;
+
+import java.util.Arrays;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.ws.client.support.destination.DestinationProvider;
+
+/**
+ * Policy for sending hedged requests from a {@link WebServiceTemplate}. When a request has not completed within a
+ * given percentile of the recent latencies, a second, identical request is sent, and the first successful response is
+ * used. This trims the latency tail caused by a slow destination or connection, at the cost of a small number of
+ * additional requests.
+ *
+ * <p>Hedging is only safe for <strong>idempotent</strong> operations, since both requests may be processed by the
+ * server. No hedged requests are sent until {@link #setMinimumSamples(int) minimumSamples} latencies have been
+ * recorded.
+ *
+ * <p>The original request is sent on the calling thread. The hedged request is scheduled on the {@link
+ * #setTaskExecutor(TaskExecutor) taskExecutor}, which holds a thread for up to the hedge delay while waiting for the
+ * original request, and sends the hedged request if it has not completed by then. When the executor rejects the task,
+ * the request is not hedged.
+ *
+ * @author agent
+ * @see WebServiceTemplate#setHedgingPolicy(HedgingPolicy)
+ * @since 3.0.1
+ */
+public class HedgingPolicy {
+
+	/** The maximum number of threads of the default executor. */
+	public static final int DEFAULT_MAX_HEDGE_THREADS = 16;
+
+	private static final int RECOMPUTE_INTERVAL = 16;
+
+	private double percentile = 0.95;
+
+	private int minimumSamples = 100;
+
+	private TaskExecutor taskExecutor = createDefaultTaskExecutor();
+
+	private DestinationProvider destinationProvider;
+
+	private long[] samples = new long[1000];
+
+	private int sampleCount;
+
+	private int sampleIndex;
+
+	private int samplesSinceComputation;
+
+	private volatile long hedgeDelay = -1;
+
+	/**
+	 * Sets the percentile of the recorded latencies after which a hedged request is sent, between 0 and 1. Defaults to
+	 * 0.95.
+	 */
+	public void setPercentile(double percentile) {
+		Assert.isTrue(percentile > 0 && percentile < 1, "'percentile' must be in (0, 1)");
+		this.percentile = percentile;
+	}
+
+	/** Sets the number of most recent latencies the percentile is computed over. Defaults to 1000. */
+	public synchronized void setWindowSize(int windowSize) {
+		Assert.isTrue(windowSize > 0, "'windowSize' must be larger than 0");
+		this.samples = new long[windowSize];
+		this.sampleCount = 0;
+		this.sampleIndex = 0;
+		this.hedgeDelay = -1;
+	}
+
+	/** Sets the number of latencies that must be recorded before any request is hedged. Defaults to 100. */
+	public void setMinimumSamples(int minimumSamples) {
+		Assert.isTrue(minimumSamples > 0, "'minimumSamples' must be larger than 0");
+		this.minimumSamples = minimumSamples;
+	}
+
+	/** Returns the executor the hedged requests are sent on. */
+	public TaskExecutor getTaskExecutor() {
+		return taskExecutor;
+	}
+
+	/**
+	 * Sets the executor the hedged requests are sent on. Hedged requests do not see the thread-bound state of the
+	 * calling thread. Defaults to a pool of at most {@link #DEFAULT_MAX_HEDGE_THREADS} daemon threads, which rejects
+	 * tasks when all threads are busy.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		Assert.notNull(taskExecutor, "'taskExecutor' must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/** Returns the provider of the destination for hedged requests, if any. */
+	public DestinationProvider getDestinationProvider() {
+		return destinationProvider;
+	}
+
+	/**
+	 * Sets the provider of the destination for hedged requests, for instance a {@link
+	 * org.springframework.ws.client.support.destination.LoadBalancingDestinationProvider
+	 * LoadBalancingDestinationProvider}, so that the hedged request goes to another destination than the original one.
+	 * Default is none, in which case the hedged request is sent to the same URI.
+	 */
+	public void setDestinationProvider(DestinationProvider destinationProvider) {
+		this.destinationProvider = destinationProvider;
+	}
+
+	/**
+	 * Returns the time after which a request should be hedged.
+	 *
+	 * @return the delay in nanoseconds, or {@code -1} if not enough latencies have been recorded yet
+	 */
+	public long getHedgeDelay() {
+		return hedgeDelay;
+	}
+
+	/**
+	 * Records the latency of a successful request.
+	 *
+	 * @param latency the latency in nanoseconds
+	 */
+	public synchronized void recordLatency(long latency) {
+		samples[sampleIndex] = latency;
+		sampleIndex = (sampleIndex + 1) % samples.length;
+		if (sampleCount < samples.length) {
+			sampleCount++;
+		}
+		samplesSinceComputation++;
+		if (sampleCount >= minimumSamples &&
+				(hedgeDelay < 0 || samplesSinceComputation >= RECOMPUTE_INTERVAL)) {
+			long[] sorted = Arrays.copyOf(samples, sampleCount);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(percentile * sampleCount) - 1;
+			hedgeDelay = sorted[Math.max(0, Math.min(index, sampleCount - 1))];
+			samplesSinceComputation = 0;
+		}
+	}
+
+	private static TaskExecutor createDefaultTaskExecutor() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("WebServiceTemplate-hedge-");
+		threadFactory.setDaemon(true);
+		return new ConcurrentTaskExecutor(new ThreadPoolExecutor(0, DEFAULT_MAX_HEDGE_THREADS, 60, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), threadFactory));
+	}
+
+}
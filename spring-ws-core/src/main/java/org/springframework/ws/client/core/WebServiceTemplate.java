@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
@@ -30,6 +34,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.oxm.Marshaller;
 import org.springframework.oxm.Unmarshaller;
 import org.springframework.util.Assert;
@@ -41,12 +46,15 @@ import org.springframework.ws.client.WebServiceClientException;
 import org.springframework.ws.client.WebServiceIOException;
 import org.springframework.ws.client.WebServiceTransformerException;
 import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.client.core.observation.WebServiceTemplateObserver;
 import org.springframework.ws.client.support.WebServiceAccessor;
 import org.springframework.ws.client.support.destination.DestinationProvider;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.soap.client.core.SoapFaultMessageResolver;
+import org.springframework.ws.stream.StreamingPayload;
+import org.springframework.ws.stream.StreamingWebServiceMessage;
 import org.springframework.ws.support.DefaultStrategiesHelper;
 import org.springframework.ws.support.MarshallingUtils;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
@@ -93,7 +101,14 @@ import org.springframework.ws.transport.support.TransportUtils;
  * {@link #handleFault handleFault()} method.</li> <li>Otherwise, invoke {@link ClientInterceptor#handleResponse(MessageContext)}
  * and {@link WebServiceMessageExtractor#extractData(WebServiceMessage) extractData()} on the response extractor, or
  * {@link WebServiceMessageCallback#doWithMessage(WebServiceMessage) doWithMessage} on the response callback.</li> </ul>
- * <li>Call to {@link WebServiceConnection#close() close} on the connection.</li> </ol>
+ * <li>Close the response message, if it holds any resources, such as attachments cached on disk.</li> <li>Call to
+ * {@link WebServiceConnection#close() close} on the connection.</li> </ol>
+ *
+ * <p>The exchanges performed by this template can be observed, for instance to record latency metrics, by setting a
+ * {@link WebServiceTemplateObserver} via the {@link #setObserver(WebServiceTemplateObserver) observer} property.
+ *
+ * <p>Templates that are only used for idempotent operations can trim their latency tail by setting a {@link
+ * HedgingPolicy}, which sends a second request when the first one is slower than a percentile of the recent requests.
  *
  * @author Arjen Poutsma
  * @since 1.0.0
@@ -121,10 +136,16 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 
 	private boolean checkConnectionForFault = true;
 
+	private boolean streamingMarshalling = false;
+
 	private ClientInterceptor[] interceptors;
 
 	private DestinationProvider destinationProvider;
 
+	private WebServiceTemplateObserver observer;
+
+	private HedgingPolicy hedgingPolicy;
+
 	/** Creates a new {@code WebServiceTemplate} using default settings. */
 	public WebServiceTemplate() {
 		initDefaultStrategies();
@@ -257,6 +278,27 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 		this.unmarshaller = unmarshaller;
 	}
 
+	/**
+	 * Indicates whether {@link #marshalSendAndReceive(String, Object, WebServiceMessageCallback) marshalled} request
+	 * payloads should be streamed ({@code true}), or marshalled into the request message upfront ({@code false}). The
+	 * default is {@code false}.
+	 *
+	 * <p>When enabled, and the request message is a {@link StreamingWebServiceMessage}, the request payload is set as
+	 * a {@link StreamingPayload}, which is marshalled straight to the connection when the message is sent. This
+	 * requires a {@link org.springframework.oxm.jaxb.Jaxb2Marshaller Jaxb2Marshaller}; other marshallers, or payloads
+	 * whose root element cannot be determined, are marshalled upfront as usual. Because marshalling is deferred, the
+	 * marshaller cannot add MTOM attachments to the request.
+	 *
+	 * <p>Responses are unmarshalled straight from the stream if the message factory supports it, for instance an
+	 * {@link org.springframework.ws.soap.axiom.AxiomSoapMessageFactory AxiomSoapMessageFactory} without payload
+	 * caching.
+	 *
+	 * @see MarshallingUtils#createStreamingPayload(Marshaller, Object)
+	 */
+	public void setStreamingMarshalling(boolean streamingMarshalling) {
+		this.streamingMarshalling = streamingMarshalling;
+	}
+
 	/** Returns the fault message resolver for this template. */
 	public FaultMessageResolver getFaultMessageResolver() {
 		return faultMessageResolver;
@@ -327,6 +369,37 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 		this.interceptors = interceptors;
 	}
 
+	/** Returns the {@code WebServiceTemplateObserver} used by this template, if any. */
+	public WebServiceTemplateObserver getObserver() {
+		return observer;
+	}
+
+	/**
+	 * Sets the {@code WebServiceTemplateObserver} to notify of the message exchanges performed by this template.
+	 * Default is none, in which case no timings are taken at all.
+	 */
+	public void setObserver(WebServiceTemplateObserver observer) {
+		this.observer = observer;
+	}
+
+	/** Returns the {@code HedgingPolicy} used by this template, if any. */
+	public HedgingPolicy getHedgingPolicy() {
+		return hedgingPolicy;
+	}
+
+	/**
+	 * Sets the {@code HedgingPolicy} used by this template. Default is none, in which case requests are never hedged.
+	 *
+	 * <p><strong>Note</strong> that a hedged request may be processed by the server in addition to the original
+	 * request, so a hedging policy should only be set on templates used for idempotent operations exclusively. The
+	 * original request is sent on the calling thread; the hedged request is sent on a thread of the {@linkplain
+	 * HedgingPolicy#setTaskExecutor policy's executor}, and also invokes the request callback. When the hedged request
+	 * succeeds first, the connection of the original request is closed to abort it.
+	 */
+	public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+		this.hedgingPolicy = hedgingPolicy;
+	}
+
 	/**
 	 * Initialize the default implementations for the template's strategies: {@link SoapFaultMessageResolver}, {@link
 	 * org.springframework.ws.soap.saaj.SaajSoapMessageFactory}, and {@link HttpUrlConnectionMessageSender}.
@@ -396,7 +469,7 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 						throw new IllegalStateException(
 								"No marshaller registered. Check configuration of WebServiceTemplate.");
 					}
-					MarshallingUtils.marshal(marshaller, requestPayload, request);
+					marshal(marshaller, requestPayload, request);
 					if (requestCallback != null) {
 						requestCallback.doWithMessage(request);
 					}
@@ -415,6 +488,17 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 		});
 	}
 
+	private void marshal(Marshaller marshaller, Object requestPayload, WebServiceMessage request) throws IOException {
+		if (streamingMarshalling && request instanceof StreamingWebServiceMessage) {
+			StreamingPayload payload = MarshallingUtils.createStreamingPayload(marshaller, requestPayload);
+			if (payload != null) {
+				((StreamingWebServiceMessage) request).setStreamingPayload(payload);
+				return;
+			}
+		}
+		MarshallingUtils.marshal(marshaller, requestPayload, request);
+	}
+
 	//
 	// Result-handling methods
 	//
@@ -545,24 +629,57 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 								 WebServiceMessageExtractor<T> responseExtractor) {
 		Assert.notNull(responseExtractor, "'responseExtractor' must not be null");
 		Assert.hasLength(uriString, "'uri' must not be empty");
+		URI uri = URI.create(uriString);
+		HedgingPolicy hedgingPolicy = this.hedgingPolicy;
+		if (hedgingPolicy == null) {
+			return doSendAndReceive(uri, requestCallback, responseExtractor, null);
+		}
+		return new HedgedExchange<T>(hedgingPolicy, uri, requestCallback, responseExtractor).execute();
+	}
+
+	private <T> T doSendAndReceive(URI uri,
+								   WebServiceMessageCallback requestCallback,
+								   WebServiceMessageExtractor<T> responseExtractor,
+								   AtomicReference<WebServiceConnection> abortableConnection) {
 		TransportContext previousTransportContext = TransportContextHolder.getTransportContext();
 		WebServiceConnection connection = null;
+		long start = observer != null ? System.nanoTime() : 0L;
+		MessageContext messageContext = null;
+		Exception failure = null;
 		try {
-			connection = createConnection(URI.create(uriString));
+			connection = createConnection(uri);
+			if (observer != null) {
+				observer.connectionCreated(uri, System.nanoTime() - start);
+			}
+			if (abortableConnection != null) {
+				abortableConnection.set(connection);
+			}
 			TransportContextHolder.setTransportContext(new DefaultTransportContext(connection));
-			MessageContext messageContext = new DefaultMessageContext(getMessageFactory());
+			messageContext = new DefaultMessageContext(getMessageFactory());
 
 			return doSendAndReceive(messageContext, connection, requestCallback, responseExtractor);
 		}
 		catch (TransportException ex) {
+			failure = ex;
 			throw new WebServiceTransportException("Could not use transport: " + ex.getMessage(), ex);
 		}
 		catch (IOException ex) {
+			failure = ex;
 			throw new WebServiceIOException("I/O error: " + ex.getMessage(), ex);
 		}
+		catch (RuntimeException ex) {
+			failure = ex;
+			throw ex;
+		}
 		finally {
-			TransportUtils.closeConnection(connection);
+			// an aborted connection has been closed already
+			if (abortableConnection == null || abortableConnection.compareAndSet(connection, null)) {
+				TransportUtils.closeConnection(connection);
+			}
 			TransportContextHolder.setTransportContext(previousTransportContext);
+			if (observer != null) {
+				observer.exchangeCompleted(uri, messageContext, System.nanoTime() - start, failure);
+			}
 		}
 	}
 
@@ -602,18 +719,35 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 			}
 			// no send/receive if an interceptor has set a response or if the chain
 			// has been interrupted
+			boolean sent = false;
 			if (!messageContext.hasResponse() && !intercepted) {
+				sent = true;
+				long sendStart = observer != null ? System.nanoTime() : 0L;
 				sendRequest(connection, messageContext.getRequest());
+				if (observer != null) {
+					observer.requestSent(connection, System.nanoTime() - sendStart);
+				}
 				if (hasError(connection, messageContext.getRequest())) {
-					triggerAfterCompletion(interceptorIndex, messageContext, null);
-					return (T) handleError(connection, messageContext.getRequest());
+					// if handleError throws, after-completion is triggered with its exception below
+					Object result = handleError(connection, messageContext.getRequest());
+					triggerAfterCompletion(interceptorIndex, messageContext,
+							new WebServiceTransportException(connection.getErrorMessage()));
+					return (T) result;
 				}
 				WebServiceMessage response = connection.receive(getMessageFactory());
+				if (observer != null && response != null) {
+					observer.responseReceived(connection, System.nanoTime() - sendStart);
+				}
 				messageContext.setResponse(response);
 			}
 			logResponse(messageContext);
 			if (messageContext.hasResponse()) {
-				if (!hasFault(connection, messageContext.getResponse())) {
+				// only consult the connection if the response was received over it, as an
+				// unsent connection might send the request in order to answer
+				WebServiceMessage response = messageContext.getResponse();
+				boolean fault = sent ? hasFault(connection, response) : response instanceof FaultAwareWebServiceMessage &&
+						((FaultAwareWebServiceMessage) response).hasFault();
+				if (!fault) {
 					triggerHandleResponse(interceptorIndex, messageContext);
 					triggerAfterCompletion(interceptorIndex, messageContext, null);
 					return responseExtractor.extractData(messageContext.getResponse());
@@ -643,6 +777,12 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 			triggerAfterCompletion(interceptorIndex, messageContext, ex);
 			throw ex;
 		}
+		finally {
+			// the response has been extracted, so release the resources it holds, such as cached attachments
+			if (messageContext.hasResponse()) {
+				TransportUtils.closeMessage(messageContext.getResponse());
+			}
+		}
 	}
 
 	/** Sends the request in the given message context over the connection. */
@@ -835,6 +975,145 @@ public class WebServiceTemplate extends WebServiceAccessor implements WebService
 		}
 	}
 
+	/**
+	 * Sends a request on the calling thread, recording its latency with the hedging policy if successful. When the
+	 * hedge delay of the policy is known, a hedged request is scheduled on the executor of the policy, which is sent if
+	 * the original request has not completed within the delay. The first successful response is returned.
+	 */
+	private class HedgedExchange<T> implements Runnable {
+
+		private static final int PENDING = 0;
+
+		private static final int HEDGED = 1;
+
+		private static final int COMPLETED = 2;
+
+		private final HedgingPolicy hedgingPolicy;
+
+		private final URI uri;
+
+		private final WebServiceMessageCallback requestCallback;
+
+		private final WebServiceMessageExtractor<T> responseExtractor;
+
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+
+		private final AtomicReference<WebServiceConnection> connection = new AtomicReference<WebServiceConnection>();
+
+		private final CountDownLatch completed = new CountDownLatch(1);
+
+		private final CountDownLatch hedgeCompleted = new CountDownLatch(1);
+
+		private long hedgeDelay;
+
+		private T hedgeResult;
+
+		private boolean hedgeSucceeded;
+
+		private HedgedExchange(HedgingPolicy hedgingPolicy,
+							   URI uri,
+							   WebServiceMessageCallback requestCallback,
+							   WebServiceMessageExtractor<T> responseExtractor) {
+			this.hedgingPolicy = hedgingPolicy;
+			this.uri = uri;
+			this.requestCallback = requestCallback;
+			this.responseExtractor = responseExtractor;
+		}
+
+		public T execute() {
+			hedgeDelay = hedgingPolicy.getHedgeDelay();
+			if (hedgeDelay < 0) {
+				return send(uri, null);
+			}
+			try {
+				hedgingPolicy.getTaskExecutor().execute(this);
+			}
+			catch (TaskRejectedException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not schedule hedged request: " + ex.getMessage());
+				}
+				return send(uri, null);
+			}
+			T result;
+			try {
+				result = send(uri, connection);
+			}
+			catch (RuntimeException ex) {
+				if (complete()) {
+					throw ex;
+				}
+				return getHedgeResult(ex);
+			}
+			complete();
+			return result;
+		}
+
+		/**
+		 * Completes the original request.
+		 *
+		 * @return {@code true} if no hedged request was sent; {@code false} otherwise
+		 */
+		private boolean complete() {
+			boolean hedged = !state.compareAndSet(PENDING, COMPLETED);
+			completed.countDown();
+			return !hedged;
+		}
+
+		private T getHedgeResult(RuntimeException failure) {
+			try {
+				hedgeCompleted.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw failure;
+			}
+			if (!hedgeSucceeded) {
+				throw failure;
+			}
+			return hedgeResult;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (completed.await(hedgeDelay, TimeUnit.NANOSECONDS) || !state.compareAndSet(PENDING, HEDGED)) {
+					return;
+				}
+				DestinationProvider hedgeDestinationProvider = hedgingPolicy.getDestinationProvider();
+				URI hedgeUri = hedgeDestinationProvider != null ? hedgeDestinationProvider.getDestination() : uri;
+				if (logger.isDebugEnabled()) {
+					logger.debug("No response from [" + uri + "] within " +
+							TimeUnit.NANOSECONDS.toMillis(hedgeDelay) + " ms; sending hedged request to [" +
+							hedgeUri + "]");
+				}
+				hedgeResult = send(hedgeUri, null);
+				hedgeSucceeded = true;
+				WebServiceConnection original = connection.getAndSet(null);
+				if (original != null) {
+					TransportUtils.closeConnection(original);
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			catch (RuntimeException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Hedged request failed: " + ex.getMessage(), ex);
+				}
+			}
+			finally {
+				hedgeCompleted.countDown();
+			}
+		}
+
+		private T send(URI uri, AtomicReference<WebServiceConnection> abortableConnection) {
+			long start = System.nanoTime();
+			T result = doSendAndReceive(uri, requestCallback, responseExtractor, abortableConnection);
+			hedgingPolicy.recordLatency(System.nanoTime() - start);
+			return result;
+		}
+	}
+
 	/** Adapter to enable use of a WebServiceMessageCallback inside a WebServiceMessageExtractor. */
 	private static class WebServiceMessageCallbackMessageExtractor implements WebServiceMessageExtractor<Boolean> {
 
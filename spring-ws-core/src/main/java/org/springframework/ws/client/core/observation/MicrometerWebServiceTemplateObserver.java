@@ -0,0 +1,240 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.core.observation;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.FaultAwareWebServiceMessage;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.WebServiceConnection;
+
+/**
+ * {@link WebServiceTemplateObserver} that records metrics in a Micrometer {@link MeterRegistry}. All meters are tagged
+ * by {@code destination}, which is the URI of the exchange without user info, query, and fragment. The following
+ * meters are registered:
+ * <ul>
+ * <li>{@code spring.ws.client.connection}: timer of the connection creation,</li>
+ * <li>{@code spring.ws.client.send}: timer of sending the request,</li>
+ * <li>{@code spring.ws.client.response}: timer with a percentile histogram of the time from the start of sending the
+ * request until the response was received,</li>
+ * <li>{@code spring.ws.client.exchange}: timer with a percentile histogram of the entire exchange, tagged by {@code
+ * outcome} ({@code success}, {@code fault}, or {@code error}),</li>
+ * <li>{@code spring.ws.client.faults}: counter of fault responses, tagged by the local part of the fault {@code
+ * code},</li>
+ * <li>{@code spring.ws.client.errors}: counter of failed exchanges, tagged by {@code exception}.</li>
+ * </ul>
+ *
+ * <p>Connection pool utilization can be recorded for the {@link
+ * org.springframework.ws.transport.http.HttpComponentsMessageSender HttpComponentsMessageSender} by means of the {@link
+ * org.springframework.ws.transport.http.HttpComponentsConnectionPoolMetrics HttpComponentsConnectionPoolMetrics}.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class MicrometerWebServiceTemplateObserver implements WebServiceTemplateObserver {
+
+	/** Name of the connection creation timer. */
+	public static final String CONNECTION_METER = "spring.ws.client.connection";
+
+	/** Name of the request send timer. */
+	public static final String SEND_METER = "spring.ws.client.send";
+
+	/** Name of the response timer. */
+	public static final String RESPONSE_METER = "spring.ws.client.response";
+
+	/** Name of the exchange timer. */
+	public static final String EXCHANGE_METER = "spring.ws.client.exchange";
+
+	/** Name of the fault counter. */
+	public static final String FAULTS_METER = "spring.ws.client.faults";
+
+	/** Name of the error counter. */
+	public static final String ERRORS_METER = "spring.ws.client.errors";
+
+	private static final String UNKNOWN = "unknown";
+
+	private final MeterRegistry registry;
+
+	private final ConcurrentMap<String, DestinationMeters> destinationMeters =
+			new ConcurrentHashMap<String, DestinationMeters>();
+
+	/**
+	 * Creates a new {@code MicrometerWebServiceTemplateObserver} that registers its meters in the given registry.
+	 *
+	 * @param registry the registry to use
+	 */
+	public MicrometerWebServiceTemplateObserver(MeterRegistry registry) {
+		Assert.notNull(registry, "'registry' must not be null");
+		this.registry = registry;
+	}
+
+	@Override
+	public void connectionCreated(URI uri, long duration) {
+		getDestinationMeters(uri).connection.record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void requestSent(WebServiceConnection connection, long duration) {
+		getDestinationMeters(connection).send.record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void responseReceived(WebServiceConnection connection, long duration) {
+		getDestinationMeters(connection).response.record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void exchangeCompleted(URI uri, MessageContext messageContext, long duration, Exception ex) {
+		DestinationMeters meters = getDestinationMeters(uri);
+		QName faultCode = getFaultCode(messageContext);
+		if (faultCode != null) {
+			meters.fault.record(duration, TimeUnit.NANOSECONDS);
+			Counter.builder(FAULTS_METER)
+					.description("Number of fault responses")
+					.tags("destination", meters.destination, "code", faultCode.getLocalPart())
+					.register(registry)
+					.increment();
+		}
+		else if (ex != null) {
+			meters.error.record(duration, TimeUnit.NANOSECONDS);
+			Counter.builder(ERRORS_METER)
+					.description("Number of failed exchanges")
+					.tags("destination", meters.destination, "exception", ex.getClass().getSimpleName())
+					.register(registry)
+					.increment();
+		}
+		else {
+			meters.success.record(duration, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private QName getFaultCode(MessageContext messageContext) {
+		if (messageContext != null && messageContext.hasResponse()) {
+			WebServiceMessage response = messageContext.getResponse();
+			if (response instanceof FaultAwareWebServiceMessage) {
+				FaultAwareWebServiceMessage faultMessage = (FaultAwareWebServiceMessage) response;
+				if (faultMessage.hasFault()) {
+					QName faultCode = faultMessage.getFaultCode();
+					return faultCode != null ? faultCode : new QName(UNKNOWN);
+				}
+			}
+		}
+		return null;
+	}
+
+	private DestinationMeters getDestinationMeters(WebServiceConnection connection) {
+		try {
+			return getDestinationMeters(connection.getUri());
+		}
+		catch (URISyntaxException ex) {
+			return getDestinationMeters((URI) null);
+		}
+	}
+
+	private DestinationMeters getDestinationMeters(URI uri) {
+		String destination = getDestination(uri);
+		DestinationMeters meters = destinationMeters.get(destination);
+		if (meters == null) {
+			meters = new DestinationMeters(destination);
+			destinationMeters.putIfAbsent(destination, meters);
+		}
+		return meters;
+	}
+
+	/**
+	 * Returns the value of the {@code destination} tag for the given URI. Default implementation returns the scheme,
+	 * host, port, and path of the URI.
+	 *
+	 * @param uri the URI of the exchange, may be {@code null}
+	 * @return the destination tag value
+	 */
+	protected String getDestination(URI uri) {
+		if (uri == null) {
+			return UNKNOWN;
+		}
+		if (uri.isOpaque() || uri.getHost() == null) {
+			return uri.getScheme() + ":" + (uri.isOpaque() ? uri.getSchemeSpecificPart() : uri.getPath());
+		}
+		StringBuilder builder = new StringBuilder();
+		builder.append(uri.getScheme()).append("://").append(uri.getHost());
+		if (uri.getPort() != -1) {
+			builder.append(':').append(uri.getPort());
+		}
+		if (uri.getRawPath() != null) {
+			builder.append(uri.getRawPath());
+		}
+		return builder.toString();
+	}
+
+	private class DestinationMeters {
+
+		private final String destination;
+
+		private final Timer connection;
+
+		private final Timer send;
+
+		private final Timer response;
+
+		private final Timer success;
+
+		private final Timer fault;
+
+		private final Timer error;
+
+		private DestinationMeters(String destination) {
+			this.destination = destination;
+			this.connection = Timer.builder(CONNECTION_METER)
+					.description("Time spent creating connections")
+					.tag("destination", destination)
+					.register(registry);
+			this.send = Timer.builder(SEND_METER)
+					.description("Time spent sending requests")
+					.tag("destination", destination)
+					.register(registry);
+			this.response = Timer.builder(RESPONSE_METER)
+					.description("Time until responses were received")
+					.tag("destination", destination)
+					.publishPercentileHistogram()
+					.register(registry);
+			this.success = exchangeTimer("success");
+			this.fault = exchangeTimer("fault");
+			this.error = exchangeTimer("error");
+		}
+
+		private Timer exchangeTimer(String outcome) {
+			return Timer.builder(EXCHANGE_METER)
+					.description("Time spent on message exchanges")
+					.tags("destination", destination, "outcome", outcome)
+					.publishPercentileHistogram()
+					.register(registry);
+		}
+
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.core.observation;
+
+import java.net.URI;
+
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.WebServiceConnection;
+
+/**
+ * Callback interface for observing the message exchanges performed by a {@link
+ * org.springframework.ws.client.core.WebServiceTemplate WebServiceTemplate}, typically in order to record metrics. Set
+ * via {@link org.springframework.ws.client.core.WebServiceTemplate#setObserver(WebServiceTemplateObserver)}.
+ *
+ * <p>All durations are measured by the template with {@link System#nanoTime()}, and given in nanoseconds. Observers
+ * are called on the thread that performs the exchange, so implementations should be fast and thread-safe, and must
+ * not throw exceptions.
+ *
+ * @author agent
+ * @see MicrometerWebServiceTemplateObserver
+ * @since 3.0.1
+ */
+public interface WebServiceTemplateObserver {
+
+	/**
+	 * Called after a connection to the given destination has been created by the {@link
+	 * org.springframework.ws.transport.WebServiceMessageSender WebServiceMessageSender}.
+	 *
+	 * <p>Note that most senders only prepare the connection at this point; for HTTP, the TCP connection is established
+	 * (or leased from a pool) while sending the request.
+	 *
+	 * @param uri	   the destination
+	 * @param duration the time spent creating the connection, in nanoseconds
+	 */
+	void connectionCreated(URI uri, long duration);
+
+	/**
+	 * Called after the request has been sent over the given connection.
+	 *
+	 * @param connection the connection
+	 * @param duration	 the time spent sending the request, in nanoseconds
+	 */
+	void requestSent(WebServiceConnection connection, long duration);
+
+	/**
+	 * Called after a response has been received over the given connection.
+	 *
+	 * @param connection the connection
+	 * @param duration	 the time from the start of sending the request until the response was received, in
+	 *					 nanoseconds
+	 */
+	void responseReceived(WebServiceConnection connection, long duration);
+
+	/**
+	 * Called after the exchange with the given destination has completed, and its connection has been closed.
+	 *
+	 * @param uri			 the destination
+	 * @param messageContext the message context, or {@code null} if no connection could be created
+	 * @param duration		 the total time spent on the exchange, in nanoseconds
+	 * @param ex			 the exception thrown by the exchange, or {@code null} if none
+	 */
+	void exchangeCompleted(URI uri, MessageContext messageContext, long duration, Exception ex);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,8 +23,10 @@ import java.net.URISyntaxException;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
 import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.transport.AbstractWebServiceConnection;
 import org.springframework.ws.transport.WebServiceConnection;
 import org.springframework.ws.transport.WebServiceMessageSender;
+import org.springframework.ws.transport.support.WireLogger;
 import org.springframework.xml.transform.TransformerObjectSupport;
 
 /**
@@ -43,6 +45,8 @@ public abstract class WebServiceAccessor extends TransformerObjectSupport implem
 
 	private WebServiceMessageSender[] messageSenders;
 
+	private WireLogger wireLogger;
+
 	/** Returns the message factory used for creating messages. */
 	public WebServiceMessageFactory getMessageFactory() {
 		return messageFactory;
@@ -82,6 +86,14 @@ public abstract class WebServiceAccessor extends TransformerObjectSupport implem
 		this.messageSenders = messageSenders;
 	}
 
+	/**
+	 * Sets the wire logger to log the raw outgoing and incoming messages with. Only applies to connections that extend
+	 * {@link AbstractWebServiceConnection}. Default is none.
+	 */
+	public void setWireLogger(WireLogger wireLogger) {
+		this.wireLogger = wireLogger;
+	}
+
 	@Override
 	public void afterPropertiesSet() {
 		Assert.notNull(getMessageFactory(), "Property 'messageFactory' is required");
@@ -106,6 +118,9 @@ public abstract class WebServiceAccessor extends TransformerObjectSupport implem
 		for (WebServiceMessageSender messageSender : messageSenders) {
 			if (messageSender.supports(uri)) {
 				WebServiceConnection connection = messageSender.createConnection(uri);
+				if (wireLogger != null && connection instanceof AbstractWebServiceConnection) {
+					((AbstractWebServiceConnection) connection).setWireLogger(wireLogger);
+				}
 				if (logger.isDebugEnabled()) {
 					try {
 						logger.debug("Opening [" + connection + "] to [" + connection.getUri() + "]");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,16 +17,27 @@
 package org.springframework.ws.client.support.destination;
 
 import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+
 /**
  * Abstract base class for {@link DestinationProvider} implementations that cache destination URI.
  *
  * <p>Caching can be disabled by setting the {@link #setCache(boolean) cache} property to {@code false}; forcing a
  * destination lookup for every call.
  *
+ * <p>Alternatively, the cached destination can be re-resolved periodically by setting the {@link
+ * #setRefreshInterval(long) refreshInterval}. Once the interval has elapsed, the next call triggers a lookup on the
+ * {@link #setTaskExecutor(TaskExecutor) taskExecutor}, while callers keep getting the cached destination until the
+ * lookup completes. If the lookup fails, the cached destination is retained.
+ *
  * @author Arjen Poutsma
  * @since 1.5.4
  */
@@ -35,10 +46,18 @@ public abstract class AbstractCachingDestinationProvider implements DestinationP
 	/** Logger available to subclasses. */
 	protected final Log logger = LogFactory.getLog(getClass());
 
-	private URI cachedUri;
+	private volatile URI cachedUri;
+
+	private volatile long cachedTime;
 
 	private boolean cache = true;
 
+	private long refreshInterval = -1;
+
+	private TaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(getClass().getSimpleName() + "-");
+
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
 	/**
 	 * Set whether to cache resolved destinations. Default is {@code true}. This flag can be turned off to
 	 * re-lookup a destination for each operation, which allows for hot restarting of destinations. This is mainly
@@ -48,23 +67,85 @@ public abstract class AbstractCachingDestinationProvider implements DestinationP
 		this.cache = cache;
 	}
 
+	/**
+	 * Sets the interval, in milliseconds, after which a cached destination is re-resolved in the background. Default
+	 * is {@code -1}, meaning that the destination is resolved only once. Ignored if {@linkplain #setCache(boolean)
+	 * caching} is disabled.
+	 */
+	public void setRefreshInterval(long refreshInterval) {
+		this.refreshInterval = refreshInterval;
+	}
+
+	/**
+	 * Sets the executor used to re-resolve the destination when the {@link #setRefreshInterval(long) refreshInterval}
+	 * has elapsed. Defaults to a {@link SimpleAsyncTaskExecutor}.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		Assert.notNull(taskExecutor, "'taskExecutor' must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
 	@Override
 	public final URI getDestination() {
 		if (cache) {
-			if (cachedUri == null) {
-				cachedUri = lookupDestination();
+			URI uri = cachedUri;
+			if (uri == null) {
+				synchronized (this) {
+					uri = cachedUri;
+					if (uri == null) {
+						uri = lookupDestination();
+						cachedTime = System.nanoTime();
+						cachedUri = uri;
+					}
+				}
 			}
-			return cachedUri;
+			else if (refreshInterval >= 0 &&
+					System.nanoTime() - cachedTime > TimeUnit.MILLISECONDS.toNanos(refreshInterval)) {
+				refreshDestination();
+			}
+			return uri;
 		}
 		else {
 			return lookupDestination();
 		}
 	}
 
+	private void refreshDestination() {
+		if (!refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			taskExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						URI uri = lookupDestination();
+						if (uri != null) {
+							cachedUri = uri;
+						}
+					}
+					catch (RuntimeException ex) {
+						logger.warn("Could not refresh destination; retaining [" + cachedUri + "]", ex);
+					}
+					finally {
+						cachedTime = System.nanoTime();
+						refreshing.set(false);
+					}
+				}
+			});
+		}
+		catch (RuntimeException ex) {
+			refreshing.set(false);
+			logger.warn("Could not schedule destination refresh", ex);
+		}
+	}
+
 	/**
 	 * Abstract template method that looks up the URI.
 	 *
-	 * <p>If {@linkplain #setCache(boolean) caching}  is enabled, this method will only be called once.
+	 * <p>If {@linkplain #setCache(boolean) caching}  is enabled, this method will only be called once, unless a
+	 * {@linkplain #setRefreshInterval(long) refresh interval} is set.
 	 *
 	 * @return the destination URI
 	 */
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.destination;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.client.WebServiceClientException;
+import org.springframework.ws.client.support.interceptor.ClientInterceptorAdapter;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+
+/**
+ * {@link DestinationProvider} that balances requests over a fixed set of equivalent destination URIs.
+ *
+ * <p>The provider learns about the destinations by observing the requests sent to them, and therefore must also be
+ * registered as a {@linkplain org.springframework.ws.client.core.WebServiceTemplate#setInterceptors interceptor} on
+ * the template it provides destinations for. Depending on the {@link #setSelection(Selection) selection}, it picks the
+ * destination with the fewest outstanding requests, or the one with the lowest exponentially weighted moving average
+ * latency, weighted by its outstanding requests.
+ *
+ * <p>A destination that fails {@link #setMaxFailures(int) maxFailures} consecutive requests is ejected for the
+ * {@link #setEjectionTime(long) ejectionTime}. Once the ejection time has elapsed, a single failure ejects it again,
+ * while a single success restores it. If all destinations are ejected, one is returned regardless. SOAP faults do not
+ * count as failures, but error responses, such as HTTP errors, do.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class LoadBalancingDestinationProvider extends ClientInterceptorAdapter implements DestinationProvider {
+
+	/** The strategies for selecting a destination. */
+	public enum Selection {
+
+		/** Selects the destination with the fewest outstanding requests. */
+		LEAST_OUTSTANDING,
+
+		/**
+		 * Selects the destination with the lowest moving average latency, multiplied by its outstanding requests plus
+		 * one. Destinations without latency samples are preferred.
+		 */
+		EWMA_LATENCY
+	}
+
+	private final String sampleProperty =
+			LoadBalancingDestinationProvider.class.getName() + ".SAMPLE." + System.identityHashCode(this);
+
+	private final Member[] members;
+
+	private final Map<URI, Member> membersByUri = new HashMap<URI, Member>();
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	private Selection selection = Selection.LEAST_OUTSTANDING;
+
+	private int maxFailures = 3;
+
+	private long ejectionTime = 30000;
+
+	private double smoothingFactor = 0.3;
+
+	/**
+	 * Creates a new {@code LoadBalancingDestinationProvider} for the given destinations.
+	 *
+	 * @param destinations the destination URIs
+	 */
+	public LoadBalancingDestinationProvider(List<URI> destinations) {
+		Assert.notEmpty(destinations, "'destinations' must not be empty");
+		members = new Member[destinations.size()];
+		for (int i = 0; i < members.length; i++) {
+			URI uri = destinations.get(i);
+			Assert.notNull(uri, "'destinations' must not contain null");
+			members[i] = new Member(uri);
+			membersByUri.put(uri, members[i]);
+		}
+	}
+
+	/** Sets the selection strategy. Defaults to {@link Selection#LEAST_OUTSTANDING}. */
+	public void setSelection(Selection selection) {
+		Assert.notNull(selection, "'selection' must not be null");
+		this.selection = selection;
+	}
+
+	/** Sets the number of consecutive failures after which a destination is ejected. Defaults to 3. */
+	public void setMaxFailures(int maxFailures) {
+		Assert.isTrue(maxFailures > 0, "'maxFailures' must be larger than 0");
+		this.maxFailures = maxFailures;
+	}
+
+	/** Sets the time, in milliseconds, for which a failing destination is ejected. Defaults to 30 seconds. */
+	public void setEjectionTime(long ejectionTime) {
+		Assert.isTrue(ejectionTime >= 0, "'ejectionTime' must not be negative");
+		this.ejectionTime = ejectionTime;
+	}
+
+	/**
+	 * Sets the weight given to a new latency sample in the moving average, between 0 and 1. Defaults to 0.3. Only used
+	 * for {@link Selection#EWMA_LATENCY}.
+	 */
+	public void setSmoothingFactor(double smoothingFactor) {
+		Assert.isTrue(smoothingFactor > 0 && smoothingFactor <= 1, "'smoothingFactor' must be in (0, 1]");
+		this.smoothingFactor = smoothingFactor;
+	}
+
+	/**
+	 * Indicates whether the given destination is currently ejected.
+	 *
+	 * @param destination the destination URI
+	 * @return {@code true} if ejected; {@code false} otherwise, or if the destination is unknown
+	 */
+	public boolean isEjected(URI destination) {
+		Member member = membersByUri.get(destination);
+		return member != null && member.isEjected(System.nanoTime());
+	}
+
+	@Override
+	public URI getDestination() {
+		long now = System.nanoTime();
+		int start = (counter.getAndIncrement() & Integer.MAX_VALUE) % members.length;
+		Member selected = null;
+		double selectedScore = 0;
+		for (int i = 0; i < members.length; i++) {
+			Member member = members[(start + i) % members.length];
+			if (member.isEjected(now)) {
+				continue;
+			}
+			double score = score(member);
+			if (selected == null || score < selectedScore) {
+				selected = member;
+				selectedScore = score;
+			}
+		}
+		if (selected == null) {
+			selected = members[start];
+			if (logger.isDebugEnabled()) {
+				logger.debug("All destinations are ejected; using [" + selected.uri + "]");
+			}
+		}
+		return selected.uri;
+	}
+
+	private double score(Member member) {
+		int outstanding = member.outstanding.get();
+		if (selection == Selection.EWMA_LATENCY) {
+			return member.latency * (outstanding + 1);
+		}
+		return outstanding;
+	}
+
+	@Override
+	public boolean handleRequest(MessageContext messageContext) throws WebServiceClientException {
+		Member member = getMember();
+		if (member != null) {
+			member.outstanding.incrementAndGet();
+			messageContext.setProperty(sampleProperty, new Sample(member, System.nanoTime()));
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(MessageContext messageContext, Exception ex) throws WebServiceClientException {
+		Sample sample = (Sample) messageContext.getProperty(sampleProperty);
+		if (sample == null) {
+			return;
+		}
+		messageContext.removeProperty(sampleProperty);
+		Member member = sample.member;
+		member.outstanding.decrementAndGet();
+		long now = System.nanoTime();
+		if (ex == null) {
+			member.failures.set(0);
+			member.ejectedUntil = 0;
+			member.recordLatency(now - sample.start, smoothingFactor);
+		}
+		else if (member.failures.incrementAndGet() >= maxFailures) {
+			member.ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(ejectionTime);
+			if (logger.isWarnEnabled()) {
+				logger.warn("Ejecting destination [" + member.uri + "] for " + ejectionTime + " ms after " +
+						member.failures.get() + " consecutive failures");
+			}
+		}
+	}
+
+	private Member getMember() {
+		TransportContext transportContext = TransportContextHolder.getTransportContext();
+		if (transportContext != null) {
+			try {
+				return membersByUri.get(transportContext.getConnection().getUri());
+			}
+			catch (URISyntaxException ex) {
+				// fall through
+			}
+		}
+		return null;
+	}
+
+	private static class Member {
+
+		private final URI uri;
+
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		private final AtomicInteger failures = new AtomicInteger();
+
+		private volatile long ejectedUntil;
+
+		private volatile double latency;
+
+		private Member(URI uri) {
+			this.uri = uri;
+		}
+
+		private boolean isEjected(long now) {
+			long until = ejectedUntil;
+			return until != 0 && until - now > 0;
+		}
+
+		private synchronized void recordLatency(long sample, double smoothingFactor) {
+			latency = latency == 0 ? sample : latency + smoothingFactor * (sample - latency);
+		}
+	}
+
+	private static class Sample {
+
+		private final Member member;
+
+		private final long start;
+
+		private Sample(Member member, long start) {
+			this.member = member;
+			this.start = start;
+		}
+	}
+
+}
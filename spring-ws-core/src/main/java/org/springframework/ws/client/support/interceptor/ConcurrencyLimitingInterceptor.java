@@ -0,0 +1,169 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.interceptor;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.util.Assert;
+import org.springframework.ws.client.WebServiceClientException;
+import org.springframework.ws.client.support.limit.AimdConcurrencyLimit;
+import org.springframework.ws.client.support.limit.ConcurrencyLimit;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+
+/**
+ * Interceptor that limits the number of concurrent requests per destination URI, so that callers fail fast rather than
+ * pile up on the connections to a slow destination. The limit of each destination is an adaptive {@link
+ * ConcurrencyLimit}, created by the {@link #setLimitFactory(ObjectFactory) limitFactory}; by default an {@link
+ * AimdConcurrencyLimit}.
+ *
+ * <p>Requests over the limit are rejected with a {@link WebServiceConcurrencyLimitException}, before they are sent.
+ * The round-trip time of every admitted request is fed back to the limit, and requests that ended with an exception,
+ * such as a read timeout, count as dropped.
+ *
+ * <p>This interceptor should be registered first, so that the round-trip times include the other interceptors as
+ * little as possible, while the rejection happens before any of them does work.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class ConcurrencyLimitingInterceptor extends ClientInterceptorAdapter {
+
+	private final String sampleProperty =
+			ConcurrencyLimitingInterceptor.class.getName() + ".SAMPLE." + System.identityHashCode(this);
+
+	private final ConcurrentMap<URI, Destination> destinations = new ConcurrentHashMap<URI, Destination>();
+
+	private ObjectFactory<? extends ConcurrencyLimit> limitFactory = new ObjectFactory<ConcurrencyLimit>() {
+
+		@Override
+		public ConcurrencyLimit getObject() {
+			return new AimdConcurrencyLimit();
+		}
+	};
+
+	/**
+	 * Sets the factory that creates the {@code ConcurrencyLimit} for each destination. The factory must return a new
+	 * instance on every call. Defaults to a factory of {@link AimdConcurrencyLimit} instances with default settings.
+	 *
+	 * @see org.springframework.beans.factory.config.ObjectFactoryCreatingFactoryBean
+	 */
+	public void setLimitFactory(ObjectFactory<? extends ConcurrencyLimit> limitFactory) {
+		Assert.notNull(limitFactory, "'limitFactory' must not be null");
+		this.limitFactory = limitFactory;
+	}
+
+	/**
+	 * Returns the current concurrency limit of the given destination.
+	 *
+	 * @param destination the destination URI
+	 * @return the limit, or {@code -1} if no request has been made to the destination
+	 */
+	public int getLimit(URI destination) {
+		Destination dest = destinations.get(destination);
+		return dest != null ? dest.limit.getLimit() : -1;
+	}
+
+	@Override
+	public boolean handleRequest(MessageContext messageContext) throws WebServiceClientException {
+		URI uri = getDestinationUri();
+		if (uri == null) {
+			return true;
+		}
+		Destination destination = getDestination(uri);
+		int limit = destination.limit.getLimit();
+		int inFlight = destination.inFlight.incrementAndGet();
+		if (inFlight > limit) {
+			destination.inFlight.decrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Concurrency limit of " + limit + " reached for [" + uri + "]; rejecting request");
+			}
+			throw new WebServiceConcurrencyLimitException(uri, limit);
+		}
+		messageContext.setProperty(sampleProperty, new Sample(destination, System.nanoTime(), inFlight));
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(MessageContext messageContext, Exception ex) throws WebServiceClientException {
+		Sample sample = (Sample) messageContext.getProperty(sampleProperty);
+		if (sample != null) {
+			messageContext.removeProperty(sampleProperty);
+			sample.destination.inFlight.decrementAndGet();
+			sample.destination.limit.onSample(System.nanoTime() - sample.start, sample.inFlight, ex != null);
+		}
+	}
+
+	private URI getDestinationUri() {
+		TransportContext transportContext = TransportContextHolder.getTransportContext();
+		if (transportContext != null) {
+			try {
+				return transportContext.getConnection().getUri();
+			}
+			catch (URISyntaxException ex) {
+				// fall through
+			}
+		}
+		return null;
+	}
+
+	private Destination getDestination(URI uri) {
+		Destination destination = destinations.get(uri);
+		if (destination == null) {
+			destination = new Destination(limitFactory.getObject());
+			Destination existing = destinations.putIfAbsent(uri, destination);
+			if (existing != null) {
+				destination = existing;
+			}
+		}
+		return destination;
+	}
+
+	private static class Destination {
+
+		private final ConcurrencyLimit limit;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private Destination(ConcurrencyLimit limit) {
+			Assert.notNull(limit, "limitFactory returned null");
+			this.limit = limit;
+		}
+	}
+
+	private static class Sample {
+
+		private final Destination destination;
+
+		private final long start;
+
+		private final int inFlight;
+
+		private Sample(Destination destination, long start, int inFlight) {
+			this.destination = destination;
+			this.start = start;
+			this.inFlight = inFlight;
+		}
+	}
+
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.FaultAwareWebServiceMessage;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.client.WebServiceClientException;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.WebServiceTransformerException;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessage;
+import org.springframework.ws.transport.HeadersAwareSenderWebServiceConnection;
+import org.springframework.ws.transport.TransportInputStream;
+import org.springframework.ws.transport.TransportOutputStream;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+import org.springframework.xml.transform.TransformerHelper;
+
+/**
+ * Interceptor that caches the responses of read-mostly operations on the client side. When a request is answered from
+ * the cache, it is not sent: the response is rebuilt from the cached bytes by the message factory of the template.
+ *
+ * <p>The cache key consists of the destination URI, the SOAP action, and a digest of the request payload, which is
+ * serialized in a normalized form. Only non-fault responses are cached; they expire after their {@link
+ * #setTimeToLive(long) time to live}. The cache holds at most {@link #setMaxEntries(int) maxEntries} responses,
+ * evicting the least recently used response when full, and responses larger than {@link #setMaxResponseSize(int)
+ * maxResponseSize} are not cached at all.
+ *
+ * <p>If the connection exposes the response headers, such as the HTTP connections do, a {@code Cache-Control} header
+ * is honoured: responses marked {@code no-store} or {@code no-cache} are not cached, and a {@code max-age} overrides
+ * the time to live. This can be disabled with the {@link #setHonorCacheControl(boolean) honorCacheControl}
+ * property.
+ *
+ * <p>This interceptor should only be used for operations whose responses depend on the request alone. It should be
+ * registered before interceptors that add unique content to every request, such as WS-Security timestamps, as such
+ * requests would never match a cached response.
+ *
+ * <p>Messages whose payload can only be read once, such as Axiom messages without {@linkplain
+ * org.springframework.ws.soap.axiom.AxiomSoapMessageFactory#setPayloadCaching(boolean) payload caching}, are not
+ * cached, as capturing them would consume them before the response is extracted.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class ResponseCachingInterceptor extends ClientInterceptorAdapter {
+
+	/** The default time, in milliseconds, that a cached response remains valid. */
+	public static final long DEFAULT_TIME_TO_LIVE = 60000;
+
+	/** The default maximum number of cached responses. */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	/** The default maximum size, in bytes, of a cached response. */
+	public static final int DEFAULT_MAX_RESPONSE_SIZE = 64 * 1024;
+
+	private static final String CACHE_CONTROL_HEADER = "Cache-Control";
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private static final boolean axiomPresent =
+			ClassUtils.isPresent("org.apache.axiom.om.OMElement", ResponseCachingInterceptor.class.getClassLoader());
+
+	private final String cacheKeyProperty =
+			ResponseCachingInterceptor.class.getName() + ".CACHE_KEY." + System.identityHashCode(this);
+
+	private final TransformerHelper transformerHelper = new TransformerHelper();
+
+	private final Map<CacheKey, CachedResponse> cache = new LinkedHashMap<CacheKey, CachedResponse>(16, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedResponse> eldest) {
+			return size() > maxEntries;
+		}
+	};
+
+	private long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private int maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
+
+	private boolean honorCacheControl = true;
+
+	/** Sets the time, in milliseconds, that a cached response remains valid. Defaults to one minute. */
+	public void setTimeToLive(long timeToLive) {
+		Assert.isTrue(timeToLive > 0, "'timeToLive' must be larger than 0");
+		this.timeToLive = timeToLive;
+	}
+
+	/** Sets the maximum number of cached responses. Defaults to {@link #DEFAULT_MAX_ENTRIES}. */
+	public void setMaxEntries(int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "'maxEntries' must be larger than 0");
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Sets the maximum size, in bytes, of a cached response. Larger responses are not cached. Defaults to {@link
+	 * #DEFAULT_MAX_RESPONSE_SIZE}.
+	 */
+	public void setMaxResponseSize(int maxResponseSize) {
+		Assert.isTrue(maxResponseSize > 0, "'maxResponseSize' must be larger than 0");
+		this.maxResponseSize = maxResponseSize;
+	}
+
+	/**
+	 * Indicates whether the {@code Cache-Control} header of responses is honoured, if the connection exposes it.
+	 * Defaults to {@code true}.
+	 */
+	public void setHonorCacheControl(boolean honorCacheControl) {
+		this.honorCacheControl = honorCacheControl;
+	}
+
+	/** Returns the number of cached responses, including expired responses that have not been evicted yet. */
+	public int getCacheSize() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Removes all cached responses from the given destination.
+	 *
+	 * @param destination the destination URI
+	 */
+	public void invalidate(URI destination) {
+		synchronized (cache) {
+			for (Iterator<CacheKey> iterator = cache.keySet().iterator(); iterator.hasNext();) {
+				if (iterator.next().uri.equals(destination)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/** Removes all cached responses. */
+	public void invalidateAll() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/** Sets the response from the cache, if possible, so that the request is not sent. */
+	@Override
+	public boolean handleRequest(MessageContext messageContext) throws WebServiceClientException {
+		WebServiceConnection connection = getConnection();
+		if (connection == null || !isRepeatable(messageContext.getRequest())) {
+			return true;
+		}
+		CacheKey key = createKey(connection, messageContext.getRequest());
+		if (key == null) {
+			return true;
+		}
+		CachedResponse cachedResponse = getCachedResponse(key);
+		if (cachedResponse != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Answering request to [" + key.uri + "] from cache");
+			}
+			try {
+				messageContext.readResponse(new CachedResponseInputStream(cachedResponse));
+			}
+			catch (IOException ex) {
+				throw new WebServiceIOException("Could not read cached response: " + ex.getMessage(), ex);
+			}
+		}
+		else {
+			messageContext.setProperty(cacheKeyProperty, key);
+		}
+		return true;
+	}
+
+	/** Caches the response, if it was received rather than taken from the cache. */
+	@Override
+	public boolean handleResponse(MessageContext messageContext) throws WebServiceClientException {
+		CacheKey key = (CacheKey) messageContext.getProperty(cacheKeyProperty);
+		if (key == null) {
+			return true;
+		}
+		messageContext.removeProperty(cacheKeyProperty);
+		WebServiceMessage response = messageContext.getResponse();
+		if (response instanceof FaultAwareWebServiceMessage && ((FaultAwareWebServiceMessage) response).hasFault()) {
+			return true;
+		}
+		if (!isRepeatable(response)) {
+			return true;
+		}
+		try {
+			long responseTimeToLive = getTimeToLive(getConnection());
+			if (responseTimeToLive <= 0) {
+				return true;
+			}
+			ResponseCapture capture = new ResponseCapture();
+			response.writeTo(capture);
+			if (capture.content.size() <= maxResponseSize) {
+				CachedResponse cachedResponse = new CachedResponse(capture.content.toByteArray(), capture.headers,
+						System.currentTimeMillis() + responseTimeToLive);
+				synchronized (cache) {
+					cache.put(key, cachedResponse);
+				}
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Response from [" + key.uri + "] exceeds " + maxResponseSize + " bytes; not caching it");
+			}
+		}
+		catch (IOException ex) {
+			throw new WebServiceIOException("Could not cache response: " + ex.getMessage(), ex);
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(MessageContext messageContext, Exception ex) throws WebServiceClientException {
+		messageContext.removeProperty(cacheKeyProperty);
+	}
+
+	/** Indicates whether the given message can be read or written without consuming it. */
+	private boolean isRepeatable(WebServiceMessage message) {
+		return !axiomPresent || AxiomPayloads.isRepeatable(message);
+	}
+
+	private WebServiceConnection getConnection() {
+		TransportContext transportContext = TransportContextHolder.getTransportContext();
+		return transportContext != null ? transportContext.getConnection() : null;
+	}
+
+	/**
+	 * Returns the time to live of the received response, taking the {@code Cache-Control} header into account.
+	 *
+	 * @return the time to live, in milliseconds; 0 if the response must not be cached
+	 */
+	private long getTimeToLive(WebServiceConnection connection) throws IOException {
+		if (!honorCacheControl || !(connection instanceof HeadersAwareSenderWebServiceConnection)) {
+			return timeToLive;
+		}
+		long responseTimeToLive = timeToLive;
+		Iterator<String> headers =
+				((HeadersAwareSenderWebServiceConnection) connection).getResponseHeaders(CACHE_CONTROL_HEADER);
+		while (headers.hasNext()) {
+			for (String directive : StringUtils.commaDelimitedListToStringArray(headers.next())) {
+				directive = directive.trim().toLowerCase();
+				if ("no-store".equals(directive) || "no-cache".equals(directive)) {
+					return 0;
+				}
+				else if (directive.startsWith("max-age=")) {
+					try {
+						responseTimeToLive = Long.parseLong(directive.substring(8).trim()) * 1000;
+					}
+					catch (NumberFormatException ex) {
+						// ignore invalid max-age
+					}
+				}
+			}
+		}
+		return responseTimeToLive;
+	}
+
+	private CacheKey createKey(WebServiceConnection connection, WebServiceMessage request) {
+		URI uri;
+		try {
+			uri = connection.getUri();
+		}
+		catch (URISyntaxException ex) {
+			return null;
+		}
+		String soapAction = request instanceof SoapMessage ? ((SoapMessage) request).getSoapAction() : null;
+		return new CacheKey(uri, soapAction, createDigest(request));
+	}
+
+	/** Creates a digest of the request payload, by serializing it without XML declaration. */
+	private String createDigest(WebServiceMessage request) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Could not find " + DIGEST_ALGORITHM + " message digest", ex);
+		}
+		Source payloadSource = request.getPayloadSource();
+		if (payloadSource != null) {
+			try {
+				Transformer transformer = transformerHelper.createTransformer();
+				transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+				transformer.setOutputProperty(OutputKeys.INDENT, "no");
+				transformer.transform(payloadSource, new StreamResult(new DigestOutputStream(new NullOutputStream(),
+						digest)));
+			}
+			catch (TransformerException ex) {
+				throw new WebServiceTransformerException("Could not digest request payload: " + ex.getMessage(), ex);
+			}
+		}
+		byte[] bytes = digest.digest();
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+			builder.append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
+
+	private CachedResponse getCachedResponse(CacheKey key) {
+		synchronized (cache) {
+			CachedResponse cachedResponse = cache.get(key);
+			if (cachedResponse != null && cachedResponse.expirationTime <= System.currentTimeMillis()) {
+				cache.remove(key);
+				return null;
+			}
+			return cachedResponse;
+		}
+	}
+
+	private static class CacheKey {
+
+		private final URI uri;
+
+		private final String soapAction;
+
+		private final String digest;
+
+		private CacheKey(URI uri, String soapAction, String digest) {
+			this.uri = uri;
+			this.soapAction = soapAction;
+			this.digest = digest;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o instanceof CacheKey) {
+				CacheKey other = (CacheKey) o;
+				return uri.equals(other.uri) && digest.equals(other.digest) &&
+						(soapAction != null ? soapAction.equals(other.soapAction) : other.soapAction == null);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = uri.hashCode();
+			result = 31 * result + (soapAction != null ? soapAction.hashCode() : 0);
+			return 31 * result + digest.hashCode();
+		}
+	}
+
+	private static class CachedResponse {
+
+		private final byte[] content;
+
+		private final Map<String, List<String>> headers;
+
+		private final long expirationTime;
+
+		private CachedResponse(byte[] content, Map<String, List<String>> headers, long expirationTime) {
+			this.content = content;
+			this.headers = headers;
+			this.expirationTime = expirationTime;
+		}
+	}
+
+	/** Inner class to avoid a hard dependency on Axiom. */
+	private static class AxiomPayloads {
+
+		private static boolean isRepeatable(WebServiceMessage message) {
+			return !(message instanceof AxiomSoapMessage) || ((AxiomSoapMessage) message).isPayloadCaching();
+		}
+	}
+
+	/** Transport stream that captures the bytes and headers written to it. */
+	private static class ResponseCapture extends TransportOutputStream {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+
+		@Override
+		public void addHeader(String name, String value) throws IOException {
+			List<String> values = headers.get(name);
+			if (values == null) {
+				values = new ArrayList<String>(1);
+				headers.put(name, values);
+			}
+			values.add(value);
+		}
+
+		@Override
+		protected OutputStream createOutputStream() throws IOException {
+			return content;
+		}
+	}
+
+	private static class CachedResponseInputStream extends TransportInputStream {
+
+		private final CachedResponse cachedResponse;
+
+		private CachedResponseInputStream(CachedResponse cachedResponse) {
+			this.cachedResponse = cachedResponse;
+		}
+
+		@Override
+		protected InputStream createInputStream() throws IOException {
+			return new ByteArrayInputStream(cachedResponse.content);
+		}
+
+		@Override
+		public Iterator<String> getHeaderNames() throws IOException {
+			return cachedResponse.headers.keySet().iterator();
+		}
+
+		@Override
+		public Iterator<String> getHeaders(String name) throws IOException {
+			List<String> values = cachedResponse.headers.get(name);
+			return values != null ? values.iterator() : Collections.<String>emptyList().iterator();
+		}
+	}
+
+	private static class NullOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.interceptor;
+
+import java.net.URI;
+
+import org.springframework.ws.client.WebServiceClientException;
+
+/**
+ * Exception thrown when a request is rejected because the concurrency limit of its destination has been reached.
+ *
+ * @author agent
+ * @see ConcurrencyLimitingInterceptor
+ * @since 3.0.1
+ */
+@SuppressWarnings("serial")
+public class WebServiceConcurrencyLimitException extends WebServiceClientException {
+
+	private final URI destination;
+
+	private final int limit;
+
+	/**
+	 * Create a new instance of the {@code WebServiceConcurrencyLimitException} class.
+	 *
+	 * @param destination the destination of the rejected request
+	 * @param limit		  the concurrency limit that was reached
+	 */
+	public WebServiceConcurrencyLimitException(URI destination, int limit) {
+		super("Concurrency limit of " + limit + " reached for [" + destination + "]");
+		this.destination = destination;
+		this.limit = limit;
+	}
+
+	/** Returns the destination of the rejected request. */
+	public URI getDestination() {
+		return destination;
+	}
+
+	/** Returns the concurrency limit that was reached. */
+	public int getLimit() {
+		return limit;
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.limit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link ConcurrencyLimit} that uses additive increase, multiplicative decrease (AIMD). The limit grows by one for
+ * every successful request that used at least half of it, and is multiplied by the {@link #setBackoffRatio(double)
+ * backoff ratio} for every request that failed, or took longer than the {@link #setLatencyThreshold(long) latency
+ * threshold}.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class AimdConcurrencyLimit implements ConcurrencyLimit {
+
+	private int minLimit = 1;
+
+	private int maxLimit = 200;
+
+	private double backoffRatio = 0.9;
+
+	private long latencyThreshold = TimeUnit.SECONDS.toNanos(5);
+
+	private volatile int limit = 20;
+
+	/** Sets the initial limit. Defaults to 20. */
+	public void setInitialLimit(int initialLimit) {
+		Assert.isTrue(initialLimit > 0, "'initialLimit' must be positive");
+		this.limit = initialLimit;
+	}
+
+	/** Sets the minimum limit. Defaults to 1. */
+	public void setMinLimit(int minLimit) {
+		Assert.isTrue(minLimit > 0, "'minLimit' must be positive");
+		this.minLimit = minLimit;
+	}
+
+	/** Sets the maximum limit. Defaults to 200. */
+	public void setMaxLimit(int maxLimit) {
+		Assert.isTrue(maxLimit > 0, "'maxLimit' must be positive");
+		this.maxLimit = maxLimit;
+	}
+
+	/** Sets the ratio by which the limit is multiplied after a failed or slow request. Defaults to 0.9. */
+	public void setBackoffRatio(double backoffRatio) {
+		Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "'backoffRatio' must be between 0 and 1");
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * Sets the round-trip time, in milliseconds, above which a request is considered slow. Defaults to 5 seconds.
+	 */
+	public void setLatencyThreshold(long latencyThreshold) {
+		Assert.isTrue(latencyThreshold > 0, "'latencyThreshold' must be positive");
+		this.latencyThreshold = TimeUnit.MILLISECONDS.toNanos(latencyThreshold);
+	}
+
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public synchronized void onSample(long rtt, int inFlight, boolean dropped) {
+		int currentLimit = limit;
+		if (dropped || rtt > latencyThreshold) {
+			limit = Math.max(minLimit, Math.min(maxLimit, (int) (currentLimit * backoffRatio)));
+		}
+		else if (inFlight * 2 >= currentLimit) {
+			limit = Math.max(minLimit, Math.min(maxLimit, currentLimit + 1));
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.limit;
+
+/**
+ * Strategy interface for adaptive concurrency limits, which adjust the number of concurrent requests to a destination
+ * based on the observed latencies and failures. Implementations must be thread-safe.
+ *
+ * @author agent
+ * @see org.springframework.ws.client.support.interceptor.ConcurrencyLimitingInterceptor
+ * @since 3.0.1
+ */
+public interface ConcurrencyLimit {
+
+	/** Returns the current maximum number of concurrent requests. */
+	int getLimit();
+
+	/**
+	 * Updates the limit with the outcome of a completed request.
+	 *
+	 * @param rtt	   the round-trip time of the request, in nanoseconds
+	 * @param inFlight the number of concurrent requests when the request was started, including itself
+	 * @param dropped  {@code true} if the request failed, for instance due to a timeout; {@code false} otherwise
+	 */
+	void onSample(long rtt, int inFlight, boolean dropped);
+
+}
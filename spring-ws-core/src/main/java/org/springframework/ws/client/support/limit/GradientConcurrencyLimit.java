@@ -0,0 +1,123 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.limit;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link ConcurrencyLimit} that adjusts the limit to the gradient between the minimum observed round-trip time, which
+ * approximates the latency of an unloaded destination, and the latest round-trip time. When latencies rise because
+ * requests start to queue at the destination, the limit shrinks proportionally; while they remain close to the
+ * minimum, it grows by the square root of the limit.
+ *
+ * <p>The minimum round-trip time is re-measured every {@link #setProbeInterval(int) probeInterval} requests, so that
+ * the limit follows lasting changes in the latency of the destination.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class GradientConcurrencyLimit implements ConcurrencyLimit {
+
+	private int minLimit = 1;
+
+	private int maxLimit = 200;
+
+	private double tolerance = 1.5;
+
+	private double smoothing = 0.2;
+
+	private int probeInterval = 1000;
+
+	private double estimatedLimit = 20;
+
+	private volatile int limit = 20;
+
+	private long minRtt = Long.MAX_VALUE;
+
+	private int samples = 0;
+
+	/** Sets the initial limit. Defaults to 20. */
+	public void setInitialLimit(int initialLimit) {
+		Assert.isTrue(initialLimit > 0, "'initialLimit' must be positive");
+		this.estimatedLimit = initialLimit;
+		this.limit = initialLimit;
+	}
+
+	/** Sets the minimum limit. Defaults to 1. */
+	public void setMinLimit(int minLimit) {
+		Assert.isTrue(minLimit > 0, "'minLimit' must be positive");
+		this.minLimit = minLimit;
+	}
+
+	/** Sets the maximum limit. Defaults to 200. */
+	public void setMaxLimit(int maxLimit) {
+		Assert.isTrue(maxLimit > 0, "'maxLimit' must be positive");
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * Sets the factor by which round-trip times may exceed the minimum before the limit shrinks. Defaults to 1.5.
+	 */
+	public void setTolerance(double tolerance) {
+		Assert.isTrue(tolerance >= 1, "'tolerance' must be at least 1");
+		this.tolerance = tolerance;
+	}
+
+	/** Sets the weight of a new sample in the limit, between 0 and 1. Defaults to 0.2. */
+	public void setSmoothing(double smoothing) {
+		Assert.isTrue(smoothing > 0 && smoothing <= 1, "'smoothing' must be between 0 and 1");
+		this.smoothing = smoothing;
+	}
+
+	/** Sets the number of requests after which the minimum round-trip time is re-measured. Defaults to 1000. */
+	public void setProbeInterval(int probeInterval) {
+		Assert.isTrue(probeInterval > 0, "'probeInterval' must be positive");
+		this.probeInterval = probeInterval;
+	}
+
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public synchronized void onSample(long rtt, int inFlight, boolean dropped) {
+		if (++samples >= probeInterval) {
+			samples = 0;
+			minRtt = Long.MAX_VALUE;
+		}
+		if (!dropped && rtt > 0) {
+			minRtt = Math.min(minRtt, rtt);
+		}
+		double newLimit;
+		if (dropped) {
+			newLimit = estimatedLimit / 2;
+		}
+		else if (inFlight * 2 < estimatedLimit) {
+			// the limit was not the constraint, so the sample says nothing about it
+			return;
+		}
+		else {
+			double gradient = Math.max(0.5, Math.min(1.0, tolerance * minRtt / rtt));
+			newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+		}
+		newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+		limit = (int) estimatedLimit;
+	}
+
+}
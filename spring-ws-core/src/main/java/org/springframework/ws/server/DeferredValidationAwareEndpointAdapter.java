@@ -0,0 +1,35 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server;
+
+/**
+ * Sub-interface of {@link EndpointAdapter} that is implemented by adapters that complete {@linkplain
+ * org.springframework.ws.server.endpoint.support.DeferredRequestValidation deferred request validations} themselves.
+ *
+ * <p>Such adapters validate the request payload while unmarshalling it, and must {@linkplain
+ * org.springframework.ws.server.endpoint.support.DeferredRequestValidation#validatePending(org.springframework.ws.context.MessageContext)
+ * perform} a validation that is still pending before invoking the endpoint, and not invoke it if the request was
+ * rejected. For all other adapters, the {@link MessageDispatcher} validates the request payload as a whole before
+ * invoking the adapter.
+ *
+ * @author agent
+ * @see org.springframework.ws.server.endpoint.adapter.DefaultMethodEndpointAdapter
+ * @since 3.0.1
+ */
+public interface DeferredValidationAwareEndpointAdapter extends EndpointAdapter {
+
+}
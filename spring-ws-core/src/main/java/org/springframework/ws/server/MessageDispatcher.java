@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,7 @@ import org.springframework.core.OrderComparator;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.ws.EndpointUnavailableException;
 import org.springframework.ws.FaultAwareWebServiceMessage;
 import org.springframework.ws.NoEndpointFoundException;
 import org.springframework.ws.WebServiceMessage;
@@ -43,6 +44,8 @@ import org.springframework.ws.server.endpoint.MessageEndpoint;
 import org.springframework.ws.server.endpoint.PayloadEndpoint;
 import org.springframework.ws.server.endpoint.adapter.MessageEndpointAdapter;
 import org.springframework.ws.server.endpoint.adapter.PayloadEndpointAdapter;
+import org.springframework.ws.server.endpoint.support.DeferredRequestValidation;
+import org.springframework.ws.server.observation.MessageDispatcherObserver;
 import org.springframework.ws.soap.server.SoapMessageDispatcher;
 import org.springframework.ws.support.DefaultStrategiesHelper;
 import org.springframework.ws.transport.WebServiceMessageReceiver;
@@ -69,6 +72,9 @@ import org.springframework.ws.transport.WebServiceMessageReceiver;
  * property.</li>
  * </ul>
  *
+ * <p>The exchanges handled by this dispatcher can be observed, for instance to record metrics, by setting a {@link
+ * MessageDispatcherObserver} via the {@link #setObserver(MessageDispatcherObserver) observer} property.
+ *
  * @author Arjen Poutsma
  * @see EndpointMapping
  * @see EndpointAdapter
@@ -113,6 +119,9 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 	/** List of EndpointMappings used in this dispatcher. */
 	private List<EndpointMapping> endpointMappings;
 
+	/** The observer of this dispatcher, if any. */
+	private MessageDispatcherObserver observer;
+
 	/** Initializes a new instance of the {@code MessageDispatcher}. */
 	public MessageDispatcher() {
 		defaultStrategiesHelper = new DefaultStrategiesHelper(getClass());
@@ -148,6 +157,19 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 		this.endpointMappings = endpointMappings;
 	}
 
+	/** Returns the {@code MessageDispatcherObserver} used by this {@code MessageDispatcher}, if any. */
+	public MessageDispatcherObserver getObserver() {
+		return observer;
+	}
+
+	/**
+	 * Sets the {@code MessageDispatcherObserver} to notify of the exchanges handled by this {@code MessageDispatcher}.
+	 * Default is none, in which case no timings are taken at all.
+	 */
+	public void setObserver(MessageDispatcherObserver observer) {
+		this.observer = observer;
+	}
+
 	@Override
 	public final void setBeanName(String beanName) {
 		this.beanName = beanName;
@@ -173,7 +195,12 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 		else if (receivedMessageTracingLogger.isDebugEnabled()) {
 			receivedMessageTracingLogger.debug("Received request [" + messageContext.getRequest() + "]");
 		}
-		dispatch(messageContext);
+		if (observer != null) {
+			dispatchObserved(messageContext);
+		}
+		else {
+			dispatch(messageContext);
+		}
 		if (messageContext.hasResponse()) {
 			WebServiceMessage response = messageContext.getResponse();
 			if (sentMessageTracingLogger.isTraceEnabled()) {
@@ -193,6 +220,21 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 		}
 	}
 
+	private void dispatchObserved(MessageContext messageContext) throws Exception {
+		long start = System.nanoTime();
+		Exception failure = null;
+		try {
+			dispatch(messageContext);
+		}
+		catch (Exception ex) {
+			failure = ex;
+			throw ex;
+		}
+		finally {
+			observer.messageDispatched(messageContext, System.nanoTime() - start, failure);
+		}
+	}
+
 	private String getMessageContent(WebServiceMessage message) throws IOException {
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
 		message.writeTo(bos);
@@ -224,7 +266,7 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 					for (int i = 0; i < mappedEndpoint.getInterceptors().length; i++) {
 						EndpointInterceptor interceptor = mappedEndpoint.getInterceptors()[i];
 						interceptorIndex = i;
-						if (!interceptor.handleRequest(messageContext, mappedEndpoint.getEndpoint())) {
+						if (!handleRequest(interceptor, mappedEndpoint.getEndpoint(), messageContext)) {
 							triggerHandleResponse(mappedEndpoint, interceptorIndex, messageContext);
 							triggerAfterCompletion(mappedEndpoint, interceptorIndex, messageContext, null);
 							return;
@@ -233,7 +275,16 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 				}
 				// Actually invoke the endpoint
 				EndpointAdapter endpointAdapter = getEndpointAdapter(mappedEndpoint.getEndpoint());
-				endpointAdapter.invoke(messageContext, mappedEndpoint.getEndpoint());
+				// Other adapters do not validate deferred request validations while unmarshalling
+				if (endpointAdapter instanceof DeferredValidationAwareEndpointAdapter ||
+						DeferredRequestValidation.validatePending(messageContext)) {
+					if (observer != null) {
+						invokeObserved(endpointAdapter, mappedEndpoint.getEndpoint(), messageContext);
+					}
+					else {
+						endpointAdapter.invoke(messageContext, mappedEndpoint.getEndpoint());
+					}
+				}
 
 				// Apply handleResponse methods of registered interceptors
 				triggerHandleResponse(mappedEndpoint, interceptorIndex, messageContext);
@@ -245,6 +296,10 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 				}
 				throw ex;
 			}
+			catch (EndpointUnavailableException ex) {
+				// Not resolved, so that the transport can signal the unavailability
+				throw ex;
+			}
 			catch (Exception ex) {
 				Object endpoint = mappedEndpoint != null ? mappedEndpoint.getEndpoint() : null;
 				processEndpointException(messageContext, endpoint, ex);
@@ -262,12 +317,43 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 		}
 	}
 
+	private boolean handleRequest(EndpointInterceptor interceptor, Object endpoint, MessageContext messageContext)
+			throws Exception {
+		if (observer == null) {
+			return interceptor.handleRequest(messageContext, endpoint);
+		}
+		long start = System.nanoTime();
+		try {
+			return interceptor.handleRequest(messageContext, endpoint);
+		}
+		finally {
+			observer.requestIntercepted(messageContext, interceptor, System.nanoTime() - start);
+		}
+	}
+
+	private void invokeObserved(EndpointAdapter endpointAdapter, Object endpoint, MessageContext messageContext)
+			throws Exception {
+		long start = System.nanoTime();
+		Exception failure = null;
+		try {
+			endpointAdapter.invoke(messageContext, endpoint);
+		}
+		catch (Exception ex) {
+			failure = ex;
+			throw ex;
+		}
+		finally {
+			observer.endpointInvoked(messageContext, endpoint, System.nanoTime() - start, failure);
+		}
+	}
+
 	/**
 	 * Returns the endpoint for this request. All endpoint mappings are tried, in order.
 	 *
 	 * @return the {@code EndpointInvocationChain}, or {@code null} if no endpoint could be found.
 	 */
 	protected EndpointInvocationChain getEndpoint(MessageContext messageContext) throws Exception {
+		long start = observer != null ? System.nanoTime() : 0L;
 		for (EndpointMapping endpointMapping : getEndpointMappings()) {
 			EndpointInvocationChain endpoint = endpointMapping.getEndpoint(messageContext);
 			if (endpoint != null) {
@@ -275,12 +361,18 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 					logger.debug("Endpoint mapping [" + endpointMapping + "] maps request to endpoint [" +
 							endpoint.getEndpoint() + "]");
 				}
+				if (observer != null) {
+					observer.endpointMapped(messageContext, endpointMapping, System.nanoTime() - start);
+				}
 				return endpoint;
 			}
 			else if (logger.isDebugEnabled()) {
 				logger.debug("Endpoint mapping [" + endpointMapping + "] has no mapping for request");
 			}
 		}
+		if (observer != null) {
+			observer.endpointMapped(messageContext, null, System.nanoTime() - start);
+		}
 		return null;
 	}
 
@@ -367,12 +459,16 @@ public class MessageDispatcher implements WebServiceMessageReceiver, BeanNameAwa
 			boolean resume = true;
 			for (int i = interceptorIndex; resume && i >= 0; i--) {
 				EndpointInterceptor interceptor = mappedEndpoint.getInterceptors()[i];
+				long start = observer != null ? System.nanoTime() : 0L;
 				if (!hasFault) {
 					resume = interceptor.handleResponse(messageContext, mappedEndpoint.getEndpoint());
 				}
 				else {
 					resume = interceptor.handleFault(messageContext, mappedEndpoint.getEndpoint());
 				}
+				if (observer != null) {
+					observer.responseIntercepted(messageContext, interceptor, hasFault, System.nanoTime() - start);
+				}
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import org.springframework.core.MethodParameter;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.DeferredValidationAwareEndpointAdapter;
 import org.springframework.ws.server.endpoint.MethodEndpoint;
 import org.springframework.ws.server.endpoint.adapter.method.MessageContextMethodArgumentResolver;
 import org.springframework.ws.server.endpoint.adapter.method.MethodArgumentResolver;
@@ -40,6 +41,7 @@ import org.springframework.ws.server.endpoint.adapter.method.dom.JDomPayloadMeth
 import org.springframework.ws.server.endpoint.adapter.method.dom.XomPayloadMethodProcessor;
 import org.springframework.ws.server.endpoint.adapter.method.jaxb.JaxbElementPayloadMethodProcessor;
 import org.springframework.ws.server.endpoint.adapter.method.jaxb.XmlRootElementPayloadMethodProcessor;
+import org.springframework.ws.server.endpoint.support.DeferredRequestValidation;
 
 /**
  * Default extension of {@link AbstractMethodEndpointAdapter} with support for pluggable {@linkplain
@@ -49,7 +51,7 @@ import org.springframework.ws.server.endpoint.adapter.method.jaxb.XmlRootElement
  * @since 2.0
  */
 public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
-		implements BeanClassLoaderAware, InitializingBean {
+		implements DeferredValidationAwareEndpointAdapter, BeanClassLoaderAware, InitializingBean {
 
 	private static final String DOM4J_CLASS_NAME = "org.dom4j.Element";
 
@@ -283,6 +285,12 @@ public class DefaultMethodEndpointAdapter extends AbstractMethodEndpointAdapter
 	@Override
 	protected final void invokeInternal(MessageContext messageContext, MethodEndpoint methodEndpoint) throws Exception {
 		Object[] args = getMethodArguments(messageContext, methodEndpoint);
+		if (!DeferredRequestValidation.validatePending(messageContext)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Request rejected by validation; not invoking [" + methodEndpoint + "]");
+			}
+			return;
+		}
 
 		if (logger.isTraceEnabled()) {
 			logger.trace("Invoking [" + methodEndpoint + "] with arguments " + Arrays.asList(args));
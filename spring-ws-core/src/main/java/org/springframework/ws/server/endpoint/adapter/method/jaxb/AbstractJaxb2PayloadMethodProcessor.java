@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,15 +22,22 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URL;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.JAXBIntrospector;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.UnmarshallerHandler;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.ValidationEventLocator;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLEventWriter;
@@ -42,21 +49,27 @@ import javax.xml.transform.Source;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
 
 import org.w3c.dom.Node;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.ext.LexicalHandler;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.endpoint.adapter.method.AbstractPayloadMethodProcessor;
+import org.springframework.ws.server.endpoint.support.DeferredRequestValidation;
 import org.springframework.ws.stream.StreamingPayload;
 import org.springframework.ws.stream.StreamingWebServiceMessage;
 import org.springframework.xml.transform.TraxUtils;
+import org.springframework.xml.validation.ValidationErrorHandler;
 
 /**
  * Abstract base class for {@link org.springframework.ws.server.endpoint.adapter.method.MethodArgumentResolver
@@ -66,12 +79,68 @@ import org.springframework.xml.transform.TraxUtils;
  * {@linkplain #unmarshalFromRequestPayload(org.springframework.ws.context.MessageContext, Class) unmarshalling}
  * methods.
  *
+ * <p>Marshallers and unmarshallers are expensive to create for some JAXB implementations, so they are pooled per
+ * {@code JAXBContext}. A marshaller or unmarshaller is used by one thread at a time, and only returned to the pool when
+ * it was used successfully. The number of idle instances kept per context can be set via the {@link
+ * #setPoolSize(int) poolSize} property; a pool size of 0 disables pooling.
+ *
+ * <p>When the validation of the request has been {@linkplain DeferredRequestValidation deferred}, for instance by a
+ * {@link org.springframework.ws.soap.server.endpoint.interceptor.PayloadValidatingInterceptor
+ * PayloadValidatingInterceptor}, the request payload is validated by the unmarshaller while it is being unmarshalled,
+ * so that it is read only once.
+ *
  * @author Arjen Poutsma
  * @since 2.0
  */
 public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloadMethodProcessor {
 
-	private final ConcurrentMap<Class<?>, JAXBContext> jaxbContexts = new ConcurrentHashMap<Class<?>, JAXBContext>();
+	/** The default number of idle marshallers and unmarshallers kept per JAXB context. */
+	public static final int DEFAULT_POOL_SIZE = 8;
+
+	private final ConcurrentMap<Class<?>, JaxbContextHolder> jaxbContexts =
+			new ConcurrentHashMap<Class<?>, JaxbContextHolder>();
+
+	private int poolSize = DEFAULT_POOL_SIZE;
+
+	private final AtomicLong marshallersCreated = new AtomicLong();
+
+	private final AtomicLong marshallersReused = new AtomicLong();
+
+	private final AtomicLong unmarshallersCreated = new AtomicLong();
+
+	private final AtomicLong unmarshallersReused = new AtomicLong();
+
+	/**
+	 * Sets the maximum number of idle marshallers, and the maximum number of idle unmarshallers, that are kept per
+	 * JAXB context. Defaults to {@value #DEFAULT_POOL_SIZE}. Setting this property to 0 disables pooling, so that a new
+	 * marshaller or unmarshaller is created for every message.
+	 *
+	 * <p>This property should be set before the first message is processed.
+	 */
+	public void setPoolSize(int poolSize) {
+		Assert.isTrue(poolSize >= 0, "'poolSize' must not be negative");
+		this.poolSize = poolSize;
+	}
+
+	/** Returns the number of marshallers created by this processor. */
+	public long getMarshallersCreated() {
+		return marshallersCreated.get();
+	}
+
+	/** Returns the number of times a pooled marshaller was reused by this processor. */
+	public long getMarshallersReused() {
+		return marshallersReused.get();
+	}
+
+	/** Returns the number of unmarshallers created by this processor. */
+	public long getUnmarshallersCreated() {
+		return unmarshallersCreated.get();
+	}
+
+	/** Returns the number of times a pooled unmarshaller was reused by this processor. */
+	public long getUnmarshallersReused() {
+		return unmarshallersReused.get();
+	}
 
 	@Override
 	public final void handleReturnValue(MessageContext messageContext,
@@ -104,14 +173,17 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 		if (response instanceof StreamingWebServiceMessage) {
 			StreamingWebServiceMessage streamingResponse = (StreamingWebServiceMessage) response;
 
-			StreamingPayload payload = new JaxbStreamingPayload(clazz, jaxbElement);
+			StreamingPayload payload = new JaxbStreamingPayload(getJaxbContextHolder(clazz), jaxbElement);
 			streamingResponse.setStreamingPayload(payload);
 		}
 		else {
 			Result responsePayload = response.getPayloadResult();
 			try {
-				Jaxb2ResultCallback callback = new Jaxb2ResultCallback(clazz, jaxbElement);
+				JaxbContextHolder holder = getJaxbContextHolder(clazz);
+				Marshaller marshaller = holder.borrowMarshaller();
+				Jaxb2ResultCallback callback = new Jaxb2ResultCallback(marshaller, jaxbElement);
 				TraxUtils.doWithResult(responsePayload, callback);
+				holder.releaseMarshaller(marshaller);
 			}
 			catch (Exception ex) {
 				throw convertToJaxbException(ex);
@@ -134,8 +206,12 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 			return null;
 		}
 		try {
-			Jaxb2SourceCallback callback = new Jaxb2SourceCallback(clazz);
-			TraxUtils.doWithSource(requestPayload, callback);
+			JaxbContextHolder holder = getJaxbContextHolder(clazz);
+			Unmarshaller unmarshaller = holder.borrowUnmarshaller();
+			Jaxb2SourceCallback callback = new Jaxb2SourceCallback(unmarshaller);
+			if (unmarshal(messageContext, requestPayload, unmarshaller, callback)) {
+				holder.releaseUnmarshaller(unmarshaller);
+			}
 			if (logger.isDebugEnabled()) {
 				logger.debug("Unmarshalled payload request to [" + callback.result + "]");
 			}
@@ -161,8 +237,12 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 			return null;
 		}
 		try {
-			JaxbElementSourceCallback<T> callback = new JaxbElementSourceCallback<T>(clazz);
-			TraxUtils.doWithSource(requestPayload, callback);
+			JaxbContextHolder holder = getJaxbContextHolder(clazz);
+			Unmarshaller unmarshaller = holder.borrowUnmarshaller();
+			JaxbElementSourceCallback<T> callback = new JaxbElementSourceCallback<T>(unmarshaller, clazz);
+			if (unmarshal(messageContext, requestPayload, unmarshaller, callback)) {
+				holder.releaseUnmarshaller(unmarshaller);
+			}
 			if (logger.isDebugEnabled()) {
 				logger.debug("Unmarshalled payload request to [" + callback.result + "]");
 			}
@@ -173,6 +253,48 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 		}
 	}
 
+	/**
+	 * Unmarshals the given request payload with the given callback. If the validation of the request is {@linkplain
+	 * DeferredRequestValidation deferred} until unmarshalling, the unmarshaller validates the payload while reading it.
+	 *
+	 * @return {@code true} if the payload was unmarshalled; {@code false} if it was rejected by the validation
+	 */
+	private boolean unmarshal(MessageContext messageContext, Source requestPayload, Unmarshaller unmarshaller,
+			TraxUtils.SourceCallback callback) throws Exception {
+		DeferredRequestValidation validation = DeferredRequestValidation.get(messageContext);
+		if (validation == null) {
+			TraxUtils.doWithSource(requestPayload, callback);
+			return true;
+		}
+		Schema schema = unmarshaller.getSchema();
+		ValidationEventHandler eventHandler = unmarshaller.getEventHandler();
+		unmarshaller.setSchema(validation.getSchema());
+		unmarshaller.setEventHandler(new ValidationErrorHandlerAdapter(validation.getErrorHandler()));
+		try {
+			TraxUtils.doWithSource(requestPayload, callback);
+		}
+		catch (UnmarshalException ex) {
+			// JAXB does not recover from most validation errors, so the reported errors decide
+			if (ObjectUtils.isEmpty(validation.getErrorHandler().getErrors())) {
+				throw ex;
+			}
+			validation.complete(messageContext);
+			if (!DeferredRequestValidation.isRejected(messageContext)) {
+				throw ex;
+			}
+			return false;
+		}
+		finally {
+			unmarshaller.setSchema(schema);
+			unmarshaller.setEventHandler(eventHandler);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Request payload validated while unmarshalling");
+		}
+		validation.complete(messageContext);
+		return true;
+	}
+
 	private Source getRequestPayload(MessageContext messageContext) {
 		WebServiceMessage request = messageContext.getRequest();
 		return request != null ? request.getPayloadSource() : null;
@@ -192,6 +314,8 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 	 * {@link javax.xml.bind.JAXBContext#createMarshaller()}, but can be overridden in subclasses for further
 	 * customization.
 	 *
+	 * <p>Created marshallers are pooled, so any customization should be applied here, rather than on each use.
+	 *
 	 * @param jaxbContext the JAXB context to create a marshaller for
 	 * @return the marshaller
 	 * @throws JAXBException in case of JAXB errors
@@ -200,15 +324,13 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 		return jaxbContext.createMarshaller();
 	}
 
-	private Marshaller createMarshaller(Class<?> clazz) throws JAXBException {
-		return createMarshaller(getJaxbContext(clazz));
-	}
-
 	/**
 	 * Creates a new {@link Unmarshaller} to be used for unmarshalling XML to objects. Defaults to
 	 * {@link javax.xml.bind.JAXBContext#createUnmarshaller()}, but can be overridden in subclasses for further
 	 * customization.
 	 *
+	 * <p>Created unmarshallers are pooled, so any customization should be applied here, rather than on each use.
+	 *
 	 * @param jaxbContext the JAXB context to create a unmarshaller for
 	 * @return the unmarshaller
 	 * @throws JAXBException in case of JAXB errors
@@ -217,19 +339,120 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 		return jaxbContext.createUnmarshaller();
 	}
 
-	private Unmarshaller createUnmarshaller(Class<?> clazz) throws JAXBException {
-		return createUnmarshaller(getJaxbContext(clazz));
+	private JaxbContextHolder getJaxbContextHolder(Class<?> clazz) throws JAXBException {
+		Assert.notNull(clazz, "'clazz' must not be null");
+		JaxbContextHolder holder = jaxbContexts.get(clazz);
+		if (holder == null) {
+			holder = new JaxbContextHolder(JAXBContext.newInstance(clazz), poolSize);
+			JaxbContextHolder existing = jaxbContexts.putIfAbsent(clazz, holder);
+			if (existing != null) {
+				holder = existing;
+			}
+		}
+		return holder;
 	}
 
+	/**
+	 * Holds a {@link JAXBContext}, together with its pools of idle marshallers and unmarshallers. Instances that threw
+	 * an exception while in use are not released, and therefore discarded.
+	 */
+	private class JaxbContextHolder {
 
-	private JAXBContext getJaxbContext(Class<?> clazz) throws JAXBException {
-		Assert.notNull(clazz, "'clazz' must not be null");
-		JAXBContext jaxbContext = jaxbContexts.get(clazz);
-		if (jaxbContext == null) {
-			jaxbContext = JAXBContext.newInstance(clazz);
-			jaxbContexts.putIfAbsent(clazz, jaxbContext);
+		private final JAXBContext jaxbContext;
+
+		private final BlockingQueue<Marshaller> marshallers;
+
+		private final BlockingQueue<Unmarshaller> unmarshallers;
+
+		private JaxbContextHolder(JAXBContext jaxbContext, int poolSize) {
+			this.jaxbContext = jaxbContext;
+			if (poolSize > 0) {
+				this.marshallers = new ArrayBlockingQueue<Marshaller>(poolSize);
+				this.unmarshallers = new ArrayBlockingQueue<Unmarshaller>(poolSize);
+			}
+			else {
+				this.marshallers = null;
+				this.unmarshallers = null;
+			}
+		}
+
+		public JAXBContext getJaxbContext() {
+			return jaxbContext;
+		}
+
+		public Marshaller borrowMarshaller() throws JAXBException {
+			Marshaller marshaller = marshallers != null ? marshallers.poll() : null;
+			if (marshaller != null) {
+				marshallersReused.incrementAndGet();
+				return marshaller;
+			}
+			marshallersCreated.incrementAndGet();
+			return createMarshaller(jaxbContext);
+		}
+
+		public void releaseMarshaller(Marshaller marshaller) {
+			if (marshallers != null) {
+				marshallers.offer(marshaller);
+			}
+		}
+
+		public Unmarshaller borrowUnmarshaller() throws JAXBException {
+			Unmarshaller unmarshaller = unmarshallers != null ? unmarshallers.poll() : null;
+			if (unmarshaller != null) {
+				unmarshallersReused.incrementAndGet();
+				return unmarshaller;
+			}
+			unmarshallersCreated.incrementAndGet();
+			return createUnmarshaller(jaxbContext);
+		}
+
+		public void releaseUnmarshaller(Unmarshaller unmarshaller) {
+			if (unmarshallers != null) {
+				unmarshallers.offer(unmarshaller);
+			}
+		}
+	}
+
+	/**
+	 * Adapts a {@link ValidationErrorHandler} to the {@link ValidationEventHandler} contract, so that problems found
+	 * while unmarshalling are reported as they would be by a {@link javax.xml.validation.Validator}.
+	 */
+	private static class ValidationErrorHandlerAdapter implements ValidationEventHandler {
+
+		private final ValidationErrorHandler errorHandler;
+
+		private ValidationErrorHandlerAdapter(ValidationErrorHandler errorHandler) {
+			this.errorHandler = errorHandler;
+		}
+
+		@Override
+		public boolean handleEvent(ValidationEvent event) {
+			Throwable linkedException = event.getLinkedException();
+			SAXParseException exception = linkedException instanceof SAXParseException ?
+					(SAXParseException) linkedException : createException(event);
+			try {
+				if (event.getSeverity() == ValidationEvent.WARNING) {
+					errorHandler.warning(exception);
+				}
+				else {
+					// schema violations are reported as fatal by some implementations, but are errors to a Validator
+					errorHandler.error(exception);
+				}
+				return event.getSeverity() != ValidationEvent.FATAL_ERROR;
+			}
+			catch (SAXException ex) {
+				return false;
+			}
+		}
+
+		private SAXParseException createException(ValidationEvent event) {
+			ValidationEventLocator locator = event.getLocator();
+			Throwable linkedException = event.getLinkedException();
+			return new SAXParseException(event.getMessage(), null,
+					locator != null && locator.getURL() != null ? locator.getURL().toString() : null,
+					locator != null ? locator.getLineNumber() : -1, locator != null ? locator.getColumnNumber() : -1,
+					linkedException instanceof Exception ? (Exception) linkedException : null);
 		}
-		return jaxbContext;
 	}
 
 	// Callbacks
@@ -240,8 +463,8 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 		private Object result;
 
-		public Jaxb2SourceCallback(Class<?> clazz) throws JAXBException {
-			this.unmarshaller = createUnmarshaller(clazz);
+		public Jaxb2SourceCallback(Unmarshaller unmarshaller) {
+			this.unmarshaller = unmarshaller;
 		}
 
 		@Override
@@ -305,8 +528,8 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 		private JAXBElement<T> result;
 
-		public JaxbElementSourceCallback(Class<T> declaredType) throws JAXBException {
-			this.unmarshaller = createUnmarshaller(declaredType);
+		public JaxbElementSourceCallback(Unmarshaller unmarshaller, Class<T> declaredType) {
+			this.unmarshaller = unmarshaller;
 			this.declaredType = declaredType;
 		}
 
@@ -352,8 +575,8 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 		private final Object jaxbElement;
 
-		private Jaxb2ResultCallback(Class<?> clazz, Object jaxbElement) throws JAXBException {
-			this.marshaller = createMarshaller(clazz);
+		private Jaxb2ResultCallback(Marshaller marshaller, Object jaxbElement) {
+			this.marshaller = marshaller;
 			this.jaxbElement = jaxbElement;
 		}
 
@@ -395,18 +618,16 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 
 	private class JaxbStreamingPayload implements StreamingPayload {
 
-		private final Object jaxbElement;
+		private final JaxbContextHolder holder;
 
-		private final Marshaller marshaller;
+		private final Object jaxbElement;
 
 		private final QName name;
 
-		private JaxbStreamingPayload(Class<?> clazz, Object jaxbElement) throws JAXBException {
-			JAXBContext jaxbContext = getJaxbContext(clazz);
-			this.marshaller = jaxbContext.createMarshaller();
-			this.marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+		private JaxbStreamingPayload(JaxbContextHolder holder, Object jaxbElement) {
+			this.holder = holder;
 			this.jaxbElement = jaxbElement;
-			JAXBIntrospector introspector = jaxbContext.createJAXBIntrospector();
+			JAXBIntrospector introspector = holder.getJaxbContext().createJAXBIntrospector();
 			this.name = introspector.getElementName(jaxbElement);
 		}
 
@@ -418,7 +639,13 @@ public abstract class AbstractJaxb2PayloadMethodProcessor extends AbstractPayloa
 		@Override
 		public void writeTo(XMLStreamWriter streamWriter) throws XMLStreamException {
 			try {
+				// the marshaller is borrowed only for the duration of the write, as a payload can be written many times
+				Marshaller marshaller = holder.borrowMarshaller();
+				Object fragment = marshaller.getProperty(Marshaller.JAXB_FRAGMENT);
+				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
 				marshaller.marshal(jaxbElement, streamWriter);
+				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
+				holder.releaseMarshaller(marshaller);
 			}
 			catch (JAXBException ex) {
 				throw new XMLStreamException("Could not marshal [" + jaxbElement + "]: " + ex.getMessage(), ex);
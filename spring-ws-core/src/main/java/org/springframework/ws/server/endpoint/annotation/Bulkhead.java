@@ -0,0 +1,51 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the number of concurrent invocations of an endpoint method, or of all methods of an endpoint class. Requests
+ * that exceed the limit are rejected before their payload is read. Only enforced when a {@link
+ * org.springframework.ws.server.endpoint.interceptor.BulkheadInterceptor BulkheadInterceptor} is registered.
+ *
+ * @author agent
+ * @see org.springframework.ws.server.endpoint.interceptor.BulkheadInterceptor
+ * @since 3.0.1
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+	/**
+	 * Signifies the maximum number of concurrent invocations of the annotated endpoint. A value of 0 or less leaves the
+	 * endpoint unlimited.
+	 */
+	int value();
+
+	/**
+	 * Signifies the time, in milliseconds, that a request waits for an invocation to complete when the maximum has
+	 * been reached. Defaults to 0, which rejects such requests immediately.
+	 */
+	long timeout() default 0;
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the responses of an endpoint method, or of all methods of an endpoint class, only depend on the
+ * request payload, so that they can be served from a cache. Only applied when a {@link
+ * org.springframework.ws.server.endpoint.interceptor.ResponseCachingInterceptor ResponseCachingInterceptor} is
+ * registered.
+ *
+ * @author agent
+ * @see org.springframework.ws.server.endpoint.interceptor.ResponseCachingInterceptor
+ * @since 3.0.1
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheableResponse {
+
+	/**
+	 * Signifies the time, in milliseconds, that a cached response remains valid. Defaults to -1, which uses the {@code
+	 * timeToLive} of the interceptor.
+	 */
+	long timeToLive() default -1;
+
+}
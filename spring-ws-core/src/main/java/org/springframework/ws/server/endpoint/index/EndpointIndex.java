@@ -0,0 +1,135 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.index;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * The endpoint index written by the {@link EndpointIndexProcessor}: the names of all indexed endpoint types, mapped
+ * to their stereotypes, i.e. the names of the annotations on each type and on its methods.
+ *
+ * @author agent
+ * @see EndpointIndexLoader
+ * @since 3.0.1
+ */
+public class EndpointIndex {
+
+	private final Map<String, Set<String>> index = new HashMap<String, Set<String>>();
+
+	EndpointIndex(List<Properties> indexFiles) {
+		for (Properties indexFile : indexFiles) {
+			for (String typeName : indexFile.stringPropertyNames()) {
+				Set<String> stereotypes = index.get(typeName);
+				if (stereotypes == null) {
+					stereotypes = new LinkedHashSet<String>();
+					index.put(typeName, stereotypes);
+				}
+				stereotypes.addAll(StringUtils.commaDelimitedListToSet(indexFile.getProperty(typeName)));
+			}
+		}
+	}
+
+	/**
+	 * Returns the stereotypes of the given type. For CGLIB subclasses, the stereotypes of the user class are returned;
+	 * for JDK proxies, those of the proxied interfaces.
+	 *
+	 * @param type the type to return the stereotypes for
+	 * @return the names of the stereotype annotations; empty if the type is not indexed
+	 */
+	public Set<String> getStereotypes(Class<?> type) {
+		Class<?> userType = ClassUtils.getUserClass(type);
+		if (Proxy.isProxyClass(userType)) {
+			Set<String> result = new LinkedHashSet<String>();
+			for (Class<?> proxiedInterface : userType.getInterfaces()) {
+				Set<String> stereotypes = index.get(proxiedInterface.getName());
+				if (stereotypes != null) {
+					result.addAll(stereotypes);
+				}
+			}
+			return result;
+		}
+		Set<String> stereotypes = index.get(userType.getName());
+		return stereotypes != null ? Collections.unmodifiableSet(stereotypes) : Collections.<String>emptySet();
+	}
+
+	/**
+	 * Indicates whether the given type is indexed with the given stereotype.
+	 *
+	 * @param type	   the type to check
+	 * @param stereotype the stereotype annotation type
+	 * @return {@code true} if the type has the stereotype; {@code false} otherwise
+	 */
+	public boolean hasStereotype(Class<?> type, Class<? extends Annotation> stereotype) {
+		return getStereotypes(type).contains(stereotype.getName());
+	}
+
+	/**
+	 * Indicates whether the given type is indexed with any of the given stereotypes.
+	 *
+	 * @param type		the type to check
+	 * @param stereotypes the stereotype annotation types
+	 * @return {@code true} if the type has one of the stereotypes; {@code false} otherwise
+	 */
+	public boolean hasAnyStereotype(Class<?> type, Collection<Class<? extends Annotation>> stereotypes) {
+		Set<String> typeStereotypes = getStereotypes(type);
+		for (Class<? extends Annotation> stereotype : stereotypes) {
+			if (typeStereotypes.contains(stereotype.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the names of the indexed types with the given stereotype.
+	 *
+	 * @param stereotype the stereotype annotation type
+	 * @return the fully qualified type names; empty if no type has the stereotype
+	 */
+	public Set<String> getTypes(Class<? extends Annotation> stereotype) {
+		Set<String> result = new LinkedHashSet<String>();
+		for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+			if (entry.getValue().contains(stereotype.getName())) {
+				result.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Indicates whether the given type is part of this index.
+	 *
+	 * @param type the type to check
+	 * @return {@code true} if the type is indexed; {@code false} otherwise
+	 */
+	public boolean isIndexed(Class<?> type) {
+		return !getStereotypes(type).isEmpty();
+	}
+
+}
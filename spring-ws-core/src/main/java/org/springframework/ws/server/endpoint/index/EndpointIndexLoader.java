@@ -0,0 +1,103 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.index;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Loads the {@link EndpointIndex} of a class loader, as written by the {@link EndpointIndexProcessor}. Indexes are
+ * cached per class loader.
+ *
+ * <p>Setting the {@link #IGNORE_INDEX spring.ws.index.ignore} system or Spring property to {@code true} disables the
+ * index, so that endpoint mappings scan the application context instead.
+ *
+ * @author agent
+ * @see EndpointIndexProcessor
+ * @since 3.0.1
+ */
+public abstract class EndpointIndexLoader {
+
+	/** The location of the index files. Can be present in multiple jar files. */
+	public static final String INDEX_LOCATION = "META-INF/spring-ws.endpoints";
+
+	/** The name of the property that disables the index. */
+	public static final String IGNORE_INDEX = "spring.ws.index.ignore";
+
+	private static final Log logger = LogFactory.getLog(EndpointIndexLoader.class);
+
+	private static final boolean shouldIgnoreIndex = SpringProperties.getFlag(IGNORE_INDEX);
+
+	private static final ConcurrentMap<ClassLoader, EndpointIndex> cache =
+			new ConcurrentReferenceHashMap<ClassLoader, EndpointIndex>();
+
+	/**
+	 * Loads the index files of the given class loader.
+	 *
+	 * @param classLoader the class loader to load the index with, or {@code null} for the default
+	 * @return the merged index, or {@code null} if the class loader has no index files, or the index is disabled
+	 * @throws IllegalArgumentException if an index file could not be read
+	 */
+	public static EndpointIndex loadIndex(ClassLoader classLoader) {
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+		ClassLoader classLoaderToUse = classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader();
+		if (cache.containsKey(classLoaderToUse)) {
+			return cache.get(classLoaderToUse);
+		}
+		EndpointIndex index = doLoadIndex(classLoaderToUse);
+		cache.putIfAbsent(classLoaderToUse, index);
+		return index;
+	}
+
+	private static EndpointIndex doLoadIndex(ClassLoader classLoader) {
+		try {
+			Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return null;
+			}
+			List<Properties> result = new ArrayList<Properties>();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				result.add(PropertiesLoaderUtils.loadProperties(new UrlResource(url)));
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + result.size() + " endpoint index file(s)");
+			}
+			return new EndpointIndex(result);
+		}
+		catch (IOException ex) {
+			throw new IllegalArgumentException("Unable to load endpoint index from [" + INDEX_LOCATION + "]", ex);
+		}
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that writes an index of {@link org.springframework.ws.server.endpoint.annotation.Endpoint
+ * &#64;Endpoint} classes to {@link EndpointIndexLoader#INDEX_LOCATION}.
+ *
+ * <p>Every class or interface that carries {@code @Endpoint}, directly, as a meta-annotation, or through one of its
+ * supertypes, is listed together with its stereotypes: the names of all annotations found on the type and on its
+ * methods, including those of supertypes and meta-annotations. Annotation-based endpoint mappings use these to find
+ * endpoints, and the methods they map, without scanning every bean in the application context.
+ *
+ * <p>The processor is not registered as a service. It is enabled by adding it to the annotation processors of the
+ * compiler, for instance with {@code -processor org.springframework.ws.server.endpoint.index.EndpointIndexProcessor}.
+ * When an index is present, endpoints compiled without the processor are not detected; all modules that contain
+ * endpoints should therefore be compiled with it.
+ *
+ * @author agent
+ * @see EndpointIndexLoader
+ * @since 3.0.1
+ */
+@SupportedAnnotationTypes("*")
+public class EndpointIndexProcessor extends AbstractProcessor {
+
+	private static final String ENDPOINT_ANNOTATION_NAME =
+			"org.springframework.ws.server.endpoint.annotation.Endpoint";
+
+	private final Map<String, Set<String>> entries = new TreeMap<String, Set<String>>();
+
+	private final Set<String> processedTypes = new LinkedHashSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getRootElements()) {
+			processElement(element);
+		}
+		if (roundEnv.processingOver()) {
+			try {
+				writeIndex();
+			}
+			catch (IOException ex) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Could not write endpoint index: " + ex.getMessage());
+			}
+		}
+		return false;
+	}
+
+	private void processElement(Element element) {
+		if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.INTERFACE) {
+			return;
+		}
+		TypeElement type = (TypeElement) element;
+		processedTypes.add(getBinaryName(type));
+		Set<TypeElement> hierarchy = getTypeHierarchy(type);
+		Set<String> typeAnnotations = new LinkedHashSet<String>();
+		for (TypeElement current : hierarchy) {
+			addAnnotations(current.getAnnotationMirrors(), typeAnnotations);
+		}
+		if (typeAnnotations.contains(ENDPOINT_ANNOTATION_NAME)) {
+			Set<String> stereotypes = new TreeSet<String>(typeAnnotations);
+			for (TypeElement current : hierarchy) {
+				for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+					addAnnotations(method.getAnnotationMirrors(), stereotypes);
+				}
+			}
+			entries.put(getBinaryName(type), stereotypes);
+		}
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+			processElement(nested);
+		}
+	}
+
+	private Set<TypeElement> getTypeHierarchy(TypeElement type) {
+		Set<TypeElement> hierarchy = new LinkedHashSet<TypeElement>();
+		Deque<TypeElement> queue = new ArrayDeque<TypeElement>();
+		queue.add(type);
+		while (!queue.isEmpty()) {
+			TypeElement current = queue.remove();
+			if (isJavaType(current.getQualifiedName().toString()) || !hierarchy.add(current)) {
+				continue;
+			}
+			addType(current.getSuperclass(), queue);
+			for (TypeMirror superInterface : current.getInterfaces()) {
+				addType(superInterface, queue);
+			}
+		}
+		return hierarchy;
+	}
+
+	private void addType(TypeMirror typeMirror, Deque<TypeElement> queue) {
+		if (typeMirror instanceof DeclaredType) {
+			queue.add((TypeElement) ((DeclaredType) typeMirror).asElement());
+		}
+	}
+
+	private void addAnnotations(List<? extends AnnotationMirror> annotationMirrors, Set<String> result) {
+		for (AnnotationMirror annotationMirror : annotationMirrors) {
+			TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+			String annotationName = annotationType.getQualifiedName().toString();
+			if (!isJavaType(annotationName) && result.add(annotationName)) {
+				addAnnotations(annotationType.getAnnotationMirrors(), result);
+			}
+		}
+	}
+
+	private boolean isJavaType(String name) {
+		return name.startsWith("java.");
+	}
+
+	private String getBinaryName(TypeElement type) {
+		return processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+
+	private void writeIndex() throws IOException {
+		readPreviousIndex();
+		if (entries.isEmpty()) {
+			return;
+		}
+		FileObject file = processingEnv.getFiler()
+				.createResource(StandardLocation.CLASS_OUTPUT, "", EndpointIndexLoader.INDEX_LOCATION);
+		OutputStream os = file.openOutputStream();
+		try {
+			Writer writer = new OutputStreamWriter(os, "ISO-8859-1");
+			for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+				writer.write(entry.getKey());
+				writer.write('=');
+				boolean first = true;
+				for (String stereotype : entry.getValue()) {
+					if (!first) {
+						writer.write(',');
+					}
+					writer.write(stereotype);
+					first = false;
+				}
+				writer.write('\n');
+			}
+			writer.flush();
+		}
+		finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * Keeps the entries of an index written by a previous, incremental, compilation, for types that still exist and have
+	 * not been compiled again.
+	 */
+	private void readPreviousIndex() {
+		Properties previous = new Properties();
+		try {
+			FileObject file = processingEnv.getFiler()
+					.getResource(StandardLocation.CLASS_OUTPUT, "", EndpointIndexLoader.INDEX_LOCATION);
+			InputStream is = file.openInputStream();
+			try {
+				previous.load(is);
+			}
+			finally {
+				is.close();
+			}
+		}
+		catch (IOException ex) {
+			// no previous index, or a compiler that does not allow reading from the class output
+			return;
+		}
+		for (String typeName : previous.stringPropertyNames()) {
+			if (!processedTypes.contains(typeName) &&
+					processingEnv.getElementUtils().getTypeElement(typeName.replace('$', '.')) != null) {
+				Set<String> stereotypes = new TreeSet<String>();
+				for (String stereotype : previous.getProperty(typeName).split(",")) {
+					stereotypes.add(stereotype.trim());
+				}
+				entries.put(typeName, stereotypes);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.ws.server.endpoint.interceptor;
 import java.io.IOException;
 import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
+import javax.xml.validation.Schema;
 
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
@@ -31,6 +32,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.EndpointInterceptor;
+import org.springframework.ws.server.endpoint.support.DeferredRequestValidation;
 import org.springframework.ws.soap.SoapFault;
 import org.springframework.ws.soap.SoapMessage;
 import org.springframework.xml.transform.TransformerObjectSupport;
@@ -48,6 +50,9 @@ import org.springframework.xml.xsd.XsdSchemaCollection;
  * <p>By default, only the request message is validated, but this behaviour can be changed using the
  * {@code validateRequest} and {@code validateResponse} properties.
  *
+ * <p>Subclasses that validate the request payload can support deferring its validation until the payload is
+ * unmarshalled, so that it is parsed and validated in a single pass. See {@link #setDeferRequestValidation(boolean)}.
+ *
  * @author Arjen Poutsma
  * @see #getValidationRequestSource(org.springframework.ws.WebServiceMessage)
  * @see #getValidationResponseSource(org.springframework.ws.WebServiceMessage)
@@ -68,6 +73,10 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 
 	private ValidationErrorHandler errorHandler;
 
+	private boolean deferRequestValidation = false;
+
+	private Schema deferredValidationSchema;
+
 	public String getSchemaLanguage() {
 		return schemaLanguage;
 	}
@@ -153,6 +162,28 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 		this.validateResponse = validateResponse;
 	}
 
+	/**
+	 * Indicates whether the validation of the request should be deferred until the request payload is unmarshalled.
+	 * Default is {@code false}.
+	 *
+	 * <p>When set to {@code true}, and the endpoint {@linkplain #isRequestValidationDeferrable(MessageContext, Object)
+	 * allows for it}, the request is not validated by {@link #handleRequest(MessageContext, Object)}. Instead, a {@link
+	 * DeferredRequestValidation} is bound to the message context, and the payload is validated by the unmarshaller as
+	 * it is read, for instance by the JAXB2 payload method processors of the {@link
+	 * org.springframework.ws.server.endpoint.adapter.DefaultMethodEndpointAdapter DefaultMethodEndpointAdapter}.
+	 * This avoids reading large payloads twice. An invalid request is handled by {@link
+	 * #handleRequestValidationErrors(MessageContext, SAXParseException[])} as usual, but the remaining interceptors
+	 * have already been invoked at that point.
+	 *
+	 * <p>If the payload turns out not to be unmarshalled by a component that supports deferred validation, for instance
+	 * because the endpoint takes it as DOM or {@code Source}, the request is validated as a whole before the endpoint
+	 * is invoked. Deferral requires a validator created from a {@code schema}, {@code schemas}, {@code xsdSchema} or
+	 * {@code xsdSchemaCollection}, whose compiled schema is reused; requests are validated directly otherwise.
+	 */
+	public void setDeferRequestValidation(boolean deferRequestValidation) {
+		this.deferRequestValidation = deferRequestValidation;
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		if (validator == null && !ObjectUtils.isEmpty(schemas)) {
@@ -166,6 +197,12 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 			validator = XmlValidatorFactory.createValidator(schemas, schemaLanguage);
 		}
 		Assert.notNull(validator, "Setting 'schema', 'schemas', 'xsdSchema', or 'xsdSchemaCollection' is required");
+		if (deferRequestValidation) {
+			deferredValidationSchema = XmlValidatorFactory.getSchema(validator);
+			if (deferredValidationSchema == null) {
+				logger.warn("Cannot defer request validation with [" + validator + "]; validating requests directly");
+			}
+		}
 	}
 
 	/**
@@ -183,6 +220,14 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 	public boolean handleRequest(MessageContext messageContext, Object endpoint)
 			throws IOException, SAXException, TransformerException {
 		if (validateRequest) {
+			if (deferredValidationSchema != null && isRequestValidationDeferrable(messageContext, endpoint)) {
+				DeferredRequestValidation.bind(messageContext,
+						new InterceptorRequestValidation(messageContext.getRequest(), deferredValidationSchema));
+				if (logger.isDebugEnabled()) {
+					logger.debug("Request validation deferred until unmarshalling");
+				}
+				return true;
+			}
 			Source requestSource = getValidationRequestSource(messageContext.getRequest());
 			if (requestSource != null) {
 				SAXParseException[] errors = validator.validate(requestSource, errorHandler);
@@ -266,6 +311,19 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 	public void afterCompletion(MessageContext messageContext, Object endpoint, Exception ex) {
 	}
 
+	/**
+	 * Template method that indicates whether the validation of the request can be deferred until the request payload is
+	 * unmarshalled for the given endpoint. Only called when {@link #setDeferRequestValidation(boolean)
+	 * deferRequestValidation} is enabled. Default implementation returns {@code false}.
+	 *
+	 * @param messageContext the message context
+	 * @param endpoint		 the endpoint that will handle the request
+	 * @return {@code true} to defer validation of the request; {@code false} to validate it directly
+	 */
+	protected boolean isRequestValidationDeferrable(MessageContext messageContext, Object endpoint) {
+		return false;
+	}
+
 	/**
 	 * Abstract template method that returns the part of the request message that is to be validated.
 	 *
@@ -281,4 +339,17 @@ public abstract class AbstractValidatingInterceptor extends TransformerObjectSup
 	 * @return the part of the message that is to validated, or {@code null} not to validate anything
 	 */
 	protected abstract Source getValidationResponseSource(WebServiceMessage response);
+
+	private class InterceptorRequestValidation extends DeferredRequestValidation {
+
+		private InterceptorRequestValidation(WebServiceMessage request, Schema schema) {
+			super(request, schema, errorHandler);
+		}
+
+		@Override
+		protected boolean handleErrors(MessageContext messageContext, SAXParseException[] errors)
+				throws TransformerException {
+			return handleRequestValidationErrors(messageContext, errors);
+		}
+	}
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.ws.EndpointUnavailableException;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.annotation.Bulkhead;
+
+/**
+ * Interceptor that limits the number of concurrent invocations per endpoint, so that a slow endpoint cannot exhaust
+ * the threads shared with other endpoints. Because interceptors are invoked before the endpoint adapter, rejected
+ * requests are not unmarshalled.
+ *
+ * <p>The limit of an endpoint is taken from the {@link Bulkhead @Bulkhead} annotation on its method or class. Other
+ * endpoints are limited by the {@link #setMaxConcurrentInvocations(int) maxConcurrentInvocations} property, if set.
+ * Combined with the {@code interceptors} property of an endpoint mapping, or with a smart interceptor such as the
+ * {@link org.springframework.ws.soap.server.endpoint.interceptor.PayloadRootSmartSoapEndpointInterceptor}, this allows
+ * for limiting specific endpoints without annotations.
+ *
+ * <p>When the limit is reached, a request waits for at most {@link #setTimeout(long) timeout} milliseconds for a
+ * running invocation to complete. If none does, {@link #handleRejectedRequest(MessageContext, Object)} is called,
+ * which by default throws an {@link EndpointUnavailableException}, resulting in a {@code 503 Service Unavailable}
+ * for HTTP.
+ *
+ * @author agent
+ * @see org.springframework.ws.soap.server.endpoint.interceptor.SoapBulkheadInterceptor
+ * @since 3.0.1
+ */
+public class BulkheadInterceptor extends EndpointInterceptorAdapter {
+
+	private static final Permits UNLIMITED = new Permits(0, 0);
+
+	private final String permitProperty =
+			BulkheadInterceptor.class.getName() + ".PERMIT." + System.identityHashCode(this);
+
+	private final ConcurrentMap<Object, Permits> endpointPermits = new ConcurrentHashMap<Object, Permits>();
+
+	private final ConcurrentMap<Class<?>, Permits> classPermits = new ConcurrentHashMap<Class<?>, Permits>();
+
+	private int maxConcurrentInvocations = 0;
+
+	private long timeout = 0;
+
+	/** Returns the maximum number of concurrent invocations of endpoints without {@code @Bulkhead} annotation. */
+	public int getMaxConcurrentInvocations() {
+		return maxConcurrentInvocations;
+	}
+
+	/**
+	 * Sets the maximum number of concurrent invocations of each endpoint without {@link Bulkhead @Bulkhead} annotation.
+	 * Defaults to 0, which leaves these endpoints unlimited.
+	 */
+	public void setMaxConcurrentInvocations(int maxConcurrentInvocations) {
+		this.maxConcurrentInvocations = maxConcurrentInvocations;
+	}
+
+	/** Returns the time, in milliseconds, to wait for an invocation of an endpoint without annotation. */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Sets the time, in milliseconds, that a request waits for an invocation of an endpoint without {@link
+	 * Bulkhead @Bulkhead} annotation to complete when the maximum has been reached. Defaults to 0, which rejects such
+	 * requests immediately.
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	@Override
+	public boolean handleRequest(MessageContext messageContext, Object endpoint) throws Exception {
+		Permits permits = getPermits(endpoint);
+		if (permits == UNLIMITED) {
+			return true;
+		}
+		if (permits.tryAcquireWithinTimeout()) {
+			messageContext.setProperty(permitProperty, permits);
+			return true;
+		}
+		if (logger.isWarnEnabled()) {
+			logger.warn("Maximum number of concurrent invocations reached for endpoint [" + endpoint +
+					"]; rejecting request");
+		}
+		return handleRejectedRequest(messageContext, endpoint);
+	}
+
+	/**
+	 * Template method that is called when a request is rejected because the maximum number of concurrent invocations
+	 * of the endpoint has been reached. Default implementation throws an {@link EndpointUnavailableException}.
+	 *
+	 * @param messageContext the message context
+	 * @param endpoint		 the endpoint
+	 * @return {@code true} to continue processing the request anyway, {@code false} otherwise
+	 */
+	protected boolean handleRejectedRequest(MessageContext messageContext, Object endpoint) throws Exception {
+		throw new EndpointUnavailableException(endpoint);
+	}
+
+	/** Releases the invocation of the endpoint, if it was admitted. */
+	@Override
+	public void afterCompletion(MessageContext messageContext, Object endpoint, Exception ex) throws Exception {
+		Permits permits = (Permits) messageContext.getProperty(permitProperty);
+		if (permits != null) {
+			messageContext.removeProperty(permitProperty);
+			permits.release();
+		}
+	}
+
+	private Permits getPermits(Object endpoint) {
+		Permits permits = endpointPermits.get(endpoint);
+		if (permits == null) {
+			permits = createPermits(endpoint);
+			Permits existing = endpointPermits.putIfAbsent(endpoint, permits);
+			if (existing != null) {
+				permits = existing;
+			}
+		}
+		return permits;
+	}
+
+	private Permits createPermits(Object endpoint) {
+		Class<?> endpointClass = endpoint.getClass();
+		if (endpoint instanceof MethodEndpoint) {
+			Method method = ((MethodEndpoint) endpoint).getMethod();
+			Bulkhead bulkhead = AnnotationUtils.findAnnotation(method, Bulkhead.class);
+			if (bulkhead != null) {
+				return createPermits(bulkhead.value(), bulkhead.timeout());
+			}
+			endpointClass = method.getDeclaringClass();
+		}
+		Bulkhead bulkhead = AnnotationUtils.findAnnotation(endpointClass, Bulkhead.class);
+		if (bulkhead != null) {
+			// all methods of an annotated class share their permits
+			Permits permits = classPermits.get(endpointClass);
+			if (permits == null) {
+				permits = createPermits(bulkhead.value(), bulkhead.timeout());
+				Permits existing = classPermits.putIfAbsent(endpointClass, permits);
+				if (existing != null) {
+					permits = existing;
+				}
+			}
+			return permits;
+		}
+		return createPermits(maxConcurrentInvocations, timeout);
+	}
+
+	private static Permits createPermits(int permits, long timeout) {
+		return permits > 0 ? new Permits(permits, timeout) : UNLIMITED;
+	}
+
+	@SuppressWarnings("serial")
+	private static class Permits extends Semaphore {
+
+		private final long timeout;
+
+		private Permits(int permits, long timeout) {
+			super(permits, true);
+			this.timeout = timeout;
+		}
+
+		private boolean tryAcquireWithinTimeout() throws InterruptedException {
+			return timeout > 0 ? tryAcquire(timeout, TimeUnit.MILLISECONDS) : tryAcquire();
+		}
+	}
+
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.namespace.QName;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.ws.FaultAwareWebServiceMessage;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.EndpointInterceptor;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.annotation.CacheableResponse;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
+import org.springframework.ws.soap.SoapHeaderElement;
+import org.springframework.ws.soap.axiom.AxiomSoapMessage;
+import org.springframework.xml.transform.TransformerObjectSupport;
+
+/**
+ * Interceptor that caches the response payloads of idempotent endpoints, such as lookups of reference data. When a
+ * request is answered from the cache, the endpoint is not invoked, the request payload is not unmarshalled, and no
+ * response is marshalled: the cached payload is copied into the response message.
+ *
+ * <p>Responses are cached for endpoints whose method or class is annotated with {@link CacheableResponse
+ * @CacheableResponse}. The cache key consists of the endpoint and a digest of the request payload, which is serialized
+ * in a normalized form, so that it does not depend on the way the request was encoded. The SOAP headers that also
+ * determine the response can be included in the key by setting the {@link #setKeyHeaderNames(QName[])
+ * keyHeaderNames} property. Fault responses are never cached.
+ *
+ * <p>Cached responses expire after their {@link #setTimeToLive(long) time to live}. The cache holds at most {@link
+ * #setMaxEntries(int) maxEntries} responses, evicting the least recently used response when full, and response
+ * payloads larger than {@link #setMaxResponseSize(int) maxResponseSize} are not cached at all. Responses can be
+ * invalidated explicitly with {@link #invalidate(Object)} and {@link #invalidateAll()}.
+ *
+ * <p>Only the payload is cached. The response message itself is created for every request, so that the SOAP headers,
+ * such as WS-Addressing {@code RelatesTo} and WS-Security headers, are added by the interceptors that precede this
+ * one, as they are for any other response.
+ *
+ * <p><b>This interceptor must be registered after the interceptors that authenticate, authorize, or validate
+ * requests</b>, such as the WS-Security and payload validating interceptors. When a request is answered from the cache,
+ * the {@code handleRequest} methods of the interceptors that follow this one are not invoked, so that any check they
+ * perform would be bypassed.
+ *
+ * <p>Messages whose payload can only be read once, such as Axiom messages without {@linkplain
+ * org.springframework.ws.soap.axiom.AxiomSoapMessageFactory#setPayloadCaching(boolean) payload caching}, are not
+ * cached.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class ResponseCachingInterceptor extends TransformerObjectSupport implements EndpointInterceptor {
+
+	/** The default time, in milliseconds, that a cached response remains valid. */
+	public static final long DEFAULT_TIME_TO_LIVE = 60000;
+
+	/** The default maximum number of cached responses. */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	/** The default maximum size, in bytes, of a cached response. */
+	public static final int DEFAULT_MAX_RESPONSE_SIZE = 64 * 1024;
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private static final boolean axiomPresent =
+			ClassUtils.isPresent("org.apache.axiom.om.OMElement", ResponseCachingInterceptor.class.getClassLoader());
+
+	private final String cacheKeyProperty =
+			ResponseCachingInterceptor.class.getName() + ".CACHE_KEY." + System.identityHashCode(this);
+
+	private final ConcurrentMap<Object, Long> endpointTimesToLive = new ConcurrentHashMap<Object, Long>();
+
+	private final Map<CacheKey, CachedResponse> cache = new LinkedHashMap<CacheKey, CachedResponse>(16, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedResponse> eldest) {
+			return size() > maxEntries;
+		}
+	};
+
+	private long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private int maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
+
+	private QName[] keyHeaderNames = new QName[0];
+
+	/**
+	 * Sets the time, in milliseconds, that a cached response remains valid, unless specified otherwise by {@link
+	 * CacheableResponse#timeToLive()}. Defaults to one minute.
+	 */
+	public void setTimeToLive(long timeToLive) {
+		Assert.isTrue(timeToLive > 0, "'timeToLive' must be larger than 0");
+		this.timeToLive = timeToLive;
+	}
+
+	/** Sets the maximum number of cached responses. Defaults to {@link #DEFAULT_MAX_ENTRIES}. */
+	public void setMaxEntries(int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "'maxEntries' must be larger than 0");
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Sets the maximum size, in bytes, of a cached response. Larger responses are not cached. Defaults to {@link
+	 * #DEFAULT_MAX_RESPONSE_SIZE}.
+	 */
+	public void setMaxResponseSize(int maxResponseSize) {
+		Assert.isTrue(maxResponseSize > 0, "'maxResponseSize' must be larger than 0");
+		this.maxResponseSize = maxResponseSize;
+	}
+
+	/**
+	 * Sets the qualified names of the SOAP header elements that are part of the cache key, in addition to the payload.
+	 * By default, headers are not part of the key.
+	 */
+	public void setKeyHeaderNames(QName... keyHeaderNames) {
+		Assert.notNull(keyHeaderNames, "'keyHeaderNames' must not be null");
+		this.keyHeaderNames = keyHeaderNames;
+	}
+
+	/** Returns the number of cached responses, including expired responses that have not been evicted yet. */
+	public int getCacheSize() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Removes all cached responses of the given endpoint.
+	 *
+	 * @param endpoint the endpoint, typically a {@link MethodEndpoint}
+	 */
+	public void invalidate(Object endpoint) {
+		synchronized (cache) {
+			for (Iterator<CacheKey> iterator = cache.keySet().iterator(); iterator.hasNext();) {
+				if (iterator.next().endpoint.equals(endpoint)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/** Removes all cached responses. */
+	public void invalidateAll() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Answers the request from the cache, if possible. If so, the cached payload is copied into the response, the
+	 * endpoint is not invoked, and {@code false} is returned.
+	 */
+	@Override
+	public boolean handleRequest(MessageContext messageContext, Object endpoint) throws Exception {
+		if (getTimeToLive(endpoint) <= 0 || !isRepeatable(messageContext.getRequest())) {
+			return true;
+		}
+		CacheKey key = new CacheKey(endpoint, createDigest(messageContext));
+		CachedResponse cachedResponse = getCachedResponse(key);
+		if (cachedResponse != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Answering request for endpoint [" + endpoint + "] from cache");
+			}
+			WebServiceMessage response = messageContext.getResponse();
+			if (cachedResponse.payload.length > 0) {
+				transform(new StreamSource(new ByteArrayInputStream(cachedResponse.payload)),
+						response.getPayloadResult());
+			}
+			return false;
+		}
+		messageContext.setProperty(cacheKeyProperty, key);
+		return true;
+	}
+
+	/** Caches the response payload, if the request was not answered from the cache. */
+	@Override
+	public boolean handleResponse(MessageContext messageContext, Object endpoint) throws Exception {
+		CacheKey key = (CacheKey) messageContext.getProperty(cacheKeyProperty);
+		if (key != null) {
+			messageContext.removeProperty(cacheKeyProperty);
+			WebServiceMessage response = messageContext.getResponse();
+			if (response instanceof FaultAwareWebServiceMessage && ((FaultAwareWebServiceMessage) response).hasFault()) {
+				return true;
+			}
+			if (!isRepeatable(response)) {
+				return true;
+			}
+			ByteArrayOutputStream payload = new ByteArrayOutputStream();
+			Source payloadSource = response.getPayloadSource();
+			if (payloadSource != null) {
+				createNormalizingTransformer().transform(payloadSource, new StreamResult(payload));
+			}
+			if (payload.size() <= maxResponseSize) {
+				long expirationTime = System.currentTimeMillis() + getTimeToLive(endpoint);
+				CachedResponse cachedResponse = new CachedResponse(payload.toByteArray(), expirationTime);
+				synchronized (cache) {
+					cache.put(key, cachedResponse);
+				}
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Response payload for endpoint [" + endpoint + "] exceeds " + maxResponseSize +
+						" bytes; not caching it");
+			}
+		}
+		return true;
+	}
+
+	/** Returns {@code true}; faults are not cached. */
+	@Override
+	public boolean handleFault(MessageContext messageContext, Object endpoint) throws Exception {
+		messageContext.removeProperty(cacheKeyProperty);
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(MessageContext messageContext, Object endpoint, Exception ex) throws Exception {
+		messageContext.removeProperty(cacheKeyProperty);
+	}
+
+	/**
+	 * Determines the time, in milliseconds, that responses of the given endpoint remain valid. Default implementation
+	 * looks for a {@link CacheableResponse @CacheableResponse} annotation on the method or class of the endpoint.
+	 *
+	 * @param endpoint the endpoint
+	 * @return the time to live; 0 or less if the responses of the endpoint are not to be cached
+	 */
+	protected long determineTimeToLive(Object endpoint) {
+		CacheableResponse cacheableResponse = null;
+		if (endpoint instanceof MethodEndpoint) {
+			Method method = ((MethodEndpoint) endpoint).getMethod();
+			cacheableResponse = AnnotationUtils.findAnnotation(method, CacheableResponse.class);
+			if (cacheableResponse == null) {
+				cacheableResponse = AnnotationUtils.findAnnotation(method.getDeclaringClass(), CacheableResponse.class);
+			}
+		}
+		else {
+			cacheableResponse = AnnotationUtils.findAnnotation(endpoint.getClass(), CacheableResponse.class);
+		}
+		if (cacheableResponse == null) {
+			return 0;
+		}
+		return cacheableResponse.timeToLive() >= 0 ? cacheableResponse.timeToLive() : timeToLive;
+	}
+
+	private long getTimeToLive(Object endpoint) {
+		Long endpointTimeToLive = endpointTimesToLive.get(endpoint);
+		if (endpointTimeToLive == null) {
+			endpointTimeToLive = determineTimeToLive(endpoint);
+			endpointTimesToLive.putIfAbsent(endpoint, endpointTimeToLive);
+		}
+		return endpointTimeToLive;
+	}
+
+	/** Indicates whether the payload of the given message can be read without consuming it. */
+	private boolean isRepeatable(WebServiceMessage message) {
+		return !axiomPresent || AxiomPayloads.isRepeatable(message);
+	}
+
+	private Transformer createNormalizingTransformer() throws TransformerException {
+		Transformer transformer = createTransformer();
+		transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+		transformer.setOutputProperty(OutputKeys.INDENT, "no");
+		return transformer;
+	}
+
+	private CachedResponse getCachedResponse(CacheKey key) {
+		synchronized (cache) {
+			CachedResponse cachedResponse = cache.get(key);
+			if (cachedResponse != null && cachedResponse.expirationTime <= System.currentTimeMillis()) {
+				cache.remove(key);
+				return null;
+			}
+			return cachedResponse;
+		}
+	}
+
+	/**
+	 * Creates a digest of the request payload, and of the header elements named by {@link #setKeyHeaderNames(QName[])
+	 * keyHeaderNames}, by serializing them without XML declaration.
+	 */
+	private String createDigest(MessageContext messageContext) throws IOException, TransformerException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Could not find " + DIGEST_ALGORITHM + " message digest", ex);
+		}
+		OutputStream outputStream = new DigestOutputStream(new NullOutputStream(), digest);
+		Transformer transformer = createNormalizingTransformer();
+		Source payloadSource = messageContext.getRequest().getPayloadSource();
+		if (payloadSource != null) {
+			transformer.transform(payloadSource, new StreamResult(outputStream));
+		}
+		if (!ObjectUtils.isEmpty(keyHeaderNames)) {
+			for (SoapHeaderElement headerElement : RoutingFacts.get(messageContext).getSoapHeaderElements()) {
+				if (ObjectUtils.containsElement(keyHeaderNames, headerElement.getName())) {
+					// separates the header elements from the payload, and from each other
+					outputStream.write(0);
+					transformer.transform(headerElement.getSource(), new StreamResult(outputStream));
+				}
+			}
+		}
+		byte[] bytes = digest.digest();
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+			builder.append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
+
+	private static class CacheKey {
+
+		private final Object endpoint;
+
+		private final String digest;
+
+		private CacheKey(Object endpoint, String digest) {
+			this.endpoint = endpoint;
+			this.digest = digest;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o instanceof CacheKey) {
+				CacheKey other = (CacheKey) o;
+				return endpoint.equals(other.endpoint) && digest.equals(other.digest);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * endpoint.hashCode() + digest.hashCode();
+		}
+	}
+
+	private static class CachedResponse {
+
+		private final byte[] payload;
+
+		private final long expirationTime;
+
+		private CachedResponse(byte[] payload, long expirationTime) {
+			this.payload = payload;
+			this.expirationTime = expirationTime;
+		}
+	}
+
+	/** Inner class to avoid a hard dependency on Axiom. */
+	private static class AxiomPayloads {
+
+		private static boolean isRepeatable(WebServiceMessage message) {
+			return !(message instanceof AxiomSoapMessage) || ((AxiomSoapMessage) message).isPayloadCaching();
+		}
+	}
+
+	private static class NullOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2011 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,17 +17,23 @@
 package org.springframework.ws.server.endpoint.mapping;
 
 import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 
 import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.BeanFactoryUtils;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.index.EndpointIndex;
+import org.springframework.ws.server.endpoint.index.EndpointIndexLoader;
 
 /**
  * Abstract base for {@link org.springframework.ws.server.EndpointMapping} implementations that map classes tagged with
  * an annotation. By default the annotation is {@link Endpoint}, but this can be overriden in subclasses.
  *
- * <p>The methods of each bean carrying @Endpoint will be registered using {@link #registerMethods(String)}.
+ * <p>The methods of each bean carrying @Endpoint will be registered using {@link #registerMethods(String)}. Endpoint
+ * beans are detected once per application context, and shared between all annotation-based mappings in it. If the
+ * classes have been compiled with the {@link org.springframework.ws.server.endpoint.index.EndpointIndexProcessor}, the
+ * resulting {@link EndpointIndex} is used instead of searching every bean for the annotation.
  *
  * @author Arjen Poutsma
  * @since 1.0.0
@@ -55,22 +61,38 @@ public abstract class AbstractAnnotationMethodEndpointMapping<T> extends Abstrac
 		return Endpoint.class;
 	}
 
+	/**
+	 * Returns the annotation types of the methods registered by this mapping. Endpoints that are listed in the
+	 * {@link EndpointIndex} without any of these are skipped. Default returns an empty collection, registering the
+	 * methods of all endpoints.
+	 *
+	 * <p>Subclasses that override {@link #getLookupKeysForMethod(java.lang.reflect.Method)} to look for other
+	 * annotations should override this method as well.
+	 */
+	protected Collection<Class<? extends Annotation>> getMethodAnnotationTypes() {
+		return Collections.emptyList();
+	}
+
 	@Override
 	protected void initApplicationContext() throws BeansException {
 		super.initApplicationContext();
 		if (logger.isDebugEnabled()) {
 			logger.debug("Looking for endpoints in application context: " + getApplicationContext());
 		}
-		String[] beanNames = (this.detectEndpointsInAncestorContexts ?
-				BeanFactoryUtils.beanNamesForTypeIncludingAncestors(getApplicationContext(), Object.class) :
-				getApplicationContext().getBeanNamesForType(Object.class));
+		Map<String, Class<?>> endpoints = AnnotatedEndpointBeans.detect(getApplicationContext(),
+				this.detectEndpointsInAncestorContexts, getEndpointAnnotationType());
+		Collection<Class<? extends Annotation>> methodAnnotationTypes = getMethodAnnotationTypes();
+		EndpointIndex index = !methodAnnotationTypes.isEmpty() ?
+				EndpointIndexLoader.loadIndex(getApplicationContext().getClassLoader()) : null;
 
-		for (String beanName : beanNames) {
-			Class<?> endpointClass = getApplicationContext().getType(beanName);
-			if (endpointClass != null &&
-					AnnotationUtils.findAnnotation(endpointClass, getEndpointAnnotationType()) != null) {
-				registerMethods(beanName);
+		for (Map.Entry<String, Class<?>> endpoint : endpoints.entrySet()) {
+			Class<?> endpointClass = endpoint.getValue();
+			if (index != null && index.isIndexed(endpointClass) &&
+					!index.hasAnyStereotype(endpointClass, methodAnnotationTypes)) {
+				// none of the methods can be mapped
+				continue;
 			}
+			registerMethods(endpoint.getKey());
 		}
 	}
 
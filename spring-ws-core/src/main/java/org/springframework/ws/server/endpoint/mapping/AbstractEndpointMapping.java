@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactoryUtils;
@@ -34,6 +37,10 @@ import org.springframework.ws.server.SmartEndpointInterceptor;
 /**
  * Abstract base class for EndpointMapping implementations. Supports a default endpoint, and endpoint interceptors.
  *
+ * <p>By default, the invocation chains are created once for every combination of endpoint and applicable {@link
+ * SmartEndpointInterceptor}s, and reused for subsequent messages. This can be disabled by setting the {@link
+ * #setCacheInvocationChains(boolean) cacheInvocationChains} property to {@code false}.
+ *
  * @author Arjen Poutsma
  * @see #getEndpointInternal(org.springframework.ws.context.MessageContext)
  * @see org.springframework.ws.server.EndpointInterceptor
@@ -41,6 +48,9 @@ import org.springframework.ws.server.SmartEndpointInterceptor;
  */
 public abstract class AbstractEndpointMapping extends ApplicationObjectSupport implements EndpointMapping, Ordered {
 
+	/** The maximum number of invocation chains that are cached, as a safeguard against endpoints without identity. */
+	private static final int MAX_CACHED_INVOCATION_CHAINS = 1024;
+
 	private int order = Integer.MAX_VALUE;	// default: same as non-Ordered
 
 	private Object defaultEndpoint;
@@ -49,6 +59,13 @@ public abstract class AbstractEndpointMapping extends ApplicationObjectSupport i
 
 	private SmartEndpointInterceptor[] smartInterceptors;
 
+	private boolean cacheInvocationChains = true;
+
+	private final ConcurrentMap<Object, ConcurrentMap<Long, EndpointInvocationChain>> invocationChains =
+			new ConcurrentHashMap<Object, ConcurrentMap<Long, EndpointInvocationChain>>();
+
+	private final AtomicInteger invocationChainCount = new AtomicInteger();
+
 	/**
 	 * Returns the endpoint interceptors to apply to all endpoints mapped by this endpoint mapping.
 	 *
@@ -65,6 +82,19 @@ public abstract class AbstractEndpointMapping extends ApplicationObjectSupport i
 	 */
 	public final void setInterceptors(EndpointInterceptor[] interceptors) {
 		this.interceptors = interceptors;
+		clearInvocationChains();
+	}
+
+	/**
+	 * Sets whether to reuse the invocation chains created by {@link #createEndpointInvocationChain(MessageContext,
+	 * Object, EndpointInterceptor[]) createEndpointInvocationChain} for subsequent messages mapped to the same endpoint
+	 * and intercepted by the same smart interceptors. Default is {@code true}.
+	 *
+	 * <p>Set this to {@code false} if a subclass creates invocation chains that depend on the message context.
+	 */
+	public void setCacheInvocationChains(boolean cacheInvocationChains) {
+		this.cacheInvocationChains = cacheInvocationChains;
+		clearInvocationChains();
 	}
 
 	@Override
@@ -105,6 +135,7 @@ public abstract class AbstractEndpointMapping extends ApplicationObjectSupport i
 			this.smartInterceptors =
 					smartInterceptors.values().toArray(new SmartEndpointInterceptor[smartInterceptors.size()]);
 		}
+		clearInvocationChains();
 	}
 
 	/**
@@ -123,29 +154,95 @@ public abstract class AbstractEndpointMapping extends ApplicationObjectSupport i
 		if (endpoint == null) {
 			return null;
 		}
+		boolean singleton = true;
 		if (endpoint instanceof String) {
 			String endpointName = (String) endpoint;
 			endpoint = resolveStringEndpoint(endpointName);
 			if (endpoint == null) {
 				return null;
 			}
+			singleton = getApplicationContext().containsBean(endpointName) &&
+					getApplicationContext().isSingleton(endpointName);
+		}
+
+		SmartEndpointInterceptor[] smartInterceptors = this.smartInterceptors;
+		if (!cacheInvocationChains || !singleton ||
+				(smartInterceptors != null && smartInterceptors.length > Long.SIZE)) {
+			return createEndpointInvocationChain(messageContext, endpoint,
+					getInterceptors(messageContext, endpoint, smartInterceptors));
 		}
 
+		long selection = 0;
+		if (smartInterceptors != null) {
+			for (int i = 0; i < smartInterceptors.length; i++) {
+				if (smartInterceptors[i].shouldIntercept(messageContext, endpoint)) {
+					selection |= 1L << i;
+				}
+			}
+		}
+		ConcurrentMap<Long, EndpointInvocationChain> endpointChains = invocationChains.get(endpoint);
+		EndpointInvocationChain chain = endpointChains != null ? endpointChains.get(selection) : null;
+		if (chain == null) {
+			chain = createEndpointInvocationChain(messageContext, endpoint,
+					getInterceptors(smartInterceptors, selection));
+			cacheInvocationChain(endpoint, selection, chain);
+		}
+		return chain;
+	}
+
+	private EndpointInterceptor[] getInterceptors(MessageContext messageContext,
+												  Object endpoint,
+												  SmartEndpointInterceptor[] smartInterceptors) {
 		List<EndpointInterceptor> interceptors = new ArrayList<EndpointInterceptor>();
 		if (this.interceptors != null) {
 			interceptors.addAll(Arrays.asList(this.interceptors));
 		}
-
-		if (this.smartInterceptors != null) {
+		if (smartInterceptors != null) {
 			for (SmartEndpointInterceptor smartInterceptor : smartInterceptors) {
 				if (smartInterceptor.shouldIntercept(messageContext, endpoint)) {
 					interceptors.add(smartInterceptor);
 				}
 			}
 		}
+		return interceptors.toArray(new EndpointInterceptor[interceptors.size()]);
+	}
+
+	private EndpointInterceptor[] getInterceptors(SmartEndpointInterceptor[] smartInterceptors, long selection) {
+		List<EndpointInterceptor> interceptors = new ArrayList<EndpointInterceptor>();
+		if (this.interceptors != null) {
+			interceptors.addAll(Arrays.asList(this.interceptors));
+		}
+		if (smartInterceptors != null) {
+			for (int i = 0; i < smartInterceptors.length; i++) {
+				if ((selection & (1L << i)) != 0) {
+					interceptors.add(smartInterceptors[i]);
+				}
+			}
+		}
+		return interceptors.toArray(new EndpointInterceptor[interceptors.size()]);
+	}
 
-		return createEndpointInvocationChain(messageContext, endpoint,
-				interceptors.toArray(new EndpointInterceptor[interceptors.size()]));
+	private void cacheInvocationChain(Object endpoint, long selection, EndpointInvocationChain chain) {
+		if (invocationChainCount.get() >= MAX_CACHED_INVOCATION_CHAINS) {
+			return;
+		}
+		ConcurrentMap<Long, EndpointInvocationChain> endpointChains = invocationChains.get(endpoint);
+		if (endpointChains == null) {
+			endpointChains = new ConcurrentHashMap<Long, EndpointInvocationChain>(4);
+			ConcurrentMap<Long, EndpointInvocationChain> existing =
+					invocationChains.putIfAbsent(endpoint, endpointChains);
+			if (existing != null) {
+				endpointChains = existing;
+			}
+		}
+		if (endpointChains.putIfAbsent(selection, chain) == null) {
+			invocationChainCount.incrementAndGet();
+		}
+	}
+
+	private void clearInvocationChains() {
+		invocationChains.clear();
+		invocationChainCount.set(0);
 	}
 
 	/**
@@ -153,6 +250,9 @@ public abstract class AbstractEndpointMapping extends ApplicationObjectSupport i
 	 * interceptors. Default implementation creates a simple {@code EndpointInvocationChain} based on the set
 	 * interceptors.
 	 *
+	 * <p>Unless {@linkplain #setCacheInvocationChains(boolean) disabled}, the created chain is reused for subsequent
+	 * messages mapped to the same endpoint with the same interceptors.
+	 *
 	 * @param endpoint	   the endpoint
 	 * @param interceptors the endpoint interceptors
 	 * @return the created invocation chain
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.mapping;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.index.EndpointIndex;
+import org.springframework.ws.server.endpoint.index.EndpointIndexLoader;
+
+/**
+ * Detects the endpoint beans of an application context once, and shares the result between all annotation-based
+ * endpoint mappings in that context.
+ *
+ * <p>If the class loader of the application context has an {@link EndpointIndex}, the indexed endpoint types are
+ * resolved, and the beans of those types are looked up, so that the other beans are not inspected. Endpoints whose
+ * classes were compiled without the {@link org.springframework.ws.server.endpoint.index.EndpointIndexProcessor
+ * EndpointIndexProcessor} are therefore not detected; if the index yields no endpoint beans at all, or the index is
+ * {@linkplain EndpointIndexLoader#IGNORE_INDEX ignored}, the type of every bean is searched for the endpoint
+ * annotation instead.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+final class AnnotatedEndpointBeans {
+
+	private static final Log logger = LogFactory.getLog(AnnotatedEndpointBeans.class);
+
+	private static final ConcurrentMap<ApplicationContext, ConcurrentMap<String, Map<String, Class<?>>>> cache =
+			new ConcurrentReferenceHashMap<ApplicationContext, ConcurrentMap<String, Map<String, Class<?>>>>(16,
+					ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+	private AnnotatedEndpointBeans() {
+	}
+
+	/**
+	 * Returns the endpoint beans of the given application context.
+	 *
+	 * @param applicationContext the application context to detect endpoints in
+	 * @param includeAncestors   whether to detect endpoints in ancestor contexts as well
+	 * @param annotationType	 the endpoint annotation type
+	 * @return the names of the endpoint beans, mapped to their types
+	 */
+	static Map<String, Class<?>> detect(ApplicationContext applicationContext, boolean includeAncestors,
+			Class<? extends Annotation> annotationType) {
+		ConcurrentMap<String, Map<String, Class<?>>> contextCache = cache.get(applicationContext);
+		if (contextCache == null) {
+			contextCache = new ConcurrentHashMap<String, Map<String, Class<?>>>();
+			ConcurrentMap<String, Map<String, Class<?>>> existing =
+					cache.putIfAbsent(applicationContext, contextCache);
+			if (existing != null) {
+				contextCache = existing;
+			}
+		}
+		// refreshing or adding beans invalidates previous results
+		String key = applicationContext.getStartupDate() + ":" + applicationContext.getBeanDefinitionCount() + ":" +
+				includeAncestors + ":" + annotationType.getName();
+		Map<String, Class<?>> endpoints = contextCache.get(key);
+		if (endpoints == null) {
+			endpoints = doDetect(applicationContext, includeAncestors, annotationType);
+			contextCache.putIfAbsent(key, endpoints);
+		}
+		return endpoints;
+	}
+
+	private static Map<String, Class<?>> doDetect(ApplicationContext applicationContext, boolean includeAncestors,
+			Class<? extends Annotation> annotationType) {
+		EndpointIndex index = isIndexed(annotationType) ?
+				EndpointIndexLoader.loadIndex(applicationContext.getClassLoader()) : null;
+		if (index != null) {
+			Map<String, Class<?>> endpoints = detectIndexed(applicationContext, includeAncestors, annotationType, index);
+			if (!endpoints.isEmpty()) {
+				if (logger.isInfoEnabled()) {
+					logger.info("Detected " + endpoints.size() + " @" + annotationType.getSimpleName() +
+							" bean(s) from the endpoint index; endpoints compiled without the index processor are " +
+							"not detected, unless '" + EndpointIndexLoader.IGNORE_INDEX + "' is set");
+				}
+				return endpoints;
+			}
+			if (logger.isWarnEnabled()) {
+				logger.warn("Endpoint index does not contain any @" + annotationType.getSimpleName() +
+						" bean of [" + applicationContext.getDisplayName() + "]; searching all beans instead");
+			}
+		}
+		String[] beanNames = (includeAncestors ?
+				BeanFactoryUtils.beanNamesForTypeIncludingAncestors(applicationContext, Object.class) :
+				applicationContext.getBeanNamesForType(Object.class));
+		Map<String, Class<?>> endpoints = new LinkedHashMap<String, Class<?>>();
+		for (String beanName : beanNames) {
+			Class<?> endpointClass = applicationContext.getType(beanName);
+			if (endpointClass != null && AnnotationUtils.findAnnotation(endpointClass, annotationType) != null) {
+				endpoints.put(beanName, endpointClass);
+			}
+		}
+		return Collections.unmodifiableMap(endpoints);
+	}
+
+	/** Looks up the beans of the indexed endpoint types. */
+	private static Map<String, Class<?>> detectIndexed(ApplicationContext applicationContext, boolean includeAncestors,
+			Class<? extends Annotation> annotationType, EndpointIndex index) {
+		Map<String, Class<?>> endpoints = new LinkedHashMap<String, Class<?>>();
+		for (String typeName : index.getTypes(annotationType)) {
+			Class<?> indexedType;
+			try {
+				indexedType = ClassUtils.forName(typeName, applicationContext.getClassLoader());
+			}
+			catch (ClassNotFoundException ex) {
+				logger.debug("Indexed endpoint type [" + typeName + "] not found; ignoring it");
+				continue;
+			}
+			catch (LinkageError ex) {
+				logger.debug("Indexed endpoint type [" + typeName + "] could not be loaded; ignoring it", ex);
+				continue;
+			}
+			String[] beanNames = (includeAncestors ?
+					BeanFactoryUtils.beanNamesForTypeIncludingAncestors(applicationContext, indexedType) :
+					applicationContext.getBeanNamesForType(indexedType));
+			for (String beanName : beanNames) {
+				Class<?> endpointClass = applicationContext.getType(beanName);
+				// beans of subtypes must be indexed themselves
+				if (endpointClass != null && index.hasStereotype(endpointClass, annotationType)) {
+					endpoints.put(beanName, endpointClass);
+				}
+			}
+		}
+		return Collections.unmodifiableMap(endpoints);
+	}
+
+	/** The index only contains types annotated with {@link Endpoint}, or with annotations that carry it. */
+	private static boolean isIndexed(Class<? extends Annotation> annotationType) {
+		return Endpoint.class.equals(annotationType) ||
+				AnnotationUtils.findAnnotation(annotationType, Endpoint.class) != null;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2011 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,11 @@
 
 package org.springframework.ws.server.endpoint.mapping;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import javax.xml.namespace.QName;
 import javax.xml.transform.TransformerFactory;
@@ -28,7 +31,8 @@ import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.EndpointMapping;
 import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
 import org.springframework.ws.server.endpoint.annotation.PayloadRoots;
-import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
+import org.springframework.xml.transform.TransformerHelper;
 
 /**
  * Implementation of the {@link EndpointMapping} interface that uses the {@link PayloadRoot} annotation to map methods
@@ -59,7 +63,13 @@ public class PayloadRootAnnotationMethodEndpointMapping extends AbstractAnnotati
 
 	@Override
 	protected QName getLookupKeyForMessage(MessageContext messageContext) throws Exception {
-		return PayloadRootUtils.getPayloadRootQName(messageContext.getRequest().getPayloadSource(), transformerFactory);
+		return RoutingFacts.get(messageContext).getPayloadRootQName(new TransformerHelper(transformerFactory));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected Collection<Class<? extends Annotation>> getMethodAnnotationTypes() {
+		return Arrays.<Class<? extends Annotation>>asList(PayloadRoot.class, PayloadRoots.class);
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,7 +21,8 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 
 import org.springframework.ws.context.MessageContext;
-import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
+import org.springframework.xml.transform.TransformerHelper;
 
 /**
  * Implementation of the {@code EndpointMapping} interface to map from the qualified name of the request payload
@@ -54,7 +55,7 @@ public class PayloadRootQNameEndpointMapping extends AbstractQNameEndpointMappin
 
 	@Override
 	protected QName resolveQName(MessageContext messageContext) throws TransformerException {
-		return PayloadRootUtils.getPayloadRootQName(messageContext.getRequest().getPayloadSource(), transformerFactory);
+		return RoutingFacts.get(messageContext).getPayloadRootQName(new TransformerHelper(transformerFactory));
 	}
 
 }
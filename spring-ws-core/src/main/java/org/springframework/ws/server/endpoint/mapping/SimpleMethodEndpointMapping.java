@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,9 +23,9 @@ import javax.xml.transform.TransformerFactory;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
-import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.context.MessageContext;
-import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
+import org.springframework.xml.transform.TransformerHelper;
 
 /**
  * Simple subclass of {@link AbstractMethodEndpointMapping} that maps from the local name of the request payload to
@@ -132,8 +132,8 @@ public class SimpleMethodEndpointMapping extends AbstractMethodEndpointMapping<S
 	@Override
 	protected String getLookupKeyForMessage(MessageContext messageContext)
 			throws TransformerException {
-		WebServiceMessage request = messageContext.getRequest();
-		QName rootQName = PayloadRootUtils.getPayloadRootQName(request.getPayloadSource(), transformerFactory);
+		QName rootQName =
+				RoutingFacts.get(messageContext).getPayloadRootQName(new TransformerHelper(transformerFactory));
 		return rootQName.getLocalPart();
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,7 +26,7 @@ import javax.xml.namespace.QName;
 import org.springframework.core.MethodParameter;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.endpoint.mapping.AbstractAnnotationMethodEndpointMapping;
-import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
 import org.springframework.xml.transform.TransformerHelper;
 
 /**
@@ -108,6 +108,6 @@ public class XmlRootElementEndpointMapping extends AbstractAnnotationMethodEndpo
 
 	@Override
 	protected QName getLookupKeyForMessage(MessageContext messageContext) throws Exception {
-		return PayloadRootUtils.getPayloadRootQName(messageContext.getRequest().getPayloadSource(), transformerHelper);
+		return RoutingFacts.get(messageContext).getPayloadRootQName(transformerHelper);
 	}
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.xml.validation.ValidationErrorHandler;
+
+/**
+ * Represents the validation of a request payload that is deferred until the payload is unmarshalled, so that the
+ * payload is parsed and validated in a single pass, rather than being read once for validation and once more for
+ * unmarshalling.
+ *
+ * <p>A validating component, such as the {@link org.springframework.ws.soap.server.endpoint.interceptor.PayloadValidatingInterceptor
+ * PayloadValidatingInterceptor}, {@linkplain #bind(MessageContext, DeferredRequestValidation) binds} an instance to
+ * the message context. The component that unmarshals the payload obtains it with {@link #get(MessageContext)},
+ * validates against the {@linkplain #getSchema() schema} while unmarshalling, reports the problems to the {@linkplain
+ * #getErrorHandler() error handler}, and finally calls {@link #complete(MessageContext)}. If the validating component
+ * {@linkplain #handleErrors(MessageContext, SAXParseException[]) rejects} the errors, the request is {@linkplain
+ * #isRejected(MessageContext) rejected}, and the endpoint must not be invoked.
+ *
+ * <p>Before an endpoint is invoked, a validation that is still pending, because no component unmarshalled the payload,
+ * is {@linkplain #validatePending(MessageContext) performed} on the request payload as a whole, so that deferring
+ * never lets an unvalidated request through.
+ *
+ * @author agent
+ * @see org.springframework.ws.server.endpoint.adapter.method.jaxb.AbstractJaxb2PayloadMethodProcessor
+ * @since 3.0.1
+ */
+public abstract class DeferredRequestValidation {
+
+	private static final String DEFERRED_REQUEST_VALIDATION_PROPERTY = DeferredRequestValidation.class.getName();
+
+	private final WebServiceMessage request;
+
+	private final Schema schema;
+
+	private final ValidationErrorHandler errorHandler;
+
+	private boolean completed;
+
+	private boolean rejected;
+
+	/**
+	 * Creates a new {@code DeferredRequestValidation} for the given request.
+	 *
+	 * @param request	   the request to validate
+	 * @param schema	   the schema to validate against
+	 * @param errorHandler the error handler to report problems to; may be {@code null} to collect errors and fatal
+	 *                     errors
+	 */
+	protected DeferredRequestValidation(WebServiceMessage request, Schema schema, ValidationErrorHandler errorHandler) {
+		Assert.notNull(request, "'request' must not be null");
+		Assert.notNull(schema, "'schema' must not be null");
+		this.request = request;
+		this.schema = schema;
+		this.errorHandler = errorHandler != null ? errorHandler : new CollectingErrorHandler();
+	}
+
+	/**
+	 * Binds the given deferred validation to the request of the given message context.
+	 *
+	 * @param messageContext the message context
+	 * @param validation	 the deferred validation
+	 */
+	public static void bind(MessageContext messageContext, DeferredRequestValidation validation) {
+		Assert.notNull(messageContext, "'messageContext' must not be null");
+		Assert.notNull(validation, "'validation' must not be null");
+		messageContext.setProperty(DEFERRED_REQUEST_VALIDATION_PROPERTY, validation);
+	}
+
+	/**
+	 * Returns the pending validation of the request in the given message context, if any.
+	 *
+	 * @param messageContext the message context
+	 * @return the validation that is still to be performed, or {@code null} if none was bound to the current request,
+	 *         or if it has been completed
+	 */
+	public static DeferredRequestValidation get(MessageContext messageContext) {
+		DeferredRequestValidation validation = getBound(messageContext);
+		return validation != null && !validation.completed ? validation : null;
+	}
+
+	/**
+	 * Indicates whether the request in the given message context has been rejected by a deferred validation.
+	 *
+	 * @param messageContext the message context
+	 * @return {@code true} if the request was rejected; {@code false} otherwise
+	 */
+	public static boolean isRejected(MessageContext messageContext) {
+		DeferredRequestValidation validation = getBound(messageContext);
+		return validation != null && validation.rejected;
+	}
+
+	/**
+	 * Performs the pending validation of the request in the given message context, if any, by validating the request
+	 * payload as a whole. Called before the endpoint is invoked, when the payload has not been validated while
+	 * unmarshalling.
+	 *
+	 * @param messageContext the message context
+	 * @return {@code true} if the endpoint can be invoked; {@code false} if the request was rejected
+	 * @throws Exception in case of errors
+	 */
+	public static boolean validatePending(MessageContext messageContext) throws Exception {
+		DeferredRequestValidation validation = get(messageContext);
+		if (validation != null) {
+			validation.validate(messageContext);
+		}
+		return !isRejected(messageContext);
+	}
+
+	private static DeferredRequestValidation getBound(MessageContext messageContext) {
+		Assert.notNull(messageContext, "'messageContext' must not be null");
+		DeferredRequestValidation validation =
+				(DeferredRequestValidation) messageContext.getProperty(DEFERRED_REQUEST_VALIDATION_PROPERTY);
+		return validation != null && validation.request == messageContext.getRequest() ? validation : null;
+	}
+
+	/** Returns the schema to validate the request payload against. */
+	public Schema getSchema() {
+		return schema;
+	}
+
+	/** Returns the error handler to report validation problems to. */
+	public ValidationErrorHandler getErrorHandler() {
+		return errorHandler;
+	}
+
+	/**
+	 * Validates the request payload as a whole against the {@linkplain #getSchema() schema}, and {@linkplain
+	 * #complete(MessageContext) completes} this validation.
+	 *
+	 * @param messageContext the message context
+	 * @throws Exception in case of errors
+	 */
+	public void validate(MessageContext messageContext) throws Exception {
+		Source payload = request.getPayloadSource();
+		if (payload != null) {
+			Validator validator = schema.newValidator();
+			validator.setErrorHandler(errorHandler);
+			validator.validate(payload);
+		}
+		complete(messageContext);
+	}
+
+	/**
+	 * Completes this validation, after the request payload has been validated. If any errors were reported to the
+	 * {@linkplain #getErrorHandler() error handler}, they are passed on to {@link #handleErrors(MessageContext,
+	 * SAXParseException[])}.
+	 *
+	 * @param messageContext the message context
+	 * @throws Exception in case of errors
+	 */
+	public void complete(MessageContext messageContext) throws Exception {
+		completed = true;
+		SAXParseException[] errors = errorHandler.getErrors();
+		if (!ObjectUtils.isEmpty(errors) && !handleErrors(messageContext, errors)) {
+			rejected = true;
+		}
+	}
+
+	/**
+	 * Template method that is called when the request payload contains validation errors.
+	 *
+	 * @param messageContext the message context
+	 * @param errors		 the validation errors
+	 * @return {@code true} to continue processing the request, {@code false} to reject it
+	 * @throws Exception in case of errors
+	 */
+	protected abstract boolean handleErrors(MessageContext messageContext, SAXParseException[] errors)
+			throws Exception;
+
+	/** {@code ValidationErrorHandler} implementation that stores errors and fatal errors in a list. */
+	private static class CollectingErrorHandler implements ValidationErrorHandler {
+
+		private final List<SAXParseException> errors = new ArrayList<SAXParseException>();
+
+		@Override
+		public SAXParseException[] getErrors() {
+			return errors.toArray(new SAXParseException[errors.size()]);
+		}
+
+		@Override
+		public void warning(SAXParseException ex) throws SAXException {
+		}
+
+		@Override
+		public void error(SAXParseException ex) throws SAXException {
+			errors.add(ex);
+		}
+
+		@Override
+		public void fatalError(SAXParseException ex) throws SAXException {
+			errors.add(ex);
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.QName;
+import javax.xml.transform.TransformerException;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapHeader;
+import org.springframework.ws.soap.SoapHeaderElement;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.addressing.core.MessageAddressingProperties;
+import org.springframework.ws.soap.addressing.version.AddressingVersion;
+import org.springframework.xml.transform.TransformerHelper;
+
+/**
+ * Holds the facts about a request message that endpoint mappings and smart interceptors route on, such as the payload
+ * root qualified name or the SOAP action. Each fact is determined lazily, at most once per request, so that mappings
+ * and interceptors consulting the same fact do not parse or transform the request repeatedly.
+ *
+ * <p>Instances are bound to a {@link MessageContext}, and obtained with {@link #get(MessageContext)}. The facts
+ * reflect the request when they were first determined, which is typically while looking up the endpoint, before any
+ * interceptor has had a chance to modify the request. This class is not thread-safe.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public final class RoutingFacts {
+
+	private static final String ROUTING_FACTS_PROPERTY = RoutingFacts.class.getName();
+
+	private final WebServiceMessage request;
+
+	private boolean payloadRootQNameResolved;
+
+	private QName payloadRootQName;
+
+	private boolean soapActionResolved;
+
+	private String soapAction;
+
+	private List<SoapHeaderElement> soapHeaderElements;
+
+	private Map<AddressingVersion, MessageAddressingProperties> messageAddressingProperties;
+
+	private RoutingFacts(WebServiceMessage request) {
+		this.request = request;
+	}
+
+	/**
+	 * Returns the routing facts of the request in the given message context, creating them if necessary.
+	 *
+	 * @param messageContext the message context
+	 * @return the routing facts of the request
+	 */
+	public static RoutingFacts get(MessageContext messageContext) {
+		Assert.notNull(messageContext, "'messageContext' must not be null");
+		WebServiceMessage request = messageContext.getRequest();
+		RoutingFacts facts = (RoutingFacts) messageContext.getProperty(ROUTING_FACTS_PROPERTY);
+		if (facts == null || facts.request != request) {
+			facts = new RoutingFacts(request);
+			messageContext.setProperty(ROUTING_FACTS_PROPERTY, facts);
+		}
+		return facts;
+	}
+
+	/**
+	 * Returns the root qualified name of the request payload.
+	 *
+	 * @param transformerHelper the transformer helper, used if the payload has to be transformed
+	 * @return the payload root name, or {@code null} if the request has no payload
+	 * @see PayloadRootUtils#getPayloadRootQName(javax.xml.transform.Source, TransformerHelper)
+	 */
+	public QName getPayloadRootQName(TransformerHelper transformerHelper) throws TransformerException {
+		if (!payloadRootQNameResolved) {
+			if (request != null) {
+				payloadRootQName = PayloadRootUtils.getPayloadRootQName(request.getPayloadSource(), transformerHelper);
+			}
+			payloadRootQNameResolved = true;
+		}
+		return payloadRootQName;
+	}
+
+	/**
+	 * Returns the SOAP action of the request, without surrounding quotes.
+	 *
+	 * @return the SOAP action, or {@code null} if the request is not a SOAP message
+	 */
+	public String getSoapAction() {
+		if (!soapActionResolved) {
+			if (request instanceof SoapMessage) {
+				String soapAction = ((SoapMessage) request).getSoapAction();
+				if (StringUtils.hasLength(soapAction) && soapAction.charAt(0) == '"' &&
+						soapAction.charAt(soapAction.length() - 1) == '"') {
+					soapAction = soapAction.substring(1, soapAction.length() - 1);
+				}
+				this.soapAction = soapAction;
+			}
+			soapActionResolved = true;
+		}
+		return soapAction;
+	}
+
+	/**
+	 * Returns the header elements of the request.
+	 *
+	 * @return the header elements; empty if the request is not a SOAP message, or has no header
+	 */
+	public List<SoapHeaderElement> getSoapHeaderElements() {
+		if (soapHeaderElements == null) {
+			SoapHeader header = request instanceof SoapMessage ? ((SoapMessage) request).getSoapHeader() : null;
+			if (header != null) {
+				List<SoapHeaderElement> headerElements = new ArrayList<SoapHeaderElement>();
+				for (Iterator<SoapHeaderElement> iterator = header.examineAllHeaderElements(); iterator.hasNext();) {
+					headerElements.add(iterator.next());
+				}
+				soapHeaderElements = Collections.unmodifiableList(headerElements);
+			}
+			else {
+				soapHeaderElements = Collections.emptyList();
+			}
+		}
+		return soapHeaderElements;
+	}
+
+	/**
+	 * Returns the addressing properties of the request, according to the given version of WS-Addressing.
+	 *
+	 * @param version the addressing version
+	 * @return the addressing properties, or {@code null} if the request is not a SOAP message
+	 * @see AddressingVersion#getMessageAddressingProperties(SoapMessage)
+	 */
+	public MessageAddressingProperties getMessageAddressingProperties(AddressingVersion version) {
+		if (!(request instanceof SoapMessage)) {
+			return null;
+		}
+		if (messageAddressingProperties == null) {
+			messageAddressingProperties = new HashMap<AddressingVersion, MessageAddressingProperties>(2);
+		}
+		if (!messageAddressingProperties.containsKey(version)) {
+			messageAddressingProperties.put(version, version.getMessageAddressingProperties((SoapMessage) request));
+		}
+		return messageAddressingProperties.get(version);
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.observation;
+
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.EndpointInterceptor;
+import org.springframework.ws.server.EndpointMapping;
+
+/**
+ * Callback interface for observing the message exchanges handled by a {@link
+ * org.springframework.ws.server.MessageDispatcher MessageDispatcher}, typically in order to record metrics. Set via
+ * {@link org.springframework.ws.server.MessageDispatcher#setObserver(MessageDispatcherObserver)}.
+ *
+ * <p>All durations are measured by the dispatcher with {@link System#nanoTime()}, and given in nanoseconds. Observers
+ * are called on the thread that handles the message, so implementations should be fast and thread-safe, and must not
+ * throw exceptions.
+ *
+ * @author agent
+ * @see MicrometerMessageDispatcherObserver
+ * @since 3.0.1
+ */
+public interface MessageDispatcherObserver {
+
+	/**
+	 * Called after the endpoint mappings have been consulted for the given message.
+	 *
+	 * @param messageContext  the message context
+	 * @param endpointMapping the mapping that resolved the endpoint, or {@code null} if no endpoint was found
+	 * @param duration		  the time spent looking up the endpoint, in nanoseconds
+	 */
+	void endpointMapped(MessageContext messageContext, EndpointMapping endpointMapping, long duration);
+
+	/**
+	 * Called after {@link EndpointInterceptor#handleRequest(MessageContext, Object)} has been invoked on the given
+	 * interceptor.
+	 *
+	 * @param messageContext the message context
+	 * @param interceptor	 the interceptor
+	 * @param duration		 the time spent in the interceptor, in nanoseconds
+	 */
+	void requestIntercepted(MessageContext messageContext, EndpointInterceptor interceptor, long duration);
+
+	/**
+	 * Called after {@link EndpointInterceptor#handleResponse(MessageContext, Object)} or {@link
+	 * EndpointInterceptor#handleFault(MessageContext, Object)} has been invoked on the given interceptor.
+	 *
+	 * @param messageContext the message context
+	 * @param interceptor	 the interceptor
+	 * @param fault			 {@code true} if {@code handleFault} was invoked; {@code false} for {@code handleResponse}
+	 * @param duration		 the time spent in the interceptor, in nanoseconds
+	 */
+	void responseIntercepted(MessageContext messageContext, EndpointInterceptor interceptor, boolean fault,
+			long duration);
+
+	/**
+	 * Called after the given endpoint has been invoked through its {@link org.springframework.ws.server.EndpointAdapter
+	 * EndpointAdapter}.
+	 *
+	 * @param messageContext the message context
+	 * @param endpoint		 the endpoint
+	 * @param duration		 the time spent invoking the endpoint, in nanoseconds
+	 * @param ex			 the exception thrown by the endpoint, or {@code null} if none
+	 */
+	void endpointInvoked(MessageContext messageContext, Object endpoint, long duration, Exception ex);
+
+	/**
+	 * Called after the given message has been dispatched, and the response (if any) has been created. The response
+	 * has not been written to the transport at this point.
+	 *
+	 * @param messageContext the message context
+	 * @param duration		 the total time spent dispatching the message, in nanoseconds
+	 * @param ex			 the exception that was not resolved to a response, or {@code null} if none
+	 */
+	void messageDispatched(MessageContext messageContext, long duration, Exception ex);
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.observation;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.FaultAwareWebServiceMessage;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.EndpointInterceptor;
+import org.springframework.ws.server.EndpointMapping;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.transport.HeadersAwareReceiverWebServiceConnection;
+import org.springframework.ws.transport.TransportConstants;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+
+/**
+ * {@link MessageDispatcherObserver} that records metrics in a Micrometer {@link MeterRegistry}. The following meters
+ * are registered:
+ * <ul>
+ * <li>{@code spring.ws.server.endpoint.mapping}: timer of the endpoint lookup, tagged by the simple class name of the
+ * resolving {@code mapping} ({@code none} if no endpoint was found),</li>
+ * <li>{@code spring.ws.server.interceptor}: timer per {@code interceptor}, tagged by {@code phase} ({@code request},
+ * {@code response}, or {@code fault}),</li>
+ * <li>{@code spring.ws.server.endpoint.invocation}: timer with a percentile histogram of the endpoint invocations,
+ * tagged by {@code endpoint} and {@code exception},</li>
+ * <li>{@code spring.ws.server.faults}: counter of fault responses, tagged by the local part of the fault {@code
+ * code},</li>
+ * <li>{@code spring.ws.server.request.size}: distribution summary of the request sizes, as reported by the {@code
+ * Content-Length} transport header,</li>
+ * <li>{@code spring.ws.server.dispatch}: timer of the entire dispatch, tagged by {@code exception}.</li>
+ * </ul>
+ *
+ * <p>Meters are registered lazily, and cached per mapping, interceptor, and endpoint.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class MicrometerMessageDispatcherObserver implements MessageDispatcherObserver {
+
+	/** Name of the endpoint mapping timer. */
+	public static final String ENDPOINT_MAPPING_METER = "spring.ws.server.endpoint.mapping";
+
+	/** Name of the interceptor timer. */
+	public static final String INTERCEPTOR_METER = "spring.ws.server.interceptor";
+
+	/** Name of the endpoint invocation timer. */
+	public static final String ENDPOINT_INVOCATION_METER = "spring.ws.server.endpoint.invocation";
+
+	/** Name of the fault counter. */
+	public static final String FAULTS_METER = "spring.ws.server.faults";
+
+	/** Name of the request size distribution summary. */
+	public static final String REQUEST_SIZE_METER = "spring.ws.server.request.size";
+
+	/** Name of the dispatch timer. */
+	public static final String DISPATCH_METER = "spring.ws.server.dispatch";
+
+	private static final String NONE = "none";
+
+	private static final Log logger = LogFactory.getLog(MicrometerMessageDispatcherObserver.class);
+
+	private final MeterRegistry registry;
+
+	private final ConcurrentMap<Object, Timer> mappingTimers = new ConcurrentHashMap<Object, Timer>();
+
+	private final ConcurrentMap<EndpointInterceptor, Timer[]> interceptorTimers =
+			new ConcurrentHashMap<EndpointInterceptor, Timer[]>();
+
+	private final ConcurrentMap<Object, Timer> endpointTimers = new ConcurrentHashMap<Object, Timer>();
+
+	private final ConcurrentMap<Object, String> endpointNames = new ConcurrentHashMap<Object, String>();
+
+	private final ConcurrentMap<String, Counter> faultCounters = new ConcurrentHashMap<String, Counter>();
+
+	private final DistributionSummary requestSize;
+
+	private final Timer dispatchTimer;
+
+	/**
+	 * Creates a new {@code MicrometerMessageDispatcherObserver} that registers its meters in the given registry.
+	 *
+	 * @param registry the registry to use
+	 */
+	public MicrometerMessageDispatcherObserver(MeterRegistry registry) {
+		Assert.notNull(registry, "'registry' must not be null");
+		this.registry = registry;
+		this.requestSize = DistributionSummary.builder(REQUEST_SIZE_METER)
+				.description("Size of the received requests")
+				.baseUnit("bytes")
+				.register(registry);
+		this.dispatchTimer = dispatchTimer(NONE);
+	}
+
+	@Override
+	public void endpointMapped(MessageContext messageContext, EndpointMapping endpointMapping, long duration) {
+		Object key = endpointMapping != null ? endpointMapping : NONE;
+		Timer timer = mappingTimers.get(key);
+		if (timer == null) {
+			String name = endpointMapping != null ? endpointMapping.getClass().getSimpleName() : NONE;
+			timer = Timer.builder(ENDPOINT_MAPPING_METER)
+					.description("Time spent looking up endpoints")
+					.tag("mapping", name)
+					.register(registry);
+			mappingTimers.putIfAbsent(key, timer);
+		}
+		timer.record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void requestIntercepted(MessageContext messageContext, EndpointInterceptor interceptor, long duration) {
+		getInterceptorTimers(interceptor)[0].record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void responseIntercepted(MessageContext messageContext, EndpointInterceptor interceptor, boolean fault,
+			long duration) {
+		getInterceptorTimers(interceptor)[fault ? 2 : 1].record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	private Timer[] getInterceptorTimers(EndpointInterceptor interceptor) {
+		Timer[] timers = interceptorTimers.get(interceptor);
+		if (timers == null) {
+			String name = interceptor.getClass().getSimpleName();
+			timers = new Timer[]{interceptorTimer(name, "request"), interceptorTimer(name, "response"),
+					interceptorTimer(name, "fault")};
+			interceptorTimers.putIfAbsent(interceptor, timers);
+		}
+		return timers;
+	}
+
+	private Timer interceptorTimer(String name, String phase) {
+		return Timer.builder(INTERCEPTOR_METER)
+				.description("Time spent in endpoint interceptors")
+				.tags("interceptor", name, "phase", phase)
+				.register(registry);
+	}
+
+	@Override
+	public void endpointInvoked(MessageContext messageContext, Object endpoint, long duration, Exception ex) {
+		Timer timer;
+		if (ex == null) {
+			timer = endpointTimers.get(endpoint);
+			if (timer == null) {
+				timer = endpointTimer(getEndpointName(endpoint), NONE);
+				endpointTimers.putIfAbsent(endpoint, timer);
+			}
+		}
+		else {
+			timer = endpointTimer(getEndpointName(endpoint), getExceptionName(ex));
+		}
+		timer.record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	private Timer endpointTimer(String endpoint, String exception) {
+		return Timer.builder(ENDPOINT_INVOCATION_METER)
+				.description("Time spent invoking endpoints")
+				.tags("endpoint", endpoint, "exception", exception)
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	private String getEndpointName(Object endpoint) {
+		String name = endpointNames.get(endpoint);
+		if (name == null) {
+			if (endpoint instanceof MethodEndpoint) {
+				MethodEndpoint methodEndpoint = (MethodEndpoint) endpoint;
+				name = methodEndpoint.getMethod().getDeclaringClass().getSimpleName() + "." +
+						methodEndpoint.getMethod().getName();
+			}
+			else {
+				name = endpoint.getClass().getSimpleName();
+			}
+			endpointNames.putIfAbsent(endpoint, name);
+		}
+		return name;
+	}
+
+	@Override
+	public void messageDispatched(MessageContext messageContext, long duration, Exception ex) {
+		(ex != null ? dispatchTimer(getExceptionName(ex)) : dispatchTimer)
+				.record(duration, TimeUnit.NANOSECONDS);
+		recordRequestSize();
+		if (messageContext.hasResponse()) {
+			WebServiceMessage response = messageContext.getResponse();
+			if (response instanceof FaultAwareWebServiceMessage) {
+				FaultAwareWebServiceMessage faultMessage = (FaultAwareWebServiceMessage) response;
+				if (faultMessage.hasFault()) {
+					recordFault(faultMessage.getFaultCode());
+				}
+			}
+		}
+	}
+
+	private Timer dispatchTimer(String exception) {
+		return Timer.builder(DISPATCH_METER)
+				.description("Time spent dispatching messages")
+				.tag("exception", exception)
+				.register(registry);
+	}
+
+	private void recordFault(QName faultCode) {
+		String code = faultCode != null ? faultCode.getLocalPart() : NONE;
+		Counter counter = faultCounters.get(code);
+		if (counter == null) {
+			counter = Counter.builder(FAULTS_METER)
+					.description("Number of fault responses")
+					.tag("code", code)
+					.register(registry);
+			faultCounters.putIfAbsent(code, counter);
+		}
+		counter.increment();
+	}
+
+	private void recordRequestSize() {
+		TransportContext transportContext = TransportContextHolder.getTransportContext();
+		if (transportContext == null) {
+			return;
+		}
+		WebServiceConnection connection = transportContext.getConnection();
+		if (connection instanceof HeadersAwareReceiverWebServiceConnection) {
+			try {
+				Iterator<String> values = ((HeadersAwareReceiverWebServiceConnection) connection)
+						.getRequestHeaders(TransportConstants.HEADER_CONTENT_LENGTH);
+				if (values.hasNext()) {
+					requestSize.record(Long.parseLong(values.next().trim()));
+				}
+			}
+			catch (Exception ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not determine request size", ex);
+				}
+			}
+		}
+	}
+
+	private static String getExceptionName(Exception ex) {
+		return ex != null ? ex.getClass().getSimpleName() : NONE;
+	}
+
+}
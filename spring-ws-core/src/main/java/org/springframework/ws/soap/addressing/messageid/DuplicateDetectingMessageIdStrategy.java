@@ -0,0 +1,174 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.addressing.messageid;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.soap.SoapMessage;
+
+/**
+ * Implementation of the {@link MessageIdStrategy} interface that detects duplicate {@code MessageID}s within a
+ * configurable time window. Creation of new message ids is delegated to another strategy, a {@link
+ * UuidMessageIdStrategy} by default.
+ *
+ * <p>A message id is recorded when it is first seen. When processing that message fails, the id is {@linkplain
+ * #processingFailed(URI) removed} again, so that a redelivery of the message is processed rather than rejected.
+ *
+ * <p>Message ids that have been seen are recorded in a store that is bounded by the {@linkplain #setMaximumSize(int)
+ * maximum size}, and from which ids are removed once they are older than the {@linkplain #setWindow(long) window}.
+ *
+ * <p>When more than {@code maximumSize} messages are received within a window, the oldest ids are evicted from the
+ * store, and redeliveries of those messages are no longer detected. This strategy errs on the side of processing a
+ * message twice, rather than rejecting a message that was not a duplicate.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class DuplicateDetectingMessageIdStrategy implements RedeliveryAwareMessageIdStrategy {
+
+	/** The default window, in milliseconds: 5 minutes. */
+	public static final long DEFAULT_WINDOW = 5 * 60 * 1000L;
+
+	/** The default maximum number of message ids remembered per window. */
+	public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+	private final MessageIdStrategy messageIdStrategy;
+
+	private long window = DEFAULT_WINDOW;
+
+	private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	private final Object monitor = new Object();
+
+	private LinkedHashMap<String, Long> messageIds;
+
+	/** Creates a new {@code DuplicateDetectingMessageIdStrategy} that creates UUID-based message ids. */
+	public DuplicateDetectingMessageIdStrategy() {
+		this(new UuidMessageIdStrategy());
+	}
+
+	/**
+	 * Creates a new {@code DuplicateDetectingMessageIdStrategy} that delegates the creation of message ids to the
+	 * given strategy.
+	 *
+	 * @param messageIdStrategy the strategy to create new message ids with
+	 */
+	public DuplicateDetectingMessageIdStrategy(MessageIdStrategy messageIdStrategy) {
+		Assert.notNull(messageIdStrategy, "'messageIdStrategy' must not be null");
+		this.messageIdStrategy = messageIdStrategy;
+	}
+
+	/**
+	 * Sets the time window, in milliseconds, within which duplicate message ids are detected. Defaults to 5
+	 * minutes.
+	 */
+	public void setWindow(long window) {
+		Assert.isTrue(window > 0, "'window' must be larger than 0");
+		synchronized (monitor) {
+			this.window = window;
+			reset();
+		}
+	}
+
+	/** Sets the maximum number of message ids that are remembered. Defaults to 10000. */
+	public void setMaximumSize(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "'maximumSize' must be larger than 0");
+		synchronized (monitor) {
+			this.maximumSize = maximumSize;
+			reset();
+		}
+	}
+
+	/**
+	 * Indicates whether the given message id has been seen within the window. Records the message id if it has not.
+	 * Returns {@code false} for a {@code null} message id.
+	 */
+	@Override
+	public boolean isDuplicate(URI messageId) {
+		if (messageId == null) {
+			return false;
+		}
+		String key = messageId.toString();
+		long now = currentTimeMillis();
+		synchronized (monitor) {
+			if (messageIds == null) {
+				messageIds = createMessageIds(maximumSize);
+			}
+			expire(now);
+			if (messageIds.containsKey(key)) {
+				return true;
+			}
+			messageIds.put(key, now);
+			return false;
+		}
+	}
+
+	/** Removes the given message id, so that a redelivery of the failed message is not considered a duplicate. */
+	@Override
+	public void processingFailed(URI messageId) {
+		if (messageId == null) {
+			return;
+		}
+		synchronized (monitor) {
+			if (messageIds != null) {
+				messageIds.remove(messageId.toString());
+			}
+		}
+	}
+
+	@Override
+	public URI newMessageId(SoapMessage message) {
+		return messageIdStrategy.newMessageId(message);
+	}
+
+	/** Returns the current time in milliseconds. Can be overridden for testing purposes. */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private void reset() {
+		messageIds = null;
+	}
+
+	/** Creates a map of message ids to the time they were seen, oldest first, holding at most the given number. */
+	private static LinkedHashMap<String, Long> createMessageIds(final int maximumSize) {
+		return new LinkedHashMap<String, Long>(16, 0.75f, false) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	/** Removes the entries that are older than the window, oldest first. */
+	private void expire(long now) {
+		for (Iterator<Long> iterator = messageIds.values().iterator(); iterator.hasNext();) {
+			if (now - iterator.next() >= window) {
+				iterator.remove();
+			}
+			else {
+				break;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.addressing.messageid;
+
+import java.net.URI;
+
+/**
+ * Sub-interface of {@link MessageIdStrategy} for strategies that record the message ids passed to {@link
+ * #isDuplicate(URI)}. Such strategies are told when processing a message failed, so that a redelivery of that message
+ * is not rejected as a duplicate.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public interface RedeliveryAwareMessageIdStrategy extends MessageIdStrategy {
+
+	/**
+	 * Indicates that processing the message with the given {@code MessageID}, which was not a {@linkplain
+	 * #isDuplicate(URI) duplicate}, failed with an exception or a fault. Subsequent redeliveries of the message are to
+	 * be processed again.
+	 *
+	 * @param messageId the message id
+	 */
+	void processingFailed(URI messageId);
+
+}
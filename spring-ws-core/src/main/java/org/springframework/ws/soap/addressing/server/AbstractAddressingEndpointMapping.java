@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,7 +28,7 @@ import org.springframework.ws.server.EndpointInterceptor;
 import org.springframework.ws.server.EndpointInvocationChain;
 import org.springframework.ws.server.EndpointMapping;
 import org.springframework.ws.server.SmartEndpointInterceptor;
-import org.springframework.ws.soap.SoapHeader;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
 import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.addressing.core.MessageAddressingProperties;
@@ -250,12 +250,13 @@ public abstract class AbstractAddressingEndpointMapping extends TransformerObjec
 	public final EndpointInvocationChain getEndpoint(MessageContext messageContext) throws TransformerException {
 		Assert.isInstanceOf(SoapMessage.class, messageContext.getRequest());
 		SoapMessage request = (SoapMessage) messageContext.getRequest();
+		RoutingFacts routingFacts = RoutingFacts.get(messageContext);
 		for (AddressingVersion version : versions) {
-			if (supports(version, request)) {
+			if (supports(version, routingFacts)) {
 				if (logger.isDebugEnabled()) {
 					logger.debug("Request [" + request + "] uses [" + version + "]");
 				}
-				MessageAddressingProperties requestMap = version.getMessageAddressingProperties(request);
+				MessageAddressingProperties requestMap = routingFacts.getMessageAddressingProperties(version);
 				if (requestMap == null) {
 					return null;
 				}
@@ -303,14 +304,10 @@ public abstract class AbstractAddressingEndpointMapping extends TransformerObjec
 				interceptors.toArray(new EndpointInterceptor[interceptors.size()]), actorsOrRoles, isUltimateReceiver);
 	}
 
-	private boolean supports(AddressingVersion version, SoapMessage request) {
-		SoapHeader header = request.getSoapHeader();
-		if (header != null) {
-			for (Iterator<SoapHeaderElement> iterator = header.examineAllHeaderElements(); iterator.hasNext();) {
-				SoapHeaderElement headerElement = iterator.next();
-				if (version.understands(headerElement)) {
-					return true;
-				}
+	private boolean supports(AddressingVersion version, RoutingFacts routingFacts) {
+		for (SoapHeaderElement headerElement : routingFacts.getSoapHeaderElements()) {
+			if (version.understands(headerElement)) {
+				return true;
 			}
 		}
 		return false;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.addressing.core.EndpointReference;
 import org.springframework.ws.soap.addressing.core.MessageAddressingProperties;
 import org.springframework.ws.soap.addressing.messageid.MessageIdStrategy;
+import org.springframework.ws.soap.addressing.messageid.RedeliveryAwareMessageIdStrategy;
 import org.springframework.ws.soap.addressing.version.AddressingVersion;
 import org.springframework.ws.soap.server.SoapEndpointInterceptor;
 import org.springframework.ws.transport.WebServiceConnection;
@@ -45,6 +46,8 @@ class AddressingEndpointInterceptor implements SoapEndpointInterceptor {
 
 	private static final Log logger = LogFactory.getLog(AddressingEndpointInterceptor.class);
 
+	private static final String MESSAGE_ID_PROPERTY = AddressingEndpointInterceptor.class.getName() + ".MESSAGE_ID";
+
 	private final AddressingVersion version;
 
 	private final MessageIdStrategy messageIdStrategy;
@@ -83,6 +86,10 @@ class AddressingEndpointInterceptor implements SoapEndpointInterceptor {
 			version.addInvalidAddressingHeaderFault((SoapMessage) messageContext.getResponse());
 			return false;
 		}
+		if (messageIdStrategy instanceof RedeliveryAwareMessageIdStrategy && requestMap.getMessageId() != null) {
+			// remember the accepted id, so that it can be released if processing fails
+			messageContext.setProperty(MESSAGE_ID_PROPERTY, requestMap.getMessageId());
+		}
 		return true;
 	}
 
@@ -93,6 +100,7 @@ class AddressingEndpointInterceptor implements SoapEndpointInterceptor {
 
 	@Override
 	public final boolean handleFault(MessageContext messageContext, Object endpoint) throws Exception {
+		processingFailed(messageContext);
 		return handleResponseOrFault(messageContext, true);
 	}
 
@@ -183,6 +191,18 @@ class AddressingEndpointInterceptor implements SoapEndpointInterceptor {
 
 	@Override
 	public void afterCompletion(MessageContext messageContext, Object endpoint, Exception ex) {
+		if (ex != null) {
+			processingFailed(messageContext);
+		}
+	}
+
+	/** Tells a redelivery aware strategy that processing the accepted request failed, so that it can be redelivered. */
+	private void processingFailed(MessageContext messageContext) {
+		URI messageId = (URI) messageContext.getProperty(MESSAGE_ID_PROPERTY);
+		if (messageId != null) {
+			messageContext.removeProperty(MESSAGE_ID_PROPERTY);
+			((RedeliveryAwareMessageIdStrategy) messageIdStrategy).processingFailed(messageId);
+		}
 	}
 
 	@Override
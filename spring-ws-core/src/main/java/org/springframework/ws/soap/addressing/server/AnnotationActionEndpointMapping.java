@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.ws.server.endpoint.MethodEndpoint;
 import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.index.EndpointIndex;
+import org.springframework.ws.server.endpoint.index.EndpointIndexLoader;
 import org.springframework.ws.soap.addressing.core.MessageAddressingProperties;
 import org.springframework.ws.soap.addressing.server.annotation.Action;
 import org.springframework.ws.soap.addressing.server.annotation.Address;
@@ -52,6 +54,10 @@ import org.springframework.ws.soap.addressing.server.annotation.Address;
  * org.springframework.ws.soap.addressing.core.MessageAddressingProperties#getTo() destination} property of the
  * incoming message.
  *
+ * <p>If the endpoint classes have been compiled with the {@link
+ * org.springframework.ws.server.endpoint.index.EndpointIndexProcessor}, endpoints that are indexed without any
+ * {@code @Action} methods are not inspected.
+ *
  * @author Arjen Poutsma
  * @see Action
  * @see Address
@@ -146,9 +152,17 @@ public class AnnotationActionEndpointMapping extends AbstractActionMethodEndpoin
 
 	@Override
 	public final Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-		if (AopUtils.getTargetClass(bean).getAnnotation(getEndpointAnnotationType()) != null) {
+		Class<?> endpointClass = AopUtils.getTargetClass(bean);
+		if (endpointClass.getAnnotation(getEndpointAnnotationType()) != null && hasActionMethods(endpointClass)) {
 			registerMethods(bean);
 		}
 		return bean;
 	}
+
+	private boolean hasActionMethods(Class<?> endpointClass) {
+		ClassLoader classLoader = getApplicationContext() != null ? getApplicationContext().getClassLoader() :
+				endpointClass.getClassLoader();
+		EndpointIndex index = EndpointIndexLoader.loadIndex(classLoader);
+		return index == null || !index.isIndexed(endpointClass) || index.hasStereotype(endpointClass, Action.class);
+	}
 }
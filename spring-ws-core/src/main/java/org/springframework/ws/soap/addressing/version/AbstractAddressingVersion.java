@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,11 +18,11 @@ package org.springframework.ws.soap.addressing.version;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -50,12 +50,10 @@ import org.springframework.ws.soap.soap12.Soap12Body;
 import org.springframework.ws.soap.soap12.Soap12Fault;
 import org.springframework.xml.namespace.QNameUtils;
 import org.springframework.xml.transform.TransformerObjectSupport;
-import org.springframework.xml.xpath.XPathExpression;
-import org.springframework.xml.xpath.XPathExpressionFactory;
 
 /**
- * Abstract base class for {@link AddressingVersion} implementations. Uses {@link XPathExpression}s to retrieve
- * addressing information.
+ * Abstract base class for {@link AddressingVersion} implementations. Retrieves addressing information by examining
+ * the header elements of a message once, without evaluating XPath expressions.
  *
  * @author Arjen Poutsma
  * @since 1.5.0
@@ -64,99 +62,131 @@ public abstract class AbstractAddressingVersion extends TransformerObjectSupport
 
 	private static DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
 
-	private final XPathExpression toExpression;
+	private final String toLocalName;
 
-	private final XPathExpression actionExpression;
+	private final String fromLocalName;
 
-	private final XPathExpression messageIdExpression;
+	private final String replyToLocalName;
 
-	private final XPathExpression fromExpression;
+	private final String faultToLocalName;
 
-	private final XPathExpression replyToExpression;
+	private final String actionLocalName;
 
-	private final XPathExpression faultToExpression;
-
-	private final XPathExpression addressExpression;
-
-	private final XPathExpression referencePropertiesExpression;
-
-	private final XPathExpression referenceParametersExpression;
+	private final String messageIdLocalName;
 
 	protected AbstractAddressingVersion() {
-		Map<String, String> namespaces = new HashMap<String, String>();
-		namespaces.put(getNamespacePrefix(), getNamespaceUri());
-		toExpression = createNormalizedExpression(getToName(), namespaces);
-		actionExpression = createNormalizedExpression(getActionName(), namespaces);
-		messageIdExpression = createNormalizedExpression(getMessageIdName(), namespaces);
-		fromExpression = createExpression(getFromName(), namespaces);
-		replyToExpression = createExpression(getReplyToName(), namespaces);
-		faultToExpression = createExpression(getFaultToName(), namespaces);
-		addressExpression = createNormalizedExpression(getAddressName(), namespaces);
-		if (getReferencePropertiesName() != null) {
-			referencePropertiesExpression = createChildrenExpression(getReferencePropertiesName(), namespaces);
-		}
-		else {
-			referencePropertiesExpression = null;
-		}
-		if (getReferenceParametersName() != null) {
-			referenceParametersExpression = createChildrenExpression(getReferenceParametersName(), namespaces);
-		}
-		else {
-			referenceParametersExpression = null;
-		}
-	}
-
-	private XPathExpression createExpression(QName name, Map<String, String> namespaces) {
-		String expression = name.getPrefix() + ":" + name.getLocalPart();
-		return XPathExpressionFactory.createXPathExpression(expression, namespaces);
-	}
-
-	private XPathExpression createNormalizedExpression(QName name, Map<String, String> namespaces) {
-		String expression = "normalize-space(" + name.getPrefix() + ":" + name.getLocalPart() + ")";
-		return XPathExpressionFactory.createXPathExpression(expression, namespaces);
-	}
-
-	private XPathExpression createChildrenExpression(QName name, Map<String, String> namespaces) {
-		String expression = name.getPrefix() + ":" + name.getLocalPart() + "/*";
-		return XPathExpressionFactory.createXPathExpression(expression, namespaces);
+		toLocalName = getToName().getLocalPart();
+		fromLocalName = getFromName().getLocalPart();
+		replyToLocalName = getReplyToName().getLocalPart();
+		faultToLocalName = getFaultToName().getLocalPart();
+		actionLocalName = getActionName().getLocalPart();
+		messageIdLocalName = getMessageIdName().getLocalPart();
 	}
 
+	/**
+	 * Reads the addressing properties in a single pass over the header elements of the given message. Only the
+	 * {@code From}, {@code ReplyTo}, and {@code FaultTo} endpoint references are converted to DOM; the other
+	 * properties are read as text directly from the header elements.
+	 */
 	@Override
 	public MessageAddressingProperties getMessageAddressingProperties(SoapMessage message) {
-		Element headerElement = getSoapHeaderElement(message);
-		URI to = getUri(headerElement, toExpression);
+		String namespaceUri = getNamespaceUri();
+		URI to = null;
+		EndpointReference from = null;
+		EndpointReference replyTo = null;
+		EndpointReference faultTo = null;
+		URI action = null;
+		URI messageId = null;
+		boolean toFound = false;
+		boolean fromFound = false;
+		boolean replyToFound = false;
+		boolean faultToFound = false;
+		boolean actionFound = false;
+		boolean messageIdFound = false;
+		SoapHeader header = message.getSoapHeader();
+		if (header != null) {
+			for (Iterator<SoapHeaderElement> iterator = header.examineAllHeaderElements(); iterator.hasNext();) {
+				SoapHeaderElement headerElement = iterator.next();
+				QName name = headerElement.getName();
+				if (!namespaceUri.equals(name.getNamespaceURI())) {
+					continue;
+				}
+				String localName = name.getLocalPart();
+				if (!toFound && toLocalName.equals(localName)) {
+					to = getUri(headerElement);
+					toFound = true;
+				}
+				else if (!actionFound && actionLocalName.equals(localName)) {
+					action = getUri(headerElement);
+					actionFound = true;
+				}
+				else if (!messageIdFound && messageIdLocalName.equals(localName)) {
+					messageId = getUri(headerElement);
+					messageIdFound = true;
+				}
+				else if (!fromFound && fromLocalName.equals(localName)) {
+					from = getEndpointReference(getElement(headerElement));
+					fromFound = true;
+				}
+				else if (!replyToFound && replyToLocalName.equals(localName)) {
+					replyTo = getEndpointReference(getElement(headerElement));
+					replyToFound = true;
+				}
+				else if (!faultToFound && faultToLocalName.equals(localName)) {
+					faultTo = getEndpointReference(getElement(headerElement));
+					faultToFound = true;
+				}
+			}
+		}
 		if (to == null) {
 			to = getDefaultTo();
 		}
-		EndpointReference from = getEndpointReference(fromExpression.evaluateAsNode(headerElement));
-		EndpointReference replyTo = getEndpointReference(replyToExpression.evaluateAsNode(headerElement));
 		if (replyTo == null) {
 			replyTo = getDefaultReplyTo(from);
 		}
-		EndpointReference faultTo = getEndpointReference(faultToExpression.evaluateAsNode(headerElement));
 		if (faultTo == null) {
 			faultTo = replyTo;
 		}
-		URI action = getUri(headerElement, actionExpression);
-		URI messageId = getUri(headerElement, messageIdExpression);
 		return new MessageAddressingProperties(to, from, replyTo, faultTo, action, messageId);
 	}
 
-	private URI getUri(Node node, XPathExpression expression) {
-		String messageId = expression.evaluateAsString(node);
-		if (!StringUtils.hasLength(messageId)) {
+	private URI getUri(SoapHeaderElement headerElement) {
+		String text = headerElement.getText();
+		if (text == null) {
+			text = getElement(headerElement).getTextContent();
+		}
+		return getUri(text);
+	}
+
+	private URI getUri(String text) {
+		String value = normalizeSpace(text);
+		if (!StringUtils.hasLength(value)) {
 			return null;
 		}
 		try {
-			return new URI(messageId);
+			return new URI(value);
 		}
 		catch (URISyntaxException e) {
 			return null;
 		}
 	}
 
-	private Element getSoapHeaderElement(SoapMessage message) {
-		Source source = message.getSoapHeader().getSource();
+	/** Strips leading and trailing whitespace, and collapses inner whitespace, like the XPath normalize-space function. */
+	private static String normalizeSpace(String text) {
+		if (text == null) {
+			return null;
+		}
+		String trimmed = StringUtils.trimWhitespace(text);
+		for (int i = 0; i < trimmed.length(); i++) {
+			if (Character.isWhitespace(trimmed.charAt(i))) {
+				return StringUtils.arrayToDelimitedString(StringUtils.tokenizeToStringArray(trimmed, " \t\n\r"), " ");
+			}
+		}
+		return trimmed;
+	}
+
+	private Element getElement(SoapHeaderElement headerElement) {
+		Source source = headerElement.getSource();
 		if (source instanceof DOMSource) {
 			DOMSource domSource = (DOMSource) source;
 			if (domSource.getNode() != null && domSource.getNode().getNodeType() == Node.ELEMENT_NODE) {
@@ -170,26 +200,55 @@ public abstract class AbstractAddressingVersion extends TransformerObjectSupport
 			return document.getDocumentElement();
 		}
 		catch (TransformerException ex) {
-			throw new AddressingException("Could not transform SoapHeader to Document", ex);
+			throw new AddressingException("Could not transform SoapHeaderElement to Document", ex);
 		}
 	}
 
-	/** Given a ReplyTo, FaultTo, or From node, returns an endpoint reference. */
-	private EndpointReference getEndpointReference(Node node) {
-		if (node == null) {
-			return null;
+	/** Given a ReplyTo, FaultTo, or From element, returns an endpoint reference. */
+	private EndpointReference getEndpointReference(Element element) {
+		URI address = null;
+		boolean addressFound = false;
+		List<Node> referenceProperties = null;
+		List<Node> referenceParameters = null;
+		QName addressName = getAddressName();
+		QName referencePropertiesName = getReferencePropertiesName();
+		QName referenceParametersName = getReferenceParametersName();
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE) {
+				continue;
+			}
+			if (!addressFound && matches(child, addressName)) {
+				address = getUri(child.getTextContent());
+				addressFound = true;
+			}
+			else if (referenceProperties == null && matches(child, referencePropertiesName)) {
+				referenceProperties = getChildElements(child);
+			}
+			else if (referenceParameters == null && matches(child, referenceParametersName)) {
+				referenceParameters = getChildElements(child);
+			}
 		}
-		URI address = getUri(node, addressExpression);
 		if (address == null) {
 			return null;
 		}
-		List<Node> referenceProperties =
-				referencePropertiesExpression != null ? referencePropertiesExpression.evaluateAsNodeList(node) :
-						Collections.<Node>emptyList();
-		List<Node> referenceParameters =
-				referenceParametersExpression != null ? referenceParametersExpression.evaluateAsNodeList(node) :
-						Collections.<Node>emptyList();
-		return new EndpointReference(address, referenceProperties, referenceParameters);
+		return new EndpointReference(address,
+				referenceProperties != null ? referenceProperties : Collections.<Node>emptyList(),
+				referenceParameters != null ? referenceParameters : Collections.<Node>emptyList());
+	}
+
+	private static boolean matches(Node node, QName name) {
+		return name != null && name.getLocalPart().equals(node.getLocalName()) &&
+				name.getNamespaceURI().equals(node.getNamespaceURI());
+	}
+
+	private static List<Node> getChildElements(Node node) {
+		List<Node> result = new ArrayList<Node>();
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				result.add(child);
+			}
+		}
+		return result;
 	}
 
 	@Override
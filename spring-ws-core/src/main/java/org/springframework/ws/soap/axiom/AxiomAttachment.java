@@ -18,7 +18,14 @@ package org.springframework.ws.soap.axiom;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+
+import org.apache.axiom.ext.activation.SizeAwareDataSource;
 
 import org.springframework.util.Assert;
 import org.springframework.ws.mime.Attachment;
@@ -54,12 +61,28 @@ class AxiomAttachment implements Attachment {
 
 	@Override
 	public InputStream getInputStream() throws IOException {
+		DataSource dataSource = dataHandler.getDataSource();
+		if (dataSource instanceof FileDataSource) {
+			// read cached and file-based attachments through a file channel
+			FileChannel channel = FileChannel.open(((FileDataSource) dataSource).getFile().toPath(),
+					StandardOpenOption.READ);
+			return Channels.newInputStream(channel);
+		}
 		return dataHandler.getInputStream();
 	}
 
 	@Override
 	public long getSize() {
-		// Axiom does not support getting the size of attachments.
+		if (dataHandler instanceof FileChannelDataHandler) {
+			return ((FileChannelDataHandler) dataHandler).getSize();
+		}
+		DataSource dataSource = dataHandler.getDataSource();
+		if (dataSource instanceof SizeAwareDataSource) {
+			return ((SizeAwareDataSource) dataSource).getSize();
+		}
+		else if (dataSource instanceof FileDataSource) {
+			return ((FileDataSource) dataSource).getFile().length();
+		}
 		return -1;
 	}
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.axiom;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.axiom.attachments.lifecycle.LifecycleManager;
+import org.apache.axiom.attachments.lifecycle.impl.FileAccessor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Axiom {@link LifecycleManager} that keeps track of the files used to cache the attachments of a single message, so
+ * that they can be deleted as soon as the message is {@linkplain AxiomSoapMessage#close() closed}. As a safety net for
+ * messages that are never closed, all cached files are also deleted when the VM exits.
+ *
+ * @author agent
+ * @see AxiomSoapMessage#close()
+ * @since 3.0.1
+ */
+class AxiomAttachmentCache implements LifecycleManager {
+
+	private static final Log logger = LogFactory.getLog(AxiomAttachmentCache.class);
+
+	private static final String TEMP_FILE_PREFIX = "Axiom";
+
+	private static final String TEMP_FILE_SUFFIX = ".att";
+
+	private final Map<String, FileAccessor> fileAccessors = new LinkedHashMap<String, FileAccessor>();
+
+	@Override
+	public synchronized FileAccessor create(String attachmentDir) throws IOException {
+		File file = File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, new File(attachmentDir));
+		if (logger.isDebugEnabled()) {
+			logger.debug("Caching attachment in [" + file + "]");
+		}
+		file.deleteOnExit();
+		FileAccessor fileAccessor = new FileAccessor(this, file);
+		fileAccessors.put(file.getName(), fileAccessor);
+		return fileAccessor;
+	}
+
+	@Override
+	public synchronized FileAccessor getFileAccessor(String fileName) throws IOException {
+		return fileAccessors.get(fileName);
+	}
+
+	@Override
+	public synchronized void delete(File file) throws IOException {
+		fileAccessors.remove(file.getName());
+		deleteFile(file);
+	}
+
+	@Override
+	public void deleteOnExit(File file) throws IOException {
+		file.deleteOnExit();
+	}
+
+	/**
+	 * Does nothing; all cached files are deleted when this cache is {@linkplain #dispose() disposed}, or when the VM
+	 * exits.
+	 */
+	@Override
+	public void deleteOnTimeInterval(int interval, File file) throws IOException {
+	}
+
+	/** Deletes all files that are still cached. */
+	public synchronized void dispose() {
+		for (FileAccessor fileAccessor : fileAccessors.values()) {
+			deleteFile(fileAccessor.getFile());
+		}
+		fileAccessors.clear();
+	}
+
+	private void deleteFile(File file) {
+		if (file.exists() && !file.delete()) {
+			logger.warn("Could not delete cached attachment [" + file + "]");
+			file.deleteOnExit();
+		}
+		else if (logger.isDebugEnabled()) {
+			logger.debug("Deleted cached attachment [" + file + "]");
+		}
+	}
+}
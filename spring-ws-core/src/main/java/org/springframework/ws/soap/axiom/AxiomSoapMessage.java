@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.ws.soap.axiom;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -24,6 +25,7 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.util.Iterator;
 import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.dom.DOMSource;
 
@@ -63,7 +65,7 @@ import org.springframework.ws.transport.TransportOutputStream;
  * @see SOAPMessage
  * @since 1.0.0
  */
-public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWebServiceMessage {
+public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWebServiceMessage, Closeable {
 
 	private static final String EMPTY_SOAP_ACTION = "\"\"";
 
@@ -83,6 +85,8 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 
 	private OMOutputFormat outputFormat;
 
+	private AxiomAttachmentCache attachmentCache;
+
 	/**
 	 * Create a new, empty {@code AxiomSoapMessage}.
 	 *
@@ -165,6 +169,14 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 		this.soapAction = EMPTY_SOAP_ACTION;
 	}
 
+	/**
+	 * Indicates whether the contents of the SOAP body are cached. If not, reading the payload or writing the message
+	 * consumes it, so that it can only be done once.
+	 */
+	public boolean isPayloadCaching() {
+		return payloadCaching;
+	}
+
 	/**
 	 * Sets the {@link OMOutputFormat} to be used when writing the message.
 	 *
@@ -174,6 +186,23 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 		this.outputFormat = outputFormat;
 	}
 
+	/** Sets the cache that holds the attachments of this message on disk, if any. */
+	void setAttachmentCache(AxiomAttachmentCache attachmentCache) {
+		this.attachmentCache = attachmentCache;
+	}
+
+	/**
+	 * Releases the resources held by this message. In particular, deletes any attachments that were cached on disk by
+	 * the {@link AxiomSoapMessageFactory}. After this method has been called, the attachments of this message can no
+	 * longer be read.
+	 */
+	@Override
+	public void close() {
+		if (attachmentCache != null) {
+			attachmentCache.dispose();
+		}
+	}
+
 	@Override
 	public void setStreamingPayload(StreamingPayload payload) {
 		AxiomSoapBody soapBody = (AxiomSoapBody) getSoapBody();
@@ -259,6 +288,9 @@ public class AxiomSoapMessage extends AbstractSoapMessage implements StreamingWe
 	public Attachment addAttachment(String contentId, DataHandler dataHandler) {
 		Assert.hasLength(contentId, "contentId must not be empty");
 		Assert.notNull(dataHandler, "dataHandler must not be null");
+		if (dataHandler.getClass() == DataHandler.class && dataHandler.getDataSource() instanceof FileDataSource) {
+			dataHandler = new FileChannelDataHandler((FileDataSource) dataHandler.getDataSource());
+		}
 		attachments.addDataHandler(contentId, dataHandler);
 		return new AxiomAttachment(contentId, dataHandler);
 	}
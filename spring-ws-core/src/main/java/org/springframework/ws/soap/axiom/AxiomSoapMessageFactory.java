@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,10 +66,18 @@ import org.springframework.ws.transport.TransportInputStream;
  * the {@link PayloadLoggingInterceptor}) cannot be used. Instead, use an endpoint mapping that does not consume the
  * payload (i.e. the {@link SoapActionAnnotationMethodEndpointMapping}).
  *
+ * <p>When payload caching is disabled, the response payload written by an endpoint is not encoded until the message
+ * is written to the transport, at which point it is serialized directly to the output stream. To avoid holding the
+ * response in memory, endpoints can set a {@linkplain
+ * AxiomSoapMessage#setStreamingPayload(org.springframework.ws.stream.StreamingPayload) streaming payload}, as the JAXB2
+ * method processors do.
+ *
  * <p>Additionally, this message factory can cache large attachments to disk by setting the {@link
  * #setAttachmentCaching(boolean) attachmentCaching} property to {@code true} (default is {@code false}).
  * Optionally, the location where attachments are stored can be defined via the {@link #setAttachmentCacheDir(File)
- * attachmentCacheDir} property (defaults to the system temp file path).
+ * attachmentCacheDir} property (defaults to the system temp file path). Cached attachments are deleted as soon as
+ * the message is {@linkplain AxiomSoapMessage#close() closed}, which happens automatically for incoming requests after
+ * the response has been sent.
  *
  * <p>Mostly derived from {@code org.apache.axis2.transport.http.HTTPTransportUtils} and
  * {@code org.apache.axis2.transport.TransportUtils}, which we cannot use since they are not part of the Axiom
@@ -283,9 +291,10 @@ public class AxiomSoapMessageFactory implements SoapMessageFactory, Initializing
 	private AxiomSoapMessage createMultiPartAxiomSoapMessage(InputStream inputStream,
 															 String contentType,
 															 String soapAction) throws XMLStreamException {
+		AxiomAttachmentCache attachmentCache = attachmentCaching ? new AxiomAttachmentCache() : null;
 		Attachments attachments =
-				new Attachments(inputStream, contentType, attachmentCaching, attachmentCacheDir.getAbsolutePath(),
-						Integer.toString(attachmentCacheThreshold));
+				new Attachments(attachmentCache, inputStream, contentType, attachmentCaching,
+						attachmentCacheDir.getAbsolutePath(), Integer.toString(attachmentCacheThreshold));
 		XMLStreamReader reader = inputFactory.createXMLStreamReader(attachments.getRootPartInputStream(),
 				getCharSetEncoding(attachments.getRootPartContentType()));
 		SOAPModelBuilder builder;
@@ -301,8 +310,10 @@ public class AxiomSoapMessageFactory implements SoapMessageFactory, Initializing
 			throw new AxiomSoapMessageCreationException(
 					"Unknown attachment type: [" + attachments.getAttachmentSpecType() + "]");
 		}
-		return new AxiomSoapMessage(builder.getSOAPMessage(), attachments, soapAction, payloadCaching,
-				langAttributeOnSoap11FaultString);
+		AxiomSoapMessage message = new AxiomSoapMessage(builder.getSOAPMessage(), attachments, soapAction,
+				payloadCaching, langAttributeOnSoap11FaultString);
+		message.setAttachmentCache(attachmentCache);
+		return message;
 	}
 
 	private String getSoapEnvelopeNamespace(String contentType) {
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.axiom;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
+
+/**
+ * {@link DataHandler} for file-based attachments that writes its contents using {@link FileChannel#transferTo(long,
+ * long, WritableByteChannel)}, rather than copying the file through a heap buffer. When the target stream is backed
+ * by a file or socket channel, this allows the operating system to transfer the contents without copying them into the
+ * VM at all.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class FileChannelDataHandler extends DataHandler {
+
+	private final FileDataSource dataSource;
+
+	FileChannelDataHandler(FileDataSource dataSource) {
+		super(dataSource);
+		this.dataSource = dataSource;
+	}
+
+	/** Returns the size of the underlying file. */
+	long getSize() {
+		return dataSource.getFile().length();
+	}
+
+	@Override
+	public void writeTo(OutputStream outputStream) throws IOException {
+		FileInputStream inputStream = new FileInputStream(dataSource.getFile());
+		try {
+			FileChannel channel = inputStream.getChannel();
+			WritableByteChannel target = getChannel(outputStream);
+			long size = channel.size();
+			long position = 0;
+			while (position < size) {
+				position += channel.transferTo(position, size - position, target);
+			}
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	private static WritableByteChannel getChannel(OutputStream outputStream) {
+		if (outputStream instanceof FileOutputStream) {
+			return ((FileOutputStream) outputStream).getChannel();
+		}
+		return Channels.newChannel(outputStream);
+	}
+}
@@ -16,7 +16,6 @@
 
 package org.springframework.ws.soap.axiom;
 
-import java.io.ByteArrayOutputStream;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
@@ -24,11 +23,8 @@ import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Result;
 
-import org.apache.axiom.om.OMDataSource;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMNamespace;
-import org.apache.axiom.om.ds.ByteArrayDataSource;
-import org.apache.axiom.om.util.StAXUtils;
 import org.apache.axiom.soap.SOAPBody;
 import org.apache.axiom.soap.SOAPFactory;
 
@@ -37,14 +33,15 @@ import org.springframework.util.xml.StaxUtils;
 /**
  * Non-caching payload in Axiom.
  *
+ * <p>The payload written to the {@linkplain #getResult() result} is not encoded right away, but recorded in a {@link
+ * RecordingOMDataSource}, and replayed to the transport when the message is serialized.
+ *
  * @author Jim Cummings
  * @author Arjen Poutsma
  * @since 1.5.2
  */
 class NonCachingPayload extends AbstractPayload {
 
-	private static final int BUF_SIZE = 1024;
-
 	NonCachingPayload(SOAPBody axiomBody, SOAPFactory axiomFactory) {
 		super(axiomBody, axiomFactory);
 	}
@@ -61,27 +58,16 @@ class NonCachingPayload extends AbstractPayload {
 
 	private class DelegatingStreamWriter implements XMLStreamWriter {
 
-		private final ByteArrayOutputStream baos = new ByteArrayOutputStream(BUF_SIZE);
+		private final RecordingOMDataSource dataSource = new RecordingOMDataSource();
 
-		private final XMLStreamWriter delegate;
+		private final XMLStreamWriter delegate = dataSource.getWriter();
 
 		private QName name;
 
-		private String encoding = "UTF-8";
-
 		private int elementDepth = 0;
 
 		private boolean payloadAdded = false;
 
-		private DelegatingStreamWriter() {
-			try {
-				this.delegate = StAXUtils.createXMLStreamWriter(baos);
-			}
-			catch (XMLStreamException ex) {
-				throw new AxiomSoapBodyException("Could not determine payload root element", ex);
-			}
-		}
-
 		@Override
 		public void writeStartDocument() throws XMLStreamException {
 			// ignored
@@ -94,7 +80,7 @@ class NonCachingPayload extends AbstractPayload {
 
 		@Override
 		public void writeStartDocument(String encoding, String version) throws XMLStreamException {
-			this.encoding = encoding;
+			// ignored
 		}
 
 		@Override
@@ -133,10 +119,7 @@ class NonCachingPayload extends AbstractPayload {
 
 		private void addPayload() throws XMLStreamException {
 			if (elementDepth <= 0 && !payloadAdded) {
-				delegate.flush();
-				if (baos.size() > 0) {
-					byte[] buf = baos.toByteArray();
-					OMDataSource dataSource = new ByteArrayDataSource(buf, encoding);
+				if (!dataSource.isEmpty()) {
 					OMNamespace namespace =
 							getAxiomFactory().createOMNamespace(name.getNamespaceURI(), name.getPrefix());
 					OMElement payloadElement =
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.axiom;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.om.OMDataSource;
+import org.apache.axiom.om.ds.AbstractPushOMDataSource;
+import org.apache.axiom.util.namespace.ScopedNamespaceContext;
+
+/**
+ * Implementation of {@link OMDataSource} that records the calls made on its {@linkplain #getWriter() writer}, and
+ * replays them on the {@link XMLStreamWriter} given to {@link #serialize(XMLStreamWriter)}.
+ *
+ * <p>Used by the {@link NonCachingPayload}. The payload written by an endpoint is held as a list of writer events,
+ * rather than being encoded into a byte array, only to be parsed and encoded again when the message is written. Note
+ * that this data source does not stream: the recorded events take memory in proportion to the size of the payload,
+ * until the message is serialized.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class RecordingOMDataSource extends AbstractPushOMDataSource {
+
+	private final List<Object> events = new ArrayList<Object>();
+
+	private final XMLStreamWriter writer = new RecordingStreamWriter();
+
+	/** Returns the writer whose calls are recorded by this data source. */
+	XMLStreamWriter getWriter() {
+		return writer;
+	}
+
+	/** Indicates whether nothing has been recorded yet. */
+	boolean isEmpty() {
+		return events.isEmpty();
+	}
+
+	@Override
+	public boolean isDestructiveWrite() {
+		return false;
+	}
+
+	@Override
+	public void serialize(XMLStreamWriter xmlWriter) throws XMLStreamException {
+		int i = 0;
+		while (i < events.size()) {
+			Event event = (Event) events.get(i++);
+			switch (event) {
+				case START_ELEMENT:
+					xmlWriter.writeStartElement(arg(i++));
+					break;
+				case START_ELEMENT_PREFIX:
+					xmlWriter.writeStartElement(arg(i++), arg(i++), arg(i++));
+					break;
+				case EMPTY_ELEMENT:
+					xmlWriter.writeEmptyElement(arg(i++));
+					break;
+				case EMPTY_ELEMENT_PREFIX:
+					xmlWriter.writeEmptyElement(arg(i++), arg(i++), arg(i++));
+					break;
+				case END_ELEMENT:
+					xmlWriter.writeEndElement();
+					break;
+				case ATTRIBUTE:
+					xmlWriter.writeAttribute(arg(i++), arg(i++));
+					break;
+				case ATTRIBUTE_NS:
+					xmlWriter.writeAttribute(arg(i++), arg(i++), arg(i++));
+					break;
+				case ATTRIBUTE_PREFIX:
+					xmlWriter.writeAttribute(arg(i++), arg(i++), arg(i++), arg(i++));
+					break;
+				case NAMESPACE:
+					xmlWriter.writeNamespace(arg(i++), arg(i++));
+					break;
+				case DEFAULT_NAMESPACE:
+					xmlWriter.writeDefaultNamespace(arg(i++));
+					break;
+				case SET_PREFIX:
+					xmlWriter.setPrefix(arg(i++), arg(i++));
+					break;
+				case SET_DEFAULT_NAMESPACE:
+					xmlWriter.setDefaultNamespace(arg(i++));
+					break;
+				case CHARACTERS:
+					xmlWriter.writeCharacters(arg(i++));
+					break;
+				case CDATA:
+					xmlWriter.writeCData(arg(i++));
+					break;
+				case COMMENT:
+					xmlWriter.writeComment(arg(i++));
+					break;
+				case PROCESSING_INSTRUCTION:
+					xmlWriter.writeProcessingInstruction(arg(i++), arg(i++));
+					break;
+				case ENTITY_REFERENCE:
+					xmlWriter.writeEntityRef(arg(i++));
+					break;
+				case DTD:
+					xmlWriter.writeDTD(arg(i++));
+					break;
+				default:
+					throw new IllegalStateException("Unknown event: " + event);
+			}
+		}
+	}
+
+	private String arg(int index) {
+		return (String) events.get(index);
+	}
+
+	private enum Event {
+		START_ELEMENT, START_ELEMENT_PREFIX, EMPTY_ELEMENT, EMPTY_ELEMENT_PREFIX, END_ELEMENT, ATTRIBUTE,
+		ATTRIBUTE_NS, ATTRIBUTE_PREFIX, NAMESPACE, DEFAULT_NAMESPACE, SET_PREFIX, SET_DEFAULT_NAMESPACE, CHARACTERS,
+		CDATA, COMMENT, PROCESSING_INSTRUCTION, ENTITY_REFERENCE, DTD
+	}
+
+	/**
+	 * {@code XMLStreamWriter} that records all calls in the list of events. Keeps track of namespace bindings, so that
+	 * {@link #getPrefix(String)} and {@link #getNamespaceContext()} behave like a regular, non-repairing writer.
+	 */
+	private class RecordingStreamWriter implements XMLStreamWriter {
+
+		private final ScopedNamespaceContext namespaceContext = new ScopedNamespaceContext();
+
+		private NamespaceContext rootNamespaceContext;
+
+		private int elementDepth = 0;
+
+		private boolean inEmptyElement = false;
+
+		private void record(Event event, String... args) {
+			events.add(event);
+			for (String arg : args) {
+				events.add(arg);
+			}
+		}
+
+		private void startElement(Event event, String... args) {
+			endEmptyElement();
+			record(event, args);
+			namespaceContext.startScope();
+			elementDepth++;
+		}
+
+		private void emptyElement(Event event, String... args) {
+			endEmptyElement();
+			record(event, args);
+			namespaceContext.startScope();
+			inEmptyElement = true;
+		}
+
+		/**
+		 * Returns the prefix bound to the given namespace. Like a regular, non-repairing writer, throws an exception if
+		 * the namespace is not bound, since the element or attribute would end up in the wrong namespace otherwise.
+		 */
+		private String getBoundPrefix(String namespaceURI) throws XMLStreamException {
+			if (namespaceURI == null || namespaceURI.length() == 0) {
+				return XMLConstants.DEFAULT_NS_PREFIX;
+			}
+			String prefix = getPrefix(namespaceURI);
+			if (prefix == null) {
+				throw new XMLStreamException("Unbound namespace URI '" + namespaceURI + "'");
+			}
+			return prefix;
+		}
+
+		/** Ends the namespace scope of the last empty element, if any. */
+		private void endEmptyElement() {
+			if (inEmptyElement) {
+				namespaceContext.endScope();
+				inEmptyElement = false;
+			}
+		}
+
+		@Override
+		public void writeStartElement(String localName) throws XMLStreamException {
+			startElement(Event.START_ELEMENT, localName);
+		}
+
+		@Override
+		public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+			startElement(Event.START_ELEMENT_PREFIX, getBoundPrefix(namespaceURI), localName, namespaceURI);
+		}
+
+		@Override
+		public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+			startElement(Event.START_ELEMENT_PREFIX, prefix, localName, namespaceURI);
+		}
+
+		@Override
+		public void writeEmptyElement(String localName) throws XMLStreamException {
+			emptyElement(Event.EMPTY_ELEMENT, localName);
+		}
+
+		@Override
+		public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+			emptyElement(Event.EMPTY_ELEMENT_PREFIX, getBoundPrefix(namespaceURI), localName, namespaceURI);
+		}
+
+		@Override
+		public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+			emptyElement(Event.EMPTY_ELEMENT_PREFIX, prefix, localName, namespaceURI);
+		}
+
+		@Override
+		public void writeEndElement() throws XMLStreamException {
+			endEmptyElement();
+			if (elementDepth > 0) {
+				record(Event.END_ELEMENT);
+				namespaceContext.endScope();
+				elementDepth--;
+			}
+		}
+
+		@Override
+		public void writeEndDocument() throws XMLStreamException {
+			while (elementDepth > 0 || inEmptyElement) {
+				writeEndElement();
+			}
+		}
+
+		@Override
+		public void writeAttribute(String localName, String value) throws XMLStreamException {
+			record(Event.ATTRIBUTE, localName, value);
+		}
+
+		@Override
+		public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+			String prefix = getBoundPrefix(namespaceURI);
+			if (prefix.length() > 0) {
+				record(Event.ATTRIBUTE_PREFIX, prefix, namespaceURI, localName, value);
+			}
+			else {
+				record(Event.ATTRIBUTE_NS, namespaceURI, localName, value);
+			}
+		}
+
+		@Override
+		public void writeAttribute(String prefix, String namespaceURI, String localName, String value)
+				throws XMLStreamException {
+			record(Event.ATTRIBUTE_PREFIX, prefix, namespaceURI, localName, value);
+		}
+
+		@Override
+		public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+			if (prefix == null || prefix.length() == 0 || XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+				writeDefaultNamespace(namespaceURI);
+			}
+			else {
+				record(Event.NAMESPACE, prefix, namespaceURI);
+				namespaceContext.setPrefix(prefix, namespaceURI);
+			}
+		}
+
+		@Override
+		public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+			record(Event.DEFAULT_NAMESPACE, namespaceURI);
+			namespaceContext.setPrefix(XMLConstants.DEFAULT_NS_PREFIX, namespaceURI);
+		}
+
+		@Override
+		public void setPrefix(String prefix, String uri) throws XMLStreamException {
+			endEmptyElement();
+			record(Event.SET_PREFIX, prefix, uri);
+			namespaceContext.setPrefix(prefix, uri);
+		}
+
+		@Override
+		public void setDefaultNamespace(String uri) throws XMLStreamException {
+			endEmptyElement();
+			record(Event.SET_DEFAULT_NAMESPACE, uri);
+			namespaceContext.setPrefix(XMLConstants.DEFAULT_NS_PREFIX, uri);
+		}
+
+		@Override
+		public void writeCharacters(String text) throws XMLStreamException {
+			endEmptyElement();
+			record(Event.CHARACTERS, text);
+		}
+
+		@Override
+		public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+			writeCharacters(new String(text, start, len));
+		}
+
+		@Override
+		public void writeCData(String data) throws XMLStreamException {
+			endEmptyElement();
+			record(Event.CDATA, data);
+		}
+
+		@Override
+		public void writeComment(String data) throws XMLStreamException {
+			endEmptyElement();
+			record(Event.COMMENT, data);
+		}
+
+		@Override
+		public void writeProcessingInstruction(String target) throws XMLStreamException {
+			writeProcessingInstruction(target, "");
+		}
+
+		@Override
+		public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+			endEmptyElement();
+			record(Event.PROCESSING_INSTRUCTION, target, data);
+		}
+
+		@Override
+		public void writeEntityRef(String name) throws XMLStreamException {
+			endEmptyElement();
+			record(Event.ENTITY_REFERENCE, name);
+		}
+
+		@Override
+		public void writeDTD(String dtd) throws XMLStreamException {
+			record(Event.DTD, dtd);
+		}
+
+		@Override
+		public void writeStartDocument() throws XMLStreamException {
+			// ignored
+		}
+
+		@Override
+		public void writeStartDocument(String version) throws XMLStreamException {
+			// ignored
+		}
+
+		@Override
+		public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+			// ignored
+		}
+
+		@Override
+		public String getPrefix(String uri) throws XMLStreamException {
+			String prefix = namespaceContext.getPrefix(uri);
+			if (prefix == null && rootNamespaceContext != null) {
+				prefix = rootNamespaceContext.getPrefix(uri);
+			}
+			return prefix;
+		}
+
+		@Override
+		public NamespaceContext getNamespaceContext() {
+			return namespaceContext;
+		}
+
+		@Override
+		public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+			this.rootNamespaceContext = context;
+		}
+
+		@Override
+		public Object getProperty(String name) throws IllegalArgumentException {
+			if (XMLOutputFactory.IS_REPAIRING_NAMESPACES.equals(name)) {
+				return Boolean.FALSE;
+			}
+			throw new IllegalArgumentException("Property [" + name + "] not supported");
+		}
+
+		@Override
+		public void flush() throws XMLStreamException {
+		}
+
+		@Override
+		public void close() throws XMLStreamException {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,7 +20,10 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
 import javax.xml.soap.MessageFactory;
@@ -35,14 +38,23 @@ import org.xml.sax.SAXParseException;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.ws.InvalidXmlException;
 import org.springframework.ws.soap.SoapMessageCreationException;
 import org.springframework.ws.soap.SoapMessageFactory;
 import org.springframework.ws.soap.SoapVersion;
 import org.springframework.ws.soap.saaj.support.SaajUtils;
+import org.springframework.ws.transport.HeadersAwareReceiverWebServiceConnection;
 import org.springframework.ws.transport.TransportConstants;
 import org.springframework.ws.transport.TransportInputStream;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
 
 /**
  * SAAJ-specific implementation of the {@link org.springframework.ws.WebServiceMessageFactory WebServiceMessageFactory}.
@@ -53,6 +65,11 @@ import org.springframework.ws.transport.TransportInputStream;
  * constructor}, or by the {@link #setMessageFactory(javax.xml.soap.MessageFactory)} property. When a SAAJ message
  * factory is injected, the {@link #setSoapVersion(org.springframework.ws.soap.SoapVersion)} property is ignored.
  *
+ * <p>When {@linkplain #setFastInfoset(boolean) enabled}, binary <a href="https://www.itu.int/rec/T-REC-X.891">Fast
+ * Infoset</a> encoding is negotiated for messages, provided that the SAAJ implementation supports it, as the SAAJ RI
+ * does. Client requests advertise Fast Infoset in their {@code Accept} header, and responses are encoded with Fast
+ * Infoset if the request accepted it, or was encoded with it. Other clients are answered with text XML.
+ *
  * @author Arjen Poutsma
  * @see org.springframework.ws.soap.saaj.SaajSoapMessage
  * @since 1.0.0
@@ -61,6 +78,15 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 
 	private static final Log logger = LogFactory.getLog(SaajSoapMessageFactory.class);
 
+	/** The content type of SOAP 1.1 messages encoded with Fast Infoset. */
+	public static final String SOAP_11_FAST_INFOSET_CONTENT_TYPE = "application/fastinfoset";
+
+	/** The content type of SOAP 1.2 messages encoded with Fast Infoset. */
+	public static final String SOAP_12_FAST_INFOSET_CONTENT_TYPE = "application/soap+fastinfoset";
+
+	/** Name of the SAAJ RI method that switches a message to Fast Infoset. */
+	private static final String SET_IS_FAST_INFOSET_METHOD_NAME = "setIsFastInfoset";
+
 	private MessageFactory messageFactory;
 
 	private String messageFactoryProtocol;
@@ -69,6 +95,12 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 
 	private Map<String, ?> messageProperties;
 
+	private boolean fastInfoset = false;
+
+	private volatile Method setIsFastInfosetMethod;
+
+	private volatile boolean setIsFastInfosetMethodResolved;
+
 	/** Default, empty constructor. */
 	public SaajSoapMessageFactory() {
 	}
@@ -96,6 +128,19 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 		this.messageProperties = messageProperties;
 	}
 
+	/**
+	 * Defines whether Fast Infoset encoding is negotiated for created messages. Requires a SAAJ implementation with
+	 * Fast Infoset support, such as the SAAJ RI. Defaults to {@code false}.
+	 *
+	 * <p>When enabled, messages that are created outside of the handling of a request, such as client requests,
+	 * advertise {@value #SOAP_11_FAST_INFOSET_CONTENT_TYPE} (SOAP 1.1) or {@value #SOAP_12_FAST_INFOSET_CONTENT_TYPE}
+	 * (SOAP 1.2) in their {@code Accept} header. Messages that are created while handling a request, such as
+	 * responses, are encoded with Fast Infoset if that request accepted it, or was encoded with it.
+	 */
+	public void setFastInfoset(boolean fastInfoset) {
+		this.fastInfoset = fastInfoset;
+	}
+
 	/**
 	 * Defines whether a {@code xml:lang} attribute should be set on SOAP 1.1 {@code <faultstring>} elements.
 	 *
@@ -173,7 +218,11 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 		try {
 			SOAPMessage saajMessage = messageFactory.createMessage();
 			postProcess(saajMessage);
-			return new SaajSoapMessage(saajMessage, langAttributeOnSoap11FaultString, messageFactory);
+			SaajSoapMessage message = new SaajSoapMessage(saajMessage, langAttributeOnSoap11FaultString, messageFactory);
+			if (fastInfoset) {
+				negotiateFastInfoset(message);
+			}
+			return message;
 		}
 		catch (SOAPException ex) {
 			throw new SoapMessageCreationException("Could not create empty message: " + ex.getMessage(), ex);
@@ -219,6 +268,104 @@ public class SaajSoapMessageFactory implements SoapMessageFactory, InitializingB
 		}
 	}
 
+	/**
+	 * Advertises Fast Infoset in the {@code Accept} header of the given message if no request is being received, and
+	 * switches the message to Fast Infoset if the request that is being received accepts it.
+	 */
+	private void negotiateFastInfoset(SaajSoapMessage message) {
+		Method setIsFastInfoset = getSetIsFastInfosetMethod(message.getSaajMessage());
+		if (setIsFastInfoset == null) {
+			return;
+		}
+		String contentType = SoapVersion.SOAP_11 == message.getVersion() ? SOAP_11_FAST_INFOSET_CONTENT_TYPE :
+				SOAP_12_FAST_INFOSET_CONTENT_TYPE;
+		TransportContext transportContext = TransportContextHolder.getTransportContext();
+		WebServiceConnection connection = transportContext != null ? transportContext.getConnection() : null;
+		if (connection instanceof HeadersAwareReceiverWebServiceConnection) {
+			try {
+				if (isFastInfosetAccepted((HeadersAwareReceiverWebServiceConnection) connection, contentType)) {
+					ReflectionUtils.invokeMethod(setIsFastInfoset, message.getSaajMessage(), true);
+				}
+			}
+			catch (IOException ex) {
+				logger.debug("Could not read request headers; not using Fast Infoset", ex);
+			}
+		}
+		else {
+			MimeHeaders mimeHeaders = message.getSaajMessage().getMimeHeaders();
+			String[] accept = mimeHeaders.getHeader(TransportConstants.HEADER_ACCEPT);
+			mimeHeaders.setHeader(TransportConstants.HEADER_ACCEPT, contentType + ", " + (ObjectUtils.isEmpty(accept) ?
+					message.getVersion().getContentType() : StringUtils.arrayToDelimitedString(accept, ", ")));
+		}
+	}
+
+	private Method getSetIsFastInfosetMethod(SOAPMessage saajMessage) {
+		if (!setIsFastInfosetMethodResolved) {
+			setIsFastInfosetMethod =
+					ReflectionUtils.findMethod(saajMessage.getClass(), SET_IS_FAST_INFOSET_METHOD_NAME, boolean.class);
+			if (setIsFastInfosetMethod == null) {
+				logger.warn("SAAJ implementation [" + saajMessage.getClass().getName() +
+						"] does not support Fast Infoset; using text XML");
+			}
+			setIsFastInfosetMethodResolved = true;
+		}
+		return setIsFastInfosetMethod;
+	}
+
+	/**
+	 * Indicates whether the request that is received over the given connection is encoded with, or accepts, the given
+	 * Fast Infoset content type. Media types in the {@code Accept} header with a quality value of {@code 0} are not
+	 * acceptable.
+	 */
+	private boolean isFastInfosetAccepted(HeadersAwareReceiverWebServiceConnection connection, String contentType)
+			throws IOException {
+		MimeType fastInfosetType = MimeTypeUtils.parseMimeType(contentType);
+		Iterator<String> acceptValues = connection.getRequestHeaders(TransportConstants.HEADER_ACCEPT);
+		while (acceptValues.hasNext()) {
+			for (MimeType acceptedType : parseMimeTypes(acceptValues.next())) {
+				if (equalsTypeAndSubtype(fastInfosetType, acceptedType) && getQuality(acceptedType) > 0) {
+					return true;
+				}
+			}
+		}
+		Iterator<String> contentTypeValues = connection.getRequestHeaders(TransportConstants.HEADER_CONTENT_TYPE);
+		while (contentTypeValues.hasNext()) {
+			for (MimeType requestType : parseMimeTypes(contentTypeValues.next())) {
+				if (equalsTypeAndSubtype(fastInfosetType, requestType)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private List<MimeType> parseMimeTypes(String headerValue) {
+		try {
+			return MimeTypeUtils.parseMimeTypes(headerValue);
+		}
+		catch (InvalidMimeTypeException ex) {
+			logger.debug("Could not parse media types [" + headerValue + "]", ex);
+			return Collections.emptyList();
+		}
+	}
+
+	private boolean equalsTypeAndSubtype(MimeType mimeType, MimeType other) {
+		return mimeType.getType().equals(other.getType()) && mimeType.getSubtype().equals(other.getSubtype());
+	}
+
+	private double getQuality(MimeType mimeType) {
+		String quality = mimeType.getParameter("q");
+		if (quality == null) {
+			return 1;
+		}
+		try {
+			return Double.parseDouble(quality);
+		}
+		catch (NumberFormatException ex) {
+			return 0;
+		}
+	}
+
 	private SAXParseException getSAXParseException(Throwable ex) {
 		if (ex instanceof SAXParseException) {
 			return (SAXParseException) ex;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.ws.soap.server.endpoint;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.xml.namespace.QName;
 
 import org.springframework.util.StringUtils;
@@ -24,16 +26,30 @@ import org.springframework.ws.soap.server.endpoint.annotation.SoapFault;
 
 /**
  * Implementation of the {@link org.springframework.ws.server.EndpointExceptionResolver} interface that uses the {@link
- * SoapFault} annotation to map exceptions to SOAP Faults.
+ * SoapFault} annotation to map exceptions to SOAP Faults. The definition created for an exception class is cached.
  *
  * @author Arjen Poutsma
  * @since 1.0.0
  */
 public class SoapFaultAnnotationExceptionResolver extends AbstractSoapFaultDefinitionExceptionResolver {
 
+	private static final SoapFaultDefinition NO_DEFINITION = new SoapFaultDefinition();
+
+	private final ConcurrentMap<Class<?>, SoapFaultDefinition> definitions =
+			new ConcurrentHashMap<Class<?>, SoapFaultDefinition>();
+
 	@Override
 	protected final SoapFaultDefinition getFaultDefinition(Object endpoint, Exception ex) {
-		SoapFault faultAnnotation = ex.getClass().getAnnotation(SoapFault.class);
+		SoapFaultDefinition definition = definitions.get(ex.getClass());
+		if (definition == null) {
+			definition = createFaultDefinition(ex.getClass());
+			definitions.putIfAbsent(ex.getClass(), definition);
+		}
+		return definition != NO_DEFINITION ? definition : null;
+	}
+
+	private SoapFaultDefinition createFaultDefinition(Class<?> exceptionClass) {
+		SoapFault faultAnnotation = exceptionClass.getAnnotation(SoapFault.class);
 		if (faultAnnotation != null) {
 			SoapFaultDefinition definition = new SoapFaultDefinition();
 			if (faultAnnotation.faultCode() != FaultCode.CUSTOM) {
@@ -47,7 +63,7 @@ public class SoapFaultAnnotationExceptionResolver extends AbstractSoapFaultDefin
 			return definition;
 		}
 		else {
-			return null;
+			return NO_DEFINITION;
 		}
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,19 +19,29 @@ package org.springframework.ws.soap.server.endpoint;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
-
-import org.springframework.util.CollectionUtils;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Exception resolver that allows for mapping exception class names to SOAP Faults. The mappings are set using the
  * {@code exceptionMappings} property, the format of which is documented in {@link SoapFaultDefinitionEditor}.
  *
+ * <p>The fault definitions are parsed when the mappings are set, and the definition resolved for an exception class is
+ * cached, so that the mappings are only searched once per class. {@link #getFaultDefinition(Object, Exception)}
+ * returns a copy of the cached definition, so that callers can safely modify it.
+ *
  * @author Arjen Poutsma
  * @since 1.0.0
  */
 public class SoapFaultMappingExceptionResolver extends AbstractSoapFaultDefinitionExceptionResolver {
 
-	private Map<String, String> exceptionMappings = new LinkedHashMap<String, String>();
+	private static final SoapFaultDefinition NO_DEFINITION = new SoapFaultDefinition();
+
+	private final Map<String, SoapFaultDefinition> exceptionMappings =
+			new LinkedHashMap<String, SoapFaultDefinition>();
+
+	private final ConcurrentMap<Class<?>, SoapFaultDefinition> resolvedDefinitions =
+			new ConcurrentHashMap<Class<?>, SoapFaultDefinition>();
 
 	/**
 	 * Set the mappings between exception class names and SOAP Faults. The exception class name can be a substring, with
@@ -44,41 +54,61 @@ public class SoapFaultMappingExceptionResolver extends AbstractSoapFaultDefiniti
 	 *
 	 * @param mappings exception patterns (can also be fully qualified class names) as keys, fault definition texts as
 	 *				   values
+	 * @throws IllegalArgumentException if a fault definition text is invalid
 	 * @see SoapFaultDefinitionEditor
 	 */
 	public void setExceptionMappings(Properties mappings) {
+		SoapFaultDefinitionEditor editor = new SoapFaultDefinitionEditor();
 		for (Map.Entry<Object, Object> entry : mappings.entrySet()) {
 			if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
-				exceptionMappings.put((String)entry.getKey(), (String)entry.getValue());
+				editor.setAsText((String) entry.getValue());
+				SoapFaultDefinition definition = (SoapFaultDefinition) editor.getValue();
+				exceptionMappings.put((String) entry.getKey(), definition != null ? definition : NO_DEFINITION);
 			}
 		}
+		resolvedDefinitions.clear();
 	}
 
+	/**
+	 * Returns a copy of the definition mapped to the deepest matching exception mapping, so that modifying it does not
+	 * affect the definitions returned for other exceptions, or by other threads.
+	 */
 	@Override
 	protected SoapFaultDefinition getFaultDefinition(Object endpoint, Exception ex) {
-		if (!CollectionUtils.isEmpty(exceptionMappings)) {
-			String definitionText = null;
+		if (exceptionMappings.isEmpty()) {
+			return null;
+		}
+		SoapFaultDefinition definition = resolvedDefinitions.get(ex.getClass());
+		if (definition == null) {
+			definition = NO_DEFINITION;
 			int deepest = Integer.MAX_VALUE;
-			for (String exceptionMapping : exceptionMappings.keySet()) {
-				int depth = getDepth(exceptionMapping, ex);
+			for (Map.Entry<String, SoapFaultDefinition> entry : exceptionMappings.entrySet()) {
+				int depth = getDepth(entry.getKey(), ex);
 				if (depth >= 0 && depth < deepest) {
 					deepest = depth;
-					definitionText = exceptionMappings.get(exceptionMapping);
+					definition = entry.getValue();
 				}
 			}
-			if (definitionText != null) {
-				SoapFaultDefinitionEditor editor = new SoapFaultDefinitionEditor();
-				editor.setAsText(definitionText);
-				return (SoapFaultDefinition) editor.getValue();
-			}
+			resolvedDefinitions.putIfAbsent(ex.getClass(), definition);
 		}
-		return null;
+		return definition != NO_DEFINITION ? copy(definition) : null;
+	}
+
+	private static SoapFaultDefinition copy(SoapFaultDefinition definition) {
+		SoapFaultDefinition copy = new SoapFaultDefinition();
+		copy.setFaultCode(definition.getFaultCode());
+		copy.setFaultStringOrReason(definition.getFaultStringOrReason());
+		copy.setLocale(definition.getLocale());
+		return copy;
 	}
 
 	/**
 	 * Return the depth to the superclass matching. {@code 0} means ex matches exactly. Returns {@code -1} if
 	 * there's no match. Otherwise, returns depth. Lowest depth wins.
 	 *
+	 * <p>Since the resolved definitions are cached per exception class, overriding implementations must only depend on
+	 * the class of the exception.
+	 *
 	 * <p>Follows the same algorithm as RollbackRuleAttribute, and SimpleMappingExceptionResolver
 	 */
 	protected int getDepth(String exceptionMapping, Exception ex) {
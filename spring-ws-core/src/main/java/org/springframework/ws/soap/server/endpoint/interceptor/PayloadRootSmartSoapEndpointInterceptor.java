@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2011 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,8 +22,10 @@ import javax.xml.transform.TransformerException;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.EndpointInterceptor;
 import org.springframework.ws.server.endpoint.support.PayloadRootUtils;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
 import org.springframework.xml.transform.TransformerHelper;
 
 /**
@@ -55,18 +57,36 @@ public class PayloadRootSmartSoapEndpointInterceptor extends DelegatingSmartSoap
 		this.transformerHelper = transformerHelper;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>This implementation uses the payload root name in the {@link RoutingFacts} of the given message context, so
+	 * that the request is only inspected once.
+	 */
 	@Override
-	protected boolean shouldIntercept(WebServiceMessage request, Object endpoint) {
+	public boolean shouldIntercept(MessageContext messageContext, Object endpoint) {
 		try {
-			QName payloadRootName = PayloadRootUtils.getPayloadRootQName(request.getPayloadSource(), transformerHelper);
-			if (payloadRootName == null || !namespaceUri.equals(payloadRootName.getNamespaceURI())) {
-				return false;
-			}
-			return !StringUtils.hasLength(localPart) || localPart.equals(payloadRootName.getLocalPart());
+			return matches(RoutingFacts.get(messageContext).getPayloadRootQName(transformerHelper));
+		}
+		catch (TransformerException e) {
+			return false;
+		}
+	}
 
+	@Override
+	protected boolean shouldIntercept(WebServiceMessage request, Object endpoint) {
+		try {
+			return matches(PayloadRootUtils.getPayloadRootQName(request.getPayloadSource(), transformerHelper));
 		}
 		catch (TransformerException e) {
 			return false;
 		}
 	}
+
+	private boolean matches(QName payloadRootName) {
+		if (payloadRootName == null || !namespaceUri.equals(payloadRootName.getNamespaceURI())) {
+			return false;
+		}
+		return !StringUtils.hasLength(localPart) || localPart.equals(payloadRootName.getLocalPart());
+	}
 }
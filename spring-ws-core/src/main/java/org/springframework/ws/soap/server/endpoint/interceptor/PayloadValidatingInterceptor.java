@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,16 @@
 
 package org.springframework.ws.soap.server.endpoint.interceptor;
 
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
 import javax.xml.transform.Source;
 
+import org.springframework.core.MethodParameter;
 import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.annotation.RequestPayload;
 
 /**
  * Interceptor that validates the contents of {@code WebServiceMessage}s using a schema. Allows for both W3C XML
@@ -32,6 +39,10 @@ import org.springframework.ws.WebServiceMessage;
  * {@code validateRequest} and {@code validateResponse} properties. Responses that contains faults are not
  * validated.
  *
+ * <p>When {@link #setDeferRequestValidation(boolean) deferRequestValidation} is enabled, requests for endpoint methods
+ * that take a JAXB2 {@link RequestPayload @RequestPayload} parameter are validated while that parameter is
+ * unmarshalled, rather than in a separate pass.
+ *
  * @author Arjen Poutsma
  * @see #setSchema(org.springframework.core.io.Resource)
  * @see #setSchemas(org.springframework.core.io.Resource[])
@@ -47,6 +58,28 @@ public class PayloadValidatingInterceptor extends AbstractFaultCreatingValidatin
 		return request.getPayloadSource();
 	}
 
+	/**
+	 * Returns {@code true} if the given endpoint is a {@link MethodEndpoint} with a {@link RequestPayload
+	 * &#64;RequestPayload} parameter of a type annotated with {@link XmlRootElement &#64;XmlRootElement} or {@link
+	 * XmlType &#64;XmlType}, or of type {@link JAXBElement}.
+	 */
+	@Override
+	protected boolean isRequestValidationDeferrable(MessageContext messageContext, Object endpoint) {
+		if (endpoint instanceof MethodEndpoint) {
+			for (MethodParameter parameter : ((MethodEndpoint) endpoint).getMethodParameters()) {
+				if (parameter.getParameterAnnotation(RequestPayload.class) != null) {
+					Class<?> parameterType = parameter.getParameterType();
+					if (JAXBElement.class.equals(parameterType) ||
+							parameterType.isAnnotationPresent(XmlRootElement.class) ||
+							parameterType.isAnnotationPresent(XmlType.class)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
 	/** Returns the payload source of the given message. */
 	@Override
 	protected Source getValidationResponseSource(WebServiceMessage response) {
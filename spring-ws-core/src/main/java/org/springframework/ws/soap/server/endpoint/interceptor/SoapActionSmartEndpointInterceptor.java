@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2011 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,9 @@ package org.springframework.ws.soap.server.endpoint.interceptor;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.EndpointInterceptor;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
 import org.springframework.ws.soap.SoapMessage;
 
 /**
@@ -39,6 +41,16 @@ public class SoapActionSmartEndpointInterceptor extends DelegatingSmartSoapEndpo
 		this.soapAction = soapAction;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>This implementation uses the SOAP action in the {@link RoutingFacts} of the given message context.
+	 */
+	@Override
+	public boolean shouldIntercept(MessageContext messageContext, Object endpoint) {
+		return this.soapAction.equals(RoutingFacts.get(messageContext).getSoapAction());
+	}
+
 	@Override
 	protected boolean shouldIntercept(WebServiceMessage request, Object endpoint) {
 		if (request instanceof SoapMessage) {
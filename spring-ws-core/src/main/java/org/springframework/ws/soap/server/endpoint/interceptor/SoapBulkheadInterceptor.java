@@ -0,0 +1,87 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.server.endpoint.interceptor;
+
+import java.util.Locale;
+
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.interceptor.BulkheadInterceptor;
+import org.springframework.ws.soap.SoapBody;
+import org.springframework.ws.soap.SoapMessage;
+
+/**
+ * SOAP-specific subclass of the {@link BulkheadInterceptor} that responds to rejected requests with a {@link
+ * SoapBody#addServerOrReceiverFault(String, Locale) server or receiver} fault, rather than with a transport error.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class SoapBulkheadInterceptor extends BulkheadInterceptor {
+
+	/**
+	 * Default SOAP Fault string used when a request is rejected.
+	 *
+	 * @see #setFaultStringOrReason(String)
+	 */
+	public static final String DEFAULT_FAULTSTRING_OR_REASON = "Service unavailable";
+
+	private String faultStringOrReason = DEFAULT_FAULTSTRING_OR_REASON;
+
+	private Locale faultStringOrReasonLocale = Locale.ENGLISH;
+
+	/** Returns the SOAP {@code faultstring} or {@code Reason} used when a request is rejected. */
+	public String getFaultStringOrReason() {
+		return faultStringOrReason;
+	}
+
+	/**
+	 * Sets the SOAP {@code faultstring} or {@code Reason} used when a request is rejected. Defaults to {@code
+	 * DEFAULT_FAULTSTRING_OR_REASON}.
+	 *
+	 * @see #DEFAULT_FAULTSTRING_OR_REASON
+	 */
+	public void setFaultStringOrReason(String faultStringOrReason) {
+		this.faultStringOrReason = faultStringOrReason;
+	}
+
+	/** Returns the SOAP fault reason locale used when a request is rejected. */
+	public Locale getFaultStringOrReasonLocale() {
+		return faultStringOrReasonLocale;
+	}
+
+	/** Sets the SOAP fault reason locale used when a request is rejected. Defaults to English. */
+	public void setFaultStringOrReasonLocale(Locale faultStringOrReasonLocale) {
+		this.faultStringOrReasonLocale = faultStringOrReasonLocale;
+	}
+
+	/**
+	 * Creates a server or receiver fault in the response, and returns {@code false}. Falls back to the default
+	 * behavior if the response is not a {@code SoapMessage}.
+	 */
+	@Override
+	protected boolean handleRejectedRequest(MessageContext messageContext, Object endpoint) throws Exception {
+		WebServiceMessage response = messageContext.getResponse();
+		if (response instanceof SoapMessage) {
+			SoapBody body = ((SoapMessage) response).getSoapBody();
+			body.addServerOrReceiverFault(getFaultStringOrReason(), getFaultStringOrReasonLocale());
+			return false;
+		}
+		return super.handleRejectedRequest(messageContext, endpoint);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,18 +16,20 @@
 
 package org.springframework.ws.soap.server.endpoint.mapping;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.Assert;
-import org.springframework.util.StringUtils;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.EndpointInterceptor;
 import org.springframework.ws.server.EndpointInvocationChain;
 import org.springframework.ws.server.endpoint.mapping.AbstractAnnotationMethodEndpointMapping;
-import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
 import org.springframework.ws.soap.server.SoapEndpointInvocationChain;
 import org.springframework.ws.soap.server.SoapEndpointMapping;
 import org.springframework.ws.soap.server.endpoint.annotation.SoapAction;
@@ -94,20 +96,13 @@ public class SoapActionAnnotationMethodEndpointMapping extends AbstractAnnotatio
 
 	@Override
 	protected String getLookupKeyForMessage(MessageContext messageContext) throws Exception {
-		if (messageContext.getRequest() instanceof SoapMessage) {
-			SoapMessage request = (SoapMessage) messageContext.getRequest();
-			String soapAction = request.getSoapAction();
-			if (StringUtils.hasLength(soapAction) && soapAction.charAt(0) == '"' &&
-					soapAction.charAt(soapAction.length() - 1) == '"') {
-				return soapAction.substring(1, soapAction.length() - 1);
-			}
-			else {
-				return soapAction;
-			}
-		}
-		else {
-			return null;
-		}
+		return RoutingFacts.get(messageContext).getSoapAction();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected Collection<Class<? extends Annotation>> getMethodAnnotationTypes() {
+		return Arrays.<Class<? extends Annotation>>asList(SoapAction.class, SoapActions.class);
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,7 +22,7 @@ import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.EndpointInterceptor;
 import org.springframework.ws.server.EndpointInvocationChain;
 import org.springframework.ws.server.endpoint.mapping.AbstractMapBasedEndpointMapping;
-import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.server.endpoint.support.RoutingFacts;
 import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
 import org.springframework.ws.soap.server.SoapEndpointInvocationChain;
 import org.springframework.ws.soap.server.SoapEndpointMapping;
@@ -92,20 +92,7 @@ public class SoapActionEndpointMapping extends AbstractMapBasedEndpointMapping i
 
 	@Override
 	protected String getLookupKeyForMessage(MessageContext messageContext) throws Exception {
-		if (messageContext.getRequest() instanceof SoapMessage) {
-			SoapMessage request = (SoapMessage) messageContext.getRequest();
-			String soapAction = request.getSoapAction();
-			if (StringUtils.hasLength(soapAction) && soapAction.charAt(0) == '"' &&
-					soapAction.charAt(soapAction.length() - 1) == '"') {
-				return soapAction.substring(1, soapAction.length() - 1);
-			}
-			else {
-				return soapAction;
-			}
-		}
-		else {
-			return null;
-		}
+		return RoutingFacts.get(messageContext).getSoapAction();
 	}
 
 	@Override
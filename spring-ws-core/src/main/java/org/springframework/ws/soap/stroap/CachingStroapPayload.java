@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import org.springframework.util.Assert;
 import org.springframework.xml.stream.ListBasedXMLEventReader;
 
 /**
+ * {@link StroapPayload} that keeps the payload in a list of events, so that it can be read multiple times.
+ *
  * @author Arjen Poutsma
  */
 class CachingStroapPayload extends StroapPayload {
@@ -40,7 +42,10 @@ class CachingStroapPayload extends StroapPayload {
 	CachingStroapPayload(XMLEventReader eventReader) throws XMLStreamException {
 		Assert.notNull(eventReader, "'eventReader' must not be null");
 		XMLEventWriter eventWriter = getEventWriter();
-		eventWriter.add(eventReader);
+		XMLEventReader payloadReader = new NonCachingStroapPayload(eventReader).getEventReader();
+		while (payloadReader.peek() != null) {
+			eventWriter.add(payloadReader.nextEvent());
+		}
 	}
 
 	@Override
@@ -59,7 +64,7 @@ class CachingStroapPayload extends StroapPayload {
 		return new ListBasedXMLEventReader(events);
 	}
 
-	public XMLEventWriter getEventWriter() {
+	XMLEventWriter getEventWriter() {
 		events.clear();
 		return new CachingXMLEventWriter(events);
 	}
@@ -24,14 +24,15 @@ import org.springframework.util.Assert;
 import org.springframework.xml.stream.AbstractXMLEventWriter;
 
 /**
+ * {@code XMLEventWriter} that stores all element events, and the events contained therein, in a given list. Document
+ * events, and events outside of any element, are ignored.
+ *
  * @author Arjen Poutsma
  */
 class CachingXMLEventWriter extends AbstractXMLEventWriter {
 
 	private int elementDepth = 0;
 
-	boolean startElementSeen = false;
-
 	private final List<XMLEvent> events;
 
 	CachingXMLEventWriter(List<XMLEvent> events) {
@@ -39,18 +40,19 @@ class CachingXMLEventWriter extends AbstractXMLEventWriter {
 		this.events = events;
 	}
 
+	@Override
 	public void add(XMLEvent event) throws XMLStreamException {
 		if (event.isStartElement()) {
-			startElementSeen = true;
 			elementDepth++;
+			events.add(event);
 		}
 		else if (event.isEndElement()) {
-			elementDepth--;
-		}
-		else if (event.isStartDocument() || event.isEndDocument()) {
-			return;
+			if (elementDepth > 0) {
+				elementDepth--;
+				events.add(event);
+			}
 		}
-		if (elementDepth >= 0 && startElementSeen) {
+		else if (elementDepth > 0) {
 			events.add(event);
 		}
 	}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+
+import org.springframework.xml.stream.AbstractXMLEventWriter;
+
+/**
+ * Abstract {@code XMLEventWriter} that splits the events written to it into top-level elements, and passes the events
+ * of each element to {@link #addChildElement(List)}. Used to add header elements and fault detail entries.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+abstract class ChildElementXMLEventWriter extends AbstractXMLEventWriter {
+
+	private int elementDepth = 0;
+
+	private List<XMLEvent> events = new ArrayList<XMLEvent>();
+
+	@Override
+	public void add(XMLEvent event) throws XMLStreamException {
+		if (event.isStartElement()) {
+			elementDepth++;
+			events.add(event);
+		}
+		else if (event.isEndElement()) {
+			if (elementDepth > 0) {
+				elementDepth--;
+				events.add(event);
+				if (elementDepth == 0) {
+					addChildElement(events);
+					events = new ArrayList<XMLEvent>();
+				}
+			}
+		}
+		else if (elementDepth > 0) {
+			events.add(event);
+		}
+	}
+
+	/**
+	 * Adds a child element, consisting of the given events.
+	 *
+	 * @param events the events of the child element, starting with a {@code StartElement} and ending with the matching
+	 *               {@code EndElement}
+	 */
+	protected abstract void addChildElement(List<XMLEvent> events) throws XMLStreamException;
+
+}
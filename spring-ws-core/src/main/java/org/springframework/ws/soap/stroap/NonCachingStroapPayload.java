@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,9 @@ import org.springframework.util.Assert;
 import org.springframework.xml.stream.AbstractXMLEventReader;
 
 /**
+ * {@link StroapPayload} that reads the payload directly from the underlying event reader, up to the end of the body.
+ * As a consequence, the payload can only be read once.
+ *
  * @author Arjen Poutsma
  */
 class NonCachingStroapPayload extends StroapPayload {
@@ -43,10 +46,14 @@ class NonCachingStroapPayload extends StroapPayload {
 	public QName getName() {
 		try {
 			XMLEvent event = eventReader.peek();
+			while (elementDepth == 0 && event != null && event.isCharacters() &&
+					event.asCharacters().isWhiteSpace()) {
+				eventReader.nextEvent();
+				event = eventReader.peek();
+			}
 			if (event != null && event.isStartElement()) {
 				return event.asStartElement().getName();
 			}
-
 		}
 		catch (XMLStreamException ex) {
 			// ignore
@@ -59,14 +66,22 @@ class NonCachingStroapPayload extends StroapPayload {
 		return new NonCachingXMLEventReader();
 	}
 
+	/** Event reader that stops at the end element of the body that contains the payload. */
 	private class NonCachingXMLEventReader extends AbstractXMLEventReader {
 
+		@Override
 		public boolean hasNext() {
-			return elementDepth >= 0 && eventReader.hasNext();
+			try {
+				return peek() != null;
+			}
+			catch (XMLStreamException ex) {
+				throw new StroapBodyException(ex);
+			}
 		}
 
+		@Override
 		public XMLEvent nextEvent() throws XMLStreamException {
-			if (elementDepth < 0) {
+			if (peek() == null) {
 				throw new NoSuchElementException();
 			}
 			XMLEvent event = eventReader.nextEvent();
@@ -79,13 +94,13 @@ class NonCachingStroapPayload extends StroapPayload {
 			return event;
 		}
 
+		@Override
 		public XMLEvent peek() throws XMLStreamException {
-			if (elementDepth < 0) {
+			XMLEvent event = eventReader.peek();
+			if (event == null || (elementDepth == 0 && (event.isEndElement() || event.isEndDocument()))) {
 				return null;
 			}
-			else {
-				return eventReader.peek();
-			}
+			return event;
 		}
 	}
 }
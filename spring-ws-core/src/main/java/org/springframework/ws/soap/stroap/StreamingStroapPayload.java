@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,16 +19,21 @@ package org.springframework.ws.soap.stroap;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import javax.xml.namespace.QName;
+import javax.xml.stream.EventFilter;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.XMLEvent;
 
 import org.springframework.util.Assert;
 import org.springframework.util.xml.StaxUtils;
 import org.springframework.ws.stream.StreamingPayload;
 
 /**
+ * {@link StroapPayload} that wraps a {@link StreamingPayload}. The payload is written directly to the event writer of
+ * the message; reading it requires the payload to be serialized and parsed first.
+ *
  * @author Arjen Poutsma
  */
 class StreamingStroapPayload extends StroapPayload {
@@ -58,7 +63,14 @@ class StreamingStroapPayload extends StroapPayload {
 			payload.writeTo(streamWriter);
 			streamWriter.flush();
 			ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
-			return messageFactory.getInputFactory().createXMLEventReader(bis);
+			XMLEventReader eventReader = messageFactory.getInputFactory().createXMLEventReader(bis);
+			return messageFactory.getInputFactory().createFilteredReader(eventReader, new EventFilter() {
+
+				@Override
+				public boolean accept(XMLEvent event) {
+					return !event.isStartDocument() && !event.isEndDocument();
+				}
+			});
 		}
 		catch (XMLStreamException ex) {
 			throw new StroapBodyException(ex);
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.util.List;
+import java.util.Locale;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.soap.soap11.Soap11Fault;
+
+/**
+ * Stroap-specific implementation of the {@link Soap11Fault} interface.
+ *
+ * @author Arjen Poutsma
+ */
+class Stroap11Fault extends StroapFault implements Soap11Fault {
+
+	private static final QName FAULT_CODE_NAME = new QName("faultcode");
+
+	private static final QName FAULT_STRING_NAME = new QName("faultstring");
+
+	private static final QName FAULT_ACTOR_NAME = new QName("faultactor");
+
+	private static final QName DETAIL_NAME = new QName("detail");
+
+	private final QName faultCode;
+
+	private final String faultString;
+
+	private final Locale faultStringLocale;
+
+	private String faultActor;
+
+	Stroap11Fault(QName faultCode, String faultString, Locale faultStringLocale, StroapMessageFactory messageFactory) {
+		super(messageFactory);
+		Assert.notNull(faultCode, "'faultCode' must not be null");
+		Assert.hasLength(faultCode.getLocalPart(), "faultCode's localPart cannot be empty");
+		Assert.hasLength(faultCode.getNamespaceURI(), "faultCode's namespaceUri cannot be empty");
+		Assert.hasLength(faultString, "'faultString' must not be empty");
+		this.faultCode = getPrefixedName(faultCode, 0);
+		this.faultString = faultString;
+		this.faultStringLocale = faultStringLocale;
+		addNamespaceDeclaration(this.faultCode.getPrefix(), this.faultCode.getNamespaceURI());
+	}
+
+	private Stroap11Fault(StartElement startElement,
+						  QName faultCode,
+						  String faultString,
+						  Locale faultStringLocale,
+						  StroapMessageFactory messageFactory) {
+		super(startElement, messageFactory);
+		this.faultCode = faultCode;
+		this.faultString = faultString;
+		this.faultStringLocale = faultStringLocale;
+	}
+
+	static Stroap11Fault build(List<XMLEvent> events, StroapMessageFactory messageFactory) throws XMLStreamException {
+		StartElement startElement = events.get(0).asStartElement();
+		QName faultCode = null;
+		String faultString = null;
+		Locale faultStringLocale = null;
+		String faultActor = null;
+		StroapFaultDetail faultDetail = null;
+		for (int i = 1; i < events.size() - 1; i++) {
+			XMLEvent event = events.get(i);
+			if (!event.isStartElement()) {
+				continue;
+			}
+			StartElement childElement = event.asStartElement();
+			int end = findEndElement(events, i);
+			String localName = childElement.getName().getLocalPart();
+			if (FAULT_CODE_NAME.getLocalPart().equals(localName)) {
+				faultCode = parsePrefixedName(getText(events, i, end), childElement, startElement);
+			}
+			else if (FAULT_STRING_NAME.getLocalPart().equals(localName)) {
+				faultString = getText(events, i, end);
+				faultStringLocale = getLocale(childElement);
+			}
+			else if (FAULT_ACTOR_NAME.getLocalPart().equals(localName)) {
+				faultActor = getText(events, i, end);
+			}
+			else if (DETAIL_NAME.getLocalPart().equals(localName)) {
+				faultDetail = StroapFaultDetail.build(events.subList(i, end + 1), messageFactory);
+			}
+			i = end;
+		}
+		if (faultCode == null) {
+			throw new StroapMessageCreationException("No faultcode found in SOAP 1.1 fault");
+		}
+		Stroap11Fault fault = new Stroap11Fault(startElement, faultCode, faultString, faultStringLocale, messageFactory);
+		fault.faultActor = faultActor;
+		fault.setFaultDetail(faultDetail);
+		return fault;
+	}
+
+	@Override
+	public QName getFaultCode() {
+		return faultCode;
+	}
+
+	@Override
+	public String getFaultStringOrReason() {
+		return faultString;
+	}
+
+	@Override
+	public Locale getFaultStringLocale() {
+		return faultStringLocale;
+	}
+
+	@Override
+	public String getFaultActorOrRole() {
+		return faultActor;
+	}
+
+	@Override
+	public void setFaultActorOrRole(String faultActor) {
+		Assert.hasLength(faultActor, "'faultActor' must not be empty");
+		this.faultActor = faultActor;
+	}
+
+	@Override
+	protected void addChildEvents(List<XMLEvent> events) {
+		addTextElement(events, FAULT_CODE_NAME, toPrefixedName(faultCode), null);
+		addTextElement(events, FAULT_STRING_NAME, faultString != null ? faultString : "", faultStringLocale);
+		if (faultActor != null) {
+			addTextElement(events, FAULT_ACTOR_NAME, faultActor, null);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.soap11.Soap11Header;
 
 /**
+ * Stroap-specific implementation of the {@link Soap11Header} interface.
+ *
  * @author Arjen Poutsma
  */
 class Stroap11Header extends StroapHeader implements Soap11Header {
@@ -40,6 +42,7 @@ class Stroap11Header extends StroapHeader implements Soap11Header {
 		super(startElement, messageFactory);
 	}
 
+	@Override
 	public Iterator<SoapHeaderElement> examineHeaderElementsToProcess(String[] actors) {
 		List<SoapHeaderElement> result = new LinkedList<SoapHeaderElement>();
 		Iterator<SoapHeaderElement> iterator = examineAllHeaderElements();
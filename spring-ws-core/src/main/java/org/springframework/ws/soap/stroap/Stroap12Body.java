@@ -0,0 +1,103 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.util.Locale;
+import javax.xml.namespace.QName;
+import javax.xml.stream.events.StartElement;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.soap.SoapFaultException;
+import org.springframework.ws.soap.soap12.Soap12Body;
+import org.springframework.ws.soap.soap12.Soap12Fault;
+
+/**
+ * Stroap-specific implementation of the {@link Soap12Body} interface.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class Stroap12Body extends StroapBody implements Soap12Body {
+
+	private static final String ENVELOPE_NAMESPACE_URI = "http://www.w3.org/2003/05/soap-envelope";
+
+	private static final QName SENDER_FAULT_NAME = new QName(ENVELOPE_NAMESPACE_URI, "Sender", DEFAULT_PREFIX);
+
+	private static final QName RECEIVER_FAULT_NAME = new QName(ENVELOPE_NAMESPACE_URI, "Receiver", DEFAULT_PREFIX);
+
+	private static final QName MUST_UNDERSTAND_FAULT_NAME =
+			new QName(ENVELOPE_NAMESPACE_URI, "MustUnderstand", DEFAULT_PREFIX);
+
+	private static final QName VERSION_MISMATCH_FAULT_NAME =
+			new QName(ENVELOPE_NAMESPACE_URI, "VersionMismatch", DEFAULT_PREFIX);
+
+	private static final QName DATA_ENCODING_UNKNOWN_FAULT_NAME =
+			new QName(ENVELOPE_NAMESPACE_URI, "DataEncodingUnknown", DEFAULT_PREFIX);
+
+	Stroap12Body(StroapMessageFactory messageFactory) {
+		super(messageFactory);
+	}
+
+	Stroap12Body(StartElement startElement, StroapPayload payload, StroapMessageFactory messageFactory) {
+		super(startElement, payload, messageFactory);
+	}
+
+	@Override
+	public Soap12Fault getFault() {
+		return (Soap12Fault) super.getFault();
+	}
+
+	@Override
+	public Soap12Fault addMustUnderstandFault(String reason, Locale locale) throws SoapFaultException {
+		return addFault(MUST_UNDERSTAND_FAULT_NAME, reason, locale);
+	}
+
+	@Override
+	public Soap12Fault addClientOrSenderFault(String reason, Locale locale) throws SoapFaultException {
+		return addFault(SENDER_FAULT_NAME, reason, locale);
+	}
+
+	@Override
+	public Soap12Fault addServerOrReceiverFault(String reason, Locale locale) throws SoapFaultException {
+		return addFault(RECEIVER_FAULT_NAME, reason, locale);
+	}
+
+	@Override
+	public Soap12Fault addVersionMismatchFault(String reason, Locale locale) throws SoapFaultException {
+		return addFault(VERSION_MISMATCH_FAULT_NAME, reason, locale);
+	}
+
+	@Override
+	public Soap12Fault addDataEncodingUnknownFault(QName[] subcodes, String reason, Locale locale)
+			throws SoapFaultException {
+		Soap12Fault fault = addFault(DATA_ENCODING_UNKNOWN_FAULT_NAME, reason, locale);
+		if (subcodes != null) {
+			for (QName subcode : subcodes) {
+				fault.addFaultSubcode(subcode);
+			}
+		}
+		return fault;
+	}
+
+	private Soap12Fault addFault(QName faultCode, String reason, Locale locale) {
+		Assert.hasLength(reason, "'reason' must not be empty");
+		Stroap12Fault fault = new Stroap12Fault(faultCode, reason, locale, getMessageFactory());
+		setFault(fault);
+		return fault;
+	}
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.soap.soap12.Soap12Fault;
+
+/**
+ * Stroap-specific implementation of the {@link Soap12Fault} interface.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class Stroap12Fault extends StroapFault implements Soap12Fault {
+
+	private final QName faultCode;
+
+	private final List<QName> subcodes = new ArrayList<QName>();
+
+	private final Map<Locale, String> reasons = new LinkedHashMap<Locale, String>();
+
+	private String faultNode;
+
+	private String faultRole;
+
+	Stroap12Fault(QName faultCode, String reason, Locale locale, StroapMessageFactory messageFactory) {
+		super(messageFactory);
+		Assert.notNull(faultCode, "'faultCode' must not be null");
+		Assert.hasLength(reason, "'reason' must not be empty");
+		this.faultCode = getPrefixedName(faultCode, 0);
+		this.reasons.put(locale, reason);
+		addNamespaceDeclaration(this.faultCode.getPrefix(), this.faultCode.getNamespaceURI());
+	}
+
+	private Stroap12Fault(StartElement startElement, QName faultCode, StroapMessageFactory messageFactory) {
+		super(startElement, messageFactory);
+		this.faultCode = faultCode;
+	}
+
+	static Stroap12Fault build(List<XMLEvent> events, StroapMessageFactory messageFactory) throws XMLStreamException {
+		StartElement startElement = events.get(0).asStartElement();
+		QName faultCode = null;
+		List<QName> subcodes = new ArrayList<QName>();
+		Map<Locale, String> reasons = new LinkedHashMap<Locale, String>();
+		String faultNode = null;
+		String faultRole = null;
+		StroapFaultDetail faultDetail = null;
+		for (int i = 1; i < events.size() - 1; i++) {
+			XMLEvent event = events.get(i);
+			if (!event.isStartElement()) {
+				continue;
+			}
+			int end = findEndElement(events, i);
+			String localName = event.asStartElement().getName().getLocalPart();
+			if ("Code".equals(localName)) {
+				faultCode = parseCode(events, i, end, startElement, subcodes);
+			}
+			else if ("Reason".equals(localName)) {
+				for (int j = i + 1; j < end; j++) {
+					if (events.get(j).isStartElement()) {
+						int textEnd = findEndElement(events, j);
+						reasons.put(getLocale(events.get(j).asStartElement()), getText(events, j, textEnd));
+						j = textEnd;
+					}
+				}
+			}
+			else if ("Node".equals(localName)) {
+				faultNode = getText(events, i, end);
+			}
+			else if ("Role".equals(localName)) {
+				faultRole = getText(events, i, end);
+			}
+			else if ("Detail".equals(localName)) {
+				faultDetail = StroapFaultDetail.build(events.subList(i, end + 1), messageFactory);
+			}
+			i = end;
+		}
+		if (faultCode == null) {
+			throw new StroapMessageCreationException("No Code found in SOAP 1.2 fault");
+		}
+		Stroap12Fault fault = new Stroap12Fault(startElement, faultCode, messageFactory);
+		fault.subcodes.addAll(subcodes);
+		fault.reasons.putAll(reasons);
+		fault.faultNode = faultNode;
+		fault.faultRole = faultRole;
+		fault.setFaultDetail(faultDetail);
+		return fault;
+	}
+
+	/**
+	 * Parses the {@code Code} element between the given indices, adding all subcodes to the given list, and returning
+	 * the fault code.
+	 */
+	private static QName parseCode(List<XMLEvent> events, int start, int end, StartElement parent,
+			List<QName> subcodes) {
+		QName faultCode = null;
+		for (int i = start + 1; i < end; i++) {
+			XMLEvent event = events.get(i);
+			if (event.isStartElement() && "Value".equals(event.asStartElement().getName().getLocalPart())) {
+				int valueEnd = findEndElement(events, i);
+				QName value = parsePrefixedName(getText(events, i, valueEnd), event.asStartElement(), parent);
+				if (faultCode == null) {
+					faultCode = value;
+				}
+				else {
+					subcodes.add(value);
+				}
+				i = valueEnd;
+			}
+		}
+		return faultCode;
+	}
+
+	@Override
+	public QName getFaultCode() {
+		return faultCode;
+	}
+
+	@Override
+	public Iterator<QName> getFaultSubcodes() {
+		return Collections.unmodifiableList(subcodes).iterator();
+	}
+
+	@Override
+	public void addFaultSubcode(QName subcode) {
+		Assert.notNull(subcode, "'subcode' must not be null");
+		Assert.hasLength(subcode.getNamespaceURI(), "'subcode' must be namespace-qualified");
+		subcodes.add(getPrefixedName(subcode, subcodes.size() + 1));
+	}
+
+	@Override
+	public String getFaultStringOrReason() {
+		Iterator<String> iterator = reasons.values().iterator();
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+
+	@Override
+	public String getFaultReasonText(Locale locale) {
+		return reasons.get(locale);
+	}
+
+	@Override
+	public void setFaultReasonText(Locale locale, String text) {
+		reasons.put(locale, text);
+	}
+
+	@Override
+	public String getFaultNode() {
+		return faultNode;
+	}
+
+	@Override
+	public void setFaultNode(String uri) {
+		this.faultNode = uri;
+	}
+
+	@Override
+	public String getFaultActorOrRole() {
+		return faultRole;
+	}
+
+	@Override
+	public void setFaultActorOrRole(String faultRole) {
+		this.faultRole = faultRole;
+	}
+
+	@Override
+	protected void addChildEvents(List<XMLEvent> events) {
+		QName codeName = getChildName("Code");
+		QName valueName = getChildName("Value");
+		QName subcodeName = getChildName("Subcode");
+		events.add(getEventFactory().createStartElement(codeName, null, null));
+		addTextElement(events, valueName, toPrefixedName(faultCode), null);
+		for (QName subcode : subcodes) {
+			events.add(getEventFactory().createStartElement(subcodeName, null, null));
+			Iterator<Namespace> namespaces = Collections.singletonList(createNamespace(subcode)).iterator();
+			events.add(getEventFactory().createStartElement(valueName, null, namespaces));
+			events.add(getEventFactory().createCharacters(toPrefixedName(subcode)));
+			events.add(getEventFactory().createEndElement(valueName, null));
+		}
+		for (int i = 0; i < subcodes.size(); i++) {
+			events.add(getEventFactory().createEndElement(subcodeName, null));
+		}
+		events.add(getEventFactory().createEndElement(codeName, null));
+
+		QName reasonName = getChildName("Reason");
+		events.add(getEventFactory().createStartElement(reasonName, null, null));
+		for (Map.Entry<Locale, String> entry : reasons.entrySet()) {
+			addTextElement(events, getChildName("Text"), entry.getValue(), entry.getKey());
+		}
+		events.add(getEventFactory().createEndElement(reasonName, null));
+
+		if (faultNode != null) {
+			addTextElement(events, getChildName("Node"), faultNode, null);
+		}
+		if (faultRole != null) {
+			addTextElement(events, getChildName("Role"), faultRole, null);
+		}
+	}
+
+	private QName getChildName(String localPart) {
+		return new QName(getName().getNamespaceURI(), localPart, getName().getPrefix());
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import javax.xml.namespace.QName;
+import javax.xml.soap.SOAPConstants;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.soap.SoapHeaderElement;
+import org.springframework.ws.soap.SoapHeaderException;
+import org.springframework.ws.soap.soap12.Soap12Header;
+
+/**
+ * Stroap-specific implementation of the {@link Soap12Header} interface.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class Stroap12Header extends StroapHeader implements Soap12Header {
+
+	private static final QName QNAME_ATTRIBUTE_NAME = new QName("qname");
+
+	Stroap12Header(StroapMessageFactory messageFactory) {
+		super(messageFactory);
+	}
+
+	Stroap12Header(StartElement startElement, StroapMessageFactory messageFactory) {
+		super(startElement, messageFactory);
+	}
+
+	@Override
+	public SoapHeaderElement addNotUnderstoodHeaderElement(QName headerName) {
+		Assert.notNull(headerName, "'headerName' must not be null");
+		Assert.hasLength(headerName.getNamespaceURI(), "'headerName' must be namespace-qualified");
+		List<XMLEvent> events = new ArrayList<XMLEvent>(2);
+		events.add(createQNameElement("NotUnderstood", headerName, 0));
+		events.add(getEventFactory().createEndElement(events.get(0).asStartElement().getName(), null));
+		try {
+			StroapHeaderElement headerElement = StroapHeaderElement.build(events, getMessageFactory());
+			addHeaderElement(headerElement);
+			return headerElement;
+		}
+		catch (XMLStreamException ex) {
+			throw new StroapHeaderException(ex);
+		}
+	}
+
+	@Override
+	public SoapHeaderElement addUpgradeHeaderElement(String[] supportedSoapUris) {
+		Assert.notEmpty(supportedSoapUris, "'supportedSoapUris' must not be empty");
+		XMLEventFactory eventFactory = getEventFactory();
+		List<XMLEvent> events = new ArrayList<XMLEvent>();
+		QName upgradeName = getEnvelopeName("Upgrade");
+		events.add(eventFactory.createStartElement(upgradeName, null, null));
+		for (int i = 0; i < supportedSoapUris.length; i++) {
+			StartElement supportedEnvelope =
+					createQNameElement("SupportedEnvelope", new QName(supportedSoapUris[i], "Envelope"), i);
+			events.add(supportedEnvelope);
+			events.add(eventFactory.createEndElement(supportedEnvelope.getName(), null));
+		}
+		events.add(eventFactory.createEndElement(upgradeName, null));
+		try {
+			StroapHeaderElement headerElement = StroapHeaderElement.build(events, getMessageFactory());
+			addHeaderElement(headerElement);
+			return headerElement;
+		}
+		catch (XMLStreamException ex) {
+			throw new StroapHeaderException(ex);
+		}
+	}
+
+	@Override
+	public Iterator<SoapHeaderElement> examineHeaderElementsToProcess(String[] roles, boolean isUltimateReceiver)
+			throws SoapHeaderException {
+		List<SoapHeaderElement> result = new LinkedList<SoapHeaderElement>();
+		Iterator<SoapHeaderElement> iterator = examineAllHeaderElements();
+		while (iterator.hasNext()) {
+			SoapHeaderElement headerElement = iterator.next();
+			if (shouldProcess(headerElement.getActorOrRole(), roles, isUltimateReceiver)) {
+				result.add(headerElement);
+			}
+		}
+		return result.iterator();
+	}
+
+	private boolean shouldProcess(String headerRole, String[] roles, boolean isUltimateReceiver) {
+		if (!StringUtils.hasLength(headerRole)) {
+			return true;
+		}
+		if (SOAPConstants.URI_SOAP_1_2_ROLE_NEXT.equals(headerRole)) {
+			return true;
+		}
+		if (SOAPConstants.URI_SOAP_1_2_ROLE_ULTIMATE_RECEIVER.equals(headerRole)) {
+			return isUltimateReceiver;
+		}
+		if (SOAPConstants.URI_SOAP_1_2_ROLE_NONE.equals(headerRole)) {
+			return false;
+		}
+		if (!ObjectUtils.isEmpty(roles)) {
+			for (String role : roles) {
+				if (role.equals(headerRole)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a start element in the envelope namespace with the given local name, and a {@code qname} attribute that
+	 * refers to the given qualified name.
+	 */
+	private StartElement createQNameElement(String localName, QName value, int index) {
+		String prefix = StringUtils.hasLength(value.getPrefix()) ? value.getPrefix() : "ns" + index;
+		Attribute attribute = getEventFactory().createAttribute(QNAME_ATTRIBUTE_NAME, prefix + ":" + value.getLocalPart());
+		Namespace namespace = getEventFactory().createNamespace(prefix, value.getNamespaceURI());
+		return getEventFactory().createStartElement(getEnvelopeName(localName),
+				Collections.singletonList(attribute).iterator(), Collections.singletonList(namespace).iterator());
+	}
+
+	private QName getEnvelopeName(String localName) {
+		String prefix = StringUtils.hasLength(getName().getPrefix()) ? getName().getPrefix() : DEFAULT_PREFIX;
+		return new QName(getName().getNamespaceURI(), localName, prefix);
+	}
+
+}
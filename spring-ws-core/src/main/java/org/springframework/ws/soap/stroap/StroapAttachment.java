@@ -0,0 +1,79 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+
+import org.springframework.util.Assert;
+import org.springframework.ws.mime.Attachment;
+
+/**
+ * Stroap-specific implementation of {@link Attachment}.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class StroapAttachment implements Attachment {
+
+	private final String contentId;
+
+	private final DataHandler dataHandler;
+
+	StroapAttachment(String contentId, DataHandler dataHandler) {
+		Assert.notNull(contentId, "'contentId' must not be null");
+		Assert.notNull(dataHandler, "'dataHandler' must not be null");
+		this.contentId = contentId;
+		this.dataHandler = dataHandler;
+	}
+
+	@Override
+	public String getContentId() {
+		return contentId;
+	}
+
+	@Override
+	public String getContentType() {
+		return dataHandler.getContentType();
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		return dataHandler.getInputStream();
+	}
+
+	@Override
+	public long getSize() {
+		DataSource dataSource = dataHandler.getDataSource();
+		if (dataSource instanceof StroapMimePart) {
+			return ((StroapMimePart) dataSource).getSize();
+		}
+		else if (dataSource instanceof FileDataSource) {
+			return ((FileDataSource) dataSource).getFile().length();
+		}
+		return -1;
+	}
+
+	@Override
+	public DataHandler getDataHandler() {
+		return dataHandler;
+	}
+
+}
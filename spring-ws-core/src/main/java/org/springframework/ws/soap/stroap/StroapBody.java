@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.ws.soap.stroap;
 
+import java.util.ArrayList;
+import java.util.List;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLEventWriter;
@@ -32,6 +34,8 @@ import org.springframework.ws.soap.SoapVersion;
 import org.springframework.ws.stream.StreamingPayload;
 
 /**
+ * Abstract base class for Stroap bodies. The contents of the body are held in a {@link StroapPayload}.
+ *
  * @author Arjen Poutsma
  */
 abstract class StroapBody extends StroapElement implements SoapBody {
@@ -59,27 +63,71 @@ abstract class StroapBody extends StroapElement implements SoapBody {
 			throw new StroapMessageCreationException(
 					"Unexpected name: " + startElement.getName() + ", expected " + soapVersion.getBodyName());
 		}
+		skipWhitespace(eventReader);
 		StroapPayload payload;
-		if (messageFactory.isPayloadCaching()) {
+		XMLEvent peekedEvent = eventReader.peek();
+		if (peekedEvent != null && peekedEvent.isStartElement() &&
+				soapVersion.getFaultName().equals(peekedEvent.asStartElement().getName())) {
+			payload = new FaultStroapPayload(StroapFault.build(readElement(eventReader), messageFactory));
+		}
+		else if (messageFactory.isPayloadCaching()) {
 			payload = new CachingStroapPayload(eventReader);
 		}
 		else {
 			payload = new NonCachingStroapPayload(eventReader);
 		}
 
-		if (SoapVersion.SOAP_11.equals(soapVersion)) {
+		if (SoapVersion.SOAP_11 == soapVersion) {
 			return new Stroap11Body(startElement, payload, messageFactory);
 		}
 		else {
-			return null;
+			return new Stroap12Body(startElement, payload, messageFactory);
 		}
 	}
 
+	/** Creates a new, empty body for the SOAP version of the given message factory. */
+	static StroapBody create(StroapMessageFactory messageFactory) {
+		if (SoapVersion.SOAP_11 == messageFactory.getSoapVersion()) {
+			return new Stroap11Body(messageFactory);
+		}
+		else {
+			return new Stroap12Body(messageFactory);
+		}
+	}
+
+	private static void skipWhitespace(XMLEventReader eventReader) throws XMLStreamException {
+		XMLEvent event = eventReader.peek();
+		while (event != null && event.isCharacters() && event.asCharacters().isWhiteSpace()) {
+			eventReader.nextEvent();
+			event = eventReader.peek();
+		}
+	}
+
+	/** Reads the element that starts with the next event into a list. */
+	private static List<XMLEvent> readElement(XMLEventReader eventReader) throws XMLStreamException {
+		List<XMLEvent> events = new ArrayList<XMLEvent>();
+		int elementDepth = 0;
+		do {
+			XMLEvent event = eventReader.nextEvent();
+			if (event.isStartElement()) {
+				elementDepth++;
+			}
+			else if (event.isEndElement()) {
+				elementDepth--;
+			}
+			events.add(event);
+		}
+		while (elementDepth > 0);
+		return events;
+	}
+
+	@Override
 	public Source getPayloadSource() {
 		XMLEventReader eventReader = payload.getEventReader();
 		return StaxUtils.createCustomStaxSource(eventReader);
 	}
 
+	@Override
 	public Result getPayloadResult() {
 		CachingStroapPayload cachingPayload;
 		if (payload instanceof CachingStroapPayload) {
@@ -93,10 +141,12 @@ abstract class StroapBody extends StroapElement implements SoapBody {
 		return StaxUtils.createCustomStaxResult(eventWriter);
 	}
 
+	@Override
 	public boolean hasFault() {
 		return payload instanceof FaultStroapPayload;
 	}
 
+	@Override
 	public SoapFault getFault() {
 		return payload instanceof FaultStroapPayload ? ((FaultStroapPayload) payload).getFault() : null;
 	}
@@ -117,11 +167,11 @@ abstract class StroapBody extends StroapElement implements SoapBody {
 		eventWriter.add(getEndElement());
 	}
 
-	public void setStreamingPayload(StreamingPayload payload) {
+	void setStreamingPayload(StreamingPayload payload) {
 		this.payload = new StreamingStroapPayload(payload, getMessageFactory());
 	}
 
-	public QName getPayloadName() {
+	QName getPayloadName() {
 		return payload.getName();
 	}
 }
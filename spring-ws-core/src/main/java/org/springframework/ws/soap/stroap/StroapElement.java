@@ -57,7 +57,8 @@ abstract class StroapElement implements SoapElement {
 	}
 
 	private static StartElement createStartElement(QName name, StroapMessageFactory messageFactory) {
-		if (!StringUtils.hasLength(name.getPrefix())) {
+		String envelopeNamespaceUri = messageFactory.getSoapVersion().getEnvelopeNamespaceUri();
+		if (!StringUtils.hasLength(name.getPrefix()) && envelopeNamespaceUri.equals(name.getNamespaceURI())) {
 			name = new QName(name.getNamespaceURI(), name.getLocalPart(), DEFAULT_PREFIX);
 		}
 		return messageFactory.getEventFactory().createStartElement(name, null, null);
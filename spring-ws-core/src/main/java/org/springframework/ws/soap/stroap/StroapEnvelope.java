@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,12 +31,12 @@ import org.springframework.ws.soap.SoapVersion;
 import org.springframework.xml.stream.CompositeXMLEventReader;
 
 /**
+ * Stroap-specific implementation of the {@link SoapEnvelope} interface.
+ *
  * @author Arjen Poutsma
  */
 class StroapEnvelope extends StroapElement implements SoapEnvelope {
 
-	private static final String LOCAL_NAME = "Envelope";
-
 	private StroapHeader header;
 
 	private StroapBody body;
@@ -44,7 +44,7 @@ class StroapEnvelope extends StroapElement implements SoapEnvelope {
 	StroapEnvelope(StroapMessageFactory messageFactory) {
 		super(messageFactory.getSoapVersion().getEnvelopeName(), messageFactory);
 		this.header = null;
-		this.body = new Stroap11Body(messageFactory);
+		this.body = StroapBody.create(messageFactory);
 	}
 
 	private StroapEnvelope(StartElement startElement,
@@ -98,16 +98,18 @@ class StroapEnvelope extends StroapElement implements SoapEnvelope {
 		return new StroapEnvelope(startElement, header, body, messageFactory);
 	}
 
+	@Override
 	public SoapHeader getHeader() throws SoapHeaderException {
 		if (header == null) {
-			header = new Stroap11Header(getMessageFactory());
+			header = StroapHeader.create(getMessageFactory());
 		}
 		return header;
 	}
 
+	@Override
 	public SoapBody getBody() throws SoapBodyException {
 		if (body == null) {
-			body = new Stroap11Body(getMessageFactory());
+			body = StroapBody.create(getMessageFactory());
 		}
 		return body;
 	}
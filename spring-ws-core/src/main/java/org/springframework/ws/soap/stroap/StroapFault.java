@@ -0,0 +1,216 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.soap.SoapFault;
+import org.springframework.ws.soap.SoapFaultDetail;
+import org.springframework.ws.soap.SoapVersion;
+import org.springframework.xml.stream.CompositeXMLEventReader;
+import org.springframework.xml.stream.ListBasedXMLEventReader;
+
+/**
+ * Abstract base class for Stroap faults. The child elements of a fault are generated from the fault properties on
+ * demand, followed by the optional {@link StroapFaultDetail}.
+ *
+ * @author Arjen Poutsma
+ */
+abstract class StroapFault extends StroapElement implements SoapFault {
+
+	protected static final QName XML_LANG_NAME =
+			new QName(XMLConstants.XML_NS_URI, "lang", XMLConstants.XML_NS_PREFIX);
+
+	private static final String GENERATED_PREFIX = "ns";
+
+	private StroapFaultDetail faultDetail;
+
+	protected StroapFault(StroapMessageFactory messageFactory) {
+		super(messageFactory.getSoapVersion().getFaultName(), messageFactory);
+	}
+
+	protected StroapFault(StartElement startElement, StroapMessageFactory messageFactory) {
+		super(startElement, messageFactory);
+	}
+
+	/**
+	 * Builds a fault from the given events, the first of which is the start of the fault element, and the last the end
+	 * of it.
+	 */
+	static StroapFault build(List<XMLEvent> events, StroapMessageFactory messageFactory) throws XMLStreamException {
+		Assert.notNull(events, "'events' must not be null");
+		Assert.isTrue(events.size() >= 2, "not enough events");
+		XMLEvent event = events.get(0);
+		if (!event.isStartElement()) {
+			throw new StroapMessageCreationException("Unexpected event: " + event + ", expected StartElement");
+		}
+		event = events.get(events.size() - 1);
+		if (!event.isEndElement()) {
+			throw new StroapMessageCreationException("Unexpected event: " + event + ", expected EndElement");
+		}
+		if (SoapVersion.SOAP_11 == messageFactory.getSoapVersion()) {
+			return Stroap11Fault.build(events, messageFactory);
+		}
+		else {
+			return Stroap12Fault.build(events, messageFactory);
+		}
+	}
+
+	@Override
+	public SoapFaultDetail getFaultDetail() {
+		return faultDetail;
+	}
+
+	@Override
+	public SoapFaultDetail addFaultDetail() {
+		faultDetail = new StroapFaultDetail(getMessageFactory());
+		return faultDetail;
+	}
+
+	void setFaultDetail(StroapFaultDetail faultDetail) {
+		this.faultDetail = faultDetail;
+	}
+
+	@Override
+	protected final XMLEventReader getChildEventReader() {
+		List<XMLEvent> events = new ArrayList<XMLEvent>();
+		addChildEvents(events);
+		XMLEventReader eventReader = new ListBasedXMLEventReader(events);
+		if (faultDetail != null) {
+			return new CompositeXMLEventReader(eventReader, faultDetail.getEventReader(false));
+		}
+		return eventReader;
+	}
+
+	/** Adds the events of all child elements, save for the fault detail, to the given list. */
+	protected abstract void addChildEvents(List<XMLEvent> events);
+
+	/** Adds a start element, containing the given text, and the matching end element to the given list. */
+	protected final void addTextElement(List<XMLEvent> events, QName name, String text, Locale locale) {
+		Iterator<Attribute> attributes = null;
+		if (locale != null) {
+			attributes = Collections.singletonList(getEventFactory().createAttribute(XML_LANG_NAME, toLanguage(locale)))
+					.iterator();
+		}
+		events.add(getEventFactory().createStartElement(name, attributes, null));
+		events.add(getEventFactory().createCharacters(text));
+		events.add(getEventFactory().createEndElement(name, null));
+	}
+
+	/** Returns a prefixed string representation of the given qualified name, as used in element content. */
+	protected static String toPrefixedName(QName name) {
+		return name.getPrefix() + ":" + name.getLocalPart();
+	}
+
+	/**
+	 * Returns the given qualified name with a prefix. If the name has no prefix, the {@code SOAP-ENV} prefix is used for
+	 * the envelope namespace, and a generated prefix otherwise.
+	 */
+	protected final QName getPrefixedName(QName name, int index) {
+		if (StringUtils.hasLength(name.getPrefix())) {
+			return name;
+		}
+		String prefix = getSoapVersion().getEnvelopeNamespaceUri().equals(name.getNamespaceURI()) ? DEFAULT_PREFIX :
+				GENERATED_PREFIX + index;
+		return new QName(name.getNamespaceURI(), name.getLocalPart(), prefix);
+	}
+
+	/** Creates a namespace declaration for the given prefixed name. */
+	protected final Namespace createNamespace(QName name) {
+		return getEventFactory().createNamespace(name.getPrefix(), name.getNamespaceURI());
+	}
+
+	/** Parses the given prefixed name, resolving the prefix against the given start element. */
+	protected static QName parsePrefixedName(String value, StartElement startElement, StartElement parent) {
+		value = value.trim();
+		int idx = value.indexOf(':');
+		String prefix = idx != -1 ? value.substring(0, idx) : XMLConstants.DEFAULT_NS_PREFIX;
+		String localPart = idx != -1 ? value.substring(idx + 1) : value;
+		String namespaceUri = getNamespaceUri(startElement, prefix);
+		if (!StringUtils.hasLength(namespaceUri)) {
+			namespaceUri = getNamespaceUri(parent, prefix);
+		}
+		return new QName(namespaceUri != null ? namespaceUri : XMLConstants.NULL_NS_URI, localPart, prefix);
+	}
+
+	private static String getNamespaceUri(StartElement startElement, String prefix) {
+		for (Iterator<?> iterator = startElement.getNamespaces(); iterator.hasNext();) {
+			Namespace namespace = (Namespace) iterator.next();
+			if (prefix.equals(namespace.getPrefix())) {
+				return namespace.getNamespaceURI();
+			}
+		}
+		NamespaceContext namespaceContext = startElement.getNamespaceContext();
+		return namespaceContext != null ? namespaceContext.getNamespaceURI(prefix) : null;
+	}
+
+	/** Returns the index of the end element that matches the start element at the given index. */
+	protected static int findEndElement(List<XMLEvent> events, int startIndex) {
+		int depth = 0;
+		for (int i = startIndex; i < events.size(); i++) {
+			XMLEvent event = events.get(i);
+			if (event.isStartElement()) {
+				depth++;
+			}
+			else if (event.isEndElement()) {
+				depth--;
+				if (depth == 0) {
+					return i;
+				}
+			}
+		}
+		throw new StroapMessageCreationException("No end element found for " + events.get(startIndex));
+	}
+
+	/** Returns the concatenated character data between the given indices, exclusive. */
+	protected static String getText(List<XMLEvent> events, int startIndex, int endIndex) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = startIndex + 1; i < endIndex; i++) {
+			XMLEvent event = events.get(i);
+			if (event.isCharacters()) {
+				builder.append(event.asCharacters().getData());
+			}
+		}
+		return builder.toString();
+	}
+
+	/** Returns the locale indicated by the {@code xml:lang} attribute of the given start element, if any. */
+	protected static Locale getLocale(StartElement startElement) {
+		Attribute attribute = startElement.getAttributeByName(XML_LANG_NAME);
+		return attribute != null ? StringUtils.parseLocaleString(attribute.getValue().replace('-', '_')) : null;
+	}
+
+	private static String toLanguage(Locale locale) {
+		return locale.toString().replace('_', '-');
+	}
+
+}
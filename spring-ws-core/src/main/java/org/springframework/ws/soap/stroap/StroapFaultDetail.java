@@ -0,0 +1,114 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.Result;
+
+import org.springframework.util.xml.StaxUtils;
+import org.springframework.ws.soap.SoapFaultDetail;
+import org.springframework.ws.soap.SoapFaultDetailElement;
+import org.springframework.ws.soap.SoapVersion;
+import org.springframework.xml.stream.CompositeXMLEventReader;
+
+/**
+ * Stroap-specific implementation of the {@link SoapFaultDetail} interface. Named {@code detail} in SOAP 1.1, and
+ * {@code Detail} in SOAP 1.2.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class StroapFaultDetail extends StroapElement implements SoapFaultDetail {
+
+	private final List<StroapFaultDetailElement> detailElements = new ArrayList<StroapFaultDetailElement>();
+
+	StroapFaultDetail(StroapMessageFactory messageFactory) {
+		super(createStartElement(messageFactory), messageFactory);
+	}
+
+	private StroapFaultDetail(StartElement startElement, StroapMessageFactory messageFactory) {
+		super(startElement, messageFactory);
+	}
+
+	private static StartElement createStartElement(StroapMessageFactory messageFactory) {
+		QName name;
+		if (SoapVersion.SOAP_11 == messageFactory.getSoapVersion()) {
+			name = new QName("detail");
+		}
+		else {
+			name = new QName(messageFactory.getSoapVersion().getEnvelopeNamespaceUri(), "Detail", DEFAULT_PREFIX);
+		}
+		return messageFactory.getEventFactory().createStartElement(name, null, null);
+	}
+
+	/**
+	 * Builds a fault detail from the given events, the first of which is the start of the detail element, and the last
+	 * the end of it.
+	 */
+	static StroapFaultDetail build(List<XMLEvent> events, StroapMessageFactory messageFactory)
+			throws XMLStreamException {
+		StroapFaultDetail faultDetail = new StroapFaultDetail(events.get(0).asStartElement(), messageFactory);
+		ChildElementXMLEventWriter eventWriter = faultDetail.new DetailXMLEventWriter();
+		for (XMLEvent event : events.subList(1, events.size() - 1)) {
+			eventWriter.add(event);
+		}
+		return faultDetail;
+	}
+
+	@Override
+	public SoapFaultDetailElement addFaultDetailElement(QName name) {
+		StroapFaultDetailElement detailElement = new StroapFaultDetailElement(name, getMessageFactory());
+		detailElements.add(detailElement);
+		return detailElement;
+	}
+
+	@Override
+	public Result getResult() {
+		return StaxUtils.createCustomStaxResult(new DetailXMLEventWriter());
+	}
+
+	@Override
+	public Iterator<SoapFaultDetailElement> getDetailEntries() {
+		return Collections.<SoapFaultDetailElement>unmodifiableList(detailElements).iterator();
+	}
+
+	@Override
+	protected XMLEventReader getChildEventReader() {
+		XMLEventReader[] eventReaders = new XMLEventReader[detailElements.size()];
+		for (int i = 0; i < detailElements.size(); i++) {
+			eventReaders[i] = detailElements.get(i).getEventReader(false);
+		}
+		return new CompositeXMLEventReader(eventReaders);
+	}
+
+	private class DetailXMLEventWriter extends ChildElementXMLEventWriter {
+
+		@Override
+		protected void addChildElement(List<XMLEvent> events) {
+			detailElements.add(StroapFaultDetailElement.build(events, getMessageFactory()));
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.Result;
+
+import org.springframework.util.xml.StaxUtils;
+import org.springframework.ws.soap.SoapFaultDetailElement;
+import org.springframework.xml.stream.ListBasedXMLEventReader;
+
+/**
+ * Stroap-specific implementation of the {@link SoapFaultDetailElement} interface.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class StroapFaultDetailElement extends StroapElement implements SoapFaultDetailElement {
+
+	private final List<XMLEvent> events = new ArrayList<XMLEvent>();
+
+	StroapFaultDetailElement(QName name, StroapMessageFactory messageFactory) {
+		super(name, messageFactory);
+	}
+
+	private StroapFaultDetailElement(StartElement startElement, List<XMLEvent> events,
+			StroapMessageFactory messageFactory) {
+		super(startElement, messageFactory);
+		this.events.addAll(events);
+	}
+
+	/**
+	 * Builds a fault detail element from the given events, the first of which is the start of the element, and the last
+	 * the end of it.
+	 */
+	static StroapFaultDetailElement build(List<XMLEvent> events, StroapMessageFactory messageFactory) {
+		return new StroapFaultDetailElement(events.get(0).asStartElement(), events.subList(1, events.size() - 1),
+				messageFactory);
+	}
+
+	@Override
+	public Result getResult() {
+		return StaxUtils.createCustomStaxResult(new CachingXMLEventWriter(events));
+	}
+
+	@Override
+	public void addText(String text) {
+		events.add(getEventFactory().createCharacters(text));
+	}
+
+	@Override
+	protected XMLEventReader getChildEventReader() {
+		return new ListBasedXMLEventReader(events);
+	}
+
+}
@@ -1,11 +1,11 @@
 /*
- * Copyright 2005-2011 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
  *
- *	   http://www.apache.org/licenses/LICENSE-2.0
+ *      http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
@@ -28,20 +28,22 @@ import javax.xml.stream.events.XMLEvent;
 import javax.xml.transform.Result;
 
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.xml.StaxUtils;
 import org.springframework.ws.soap.SoapHeader;
 import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.SoapHeaderException;
 import org.springframework.ws.soap.SoapVersion;
-import org.springframework.xml.stream.AbstractXMLEventWriter;
 import org.springframework.xml.stream.CompositeXMLEventReader;
 
 /**
+ * Abstract base class for Stroap headers. Header elements are kept as {@link StroapHeaderElement}s.
+ *
  * @author Arjen Poutsma
  */
 abstract class StroapHeader extends StroapElement implements SoapHeader {
 
-	private List<StroapHeaderElement> headerElements = new LinkedList<StroapHeaderElement>();
+	private final List<StroapHeaderElement> headerElements = new LinkedList<StroapHeaderElement>();
 
 	protected StroapHeader(StroapMessageFactory messageFactory) {
 		super(messageFactory.getSoapVersion().getHeaderName(), messageFactory);
@@ -64,26 +66,60 @@ abstract class StroapHeader extends StroapElement implements SoapHeader {
 					"Unexpected name: " + startElement.getName() + ", expected " + soapVersion.getHeaderName());
 		}
 
-		if (SoapVersion.SOAP_11.equals(soapVersion)) {
-			return new Stroap11Header(startElement, messageFactory);
+		StroapHeader header;
+		if (SoapVersion.SOAP_11 == soapVersion) {
+			header = new Stroap11Header(startElement, messageFactory);
 		}
 		else {
-			return null;
+			header = new Stroap12Header(startElement, messageFactory);
 		}
+		ChildElementXMLEventWriter eventWriter = header.new HeaderXMLEventWriter();
+		int elementDepth = 0;
+		while (eventReader.hasNext()) {
+			event = eventReader.nextEvent();
+			if (event.isStartElement()) {
+				elementDepth++;
+			}
+			else if (event.isEndElement()) {
+				if (elementDepth == 0) {
+					break;
+				}
+				elementDepth--;
+			}
+			eventWriter.add(event);
+		}
+		return header;
+	}
 
+	/** Creates a new, empty header for the SOAP version of the given message factory. */
+	static StroapHeader create(StroapMessageFactory messageFactory) {
+		if (SoapVersion.SOAP_11 == messageFactory.getSoapVersion()) {
+			return new Stroap11Header(messageFactory);
+		}
+		else {
+			return new Stroap12Header(messageFactory);
+		}
+	}
+
+	/** Adds the given header element to this header. */
+	protected final void addHeaderElement(StroapHeaderElement headerElement) {
+		headerElements.add(headerElement);
 	}
 
+	@Override
 	public SoapHeaderElement addHeaderElement(QName name) throws SoapHeaderException {
 		StroapHeaderElement headerElement = new StroapHeaderElement(name, getMessageFactory());
 		headerElements.add(headerElement);
 		return headerElement;
 	}
 
+	@Override
 	public Iterator<SoapHeaderElement> examineAllHeaderElements() throws SoapHeaderException {
 		List<SoapHeaderElement> headerElements = Collections.<SoapHeaderElement>unmodifiableList(this.headerElements);
 		return headerElements.iterator();
 	}
 
+	@Override
 	public Iterator<SoapHeaderElement> examineHeaderElements(QName name) throws SoapHeaderException {
 		List<SoapHeaderElement> result = new LinkedList<SoapHeaderElement>();
 		for (StroapHeaderElement headerElement : this.headerElements) {
@@ -94,17 +130,20 @@ abstract class StroapHeader extends StroapElement implements SoapHeader {
 		return result.iterator();
 	}
 
+	@Override
 	public Iterator<SoapHeaderElement> examineMustUnderstandHeaderElements(String actorOrRole)
 			throws SoapHeaderException {
 		List<SoapHeaderElement> result = new LinkedList<SoapHeaderElement>();
 		for (StroapHeaderElement headerElement : this.headerElements) {
-			if (headerElement.getMustUnderstand() && headerElement.getActorOrRole().equals(actorOrRole)) {
+			if (headerElement.getMustUnderstand() &&
+					ObjectUtils.nullSafeEquals(headerElement.getActorOrRole(), actorOrRole)) {
 				result.add(headerElement);
 			}
 		}
 		return result.iterator();
 	}
 
+	@Override
 	public void removeHeaderElement(QName name) throws SoapHeaderException {
 		Assert.notNull(name, "'name' must not be null");
 
@@ -127,38 +166,17 @@ abstract class StroapHeader extends StroapElement implements SoapHeader {
 		return new CompositeXMLEventReader(eventReaders);
 	}
 
+	@Override
 	public Result getResult() {
 		headerElements.clear();
-		return StaxUtils.createCustomStaxResult(new StroapHeaderXMLEventWriter());
+		return StaxUtils.createCustomStaxResult(new HeaderXMLEventWriter());
 	}
 
-	class StroapHeaderXMLEventWriter extends AbstractXMLEventWriter {
+	private class HeaderXMLEventWriter extends ChildElementXMLEventWriter {
 
-		private int elementDepth = 0;
-
-		boolean startElementSeen = false;
-
-		private final List<XMLEvent> events = new LinkedList<XMLEvent>();
-
-		public void add(XMLEvent event) throws XMLStreamException {
-			if (event.isStartElement()) {
-				startElementSeen = true;
-				elementDepth++;
-			}
-			else if (event.isEndElement()) {
-				elementDepth--;
-			}
-			else if (event.isStartDocument() || event.isEndDocument()) {
-				return;
-			}
-			if (elementDepth >= 0 && startElementSeen) {
-				events.add(event);
-			}
-			if (elementDepth == 0 && (event.isEndElement() || event.isEndDocument())) {
-				StroapHeaderElement headerElement = StroapHeaderElement.build(events, getMessageFactory());
-				headerElements.add(headerElement);
-				events.clear();
-			}
+		@Override
+		protected void addChildElement(List<XMLEvent> events) throws XMLStreamException {
+			headerElements.add(StroapHeaderElement.build(events, getMessageFactory()));
 		}
 	}
 
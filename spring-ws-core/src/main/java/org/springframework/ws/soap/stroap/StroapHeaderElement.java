@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,9 +29,12 @@ import org.springframework.util.Assert;
 import org.springframework.util.xml.StaxUtils;
 import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.SoapHeaderException;
+import org.springframework.ws.soap.SoapVersion;
 import org.springframework.xml.stream.ListBasedXMLEventReader;
 
 /**
+ * Stroap-specific implementation of the {@link SoapHeaderElement} interface.
+ *
  * @author Arjen Poutsma
  */
 class StroapHeaderElement extends StroapElement implements SoapHeaderElement {
@@ -65,29 +68,43 @@ class StroapHeaderElement extends StroapElement implements SoapHeaderElement {
 		return new StroapHeaderElement(startElement, childEvents, messageFactory);
 	}
 
+	@Override
 	public final String getActorOrRole() throws SoapHeaderException {
 		return getAttributeValue(getSoapVersion().getActorOrRoleName());
 	}
 
+	@Override
 	public final void setActorOrRole(String actorOrRole) throws SoapHeaderException {
+		removeAttribute(getSoapVersion().getActorOrRoleName());
 		addAttribute(getSoapVersion().getActorOrRoleName(), actorOrRole);
 	}
 
+	@Override
 	public final boolean getMustUnderstand() throws SoapHeaderException {
 		String mustUnderstandAttribute = getAttributeValue(getSoapVersion().getMustUnderstandAttributeName());
-		return "1".equals(mustUnderstandAttribute);
+		return "1".equals(mustUnderstandAttribute) || "true".equals(mustUnderstandAttribute);
 	}
 
+	@Override
 	public void setMustUnderstand(boolean mustUnderstand) throws SoapHeaderException {
-		String mustUnderstandAttribute = mustUnderstand ? "1" : "0";
+		String mustUnderstandAttribute;
+		if (SoapVersion.SOAP_11 == getSoapVersion()) {
+			mustUnderstandAttribute = mustUnderstand ? "1" : "0";
+		}
+		else {
+			mustUnderstandAttribute = mustUnderstand ? "true" : "false";
+		}
+		removeAttribute(getSoapVersion().getMustUnderstandAttributeName());
 		addAttribute(getSoapVersion().getMustUnderstandAttributeName(), mustUnderstandAttribute);
 	}
 
+	@Override
 	public Result getResult() throws SoapHeaderException {
 		events.clear();
 		return StaxUtils.createCustomStaxResult(new CachingXMLEventWriter(events));
 	}
 
+	@Override
 	public String getText() {
 		StringBuilder builder = new StringBuilder();
 		for (XMLEvent event : events) {
@@ -98,6 +115,7 @@ class StroapHeaderElement extends StroapElement implements SoapHeaderElement {
 		return builder.toString();
 	}
 
+	@Override
 	public void setText(String content) {
 		events.clear();
 		events.add(getEventFactory().createCharacters(content));
@@ -108,5 +126,4 @@ class StroapHeaderElement extends StroapElement implements SoapHeaderElement {
 		return new ListBasedXMLEventReader(events);
 	}
 
-
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,11 +21,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
+import java.util.UUID;
 import javax.activation.DataHandler;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
@@ -39,8 +41,6 @@ import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 
 import org.springframework.util.Assert;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.util.StringUtils;
 import org.springframework.ws.mime.Attachment;
 import org.springframework.ws.mime.AttachmentException;
@@ -64,88 +64,124 @@ import org.w3c.dom.ls.LSSerializer;
 import org.xml.sax.SAXException;
 
 /**
+ * StAX-based implementation of the {@link org.springframework.ws.soap.SoapMessage} interface. Created via the {@link
+ * StroapMessageFactory}.
+ *
+ * <p>Messages with attachments are written as {@code multipart/related} messages: as SOAP with Attachments by default,
+ * or as an XOP package if {@link #convertToXopPackage()} has been called, or if the message was read as such.
+ * Attachments are never inlined: {@code xop:Include} elements remain in the envelope, and should be resolved using
+ * {@link #getAttachment(String)}.
+ *
  * @author Arjen Poutsma
+ * @see StroapMessageFactory
  */
 public class StroapMessage extends AbstractSoapMessage implements StreamingWebServiceMessage {
 
-	private final MultiValueMap<String, String> mimeHeaders = new LinkedMultiValueMap<String, String>();
+	private static final String XOP_CONTENT_TYPE = "application/xop+xml";
+
+	private static final String ENCODING = "UTF-8";
+
+	private static final byte[] CRLF = {'\r', '\n'};
 
 	private StroapEnvelope envelope;
 
 	private final StroapMessageFactory messageFactory;
 
+	private final Map<String, StroapAttachment> attachments = new LinkedHashMap<String, StroapAttachment>();
+
+	private String soapAction;
+
+	private boolean xopPackage;
+
 	private final StartDocument startDocument;
 
 	private final EndDocument endDocument;
 
+	/**
+	 * Creates a new, empty {@code StroapMessage}.
+	 *
+	 * @param messageFactory the message factory that creates the parts of this message
+	 */
 	public StroapMessage(StroapMessageFactory messageFactory) {
 		this(null, null, messageFactory);
 	}
 
-	public StroapMessage(MultiValueMap<String, String> mimeHeaders,
-						 StroapEnvelope envelope,
-						 StroapMessageFactory messageFactory) {
+	private StroapMessage(StroapEnvelope envelope, String soapAction, StroapMessageFactory messageFactory) {
 		Assert.notNull(messageFactory, "'messageFactory' must not be null");
 		this.messageFactory = messageFactory;
-		if (mimeHeaders != null) {
-			this.mimeHeaders.putAll(mimeHeaders);
-		}
 		this.envelope = envelope != null ? envelope : new StroapEnvelope(messageFactory);
-		if (!this.mimeHeaders.containsKey(TransportConstants.HEADER_CONTENT_TYPE)) {
-			this.mimeHeaders
-					.set(TransportConstants.HEADER_CONTENT_TYPE, messageFactory.getSoapVersion().getContentType());
-		}
-		if (!this.mimeHeaders.containsKey(TransportConstants.HEADER_ACCEPT)) {
-			this.mimeHeaders.set(TransportConstants.HEADER_ACCEPT, messageFactory.getSoapVersion().getContentType());
-		}
+		this.soapAction = StringUtils.hasLength(soapAction) ? soapAction : TransportConstants.EMPTY_SOAP_ACTION;
 		this.startDocument = messageFactory.getEventFactory().createStartDocument();
 		this.endDocument = messageFactory.getEventFactory().createEndDocument();
 	}
 
 	static StroapMessage build(InputStream inputStream, StroapMessageFactory messageFactory)
 			throws XMLStreamException, IOException {
-		MultiValueMap<String, String> mimeHeaders = parseMimeHeaders(inputStream);
-		XMLEventReader eventReader = messageFactory.getInputFactory().createXMLEventReader(inputStream);
-		StroapEnvelope envelope = StroapEnvelope.build(eventReader, messageFactory);
-		return new StroapMessage(mimeHeaders, envelope, messageFactory);
-	}
-
-	private static MultiValueMap<String, String> parseMimeHeaders(InputStream inputStream) throws IOException {
-		MultiValueMap<String, String> mimeHeaders = new LinkedMultiValueMap<String, String>();
+		String contentType = null;
+		String soapAction = null;
 		if (inputStream instanceof TransportInputStream) {
 			TransportInputStream transportInputStream = (TransportInputStream) inputStream;
-			for (Iterator<String> headerNames = transportInputStream.getHeaderNames(); headerNames.hasNext();) {
-				String headerName = headerNames.next();
-				for (Iterator<String> headerValues = transportInputStream.getHeaders(headerName);
-					 headerValues.hasNext();) {
-					String headerValue = headerValues.next();
-					StringTokenizer tokenizer = new StringTokenizer(headerValue, ",");
-					while (tokenizer.hasMoreTokens()) {
-						mimeHeaders.add(headerName, tokenizer.nextToken().trim());
-					}
+			contentType = getHeader(transportInputStream, TransportConstants.HEADER_CONTENT_TYPE);
+			soapAction = getHeader(transportInputStream, TransportConstants.HEADER_SOAP_ACTION);
+		}
+		if (StroapMultipart.isMultipart(contentType)) {
+			StroapMultipart multipart = StroapMultipart.read(inputStream, contentType);
+			StroapMimePart rootPart = multipart.getRootPart();
+			if (SoapVersion.SOAP_12 == messageFactory.getSoapVersion()) {
+				soapAction = SoapUtils.extractActionFromContentType(rootPart.getContentType());
+				if (TransportConstants.EMPTY_SOAP_ACTION.equals(soapAction)) {
+					soapAction = SoapUtils.extractActionFromContentType(contentType);
+				}
+			}
+			StroapMessage message = build(rootPart.getInputStream(), soapAction, messageFactory);
+			for (StroapMimePart part : multipart.getAttachmentParts()) {
+				String contentId = part.getContentId();
+				if (contentId != null) {
+					message.attachments.put(contentId, new StroapAttachment(contentId, new DataHandler(part)));
 				}
 			}
+			message.xopPackage = XOP_CONTENT_TYPE.equalsIgnoreCase(multipart.getParameter("type"));
+			return message;
+		}
+		else {
+			if (SoapVersion.SOAP_12 == messageFactory.getSoapVersion()) {
+				soapAction = SoapUtils.extractActionFromContentType(contentType);
+			}
+			return build(inputStream, soapAction, messageFactory);
 		}
-		return mimeHeaders;
 	}
 
+	private static StroapMessage build(InputStream inputStream, String soapAction,
+			StroapMessageFactory messageFactory) throws XMLStreamException {
+		XMLEventReader eventReader = messageFactory.getInputFactory().createXMLEventReader(inputStream);
+		StroapEnvelope envelope = StroapEnvelope.build(eventReader, messageFactory);
+		return new StroapMessage(envelope, soapAction, messageFactory);
+	}
+
+	private static String getHeader(TransportInputStream transportInputStream, String name) throws IOException {
+		Iterator<String> iterator = transportInputStream.getHeaders(name);
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+
+	@Override
 	public SoapEnvelope getEnvelope() throws SoapEnvelopeException {
 		return envelope;
 	}
 
+	@Override
 	public void setStreamingPayload(StreamingPayload payload) {
 		StroapBody soapBody = (StroapBody) getSoapBody();
 		soapBody.setStreamingPayload(payload);
 	}
 
+	@Override
 	public String getSoapAction() {
-		String soapAction = mimeHeaders.getFirst(TransportConstants.HEADER_SOAP_ACTION);
-		return StringUtils.hasLength(soapAction) ? soapAction : TransportConstants.EMPTY_SOAP_ACTION;
+		return soapAction;
 	}
 
+	@Override
 	public void setSoapAction(String soapAction) {
-		soapAction = SoapUtils.escapeAction(soapAction);
-		mimeHeaders.set(TransportConstants.HEADER_SOAP_ACTION, soapAction);
+		this.soapAction = SoapUtils.escapeAction(soapAction);
 	}
 
 	@Override
@@ -153,6 +189,7 @@ public class StroapMessage extends AbstractSoapMessage implements StreamingWebSe
 		return messageFactory.getSoapVersion();
 	}
 
+	@Override
 	public Document getDocument() {
 		try {
 			DocumentBuilder documentBuilder = messageFactory.getDocumentBuilderFactory().newDocumentBuilder();
@@ -191,6 +228,7 @@ public class StroapMessage extends AbstractSoapMessage implements StreamingWebSe
 		}
 	}
 
+	@Override
 	public void setDocument(Document document) {
 		try {
 			try {
@@ -226,19 +264,63 @@ public class StroapMessage extends AbstractSoapMessage implements StreamingWebSe
 		}
 	}
 
+	@Override
 	public void writeTo(OutputStream outputStream) throws IOException {
+		SoapVersion version = getVersion();
+		boolean multipart = xopPackage || !attachments.isEmpty();
+		String boundary = null;
+		String rootContentId = null;
+		String rootContentType = version.getContentType() + "; charset=" + ENCODING;
+		String contentType = rootContentType;
+		if (multipart) {
+			boundary = "MIMEBoundary_" + UUID.randomUUID();
+			rootContentId = "root." + UUID.randomUUID() + "@springframework.org";
+			if (xopPackage) {
+				rootContentType = XOP_CONTENT_TYPE + "; charset=" + ENCODING + "; type=\"" +
+						version.getContentType() + "\"";
+				contentType = StroapMultipart.MULTIPART_RELATED + "; type=\"" + XOP_CONTENT_TYPE + "\"; start-info=\"" +
+						version.getContentType() + "\"";
+			}
+			else {
+				contentType = StroapMultipart.MULTIPART_RELATED + "; type=\"" + version.getContentType() + "\"";
+			}
+			contentType += "; boundary=\"" + boundary + "\"; start=\"<" + rootContentId + ">\"";
+		}
+		if (SoapVersion.SOAP_12 == version && !TransportConstants.EMPTY_SOAP_ACTION.equals(soapAction)) {
+			if (multipart) {
+				rootContentType = SoapUtils.setActionInContentType(rootContentType, soapAction);
+			}
+			contentType = SoapUtils.setActionInContentType(contentType, soapAction);
+		}
 		if (outputStream instanceof TransportOutputStream) {
-			TransportOutputStream tos = (TransportOutputStream) outputStream;
-			for (Map.Entry<String, List<String>> entry : mimeHeaders.entrySet()) {
-				String name = entry.getKey();
-				for (String value : entry.getValue()) {
-					tos.addHeader(name, value);
-				}
+			TransportOutputStream transportOutputStream = (TransportOutputStream) outputStream;
+			transportOutputStream.addHeader(TransportConstants.HEADER_CONTENT_TYPE, contentType);
+			if (SoapVersion.SOAP_11 == version) {
+				transportOutputStream.addHeader(TransportConstants.HEADER_SOAP_ACTION, soapAction);
+			}
+			transportOutputStream.addHeader(TransportConstants.HEADER_ACCEPT, version.getContentType());
+		}
+		if (multipart) {
+			writePartHeaders(outputStream, boundary, rootContentType, rootContentId, true);
+			writeEnvelope(outputStream);
+			for (StroapAttachment attachment : attachments.values()) {
+				writePartHeaders(outputStream, boundary, attachment.getContentType(), attachment.getContentId(), false);
+				attachment.getDataHandler().writeTo(outputStream);
 			}
+			outputStream.write(CRLF);
+			outputStream.write(("--" + boundary + "--").getBytes(StandardCharsets.US_ASCII));
+			outputStream.write(CRLF);
+		}
+		else {
+			writeEnvelope(outputStream);
 		}
+		outputStream.flush();
+	}
+
+	private void writeEnvelope(OutputStream outputStream) throws IOException {
 		try {
-			XMLEventWriter eventWriter = messageFactory.getOutputFactory().createXMLEventWriter(outputStream);
-			eventWriter.add(startDocument);
+			XMLEventWriter eventWriter = messageFactory.getOutputFactory().createXMLEventWriter(outputStream, ENCODING);
+			eventWriter.add(messageFactory.getEventFactory().createStartDocument(ENCODING));
 			envelope.writeTo(new NoStartEndDocumentWriter(eventWriter));
 			eventWriter.add(endDocument);
 			eventWriter.flush();
@@ -248,24 +330,53 @@ public class StroapMessage extends AbstractSoapMessage implements StreamingWebSe
 		}
 	}
 
+	private static void writePartHeaders(OutputStream outputStream, String boundary, String contentType,
+			String contentId, boolean first) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		if (!first) {
+			builder.append("\r\n");
+		}
+		builder.append("--").append(boundary).append("\r\n");
+		builder.append(TransportConstants.HEADER_CONTENT_TYPE).append(": ").append(contentType).append("\r\n");
+		builder.append("Content-Transfer-Encoding: binary\r\n");
+		builder.append("Content-ID: <").append(contentId).append(">\r\n");
+		builder.append("\r\n");
+		outputStream.write(builder.toString().getBytes(StandardCharsets.US_ASCII));
+	}
+
+	@Override
 	public boolean isXopPackage() {
-		return false;
+		return xopPackage;
 	}
 
+	@Override
 	public boolean convertToXopPackage() {
-		return false;
+		xopPackage = true;
+		return true;
 	}
 
+	@Override
 	public Attachment getAttachment(String contentId) throws AttachmentException {
-		throw new UnsupportedOperationException();
+		Assert.hasLength(contentId, "contentId must not be empty");
+		if (contentId.startsWith("<") && contentId.endsWith(">")) {
+			contentId = contentId.substring(1, contentId.length() - 1);
+		}
+		return attachments.get(contentId);
 	}
 
+	@Override
 	public Iterator<Attachment> getAttachments() throws AttachmentException {
-		return Collections.<Attachment>emptyList().iterator();
+		List<Attachment> result = new ArrayList<Attachment>(attachments.values());
+		return result.iterator();
 	}
 
+	@Override
 	public Attachment addAttachment(String contentId, DataHandler dataHandler) {
-		throw new UnsupportedOperationException();
+		Assert.hasLength(contentId, "contentId must not be empty");
+		Assert.notNull(dataHandler, "dataHandler must not be null");
+		StroapAttachment attachment = new StroapAttachment(contentId, dataHandler);
+		attachments.put(contentId, attachment);
+		return attachment;
 	}
 
 	@Override
@@ -287,6 +398,7 @@ public class StroapMessage extends AbstractSoapMessage implements StreamingWebSe
 			this.delegate = delegate;
 		}
 
+		@Override
 		public void add(XMLEvent event) throws XMLStreamException {
 			if (!event.isStartDocument() && !event.isEndDocument()) {
 				delegate.add(event);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,11 +24,27 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 
+import org.springframework.ws.InvalidXmlException;
 import org.springframework.ws.soap.SoapMessageFactory;
 import org.springframework.ws.soap.SoapVersion;
 
 /**
+ * StAX-based implementation of the {@link SoapMessageFactory} interface. Creates {@link StroapMessage} objects, which
+ * keep their contents as lists of StAX events, rather than in an object model such as DOM or AXIOM.
+ *
+ * <p>Just like the {@link org.springframework.ws.soap.axiom.AxiomSoapMessageFactory}, this factory can be configured
+ * not to cache the payload of incoming messages by setting the {@link #setPayloadCaching(boolean) payloadCaching}
+ * property to {@code false}, in which case the payload is read directly from the stream, and can only be read once.
+ * Outgoing messages support {@linkplain org.springframework.ws.stream.StreamingPayload streaming payloads}, which are
+ * written directly to the output stream.
+ *
+ * <p>Both SOAP 1.1 (the default) and SOAP 1.2 are supported, as are SOAP with Attachments and MTOM. Incoming
+ * {@code multipart/related} messages are read into memory completely; applications that receive large attachments
+ * should use a message factory that can cache attachments on disk instead.
+ *
  * @author Arjen Poutsma
+ * @see StroapMessage
+ * @since 3.0.1
  */
 public class StroapMessageFactory implements SoapMessageFactory {
 
@@ -42,35 +58,56 @@ public class StroapMessageFactory implements SoapMessageFactory {
 
 	private boolean payloadCaching = true;
 
+	private SoapVersion soapVersion = SoapVersion.SOAP_11;
+
+	/** Indicates whether the SOAP Body payload should be cached or not. */
 	public boolean isPayloadCaching() {
 		return payloadCaching;
 	}
 
+	/**
+	 * Indicates whether the SOAP Body payload should be cached or not. Default is {@code true}.
+	 *
+	 * <p>Setting this to {@code false} will increase performance, but also result in the fact that the message payload
+	 * can only be read once.
+	 */
 	public void setPayloadCaching(boolean payloadCaching) {
 		this.payloadCaching = payloadCaching;
 	}
 
+	/** Returns the SOAP version used by this factory. */
 	public SoapVersion getSoapVersion() {
-		return SoapVersion.SOAP_11;
+		return soapVersion;
 	}
 
+	/**
+	 * Sets the SOAP Version used by this factory. Default is {@link SoapVersion#SOAP_11}.
+	 *
+	 * @param version the version constant, either {@link SoapVersion#SOAP_11} or {@link SoapVersion#SOAP_12}
+	 */
+	@Override
 	public void setSoapVersion(SoapVersion version) {
-		if (version != SoapVersion.SOAP_11) {
-			throw new UnsupportedOperationException();
+		if (SoapVersion.SOAP_11 == version || SoapVersion.SOAP_12 == version) {
+			this.soapVersion = version;
+		}
+		else {
+			throw new IllegalArgumentException(
+					"Invalid version [" + version + "]. " + "Expected the SOAP_11 or SOAP_12 constant");
 		}
 	}
 
+	@Override
 	public StroapMessage createWebServiceMessage() {
 		return new StroapMessage(this);
 	}
 
+	@Override
 	public StroapMessage createWebServiceMessage(InputStream inputStream) throws IOException {
 		try {
 			return StroapMessage.build(inputStream, this);
 		}
 		catch (XMLStreamException ex) {
-			throw new StroapMessageCreationException("Could not create message from InputStream: " + ex.getMessage(),
-					ex);
+			throw new InvalidXmlException("Could not parse XML", ex);
 		}
 	}
 
@@ -97,10 +134,16 @@ public class StroapMessageFactory implements SoapMessageFactory {
 	 * <p>Can be overridden in subclasses, adding further initialization of the factory. The resulting factory is cached,
 	 * so this method will only be called once.
 	 *
+	 * <p>By default this method creates a standard {@link XMLInputFactory} that does not support DTDs or external
+	 * entities.
+	 *
 	 * @return the created factory
 	 */
 	protected XMLInputFactory createXmlInputFactory() {
-		return XMLInputFactory.newInstance();
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return inputFactory;
 	}
 
 	/**
@@ -145,6 +188,7 @@ public class StroapMessageFactory implements SoapMessageFactory {
 		return documentBuilderFactory;
 	}
 
+	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder("StroapMessageFactory[");
 		if (getSoapVersion() == SoapVersion.SOAP_11) {
@@ -164,5 +208,4 @@ public class StroapMessageFactory implements SoapMessageFactory {
 		return builder.toString();
 	}
 
-
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.activation.DataSource;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.transport.TransportConstants;
+
+/**
+ * A single part of a {@code multipart/related} message read by a {@link StroapMessageFactory}. Also serves as the
+ * {@link DataSource} of the attachment the part represents.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+class StroapMimePart implements DataSource {
+
+	private static final String HEADER_CONTENT_ID = "Content-ID";
+
+	private static final String HEADER_CONTENT_TRANSFER_ENCODING = "Content-Transfer-Encoding";
+
+	private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+	private final Map<String, String> headers;
+
+	private final byte[] content;
+
+	/**
+	 * Creates a new {@code StroapMimePart}.
+	 *
+	 * @param headers the part headers, keyed by lower case name
+	 * @param content the (transfer-encoded) contents of the part
+	 */
+	StroapMimePart(Map<String, String> headers, byte[] content) {
+		Assert.notNull(headers, "'headers' must not be null");
+		Assert.notNull(content, "'content' must not be null");
+		this.headers = new LinkedHashMap<String, String>(headers);
+		if ("base64".equalsIgnoreCase(getHeader(HEADER_CONTENT_TRANSFER_ENCODING))) {
+			this.content = Base64.getMimeDecoder().decode(content);
+		}
+		else {
+			this.content = content;
+		}
+	}
+
+	/** Returns the value of the given header, or {@code null} if not present. */
+	String getHeader(String name) {
+		return headers.get(name.toLowerCase(Locale.ENGLISH));
+	}
+
+	/** Returns the content id of this part, without surrounding angle brackets. */
+	String getContentId() {
+		String contentId = getHeader(HEADER_CONTENT_ID);
+		if (contentId == null) {
+			return null;
+		}
+		contentId = contentId.trim();
+		if (contentId.startsWith("<") && contentId.endsWith(">")) {
+			contentId = contentId.substring(1, contentId.length() - 1);
+		}
+		return contentId;
+	}
+
+	/** Returns the size of this part, in bytes. */
+	long getSize() {
+		return content.length;
+	}
+
+	@Override
+	public String getContentType() {
+		String contentType = getHeader(TransportConstants.HEADER_CONTENT_TYPE);
+		return StringUtils.hasLength(contentType) ? contentType : DEFAULT_CONTENT_TYPE;
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return new ByteArrayInputStream(content);
+	}
+
+	/**
+	 * Throws an {@code UnsupportedOperationException} when called.
+	 *
+	 * @throws UnsupportedOperationException when called
+	 */
+	@Override
+	public OutputStream getOutputStream() {
+		throw new UnsupportedOperationException("Read-only javax.activation.DataSource");
+	}
+
+	@Override
+	public String getName() {
+		return getContentId();
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Reads {@code multipart/related} messages, as used for SOAP with Attachments and MTOM, into a list of {@link
+ * StroapMimePart}s.
+ *
+ * <p>The whole message is read into memory. Applications that receive large attachments should use a message factory
+ * that can cache attachments on disk, such as the {@link org.springframework.ws.soap.axiom.AxiomSoapMessageFactory}.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+final class StroapMultipart {
+
+	static final String MULTIPART_RELATED = "multipart/related";
+
+	private static final byte[] CRLF = {'\r', '\n'};
+
+	private final Map<String, String> parameters;
+
+	private final List<StroapMimePart> parts;
+
+	private StroapMultipart(Map<String, String> parameters, List<StroapMimePart> parts) {
+		this.parameters = parameters;
+		this.parts = parts;
+	}
+
+	/** Indicates whether the given content type denotes a {@code multipart/related} message. */
+	static boolean isMultipart(String contentType) {
+		return contentType != null && contentType.trim().toLowerCase(Locale.ENGLISH).startsWith(MULTIPART_RELATED);
+	}
+
+	/**
+	 * Reads a multipart message from the given stream.
+	 *
+	 * @param inputStream the stream to read from
+	 * @param contentType the {@code multipart/related} content type, including the {@code boundary} parameter
+	 * @return the multipart message
+	 * @throws IOException in case of I/O errors
+	 */
+	static StroapMultipart read(InputStream inputStream, String contentType) throws IOException {
+		Map<String, String> parameters = parseParameters(contentType);
+		String boundary = parameters.get("boundary");
+		if (!StringUtils.hasLength(boundary)) {
+			throw new StroapMessageCreationException("No boundary found in Content-Type [" + contentType + "]");
+		}
+		byte[] data = FileCopyUtils.copyToByteArray(inputStream);
+		byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.US_ASCII);
+		// subsequent delimiters include the preceding line break, which is not part of the content
+		byte[] innerDelimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+
+		List<StroapMimePart> parts = new ArrayList<StroapMimePart>();
+		int pos = indexOf(data, delimiter, 0);
+		if (pos == -1) {
+			throw new StroapMessageCreationException("No MIME boundary [" + boundary + "] found");
+		}
+		pos = skipLine(data, pos + delimiter.length);
+		while (pos < data.length) {
+			int end = indexOf(data, innerDelimiter, pos);
+			if (end == -1) {
+				throw new StroapMessageCreationException("No closing MIME boundary [" + boundary + "] found");
+			}
+			parts.add(readPart(data, pos, end));
+			pos = end + innerDelimiter.length;
+			if (pos + 1 < data.length && data[pos] == '-' && data[pos + 1] == '-') {
+				break;
+			}
+			pos = skipLine(data, pos);
+		}
+		if (parts.isEmpty()) {
+			throw new StroapMessageCreationException("No MIME parts found");
+		}
+		return new StroapMultipart(parameters, parts);
+	}
+
+	private static StroapMimePart readPart(byte[] data, int start, int end) {
+		Map<String, String> headers = new LinkedHashMap<String, String>();
+		int pos = start;
+		String previousName = null;
+		while (pos < end) {
+			int lineEnd = indexOf(data, CRLF, pos);
+			int nextLine;
+			if (lineEnd == -1 || lineEnd > end) {
+				lineEnd = end;
+				nextLine = end;
+			}
+			else {
+				nextLine = lineEnd + CRLF.length;
+			}
+			if (lineEnd == pos) {
+				pos = nextLine;
+				break;
+			}
+			String line = new String(data, pos, lineEnd - pos, StandardCharsets.ISO_8859_1);
+			if ((line.charAt(0) == ' ' || line.charAt(0) == '\t') && previousName != null) {
+				headers.put(previousName, headers.get(previousName) + ' ' + line.trim());
+			}
+			else {
+				int idx = line.indexOf(':');
+				if (idx > 0) {
+					previousName = line.substring(0, idx).trim().toLowerCase(Locale.ENGLISH);
+					headers.put(previousName, line.substring(idx + 1).trim());
+				}
+			}
+			pos = nextLine;
+		}
+		return new StroapMimePart(headers, Arrays.copyOfRange(data, pos, Math.max(pos, end)));
+	}
+
+	/**
+	 * Parses the parameters of the given content type into a map. Parameter names are converted to lower case; quotes
+	 * surrounding values are removed.
+	 */
+	static Map<String, String> parseParameters(String contentType) {
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		int pos = contentType.indexOf(';');
+		while (pos != -1 && pos < contentType.length()) {
+			int eq = contentType.indexOf('=', pos + 1);
+			if (eq == -1) {
+				break;
+			}
+			String name = contentType.substring(pos + 1, eq).trim().toLowerCase(Locale.ENGLISH);
+			int valueStart = eq + 1;
+			while (valueStart < contentType.length() && Character.isWhitespace(contentType.charAt(valueStart))) {
+				valueStart++;
+			}
+			String value;
+			if (valueStart < contentType.length() && contentType.charAt(valueStart) == '"') {
+				int valueEnd = contentType.indexOf('"', valueStart + 1);
+				if (valueEnd == -1) {
+					valueEnd = contentType.length();
+				}
+				value = contentType.substring(valueStart + 1, valueEnd);
+				pos = contentType.indexOf(';', valueEnd);
+			}
+			else {
+				int valueEnd = contentType.indexOf(';', valueStart);
+				value = contentType.substring(valueStart, valueEnd != -1 ? valueEnd : contentType.length()).trim();
+				pos = valueEnd;
+			}
+			result.put(name, value);
+		}
+		return result;
+	}
+
+	/** Returns the value of the given content type parameter, or {@code null} if not present. */
+	String getParameter(String name) {
+		return parameters.get(name);
+	}
+
+	/** Returns the root part, as indicated by the {@code start} parameter, or the first part if not specified. */
+	StroapMimePart getRootPart() {
+		String start = getParameter("start");
+		if (start != null) {
+			start = start.trim();
+			if (start.startsWith("<") && start.endsWith(">")) {
+				start = start.substring(1, start.length() - 1);
+			}
+			for (StroapMimePart part : parts) {
+				if (start.equals(part.getContentId())) {
+					return part;
+				}
+			}
+		}
+		return parts.get(0);
+	}
+
+	/** Returns all parts except the root part. */
+	List<StroapMimePart> getAttachmentParts() {
+		List<StroapMimePart> result = new ArrayList<StroapMimePart>(parts);
+		result.remove(getRootPart());
+		return result;
+	}
+
+	private static int skipLine(byte[] data, int pos) {
+		while (pos < data.length && data[pos] != '\n') {
+			pos++;
+		}
+		return pos + 1;
+	}
+
+	private static int indexOf(byte[] data, byte[] pattern, int from) {
+		int last = data.length - pattern.length;
+		outer:
+		for (int i = from; i <= last; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (data[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+}
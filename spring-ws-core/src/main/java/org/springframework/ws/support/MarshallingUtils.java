@@ -18,16 +18,25 @@ package org.springframework.ws.support;
 
 import java.io.IOException;
 import javax.activation.DataHandler;
+import javax.xml.bind.JAXBContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Source;
 
 import org.springframework.oxm.Marshaller;
 import org.springframework.oxm.Unmarshaller;
+import org.springframework.oxm.XmlMappingException;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.oxm.mime.MimeContainer;
 import org.springframework.oxm.mime.MimeMarshaller;
 import org.springframework.oxm.mime.MimeUnmarshaller;
+import org.springframework.util.xml.StaxUtils;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.mime.Attachment;
 import org.springframework.ws.mime.MimeMessage;
+import org.springframework.ws.stream.StreamingPayload;
+import org.springframework.xml.stream.FragmentXMLStreamWriter;
 
 /**
  * Helper class for endpoints and endpoint mappings that use marshalling.
@@ -85,6 +94,64 @@ public abstract class MarshallingUtils {
 		}
 	}
 
+	/**
+	 * Creates a {@link StreamingPayload} that marshals the given object using the provided {@link Marshaller} when it
+	 * is written, rather than upfront.
+	 *
+	 * <p>A streaming payload has to know the name of its root element before marshalling, so this is only supported
+	 * for a {@link Jaxb2Marshaller} and graphs that are JAXB elements. Note that the marshaller is not given access to
+	 * the attachments of the message, as these have to be known before the message is written.
+	 *
+	 * @param marshaller the marshaller
+	 * @param graph		 the root of the object graph to marshal
+	 * @return the streaming payload; or {@code null} if the name of the payload cannot be determined
+	 * @since 3.0.1
+	 */
+	public static StreamingPayload createStreamingPayload(Marshaller marshaller, Object graph) {
+		if (marshaller instanceof Jaxb2Marshaller) {
+			JAXBContext jaxbContext = ((Jaxb2Marshaller) marshaller).getJaxbContext();
+			QName name = jaxbContext.createJAXBIntrospector().getElementName(graph);
+			if (name != null) {
+				return new MarshallingStreamingPayload(marshaller, graph, name);
+			}
+		}
+		return null;
+	}
+
+	private static class MarshallingStreamingPayload implements StreamingPayload {
+
+		private final Marshaller marshaller;
+
+		private final Object graph;
+
+		private final QName name;
+
+		private MarshallingStreamingPayload(Marshaller marshaller, Object graph, QName name) {
+			this.marshaller = marshaller;
+			this.graph = graph;
+			this.name = name;
+		}
+
+		@Override
+		public QName getName() {
+			return name;
+		}
+
+		@Override
+		public void writeTo(XMLStreamWriter streamWriter) throws XMLStreamException {
+			try {
+				XMLStreamWriter fragmentWriter = new FragmentXMLStreamWriter(streamWriter);
+				marshaller.marshal(graph, StaxUtils.createStaxResult(fragmentWriter));
+			}
+			catch (XmlMappingException ex) {
+				throw new XMLStreamException("Could not marshal [" + graph + "]: " + ex.getMessage(), ex);
+			}
+			catch (IOException ex) {
+				throw new XMLStreamException("Could not marshal [" + graph + "]: " + ex.getMessage(), ex);
+			}
+		}
+	}
+
 	private static class MimeMessageContainer implements MimeContainer {
 
 		private final MimeMessage mimeMessage;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.transport.support.WireLogger;
 
 /**
  * Abstract base class for {@link WebServiceConnection} implementations.
@@ -35,6 +36,19 @@ public abstract class AbstractWebServiceConnection implements WebServiceConnecti
 
 	private boolean closed = false;
 
+	private WireLogger wireLogger;
+
+	/**
+	 * Sets the wire logger that logs the messages sent and received over this connection, if it decides to log this
+	 * connection. Must be set before any message is sent or received.
+	 *
+	 * @param wireLogger the wire logger; may be {@code null}
+	 * @see WireLogger#isLogged(WebServiceConnection)
+	 */
+	public void setWireLogger(WireLogger wireLogger) {
+		this.wireLogger = wireLogger != null && wireLogger.isLogged(this) ? wireLogger : null;
+	}
+
 	@Override
 	public final void send(WebServiceMessage message) throws IOException {
 		checkClosed();
@@ -43,6 +57,9 @@ public abstract class AbstractWebServiceConnection implements WebServiceConnecti
 		if (tos == null) {
 			return;
 		}
+		if (wireLogger != null) {
+			tos = wireLogger.capture(tos, this);
+		}
 		message.writeTo(tos);
 		tos.flush();
 		onSendAfterWrite(message);
@@ -89,6 +106,9 @@ public abstract class AbstractWebServiceConnection implements WebServiceConnecti
 		if (tis == null) {
 			return null;
 		}
+		if (wireLogger != null) {
+			tis = wireLogger.capture(tis, this);
+		}
 		WebServiceMessage message = messageFactory.createWebServiceMessage(tis);
 		onReceiveAfterRead(message);
 		return message;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -150,17 +150,18 @@ public abstract class AbstractHttpSenderConnection extends AbstractSenderConnect
 		Iterator<String> iterator = getResponseHeaders(HttpTransportConstants.HEADER_CONTENT_TYPE);
 		if (iterator.hasNext()) {
 			String contentType = iterator.next().toLowerCase();
-			return contentType.contains("text/xml");
+			return contentType.contains("text/xml") || contentType.contains("application/fastinfoset");
 		}
 		return false;
 	}
 
-	/** Determine whether the response is a SOAP 1.1 message. */
+	/** Determine whether the response is a SOAP 1.2 message. */
 	private boolean isSoap12Response() throws IOException {
 		Iterator<String> iterator = getResponseHeaders(HttpTransportConstants.HEADER_CONTENT_TYPE);
 		if (iterator.hasNext()) {
 			String contentType = iterator.next().toLowerCase();
-			return contentType.contains("application/soap+xml");
+			return contentType.contains("application/soap+xml") ||
+					contentType.contains("application/soap+fastinfoset");
 		}
 		return false;
 	}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.http;
+
+import java.net.URI;
+import java.util.function.ToDoubleFunction;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.pool.PoolStats;
+
+import org.springframework.util.Assert;
+
+/**
+ * Micrometer {@link MeterBinder} that registers gauges for the connection pool of a {@link
+ * HttpComponentsMessageSender}. For the entire pool, and for each of the given destination hosts, the following gauges
+ * are registered:
+ * <ul>
+ * <li>{@code spring.ws.client.connections.leased}: the number of connections in use,</li>
+ * <li>{@code spring.ws.client.connections.available}: the number of idle connections,</li>
+ * <li>{@code spring.ws.client.connections.pending}: the number of requests waiting for a connection,</li>
+ * <li>{@code spring.ws.client.connections.max}: the maximum number of connections.</li>
+ * </ul>
+ * The gauges of a destination host are tagged by {@code destination}; those of the entire pool have the destination
+ * {@code all}.
+ *
+ * <p>Gauges report {@code NaN} if the connection manager of the sender does not expose its statistics.
+ *
+ * @author agent
+ * @see HttpComponentsMessageSender#getConnectionPoolStats()
+ * @see HttpComponentsMessageSender#getConnectionPoolStats(URI)
+ * @since 3.0.1
+ */
+public class HttpComponentsConnectionPoolMetrics implements MeterBinder {
+
+	/** Prefix of the names of the gauges. */
+	public static final String METER_PREFIX = "spring.ws.client.connections.";
+
+	private final HttpComponentsMessageSender messageSender;
+
+	private final URI[] destinations;
+
+	/**
+	 * Creates a new {@code HttpComponentsConnectionPoolMetrics} for the given sender and destination hosts. The hosts
+	 * are specified as URIs (with scheme and port), as with {@link
+	 * HttpComponentsMessageSender#setMaxConnectionsPerHost(java.util.Map)}.
+	 *
+	 * @param messageSender the sender whose pool to observe
+	 * @param destinations	the hosts to register gauges for, in addition to the entire pool
+	 */
+	public HttpComponentsConnectionPoolMetrics(HttpComponentsMessageSender messageSender, URI... destinations) {
+		Assert.notNull(messageSender, "'messageSender' must not be null");
+		Assert.notNull(destinations, "'destinations' must not be null");
+		this.messageSender = messageSender;
+		this.destinations = destinations;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		bindTo(registry, null, "all");
+		for (URI destination : destinations) {
+			bindTo(registry, destination, destination.toString());
+		}
+	}
+
+	private void bindTo(MeterRegistry registry, URI destination, String tag) {
+		for (Statistic statistic : Statistic.values()) {
+			Gauge.builder(METER_PREFIX + statistic.name().toLowerCase(), messageSender,
+					new PoolStatsFunction(destination, statistic))
+					.description(statistic.description)
+					.tag("destination", tag)
+					.register(registry);
+		}
+	}
+
+	private enum Statistic {
+
+		LEASED("Number of leased connections"),
+
+		AVAILABLE("Number of available connections"),
+
+		PENDING("Number of requests waiting for a connection"),
+
+		MAX("Maximum number of connections");
+
+		private final String description;
+
+		Statistic(String description) {
+			this.description = description;
+		}
+
+		int getValue(PoolStats poolStats) {
+			switch (this) {
+				case LEASED:
+					return poolStats.getLeased();
+				case AVAILABLE:
+					return poolStats.getAvailable();
+				case PENDING:
+					return poolStats.getPending();
+				default:
+					return poolStats.getMax();
+			}
+		}
+	}
+
+	private static class PoolStatsFunction implements ToDoubleFunction<HttpComponentsMessageSender> {
+
+		private final URI destination;
+
+		private final Statistic statistic;
+
+		private PoolStatsFunction(URI destination, Statistic statistic) {
+			this.destination = destination;
+			this.statistic = statistic;
+		}
+
+		@Override
+		public double applyAsDouble(HttpComponentsMessageSender messageSender) {
+			PoolStats poolStats = destination != null ? messageSender.getConnectionPoolStats(destination) :
+					messageSender.getConnectionPoolStats();
+			return poolStats != null ? statistic.getValue(poolStats) : Double.NaN;
+		}
+	}
+
+}
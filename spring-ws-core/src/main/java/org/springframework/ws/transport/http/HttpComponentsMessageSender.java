@@ -32,6 +32,8 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
 
@@ -195,14 +197,7 @@ public class HttpComponentsMessageSender extends AbstractHttpWebServiceMessageSe
 
 		for (Map.Entry<String, String> entry : maxConnectionsPerHost.entrySet()) {
 			URI uri = new URI(entry.getKey());
-			HttpHost host = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
-			final HttpRoute route;
-
-			if (uri.getScheme().equals("https")) {
-				route = new HttpRoute(host, null, true);
-			} else {
-				route = new HttpRoute(host);
-			}
+			HttpRoute route = createRoute(uri);
 
 			int max = Integer.parseInt(entry.getValue());
 
@@ -210,6 +205,51 @@ public class HttpComponentsMessageSender extends AbstractHttpWebServiceMessageSe
 		}
 	}
 
+	private HttpRoute createRoute(URI uri) {
+		HttpHost host = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
+		if (uri.getScheme().equals("https")) {
+			return new HttpRoute(host, null, true);
+		}
+		else {
+			return new HttpRoute(host);
+		}
+	}
+
+	/**
+	 * Returns the statistics of all connections in the pool of the underlying HttpClient, i.e. the number of leased,
+	 * available, and pending connections, and the maximum number of connections.
+	 *
+	 * @return the pool statistics, or {@code null} if the connection manager of the HttpClient does not expose them
+	 * @see ConnPoolControl#getTotalStats()
+	 */
+	public PoolStats getConnectionPoolStats() {
+		ConnPoolControl<HttpRoute> connPoolControl = getConnPoolControl();
+		return connPoolControl != null ? connPoolControl.getTotalStats() : null;
+	}
+
+	/**
+	 * Returns the statistics of the connections to the given host in the pool of the underlying HttpClient. The host is
+	 * specified as a URI (with scheme and port), as with {@link #setMaxConnectionsPerHost(Map)}.
+	 *
+	 * @param uri the host to return the statistics for
+	 * @return the pool statistics, or {@code null} if the connection manager of the HttpClient does not expose them
+	 * @see ConnPoolControl#getStats(Object)
+	 */
+	public PoolStats getConnectionPoolStats(URI uri) {
+		Assert.notNull(uri, "'uri' must not be null");
+		ConnPoolControl<HttpRoute> connPoolControl = getConnPoolControl();
+		return connPoolControl != null ? connPoolControl.getStats(createRoute(uri)) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ConnPoolControl<HttpRoute> getConnPoolControl() {
+		Object connectionManager = getHttpClient().getConnectionManager();
+		if (connectionManager instanceof ConnPoolControl) {
+			return (ConnPoolControl<HttpRoute>) connectionManager;
+		}
+		return null;
+	}
+
 	/**
 	 * Sets the authentication scope to be used. Only used when the {@code credentials} property has been set.
 	 *
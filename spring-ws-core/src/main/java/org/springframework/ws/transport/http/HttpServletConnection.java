@@ -29,6 +29,7 @@ import javax.xml.soap.SOAPConstants;
 
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.transport.AbstractReceiverConnection;
+import org.springframework.ws.transport.EndpointAvailabilityAwareWebServiceConnection;
 import org.springframework.ws.transport.EndpointAwareWebServiceConnection;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
 import org.springframework.ws.transport.WebServiceConnection;
@@ -42,7 +43,8 @@ import org.springframework.ws.transport.support.EnumerationIterator;
  * @since 1.0.0
  */
 public class HttpServletConnection extends AbstractReceiverConnection
-		implements EndpointAwareWebServiceConnection, FaultAwareWebServiceConnection {
+		implements EndpointAwareWebServiceConnection, EndpointAvailabilityAwareWebServiceConnection,
+		FaultAwareWebServiceConnection {
 
 	private final HttpServletRequest httpServletRequest;
 
@@ -75,6 +77,12 @@ public class HttpServletConnection extends AbstractReceiverConnection
 		statusCodeSet = true;
 	}
 
+	@Override
+	public void endpointUnavailable() {
+		getHttpServletResponse().setStatus(HttpTransportConstants.STATUS_SERVICE_UNAVAILABLE);
+		statusCodeSet = true;
+	}
+
 	/*
 	 * Errors
 	 */
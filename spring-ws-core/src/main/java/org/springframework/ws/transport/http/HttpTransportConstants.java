@@ -56,6 +56,9 @@ public interface HttpTransportConstants extends TransportConstants {
 	/** The "500 Server Error" status code. */
 	int STATUS_INTERNAL_SERVER_ERROR = 500;
 
+	/** The "503 Service Unavailable" status code. */
+	int STATUS_SERVICE_UNAVAILABLE = 503;
+
 	/** The "http" URI scheme. */
 	String HTTP_URI_SCHEME = "http";
 
@@ -16,11 +16,13 @@
 
 package org.springframework.ws.transport.support;
 
+import java.io.Closeable;
 import java.io.IOException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.transport.WebServiceConnection;
 
 /**
@@ -53,4 +55,24 @@ public abstract class TransportUtils {
 		}
 	}
 
+	/**
+	 * Close the given {@link WebServiceMessage} if it implements {@link Closeable}, and ignore any thrown exception.
+	 * This is useful for typical {@code finally} blocks.
+	 *
+	 * @param message the web service message to close (may be {@code null})
+	 */
+	public static void closeMessage(WebServiceMessage message) {
+		if (message instanceof Closeable) {
+			try {
+				((Closeable) message).close();
+			}
+			catch (IOException ex) {
+				logger.debug("Could not close WebServiceMessage", ex);
+			}
+			catch (Throwable ex) {
+				logger.debug("Unexpected exception on closing WebServiceMessage", ex);
+			}
+		}
+	}
+
 }
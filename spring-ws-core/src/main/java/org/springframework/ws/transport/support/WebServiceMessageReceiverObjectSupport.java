@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,12 +23,15 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
+import org.springframework.ws.EndpointUnavailableException;
 import org.springframework.ws.FaultAwareWebServiceMessage;
 import org.springframework.ws.NoEndpointFoundException;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.WebServiceMessageFactory;
 import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.AbstractWebServiceConnection;
+import org.springframework.ws.transport.EndpointAvailabilityAwareWebServiceConnection;
 import org.springframework.ws.transport.EndpointAwareWebServiceConnection;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
 import org.springframework.ws.transport.WebServiceConnection;
@@ -52,6 +55,8 @@ public abstract class WebServiceMessageReceiverObjectSupport implements Initiali
 
 	private WebServiceMessageFactory messageFactory;
 
+	private WireLogger wireLogger;
+
 	/** Returns the {@code WebServiceMessageFactory}. */
 	public WebServiceMessageFactory getMessageFactory() {
 		return messageFactory;
@@ -62,6 +67,14 @@ public abstract class WebServiceMessageReceiverObjectSupport implements Initiali
 		this.messageFactory = messageFactory;
 	}
 
+	/**
+	 * Sets the wire logger to log the raw incoming and outgoing messages with. Only applies to connections that extend
+	 * {@link AbstractWebServiceConnection}. Default is none.
+	 */
+	public void setWireLogger(WireLogger wireLogger) {
+		this.wireLogger = wireLogger;
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		Assert.notNull(messageFactory, "messageFactory is required");
@@ -72,7 +85,8 @@ public abstract class WebServiceMessageReceiverObjectSupport implements Initiali
 	 * message from it, passing it to the {@link WebServiceMessageReceiver#receive(MessageContext) receiver}, and {@link
 	 * WebServiceConnection#send(WebServiceMessage) sending} the response (if any).
 	 *
-	 * <p>Stores the given connection in the {@link TransportContext}.
+	 * <p>Stores the given connection in the {@link TransportContext}. When done, closes the request and response
+	 * messages if they implement {@link java.io.Closeable}, so that any resources they hold are released.
 	 *
 	 * @param connection the incoming connection
 	 * @param receiver	 the handler of the message, typically a {@link org.springframework.ws.server.MessageDispatcher}
@@ -80,12 +94,16 @@ public abstract class WebServiceMessageReceiverObjectSupport implements Initiali
 	protected final void handleConnection(WebServiceConnection connection, WebServiceMessageReceiver receiver)
 			throws Exception {
 		logUri(connection);
+		if (wireLogger != null && connection instanceof AbstractWebServiceConnection) {
+			((AbstractWebServiceConnection) connection).setWireLogger(wireLogger);
+		}
 		TransportContext previousTransportContext = TransportContextHolder.getTransportContext();
 		TransportContextHolder.setTransportContext(new DefaultTransportContext(connection));
 
+		MessageContext messageContext = null;
 		try {
 			WebServiceMessage request = connection.receive(getMessageFactory());
-			MessageContext messageContext = new DefaultMessageContext(request, getMessageFactory());
+			messageContext = new DefaultMessageContext(request, getMessageFactory());
 			receiver.receive(messageContext);
 			if (messageContext.hasResponse()) {
 				WebServiceMessage response = messageContext.getResponse();
@@ -101,7 +119,16 @@ public abstract class WebServiceMessageReceiverObjectSupport implements Initiali
 		catch (NoEndpointFoundException ex) {
 			handleNoEndpointFoundException(ex, connection, receiver);
 		}
+		catch (EndpointUnavailableException ex) {
+			handleEndpointUnavailableException(ex, connection, receiver);
+		}
 		finally {
+			if (messageContext != null) {
+				TransportUtils.closeMessage(messageContext.getRequest());
+				if (messageContext.hasResponse()) {
+					TransportUtils.closeMessage(messageContext.getResponse());
+				}
+			}
 			TransportUtils.closeConnection(connection);
 			TransportContextHolder.setTransportContext(previousTransportContext);
 		}
@@ -127,6 +154,30 @@ public abstract class WebServiceMessageReceiverObjectSupport implements Initiali
 		}
 	}
 
+	/**
+	 * Template method for handling {@code EndpointUnavailableException}s.
+	 *
+	 * <p>Default implementation calls
+	 * {@link EndpointAvailabilityAwareWebServiceConnection#endpointUnavailable()} on the given
+	 * connection, if possible. Otherwise, the exception is rethrown, so that transports that cannot signal
+	 * unavailability, such as JMS or mail, can roll back or log the rejected request rather than lose it.
+	 *
+	 * @param ex the {@code EndpointUnavailableException}
+	 * @param connection the current {@code WebServiceConnection}
+	 * @param receiver the {@code WebServiceMessageReceiver}
+	 * @throws Exception in case of errors
+	 */
+	protected void handleEndpointUnavailableException(EndpointUnavailableException ex,
+			WebServiceConnection connection,
+			WebServiceMessageReceiver receiver) throws Exception {
+		if (connection instanceof EndpointAvailabilityAwareWebServiceConnection) {
+			((EndpointAvailabilityAwareWebServiceConnection) connection).endpointUnavailable();
+		}
+		else {
+			throw ex;
+		}
+	}
+
 	private void logUri(WebServiceConnection connection) {
 		if (logger.isDebugEnabled()) {
 			try {
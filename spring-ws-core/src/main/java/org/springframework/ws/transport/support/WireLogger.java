@@ -0,0 +1,456 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.PathMatcher;
+import org.springframework.ws.transport.TransportInputStream;
+import org.springframework.ws.transport.TransportOutputStream;
+import org.springframework.ws.transport.WebServiceConnection;
+
+/**
+ * Logs the raw bytes of the messages sent and received over {@link WebServiceConnection}s, as they pass through the
+ * {@link TransportInputStream} and {@link TransportOutputStream}. Unlike the message tracing of the {@link
+ * org.springframework.ws.server.MessageDispatcher MessageDispatcher}, or the {@link
+ * org.springframework.ws.server.endpoint.interceptor.PayloadLoggingInterceptor PayloadLoggingInterceptor}, messages are
+ * not serialized or transformed again in order to be logged: the bytes are captured while the message is read or
+ * written.
+ *
+ * <p>At most {@link #setMaxBytes(int) maxBytes} are captured per message. Only a {@link #setSamplingRate(double)
+ * samplingRate} fraction of the connections is logged, optionally limited to those with a URI path that matches one
+ * of the {@link #setUriPatterns(String...) uriPatterns}. The log records are written to the {@link
+ * #WIRE_LOG_CATEGORY} category, at debug level, by a background thread. When the bounded queue of records, the
+ * capacity of which is given to the {@linkplain #WireLogger(int) constructor}, is full, new records are dropped rather
+ * than slowing down the connections.
+ *
+ * <p>Set a wire logger on a {@link WebServiceMessageReceiverObjectSupport#setWireLogger(WireLogger) receiver} for
+ * incoming connections, or on a {@link org.springframework.ws.client.support.WebServiceAccessor#setWireLogger(WireLogger)
+ * WebServiceTemplate} for outgoing ones.
+ *
+ * @author agent
+ * @since 3.0.1
+ */
+public class WireLogger implements DisposableBean {
+
+	/** Log category to use for wire logging. */
+	public static final String WIRE_LOG_CATEGORY = "org.springframework.ws.transport.Wire";
+
+	/** The default maximum number of bytes logged per message. */
+	public static final int DEFAULT_MAX_BYTES = 4096;
+
+	/** The default maximum number of log records waiting to be written. */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private static final Log wireLogger = LogFactory.getLog(WIRE_LOG_CATEGORY);
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** Logger available to subclasses. */
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final PathMatcher pathMatcher = new AntPathMatcher();
+
+	private final AtomicLong droppedRecords = new AtomicLong();
+
+	private int maxBytes = DEFAULT_MAX_BYTES;
+
+	private double samplingRate = 1;
+
+	private String[] uriPatterns;
+
+	private final BlockingQueue<WireRecord> records;
+
+	private volatile Thread writer;
+
+	private volatile boolean active = true;
+
+	/** Creates a new {@code WireLogger} with a queue capacity of {@value #DEFAULT_QUEUE_CAPACITY} records. */
+	public WireLogger() {
+		this(DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Creates a new {@code WireLogger} with the given queue capacity.
+	 *
+	 * @param queueCapacity the maximum number of log records waiting to be written
+	 */
+	public WireLogger(int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "'queueCapacity' must be larger than 0");
+		this.records = new ArrayBlockingQueue<WireRecord>(queueCapacity);
+	}
+
+	/** Sets the maximum number of bytes logged per message. Defaults to {@value #DEFAULT_MAX_BYTES}. */
+	public void setMaxBytes(int maxBytes) {
+		Assert.isTrue(maxBytes > 0, "'maxBytes' must be larger than 0");
+		this.maxBytes = maxBytes;
+	}
+
+	/** Sets the fraction of connections that is logged, between 0 and 1. Defaults to 1, i.e. all connections. */
+	public void setSamplingRate(double samplingRate) {
+		Assert.isTrue(samplingRate >= 0 && samplingRate <= 1, "'samplingRate' must be in [0, 1]");
+		this.samplingRate = samplingRate;
+	}
+
+	/**
+	 * Sets the Ant-style patterns that the path of the connection URI must match in order to be logged, for instance
+	 * {@code /services/orders/**}. Default is none, in which case all connections are logged.
+	 *
+	 * @see AntPathMatcher
+	 */
+	public void setUriPatterns(String... uriPatterns) {
+		this.uriPatterns = uriPatterns;
+	}
+
+	/** Returns the number of log records that were dropped because the queue was full. */
+	public long getDroppedRecords() {
+		return droppedRecords.get();
+	}
+
+	/**
+	 * Indicates whether the messages over the given connection should be logged, taking the sampling rate and URI
+	 * patterns into account.
+	 *
+	 * @param connection the connection
+	 * @return {@code true} if the connection should be logged; {@code false} otherwise
+	 */
+	public boolean isLogged(WebServiceConnection connection) {
+		if (!isLogEnabled()) {
+			return false;
+		}
+		if (samplingRate < 1 && ThreadLocalRandom.current().nextDouble() >= samplingRate) {
+			return false;
+		}
+		if (ObjectUtils.isEmpty(uriPatterns)) {
+			return true;
+		}
+		String path;
+		try {
+			URI uri = connection.getUri();
+			path = uri != null ? uri.getPath() : null;
+		}
+		catch (URISyntaxException ex) {
+			return false;
+		}
+		if (path != null) {
+			for (String uriPattern : uriPatterns) {
+				if (pathMatcher.match(uriPattern, path)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a stream that captures the bytes read from the given input stream, and logs them when it is closed.
+	 *
+	 * @param inputStream the input stream of the connection
+	 * @param connection  the connection
+	 * @return the capturing stream
+	 */
+	public TransportInputStream capture(TransportInputStream inputStream, WebServiceConnection connection) {
+		return new CapturingTransportInputStream(inputStream, new Capture("Received", connection));
+	}
+
+	/**
+	 * Returns a stream that captures the bytes written to the given output stream, and logs them when it is closed.
+	 *
+	 * @param outputStream the output stream of the connection
+	 * @param connection   the connection
+	 * @return the capturing stream
+	 */
+	public TransportOutputStream capture(TransportOutputStream outputStream, WebServiceConnection connection) {
+		return new CapturingTransportOutputStream(outputStream, new Capture("Sent", connection));
+	}
+
+	/**
+	 * Indicates whether wire logging is enabled. Default implementation checks whether the {@link #WIRE_LOG_CATEGORY}
+	 * log category is enabled for debug.
+	 */
+	protected boolean isLogEnabled() {
+		return wireLogger.isDebugEnabled();
+	}
+
+	/**
+	 * Writes the given log record. Called from the background thread. Default implementation logs the record to the
+	 * {@link #WIRE_LOG_CATEGORY} log category, at debug level.
+	 *
+	 * @param record the log record
+	 */
+	protected void log(String record) {
+		wireLogger.debug(record);
+	}
+
+	private void enqueue(WireRecord record) {
+		if (!records.offer(record)) {
+			droppedRecords.incrementAndGet();
+			return;
+		}
+		if (writer == null) {
+			startWriter();
+		}
+	}
+
+	private synchronized void startWriter() {
+		if (writer == null && active) {
+			writer = new Thread(new RecordWriter(), "WireLogger");
+			writer.setDaemon(true);
+			writer.start();
+		}
+	}
+
+	/** Stops the background thread, after writing the records that are still queued. */
+	@Override
+	public synchronized void destroy() {
+		active = false;
+		if (writer != null) {
+			writer.interrupt();
+		}
+	}
+
+	private class RecordWriter implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				while (active) {
+					write(records.take());
+				}
+			}
+			catch (InterruptedException ex) {
+				// destroyed
+			}
+			WireRecord record;
+			while ((record = records.poll()) != null) {
+				write(record);
+			}
+		}
+
+		private void write(WireRecord record) {
+			try {
+				log(record.toString());
+			}
+			catch (RuntimeException ex) {
+				logger.warn("Could not write wire log record", ex);
+			}
+		}
+	}
+
+	/** The bytes captured from a single message. */
+	private class Capture {
+
+		private final String direction;
+
+		private final WebServiceConnection connection;
+
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(maxBytes, 512));
+
+		private long count;
+
+		private boolean completed;
+
+		private Capture(String direction, WebServiceConnection connection) {
+			this.direction = direction;
+			this.connection = connection;
+		}
+
+		private void write(int b) {
+			if (count++ < maxBytes) {
+				buffer.write(b);
+			}
+		}
+
+		private void write(byte[] b, int off, int len) {
+			if (count < maxBytes) {
+				buffer.write(b, off, (int) Math.min(len, maxBytes - count));
+			}
+			count += len;
+		}
+
+		private void complete() {
+			if (!completed) {
+				completed = true;
+				String uri;
+				try {
+					uri = String.valueOf(connection.getUri());
+				}
+				catch (URISyntaxException ex) {
+					uri = connection.toString();
+				}
+				enqueue(new WireRecord(direction, uri, buffer.toByteArray(), count));
+			}
+		}
+	}
+
+	private static class WireRecord {
+
+		private final String direction;
+
+		private final String uri;
+
+		private final byte[] content;
+
+		private final long length;
+
+		private WireRecord(String direction, String uri, byte[] content, long length) {
+			this.direction = direction;
+			this.uri = uri;
+			this.content = content;
+			this.length = length;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder(content.length + 64);
+			builder.append(direction).append(" [").append(uri).append("] (").append(length).append(" bytes) [");
+			builder.append(new String(content, UTF_8));
+			if (length > content.length) {
+				builder.append("...");
+			}
+			builder.append(']');
+			return builder.toString();
+		}
+	}
+
+	private static class CapturingTransportInputStream extends TransportInputStream {
+
+		private final TransportInputStream delegate;
+
+		private final Capture capture;
+
+		private CapturingTransportInputStream(TransportInputStream delegate, Capture capture) {
+			this.delegate = delegate;
+			this.capture = capture;
+		}
+
+		@Override
+		protected InputStream createInputStream() throws IOException {
+			return new FilterInputStream(delegate) {
+
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b != -1) {
+						capture.write(b);
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int read = super.read(b, off, len);
+					if (read > 0) {
+						capture.write(b, off, read);
+					}
+					return read;
+				}
+
+				@Override
+				public boolean markSupported() {
+					return false;
+				}
+			};
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				capture.complete();
+			}
+		}
+
+		@Override
+		public Iterator<String> getHeaderNames() throws IOException {
+			return delegate.getHeaderNames();
+		}
+
+		@Override
+		public Iterator<String> getHeaders(String name) throws IOException {
+			return delegate.getHeaders(name);
+		}
+	}
+
+	private static class CapturingTransportOutputStream extends TransportOutputStream {
+
+		private final TransportOutputStream delegate;
+
+		private final Capture capture;
+
+		private CapturingTransportOutputStream(TransportOutputStream delegate, Capture capture) {
+			this.delegate = delegate;
+			this.capture = capture;
+		}
+
+		@Override
+		protected OutputStream createOutputStream() throws IOException {
+			return new FilterOutputStream(delegate) {
+
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					capture.write(b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					capture.write(b, off, len);
+				}
+			};
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				capture.complete();
+			}
+		}
+
+		@Override
+		public void addHeader(String name, String value) throws IOException {
+			delegate.addHeader(name, value);
+		}
+	}
+
+}
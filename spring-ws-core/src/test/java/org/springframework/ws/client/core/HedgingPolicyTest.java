@@ -0,0 +1,65 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.core;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HedgingPolicyTest {
+
+	private HedgingPolicy policy;
+
+	@Before
+	public void setUp() throws Exception {
+		policy = new HedgingPolicy();
+		policy.setWindowSize(100);
+		policy.setMinimumSamples(10);
+		policy.setPercentile(0.9);
+	}
+
+	@Test
+	public void testNoDelayBeforeMinimumSamples() throws Exception {
+		for (int i = 1; i < 10; i++) {
+			policy.recordLatency(i);
+		}
+		Assert.assertEquals("Invalid hedge delay", -1, policy.getHedgeDelay());
+		policy.recordLatency(10);
+		Assert.assertEquals("Invalid hedge delay", 9, policy.getHedgeDelay());
+	}
+
+	@Test
+	public void testPercentile() throws Exception {
+		policy.setMinimumSamples(100);
+		for (int i = 100; i > 0; i--) {
+			policy.recordLatency(i);
+		}
+		Assert.assertEquals("Invalid hedge delay", 90, policy.getHedgeDelay());
+	}
+
+	@Test
+	public void testWindow() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			policy.recordLatency(1000);
+		}
+		for (int i = 0; i < 200; i++) {
+			policy.recordLatency(10);
+		}
+		Assert.assertEquals("Old latencies not evicted", 10, policy.getHedgeDelay());
+	}
+
+}
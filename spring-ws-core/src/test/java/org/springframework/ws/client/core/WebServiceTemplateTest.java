@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,30 +16,42 @@
 
 package org.springframework.ws.client.core;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 
+import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
 
 import org.springframework.oxm.Marshaller;
 import org.springframework.oxm.Unmarshaller;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.ws.MockWebServiceMessage;
 import org.springframework.ws.MockWebServiceMessageFactory;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.client.core.observation.WebServiceTemplateObserver;
 import org.springframework.ws.client.support.destination.DestinationProvider;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.axiom.AxiomSoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
 import org.springframework.ws.transport.WebServiceConnection;
 import org.springframework.ws.transport.WebServiceMessageSender;
 import org.springframework.xml.transform.StringResult;
 import org.springframework.xml.transform.StringSource;
 
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
 import static org.easymock.EasyMock.*;
 import static org.junit.Assert.*;
 
@@ -134,6 +146,32 @@ public class WebServiceTemplateTest {
 		verify(connectionMock, requestCallback, extractorMock);
 	}
 
+	@Test
+	public void testSendAndReceiveMessageResponseClosed() throws Exception {
+		final CloseableWebServiceMessage response = new CloseableWebServiceMessage("<response/>");
+		WebServiceMessageExtractor extractorMock = createMock(WebServiceMessageExtractor.class);
+		expect(extractorMock.extractData(response)).andAnswer(new IAnswer<Object>() {
+			@Override
+			public Object answer() throws Throwable {
+				assertFalse("Response closed before extraction", response.closed);
+				return null;
+			}
+		});
+
+		connectionMock.send(isA(WebServiceMessage.class));
+		expect(connectionMock.hasError()).andReturn(false);
+		expect(connectionMock.receive(messageFactory)).andReturn(response);
+		expect(connectionMock.hasFault()).andReturn(false);
+		connectionMock.close();
+
+		replay(connectionMock, extractorMock);
+
+		template.sendAndReceive(null, extractorMock);
+		assertTrue("Response not closed", response.closed);
+
+		verify(connectionMock, extractorMock);
+	}
+
 	@Test
 	public void testSendAndReceiveMessageNoResponse() throws Exception {
 		WebServiceMessageExtractor extractorMock = createMock(WebServiceMessageExtractor.class);
@@ -203,6 +241,194 @@ public class WebServiceTemplateTest {
 		verify(connectionMock, extractorMock);
 	}
 
+	@Test
+	public void testSendAndReceiveObserved() throws Exception {
+		WebServiceTemplateObserver observerMock = createStrictMock(WebServiceTemplateObserver.class);
+		template.setObserver(observerMock);
+		URI uri = new URI("http://www.springframework.org/spring-ws");
+
+		WebServiceMessageExtractor extractorMock = createMock(WebServiceMessageExtractor.class);
+		Object extracted = new Object();
+		expect(extractorMock.extractData(isA(WebServiceMessage.class))).andReturn(extracted);
+
+		connectionMock.send(isA(WebServiceMessage.class));
+		expect(connectionMock.hasError()).andReturn(false);
+		expect(connectionMock.receive(messageFactory)).andReturn(new MockWebServiceMessage("<response/>"));
+		expect(connectionMock.hasFault()).andReturn(false);
+		connectionMock.close();
+
+		observerMock.connectionCreated(eq(uri), anyLong());
+		observerMock.requestSent(same(connectionMock), anyLong());
+		observerMock.responseReceived(same(connectionMock), anyLong());
+		observerMock.exchangeCompleted(eq(uri), isA(MessageContext.class), anyLong(), (Exception) isNull());
+
+		replay(connectionMock, extractorMock, observerMock);
+
+		Object result = template.sendAndReceive(null, extractorMock);
+		assertEquals("Invalid response", extracted, result);
+
+		verify(connectionMock, extractorMock, observerMock);
+	}
+
+	@Test
+	public void testSendAndReceiveObservedConnectionError() throws Exception {
+		WebServiceTemplateObserver observerMock = createStrictMock(WebServiceTemplateObserver.class);
+		template.setObserver(observerMock);
+		URI uri = new URI("http://www.springframework.org/spring-ws");
+
+		WebServiceMessageExtractor extractorMock = createMock(WebServiceMessageExtractor.class);
+
+		connectionMock.send(isA(WebServiceMessage.class));
+		expect(connectionMock.hasError()).andReturn(true);
+		expect(connectionMock.hasFault()).andReturn(false);
+		expect(connectionMock.getErrorMessage()).andReturn("errorMessage");
+		connectionMock.close();
+
+		observerMock.connectionCreated(eq(uri), anyLong());
+		observerMock.requestSent(same(connectionMock), anyLong());
+		observerMock.exchangeCompleted(eq(uri), isA(MessageContext.class), anyLong(),
+				isA(WebServiceTransportException.class));
+
+		replay(connectionMock, extractorMock, observerMock);
+
+		try {
+			template.sendAndReceive(null, extractorMock);
+			fail("Expected WebServiceTransportException");
+		}
+		catch (WebServiceTransportException ex) {
+			//expected
+		}
+
+		verify(connectionMock, extractorMock, observerMock);
+	}
+
+	@Test
+	public void testSendAndReceiveConnectionErrorAfterCompletion() throws Exception {
+		WebServiceMessageExtractor extractorMock = createMock(WebServiceMessageExtractor.class);
+		ClientInterceptor interceptorMock = createStrictMock(ClientInterceptor.class);
+		template.setInterceptors(new ClientInterceptor[]{interceptorMock});
+
+		expect(interceptorMock.handleRequest(isA(MessageContext.class))).andReturn(true);
+		interceptorMock.afterCompletion(isA(MessageContext.class), isA(WebServiceTransportException.class));
+
+		connectionMock.send(isA(WebServiceMessage.class));
+		expect(connectionMock.hasError()).andReturn(true);
+		expect(connectionMock.hasFault()).andReturn(false);
+		expect(connectionMock.getErrorMessage()).andReturn("errorMessage");
+		connectionMock.close();
+
+		replay(connectionMock, extractorMock, interceptorMock);
+
+		try {
+			template.sendAndReceive(null, extractorMock);
+			fail("Expected WebServiceTransportException");
+		}
+		catch (WebServiceTransportException ex) {
+			//expected
+		}
+
+		verify(connectionMock, extractorMock, interceptorMock);
+	}
+
+	@Test
+	public void testSendAndReceiveHedged() throws Exception {
+		final URI slowUri = new URI("http://slow.example.com/spring-ws");
+		final URI fastUri = new URI("http://fast.example.com/spring-ws");
+
+		HedgingPolicy hedgingPolicy = new HedgingPolicy();
+		hedgingPolicy.setMinimumSamples(1);
+		hedgingPolicy.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+		hedgingPolicy.setDestinationProvider(new DestinationProvider() {
+
+			@Override
+			public URI getDestination() {
+				return fastUri;
+			}
+		});
+		template.setHedgingPolicy(hedgingPolicy);
+
+		final CountDownLatch slowConnectionClosed = new CountDownLatch(1);
+		final FaultAwareWebServiceConnection slowConnection = createNiceMock(FaultAwareWebServiceConnection.class);
+		slowConnection.send(isA(WebServiceMessage.class));
+		expectLastCall().andAnswer(new IAnswer<Object>() {
+
+			@Override
+			public Object answer() throws Throwable {
+				if (slowConnectionClosed.await(5, TimeUnit.SECONDS)) {
+					throw new IOException("Connection closed");
+				}
+				return null;
+			}
+		});
+		expect(slowConnection.receive(messageFactory)).andReturn(new MockWebServiceMessage("<slow/>"));
+		slowConnection.close();
+		expectLastCall().andAnswer(new IAnswer<Object>() {
+
+			@Override
+			public Object answer() throws Throwable {
+				slowConnectionClosed.countDown();
+				return null;
+			}
+		});
+		// closed while sending
+		makeThreadSafe(slowConnection, false);
+		final FaultAwareWebServiceConnection fastConnection = createNiceMock(FaultAwareWebServiceConnection.class);
+		expect(fastConnection.receive(messageFactory)).andReturn(new MockWebServiceMessage("<fast/>"));
+		replay(slowConnection, fastConnection);
+
+		final Thread callingThread = Thread.currentThread();
+		final Thread[] sendingThreads = new Thread[2];
+		template.setMessageSender(new WebServiceMessageSender() {
+
+			@Override
+			public WebServiceConnection createConnection(URI uri) throws IOException {
+				if (slowUri.equals(uri)) {
+					sendingThreads[0] = Thread.currentThread();
+					return slowConnection;
+				}
+				sendingThreads[1] = Thread.currentThread();
+				return fastConnection;
+			}
+
+			@Override
+			public boolean supports(URI uri) {
+				return true;
+			}
+		});
+
+		String result = template.sendAndReceive(slowUri.toString(), null, new WebServiceMessageExtractor<String>() {
+
+			@Override
+			public String extractData(WebServiceMessage message) throws IOException {
+				return ((MockWebServiceMessage) message).getPayloadAsString();
+			}
+		});
+		assertEquals("Invalid response", "<fast/>", result);
+		assertSame("Original request not sent on calling thread", callingThread, sendingThreads[0]);
+		assertNotSame("Hedged request sent on calling thread", callingThread, sendingThreads[1]);
+	}
+
+	@Test
+	public void testSendAndReceiveHedgingPolicyWithoutSamples() throws Exception {
+		HedgingPolicy hedgingPolicy = new HedgingPolicy();
+		hedgingPolicy.setMinimumSamples(1);
+		template.setHedgingPolicy(hedgingPolicy);
+
+		WebServiceMessageExtractor extractorMock = createMock(WebServiceMessageExtractor.class);
+		connectionMock.send(isA(WebServiceMessage.class));
+		expect(connectionMock.hasError()).andReturn(false);
+		expect(connectionMock.receive(messageFactory)).andReturn(null);
+		connectionMock.close();
+
+		replay(connectionMock, extractorMock);
+
+		Object result = template.sendAndReceive(null, extractorMock);
+		assertNull("Invalid response", result);
+		assertTrue("Latency not recorded", hedgingPolicy.getHedgeDelay() >= 0);
+
+		verify(connectionMock, extractorMock);
+	}
+
 	@Test
 	public void testSendAndReceiveSourceResponse() throws Exception {
 		SourceExtractor extractorMock = createMock(SourceExtractor.class);
@@ -337,6 +563,44 @@ public class WebServiceTemplateTest {
 		verify(connectionMock, marshallerMock);
 	}
 
+	@Test
+	public void testSendAndReceiveStreamingMarshal() throws Exception {
+		AxiomSoapMessageFactory axiomFactory = new AxiomSoapMessageFactory();
+		template.setMessageFactory(axiomFactory);
+		template.setStreamingMarshalling(true);
+		Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+		marshaller.setClassesToBeBound(MyRootElement.class);
+		marshaller.afterPropertiesSet();
+		template.setMarshaller(marshaller);
+
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		connectionMock.send(isA(WebServiceMessage.class));
+		expectLastCall().andAnswer(new IAnswer<Object>() {
+
+			@Override
+			public Object answer() throws Throwable {
+				AxiomSoapMessage request = (AxiomSoapMessage) getCurrentArguments()[0];
+				request.writeTo(os);
+				return null;
+			}
+		});
+		expect(connectionMock.hasError()).andReturn(false);
+		expect(connectionMock.receive(axiomFactory)).andReturn(null);
+		connectionMock.close();
+
+		replay(connectionMock);
+
+		MyRootElement rootElement = new MyRootElement();
+		rootElement.string = "Foo";
+		Object result = template.marshalSendAndReceive(rootElement);
+		assertNull("Invalid result", result);
+		assertXMLEqual("<soapenv:Envelope xmlns:soapenv='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<soapenv:Header/><soapenv:Body><root xmlns='http://springframework.org'><string>Foo</string></root>" +
+				"</soapenv:Body></soapenv:Envelope>", os.toString("UTF-8"));
+
+		verify(connectionMock);
+	}
+
 	@Test
 	public void testSendAndReceiveCustomUri() throws Exception {
 		final URI customUri = new URI("http://www.springframework.org/spring-ws/custom");
@@ -450,8 +714,7 @@ public class WebServiceTemplateTest {
 		Object extracted = new Object();
 		expect(extractorMock.extractData(messageContext.getResponse())).andReturn(extracted);
 
-		expect(connectionMock.hasFault()).andReturn(false);
-
+		// the connection is not consulted for a fault, as nothing was sent over it
 		replay(connectionMock, interceptorMock1, interceptorMock2, requestCallback, extractorMock);
 
 		Object result = template.doSendAndReceive(messageContext, connectionMock, requestCallback, extractorMock);
@@ -499,5 +762,25 @@ public class WebServiceTemplateTest {
 		verify(connectionMock, extractorMock, providerMock);
 	}
 
+	private static class CloseableWebServiceMessage extends MockWebServiceMessage implements Closeable {
+
+		private boolean closed;
+
+		private CloseableWebServiceMessage(String content) {
+			super(content);
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	@XmlRootElement(name = "root", namespace = "http://springframework.org")
+	public static class MyRootElement {
+
+		@XmlElement(namespace = "http://springframework.org")
+		public String string;
+	}
 
 }
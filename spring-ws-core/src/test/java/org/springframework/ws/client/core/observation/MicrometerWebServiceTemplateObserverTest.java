@@ -0,0 +1,111 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.core.observation;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ws.MockWebServiceMessage;
+import org.springframework.ws.MockWebServiceMessageFactory;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.WebServiceConnection;
+
+import static org.easymock.EasyMock.*;
+
+public class MicrometerWebServiceTemplateObserverTest {
+
+	private static final String DESTINATION = "http://example.com:8080/service";
+
+	private MeterRegistry registry;
+
+	private MicrometerWebServiceTemplateObserver observer;
+
+	private URI uri;
+
+	@Before
+	public void setUp() throws Exception {
+		registry = new SimpleMeterRegistry();
+		observer = new MicrometerWebServiceTemplateObserver(registry);
+		uri = new URI("http://user@example.com:8080/service?wsdl");
+	}
+
+	@Test
+	public void testLatencies() throws Exception {
+		WebServiceConnection connectionMock = createMock(WebServiceConnection.class);
+		expect(connectionMock.getUri()).andReturn(uri).anyTimes();
+		replay(connectionMock);
+
+		observer.connectionCreated(uri, 1000);
+		observer.requestSent(connectionMock, 2000);
+		observer.responseReceived(connectionMock, 3000);
+
+		Assert.assertEquals("Invalid connection time", 1000,
+				timer(MicrometerWebServiceTemplateObserver.CONNECTION_METER).totalTime(TimeUnit.NANOSECONDS), 0);
+		Assert.assertEquals("Invalid send time", 2000,
+				timer(MicrometerWebServiceTemplateObserver.SEND_METER).totalTime(TimeUnit.NANOSECONDS), 0);
+		Assert.assertEquals("Invalid response time", 3000,
+				timer(MicrometerWebServiceTemplateObserver.RESPONSE_METER).totalTime(TimeUnit.NANOSECONDS), 0);
+
+		verify(connectionMock);
+	}
+
+	@Test
+	public void testExchangeOutcomes() throws Exception {
+		MessageContext messageContext =
+				new DefaultMessageContext(new MockWebServiceMessage(), new MockWebServiceMessageFactory());
+		observer.exchangeCompleted(uri, messageContext, 1000, null);
+
+		MockWebServiceMessage response = (MockWebServiceMessage) messageContext.getResponse();
+		response.setFault(true);
+		response.setFaultCode(new QName("http://example.com", "Server"));
+		observer.exchangeCompleted(uri, messageContext, 1000, null);
+
+		observer.exchangeCompleted(uri, null, 1000, new WebServiceIOException("I/O error"));
+
+		Assert.assertEquals("Invalid success count", 1, exchangeTimer("success").count());
+		Assert.assertEquals("Invalid fault count", 1, exchangeTimer("fault").count());
+		Assert.assertEquals("Invalid error count", 1, exchangeTimer("error").count());
+		Assert.assertEquals("Invalid fault counter", 1,
+				registry.find(MicrometerWebServiceTemplateObserver.FAULTS_METER).tag("code", "Server").counter()
+						.count(), 0);
+		Assert.assertEquals("Invalid error counter", 1,
+				registry.find(MicrometerWebServiceTemplateObserver.ERRORS_METER)
+						.tag("exception", "WebServiceIOException").counter().count(), 0);
+	}
+
+	private Timer timer(String name) {
+		Timer timer = registry.find(name).tag("destination", DESTINATION).timer();
+		Assert.assertNotNull("No timer registered for " + name, timer);
+		return timer;
+	}
+
+	private Timer exchangeTimer(String outcome) {
+		return registry.find(MicrometerWebServiceTemplateObserver.EXCHANGE_METER)
+				.tags("destination", DESTINATION, "outcome", outcome).timer();
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.destination;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.task.SyncTaskExecutor;
+
+public class AbstractCachingDestinationProviderTest {
+
+	private AtomicInteger lookups;
+
+	private AbstractCachingDestinationProvider provider;
+
+	@Before
+	public void setUp() throws Exception {
+		lookups = new AtomicInteger();
+		provider = new AbstractCachingDestinationProvider() {
+
+			@Override
+			protected URI lookupDestination() {
+				int lookup = lookups.incrementAndGet();
+				if (lookup == 3) {
+					throw new DestinationProvisionException("lookup failed");
+				}
+				return URI.create("http://example.com/" + lookup);
+			}
+		};
+		provider.setTaskExecutor(new SyncTaskExecutor());
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		Assert.assertEquals("Invalid URI", URI.create("http://example.com/1"), provider.getDestination());
+		Assert.assertEquals("Invalid URI", URI.create("http://example.com/1"), provider.getDestination());
+		Assert.assertEquals("Invalid lookup count", 1, lookups.get());
+	}
+
+	@Test
+	public void testNoCache() throws Exception {
+		provider.setCache(false);
+		Assert.assertEquals("Invalid URI", URI.create("http://example.com/1"), provider.getDestination());
+		Assert.assertEquals("Invalid URI", URI.create("http://example.com/2"), provider.getDestination());
+	}
+
+	@Test
+	public void testRefresh() throws Exception {
+		provider.setRefreshInterval(0);
+		Assert.assertEquals("Invalid URI", URI.create("http://example.com/1"), provider.getDestination());
+		Thread.sleep(1);
+		Assert.assertEquals("Refreshed URI not returned on next call", URI.create("http://example.com/1"),
+				provider.getDestination());
+		Assert.assertEquals("Invalid URI", URI.create("http://example.com/2"), provider.getDestination());
+		Assert.assertEquals("Invalid lookup count", 3, lookups.get());
+		Thread.sleep(1);
+		Assert.assertEquals("URI not retained after failed lookup", URI.create("http://example.com/2"),
+				provider.getDestination());
+	}
+
+}
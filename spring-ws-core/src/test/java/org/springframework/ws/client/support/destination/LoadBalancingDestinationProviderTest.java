@@ -0,0 +1,133 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.destination;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ws.MockWebServiceMessageFactory;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.context.DefaultTransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+
+import static org.easymock.EasyMock.*;
+
+public class LoadBalancingDestinationProviderTest {
+
+	private URI first;
+
+	private URI second;
+
+	private LoadBalancingDestinationProvider provider;
+
+	@Before
+	public void setUp() throws Exception {
+		first = new URI("http://first.example.com/service");
+		second = new URI("http://second.example.com/service");
+		provider = new LoadBalancingDestinationProvider(Arrays.asList(first, second));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TransportContextHolder.setTransportContext(null);
+	}
+
+	@Test
+	public void testLeastOutstanding() throws Exception {
+		MessageContext messageContext = send(first);
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals("Invalid destination", second, provider.getDestination());
+		}
+		provider.afterCompletion(messageContext, null);
+		send(second);
+		Assert.assertEquals("Invalid destination", first, provider.getDestination());
+	}
+
+	@Test
+	public void testEwmaLatency() throws Exception {
+		provider.setSelection(LoadBalancingDestinationProvider.Selection.EWMA_LATENCY);
+		MessageContext slow = send(first);
+		Thread.sleep(20);
+		provider.afterCompletion(slow, null);
+		provider.afterCompletion(send(second), null);
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals("Invalid destination", second, provider.getDestination());
+		}
+	}
+
+	@Test
+	public void testEjection() throws Exception {
+		provider.setMaxFailures(2);
+		provider.afterCompletion(send(first), new WebServiceIOException("connection refused"));
+		Assert.assertFalse("Destination ejected", provider.isEjected(first));
+		provider.afterCompletion(send(first), new WebServiceIOException("connection refused"));
+		Assert.assertTrue("Destination not ejected", provider.isEjected(first));
+
+		MessageContext outstanding = send(second);
+		send(second);
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals("Ejected destination returned", second, provider.getDestination());
+		}
+		provider.afterCompletion(outstanding, null);
+	}
+
+	@Test
+	public void testEjectionExpires() throws Exception {
+		provider.setMaxFailures(1);
+		provider.setEjectionTime(10);
+		provider.afterCompletion(send(first), new WebServiceIOException("connection refused"));
+		Assert.assertTrue("Destination not ejected", provider.isEjected(first));
+		Thread.sleep(20);
+		Assert.assertFalse("Destination still ejected", provider.isEjected(first));
+		provider.afterCompletion(send(first), null);
+		Assert.assertFalse("Destination ejected after success", provider.isEjected(first));
+	}
+
+	@Test
+	public void testAllEjected() throws Exception {
+		provider.setMaxFailures(1);
+		provider.afterCompletion(send(first), new WebServiceIOException("connection refused"));
+		provider.afterCompletion(send(second), new WebServiceIOException("connection refused"));
+		Assert.assertNotNull("No destination returned", provider.getDestination());
+	}
+
+	@Test
+	public void testUnknownDestination() throws Exception {
+		MessageContext messageContext = send(new URI("http://other.example.com/service"));
+		provider.afterCompletion(messageContext, new WebServiceIOException("connection refused"));
+		Assert.assertFalse("Unknown destination ejected", provider.isEjected(first));
+	}
+
+	private MessageContext send(URI uri) throws Exception {
+		WebServiceConnection connectionMock = createMock(WebServiceConnection.class);
+		expect(connectionMock.getUri()).andReturn(uri).anyTimes();
+		replay(connectionMock);
+		TransportContextHolder.setTransportContext(new DefaultTransportContext(connectionMock));
+		MessageContext messageContext = new DefaultMessageContext(new MockWebServiceMessageFactory());
+		Assert.assertTrue("Request rejected", provider.handleRequest(messageContext));
+		return messageContext;
+	}
+
+}
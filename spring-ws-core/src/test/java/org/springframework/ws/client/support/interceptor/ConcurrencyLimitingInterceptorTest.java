@@ -0,0 +1,129 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.interceptor;
+
+import java.net.URI;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.ws.MockWebServiceMessage;
+import org.springframework.ws.MockWebServiceMessageFactory;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.support.limit.AimdConcurrencyLimit;
+import org.springframework.ws.client.support.limit.ConcurrencyLimit;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.context.DefaultTransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+
+import static org.easymock.EasyMock.*;
+
+public class ConcurrencyLimitingInterceptorTest {
+
+	private ConcurrencyLimitingInterceptor interceptor;
+
+	private URI uri;
+
+	@Before
+	public void setUp() throws Exception {
+		interceptor = new ConcurrencyLimitingInterceptor();
+		interceptor.setLimitFactory(new ObjectFactory<ConcurrencyLimit>() {
+
+			@Override
+			public ConcurrencyLimit getObject() {
+				AimdConcurrencyLimit limit = new AimdConcurrencyLimit();
+				limit.setInitialLimit(2);
+				limit.setMinLimit(1);
+				limit.setBackoffRatio(0.5);
+				return limit;
+			}
+		});
+		uri = new URI("http://example.com/service");
+		WebServiceConnection connectionMock = createMock(WebServiceConnection.class);
+		expect(connectionMock.getUri()).andReturn(uri).anyTimes();
+		replay(connectionMock);
+		TransportContextHolder.setTransportContext(new DefaultTransportContext(connectionMock));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TransportContextHolder.setTransportContext(null);
+	}
+
+	@Test
+	public void testRejectsOverLimit() throws Exception {
+		MessageContext first = createMessageContext();
+		MessageContext second = createMessageContext();
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(first));
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(second));
+		try {
+			interceptor.handleRequest(createMessageContext());
+			Assert.fail("WebServiceConcurrencyLimitException expected");
+		}
+		catch (WebServiceConcurrencyLimitException ex) {
+			Assert.assertEquals("Invalid destination", uri, ex.getDestination());
+			Assert.assertEquals("Invalid limit", 2, ex.getLimit());
+		}
+
+		interceptor.afterCompletion(first, null);
+		Assert.assertTrue("Request rejected after completion", interceptor.handleRequest(createMessageContext()));
+	}
+
+	@Test
+	public void testAdaptsLimit() throws Exception {
+		MessageContext messageContext = createMessageContext();
+		interceptor.handleRequest(messageContext);
+		interceptor.afterCompletion(messageContext, null);
+		Assert.assertEquals("Invalid limit", 3, interceptor.getLimit(uri));
+
+		messageContext = createMessageContext();
+		interceptor.handleRequest(messageContext);
+		interceptor.afterCompletion(messageContext, new WebServiceIOException("timeout"));
+		Assert.assertEquals("Invalid limit", 1, interceptor.getLimit(uri));
+	}
+
+	@Test
+	public void testRejectedRequestIsNotSampled() throws Exception {
+		interceptor.handleRequest(createMessageContext());
+		interceptor.handleRequest(createMessageContext());
+		MessageContext rejected = createMessageContext();
+		try {
+			interceptor.handleRequest(rejected);
+			Assert.fail("WebServiceConcurrencyLimitException expected");
+		}
+		catch (WebServiceConcurrencyLimitException ex) {
+			interceptor.afterCompletion(rejected, ex);
+		}
+		Assert.assertEquals("Invalid limit", 2, interceptor.getLimit(uri));
+	}
+
+	@Test
+	public void testNoTransportContext() throws Exception {
+		TransportContextHolder.setTransportContext(null);
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(createMessageContext()));
+	}
+
+	private MessageContext createMessageContext() {
+		return new DefaultMessageContext(new MockWebServiceMessage(), new MockWebServiceMessageFactory());
+	}
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.HeadersAwareSenderWebServiceConnection;
+import org.springframework.ws.transport.MockTransportInputStream;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.context.DefaultTransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+import org.springframework.xml.transform.StringSource;
+
+import static org.easymock.EasyMock.*;
+
+public class ResponseCachingInterceptorTest {
+
+	private ResponseCachingInterceptor interceptor;
+
+	private SaajSoapMessageFactory messageFactory;
+
+	private Transformer transformer;
+
+	private HeadersAwareConnection connectionMock;
+
+	@Before
+	public void setUp() throws Exception {
+		interceptor = new ResponseCachingInterceptor();
+		messageFactory = new SaajSoapMessageFactory();
+		messageFactory.afterPropertiesSet();
+		transformer = TransformerFactory.newInstance().newTransformer();
+		connectionMock = createMock(HeadersAwareConnection.class);
+		expect(connectionMock.getUri()).andReturn(new URI("http://example.com/service")).anyTimes();
+		TransportContextHolder.setTransportContext(new DefaultTransportContext(connectionMock));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TransportContextHolder.setTransportContext(null);
+	}
+
+	@Test
+	public void testCacheHit() throws Exception {
+		expect(connectionMock.getResponseHeaders("Cache-Control"))
+				.andReturn(Collections.<String>emptyList().iterator());
+		replay(connectionMock);
+
+		MessageContext first = createMessageContext("<request id='1'/>", "action");
+		Assert.assertTrue("Invalid result", interceptor.handleRequest(first));
+		Assert.assertFalse("Response from empty cache", first.hasResponse());
+		respond(first, "<response>1</response>");
+		interceptor.handleResponse(first);
+		interceptor.afterCompletion(first, null);
+		Assert.assertEquals("Response not cached", 1, interceptor.getCacheSize());
+
+		MessageContext second = createMessageContext("<request id=\"1\" />", "action");
+		Assert.assertTrue("Invalid result", interceptor.handleRequest(second));
+		Assert.assertTrue("No response from cache", second.hasResponse());
+		Assert.assertTrue("Cached response not rebuilt as SOAP message", second.getResponse() instanceof SoapMessage);
+		DOMResult payload = new DOMResult();
+		transformer.transform(second.getResponse().getPayloadSource(), payload);
+		Assert.assertEquals("Invalid cached payload", "1", payload.getNode().getFirstChild().getTextContent());
+		interceptor.handleResponse(second);
+		Assert.assertEquals("Cached response cached again", 1, interceptor.getCacheSize());
+
+		verify(connectionMock);
+	}
+
+	@Test
+	public void testCacheMiss() throws Exception {
+		expect(connectionMock.getResponseHeaders("Cache-Control"))
+				.andReturn(Collections.<String>emptyList().iterator());
+		replay(connectionMock);
+
+		MessageContext first = createMessageContext("<request/>", "action");
+		interceptor.handleRequest(first);
+		respond(first, "<response/>");
+		interceptor.handleResponse(first);
+
+		MessageContext otherAction = createMessageContext("<request/>", "otherAction");
+		interceptor.handleRequest(otherAction);
+		Assert.assertFalse("Response from cache", otherAction.hasResponse());
+
+		MessageContext otherPayload = createMessageContext("<otherRequest/>", "action");
+		interceptor.handleRequest(otherPayload);
+		Assert.assertFalse("Response from cache", otherPayload.hasResponse());
+	}
+
+	@Test
+	public void testCacheControlNoStore() throws Exception {
+		expect(connectionMock.getResponseHeaders("Cache-Control"))
+				.andReturn(Collections.singletonList("private, no-store").iterator());
+		replay(connectionMock);
+
+		MessageContext messageContext = createMessageContext("<request/>", "action");
+		interceptor.handleRequest(messageContext);
+		respond(messageContext, "<response/>");
+		interceptor.handleResponse(messageContext);
+
+		Assert.assertEquals("Response cached", 0, interceptor.getCacheSize());
+	}
+
+	@Test
+	public void testCacheControlMaxAge() throws Exception {
+		expect(connectionMock.getResponseHeaders("Cache-Control"))
+				.andReturn(Arrays.asList("max-age=0").iterator());
+		replay(connectionMock);
+
+		MessageContext first = createMessageContext("<request/>", "action");
+		interceptor.handleRequest(first);
+		respond(first, "<response/>");
+		interceptor.handleResponse(first);
+
+		MessageContext second = createMessageContext("<request/>", "action");
+		interceptor.handleRequest(second);
+		Assert.assertFalse("Expired response from cache", second.hasResponse());
+	}
+
+	@Test
+	public void testFault() throws Exception {
+		replay(connectionMock);
+
+		MessageContext messageContext = createMessageContext("<request/>", "action");
+		interceptor.handleRequest(messageContext);
+		((SoapMessage) messageContext.getResponse()).getSoapBody().addServerOrReceiverFault("Error", null);
+		interceptor.handleResponse(messageContext);
+
+		Assert.assertEquals("Fault cached", 0, interceptor.getCacheSize());
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		expect(connectionMock.getResponseHeaders("Cache-Control"))
+				.andReturn(Collections.<String>emptyList().iterator());
+		replay(connectionMock);
+
+		MessageContext messageContext = createMessageContext("<request/>", "action");
+		interceptor.handleRequest(messageContext);
+		respond(messageContext, "<response/>");
+		interceptor.handleResponse(messageContext);
+
+		interceptor.invalidate(new URI("http://example.com/other"));
+		Assert.assertEquals("Response of other destination invalidated", 1, interceptor.getCacheSize());
+		interceptor.invalidate(new URI("http://example.com/service"));
+		Assert.assertEquals("Response not invalidated", 0, interceptor.getCacheSize());
+	}
+
+	@Test
+	public void testNoTransportContext() throws Exception {
+		TransportContextHolder.setTransportContext(null);
+		MessageContext messageContext = createMessageContext("<request/>", "action");
+		Assert.assertTrue("Invalid result", interceptor.handleRequest(messageContext));
+		Assert.assertTrue("Invalid result", interceptor.handleResponse(messageContext));
+	}
+
+	@Test
+	public void testNonCachingAxiomResponse() throws Exception {
+		replay(connectionMock);
+		AxiomSoapMessageFactory axiomFactory = new AxiomSoapMessageFactory();
+		axiomFactory.setPayloadCaching(false);
+		axiomFactory.afterPropertiesSet();
+		SoapMessage request = messageFactory.createWebServiceMessage();
+		transformer.transform(new StringSource("<request/>"), request.getPayloadResult());
+		MessageContext messageContext = new DefaultMessageContext(request, axiomFactory);
+
+		interceptor.handleRequest(messageContext);
+		String envelope = "<SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<SOAP-ENV:Body><response>1</response></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+		messageContext.readResponse(new MockTransportInputStream(new ByteArrayInputStream(envelope.getBytes("UTF-8"))));
+		interceptor.handleResponse(messageContext);
+
+		Assert.assertEquals("Response cached", 0, interceptor.getCacheSize());
+		DOMResult payload = new DOMResult();
+		transformer.transform(messageContext.getResponse().getPayloadSource(), payload);
+		Assert.assertEquals("Response consumed", "1", payload.getNode().getFirstChild().getTextContent());
+		verify(connectionMock);
+	}
+
+	@Test
+	public void testCachingAxiomResponse() throws Exception {
+		expect(connectionMock.getResponseHeaders("Cache-Control"))
+				.andReturn(Collections.<String>emptyList().iterator());
+		replay(connectionMock);
+		AxiomSoapMessageFactory axiomFactory = new AxiomSoapMessageFactory();
+		axiomFactory.afterPropertiesSet();
+		SoapMessage request = messageFactory.createWebServiceMessage();
+		transformer.transform(new StringSource("<request/>"), request.getPayloadResult());
+		MessageContext messageContext = new DefaultMessageContext(request, axiomFactory);
+
+		interceptor.handleRequest(messageContext);
+		String envelope = "<SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<SOAP-ENV:Body><response>1</response></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+		messageContext.readResponse(new MockTransportInputStream(new ByteArrayInputStream(envelope.getBytes("UTF-8"))));
+		interceptor.handleResponse(messageContext);
+
+		Assert.assertEquals("Response not cached", 1, interceptor.getCacheSize());
+		DOMResult payload = new DOMResult();
+		transformer.transform(messageContext.getResponse().getPayloadSource(), payload);
+		Assert.assertEquals("Response consumed", "1", payload.getNode().getFirstChild().getTextContent());
+		verify(connectionMock);
+	}
+
+	private MessageContext createMessageContext(String payload, String soapAction) throws Exception {
+		SoapMessage request = messageFactory.createWebServiceMessage();
+		request.setSoapAction(soapAction);
+		transformer.transform(new StringSource(payload), request.getPayloadResult());
+		return new DefaultMessageContext(request, messageFactory);
+	}
+
+	private void respond(MessageContext messageContext, String payload) throws Exception {
+		transformer.transform(new StringSource(payload), messageContext.getResponse().getPayloadResult());
+	}
+
+	private interface HeadersAwareConnection extends WebServiceConnection, HeadersAwareSenderWebServiceConnection {
+
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.limit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AimdConcurrencyLimitTest {
+
+	private AimdConcurrencyLimit limit;
+
+	@Before
+	public void setUp() throws Exception {
+		limit = new AimdConcurrencyLimit();
+		limit.setInitialLimit(10);
+		limit.setLatencyThreshold(1000);
+	}
+
+	@Test
+	public void testIncrease() throws Exception {
+		limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 5, false);
+		Assert.assertEquals("Invalid limit", 11, limit.getLimit());
+	}
+
+	@Test
+	public void testNoIncreaseWhenUnderused() throws Exception {
+		limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 1, false);
+		Assert.assertEquals("Invalid limit", 10, limit.getLimit());
+	}
+
+	@Test
+	public void testDecreaseOnDrop() throws Exception {
+		limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 5, true);
+		Assert.assertEquals("Invalid limit", 9, limit.getLimit());
+	}
+
+	@Test
+	public void testDecreaseOnSlowRequest() throws Exception {
+		limit.onSample(TimeUnit.SECONDS.toNanos(2), 5, false);
+		Assert.assertEquals("Invalid limit", 9, limit.getLimit());
+	}
+
+	@Test
+	public void testMinLimit() throws Exception {
+		limit.setMinLimit(8);
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(0, 1, true);
+		}
+		Assert.assertEquals("Invalid limit", 8, limit.getLimit());
+	}
+
+}
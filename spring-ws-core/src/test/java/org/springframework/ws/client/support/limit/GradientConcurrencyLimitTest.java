@@ -0,0 +1,65 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.client.support.limit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GradientConcurrencyLimitTest {
+
+	private GradientConcurrencyLimit limit;
+
+	@Before
+	public void setUp() throws Exception {
+		limit = new GradientConcurrencyLimit();
+		limit.setInitialLimit(20);
+	}
+
+	@Test
+	public void testGrowsWhileLatencyIsStable() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), limit.getLimit(), false);
+		}
+		Assert.assertTrue("Limit did not grow", limit.getLimit() > 20);
+	}
+
+	@Test
+	public void testShrinksWhenLatencyRises() throws Exception {
+		limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 20, false);
+		int initial = limit.getLimit();
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(TimeUnit.MILLISECONDS.toNanos(100), limit.getLimit(), false);
+		}
+		Assert.assertTrue("Limit did not shrink", limit.getLimit() < initial);
+	}
+
+	@Test
+	public void testShrinksOnDrop() throws Exception {
+		limit.onSample(0, 20, true);
+		Assert.assertTrue("Limit did not shrink", limit.getLimit() < 20);
+	}
+
+	@Test
+	public void testIgnoresUnderusedSamples() throws Exception {
+		limit.onSample(TimeUnit.MILLISECONDS.toNanos(100), 1, false);
+		Assert.assertEquals("Invalid limit", 20, limit.getLimit());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2012 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,17 @@
 
 package org.springframework.ws.server;
 
+import java.io.StringReader;
 import java.util.Collections;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.xml.sax.SAXParseException;
 
 import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.ws.EndpointUnavailableException;
 import org.springframework.ws.MockWebServiceMessage;
 import org.springframework.ws.NoEndpointFoundException;
 import org.springframework.ws.WebServiceMessageFactory;
@@ -26,6 +34,8 @@ import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.endpoint.adapter.PayloadEndpointAdapter;
 import org.springframework.ws.server.endpoint.mapping.PayloadRootQNameEndpointMapping;
+import org.springframework.ws.server.endpoint.support.DeferredRequestValidation;
+import org.springframework.ws.server.observation.MessageDispatcherObserver;
 import org.springframework.ws.soap.server.endpoint.SimpleSoapExceptionResolver;
 
 import org.junit.Assert;
@@ -200,6 +210,146 @@ public class MessageDispatcherTest {
 		verify(mappingMock, interceptorMock1, interceptorMock2, adapterMock, factoryMock);
 	}
 
+	@Test
+	public void testPendingDeferredRequestValidation() throws Exception {
+		MockWebServiceMessage request = new MockWebServiceMessage("<root xmlns='http://springframework.org'/>");
+		messageContext = new DefaultMessageContext(request, factoryMock);
+		Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(
+				new StringReader("<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' " +
+						"targetNamespace='http://springframework.org'><xs:element name='root' type='xs:int'/>" +
+						"</xs:schema>")));
+		DeferredRequestValidation.bind(messageContext, new DeferredRequestValidation(request, schema, null) {
+			@Override
+			protected boolean handleErrors(MessageContext messageContext, SAXParseException[] errors) {
+				return false;
+			}
+		});
+
+		EndpointAdapter adapterMock = createMock(EndpointAdapter.class);
+		dispatcher.setEndpointAdapters(Collections.singletonList(adapterMock));
+
+		Object endpoint = new Object();
+		expect(adapterMock.supports(endpoint)).andReturn(true);
+
+		EndpointMapping mappingMock = createMock(EndpointMapping.class);
+		dispatcher.setEndpointMappings(Collections.singletonList(mappingMock));
+
+		EndpointInterceptor interceptorMock = createStrictMock(EndpointInterceptor.class);
+		expect(interceptorMock.handleRequest(messageContext, endpoint)).andReturn(true);
+		expect(interceptorMock.handleResponse(messageContext, endpoint)).andReturn(true);
+		interceptorMock.afterCompletion(messageContext, endpoint, null);
+
+		EndpointInvocationChain chain = new EndpointInvocationChain(endpoint, new EndpointInterceptor[]{interceptorMock});
+		expect(mappingMock.getEndpoint(messageContext)).andReturn(chain);
+		expect(factoryMock.createWebServiceMessage()).andReturn(new MockWebServiceMessage());
+
+		replay(mappingMock, interceptorMock, adapterMock, factoryMock);
+
+		//	response required for interceptor invocation
+		messageContext.getResponse();
+		dispatcher.dispatch(messageContext);
+
+		Assert.assertTrue("Request not rejected", DeferredRequestValidation.isRejected(messageContext));
+		verify(mappingMock, interceptorMock, adapterMock, factoryMock);
+	}
+
+	@Test
+	public void testPendingDeferredRequestValidationAwareAdapter() throws Exception {
+		MockWebServiceMessage request = new MockWebServiceMessage("<root xmlns='http://springframework.org'/>");
+		messageContext = new DefaultMessageContext(request, factoryMock);
+		Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(
+				new StringReader("<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' " +
+						"targetNamespace='http://springframework.org'><xs:element name='root' type='xs:int'/>" +
+						"</xs:schema>")));
+		DeferredRequestValidation.bind(messageContext, new DeferredRequestValidation(request, schema, null) {
+			@Override
+			protected boolean handleErrors(MessageContext messageContext, SAXParseException[] errors) {
+				return false;
+			}
+		});
+
+		EndpointAdapter adapterMock = createMock(DeferredValidationAwareEndpointAdapter.class);
+		dispatcher.setEndpointAdapters(Collections.singletonList(adapterMock));
+
+		Object endpoint = new Object();
+		expect(adapterMock.supports(endpoint)).andReturn(true);
+		adapterMock.invoke(messageContext, endpoint);
+
+		EndpointMapping mappingMock = createMock(EndpointMapping.class);
+		dispatcher.setEndpointMappings(Collections.singletonList(mappingMock));
+
+		EndpointInvocationChain chain = new EndpointInvocationChain(endpoint, null);
+		expect(mappingMock.getEndpoint(messageContext)).andReturn(chain);
+
+		replay(mappingMock, adapterMock, factoryMock);
+
+		dispatcher.dispatch(messageContext);
+
+		Assert.assertFalse("Request rejected by dispatcher", DeferredRequestValidation.isRejected(messageContext));
+		verify(mappingMock, adapterMock, factoryMock);
+	}
+
+	@Test
+	public void testObservedFlow() throws Exception {
+		EndpointAdapter adapterMock = createMock(EndpointAdapter.class);
+		dispatcher.setEndpointAdapters(Collections.singletonList(adapterMock));
+
+		Object endpoint = new Object();
+		expect(adapterMock.supports(endpoint)).andReturn(true);
+
+		EndpointMapping mappingMock = createMock(EndpointMapping.class);
+		dispatcher.setEndpointMappings(Collections.singletonList(mappingMock));
+
+		EndpointInterceptor interceptorMock = createMock(EndpointInterceptor.class);
+		MessageDispatcherObserver observerMock = createStrictMock(MessageDispatcherObserver.class);
+		dispatcher.setObserver(observerMock);
+
+		EndpointInvocationChain chain =
+				new EndpointInvocationChain(endpoint, new EndpointInterceptor[]{interceptorMock});
+		expect(mappingMock.getEndpoint(messageContext)).andReturn(chain);
+		expect(factoryMock.createWebServiceMessage()).andReturn(new MockWebServiceMessage());
+
+		expect(interceptorMock.handleRequest(messageContext, endpoint)).andReturn(true);
+		adapterMock.invoke(messageContext, endpoint);
+		expect(interceptorMock.handleResponse(messageContext, endpoint)).andReturn(true);
+		interceptorMock.afterCompletion(messageContext, endpoint, null);
+
+		observerMock.endpointMapped(eq(messageContext), same(mappingMock), anyLong());
+		observerMock.requestIntercepted(eq(messageContext), same(interceptorMock), anyLong());
+		observerMock.endpointInvoked(eq(messageContext), same(endpoint), anyLong(), (Exception) isNull());
+		observerMock.responseIntercepted(eq(messageContext), same(interceptorMock), eq(false), anyLong());
+		observerMock.messageDispatched(eq(messageContext), anyLong(), (Exception) isNull());
+
+		replay(mappingMock, interceptorMock, adapterMock, factoryMock, observerMock);
+
+		messageContext.getResponse();
+		dispatcher.receive(messageContext);
+
+		verify(mappingMock, interceptorMock, adapterMock, factoryMock, observerMock);
+	}
+
+	@Test
+	public void testObservedNoEndpointFound() throws Exception {
+		dispatcher.setEndpointMappings(Collections.<EndpointMapping>emptyList());
+		MessageDispatcherObserver observerMock = createStrictMock(MessageDispatcherObserver.class);
+		dispatcher.setObserver(observerMock);
+
+		observerMock.endpointMapped(eq(messageContext), (EndpointMapping) isNull(), anyLong());
+		observerMock.messageDispatched(eq(messageContext), anyLong(), isA(NoEndpointFoundException.class));
+
+		replay(observerMock, factoryMock);
+
+		try {
+			dispatcher.receive(messageContext);
+			Assert.fail("NoEndpointFoundException expected");
+		}
+		catch (NoEndpointFoundException ex) {
+			// expected
+		}
+
+		verify(observerMock, factoryMock);
+	}
+
 	@Test
 	public void testFlowNoResponse() throws Exception {
 		EndpointAdapter adapterMock = createMock(EndpointAdapter.class);
@@ -381,6 +531,36 @@ public class MessageDispatcherTest {
 		verify(mappingMock, interceptorMock, adapterMock, factoryMock);
 	}
 
+	@Test
+	public void testEndpointUnavailableNotResolved() throws Exception {
+		Object endpoint = new Object();
+		EndpointMapping mappingMock = createMock(EndpointMapping.class);
+		dispatcher.setEndpointMappings(Collections.singletonList(mappingMock));
+		EndpointExceptionResolver resolverMock = createMock(EndpointExceptionResolver.class);
+		dispatcher.setEndpointExceptionResolvers(Collections.singletonList(resolverMock));
+
+		EndpointInterceptor interceptorMock = createStrictMock(EndpointInterceptor.class);
+		EndpointUnavailableException exception = new EndpointUnavailableException(endpoint);
+		expect(interceptorMock.handleRequest(messageContext, endpoint)).andThrow(exception);
+		interceptorMock.afterCompletion(messageContext, endpoint, exception);
+
+		EndpointInvocationChain chain =
+				new EndpointInvocationChain(endpoint, new EndpointInterceptor[]{interceptorMock});
+		expect(mappingMock.getEndpoint(messageContext)).andReturn(chain);
+
+		replay(mappingMock, interceptorMock, resolverMock, factoryMock);
+
+		try {
+			dispatcher.dispatch(messageContext);
+			Assert.fail("EndpointUnavailableException expected");
+		}
+		catch (EndpointUnavailableException ex) {
+			// expected
+		}
+
+		verify(mappingMock, interceptorMock, resolverMock, factoryMock);
+	}
+
 	@Test
 	public void testNoEndpointFound() throws Exception {
 		dispatcher.setEndpointMappings(Collections.<EndpointMapping>emptyList());
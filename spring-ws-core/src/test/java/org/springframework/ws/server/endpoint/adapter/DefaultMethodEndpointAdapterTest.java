@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,13 +17,19 @@
 package org.springframework.ws.server.endpoint.adapter;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Collections;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
 
 import static org.easymock.EasyMock.*;
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
+import org.xml.sax.SAXParseException;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.ws.MockWebServiceMessage;
@@ -33,6 +39,7 @@ import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.endpoint.MethodEndpoint;
 import org.springframework.ws.server.endpoint.adapter.method.MethodArgumentResolver;
 import org.springframework.ws.server.endpoint.adapter.method.MethodReturnValueHandler;
+import org.springframework.ws.server.endpoint.support.DeferredRequestValidation;
 
 /** @author Arjen Poutsma */
 public class DefaultMethodEndpointAdapterTest {
@@ -195,6 +202,60 @@ public class DefaultMethodEndpointAdapterTest {
 		verify(argumentResolver1, argumentResolver2, returnValueHandler);
 	}
 
+	@Test
+	public void invokeRejectedByDeferredValidation() throws Exception {
+		MockWebServiceMessage request = new MockWebServiceMessage("<root xmlns='http://springframework.org'/>");
+		MessageContext messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+		Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema();
+		DeferredRequestValidation validation = new DeferredRequestValidation(request, schema, null) {
+			@Override
+			protected boolean handleErrors(MessageContext messageContext, SAXParseException[] errors) {
+				return false;
+			}
+		};
+		DeferredRequestValidation.bind(messageContext, validation);
+		validation.getErrorHandler().error(new SAXParseException("Invalid", null));
+		validation.complete(messageContext);
+
+		expect(argumentResolver1.supportsParameter(isA(MethodParameter.class))).andReturn(true);
+		expect(argumentResolver1.resolveArgument(eq(messageContext), isA(MethodParameter.class))).andReturn(null);
+
+		replay(argumentResolver1, argumentResolver2, returnValueHandler);
+
+		adapter.invoke(messageContext, nullReturnValue);
+		assertNull("Endpoint invoked", supportedArgument);
+
+		verify(argumentResolver1, argumentResolver2, returnValueHandler);
+	}
+
+	@Test
+	public void invokeValidatesPendingDeferredValidation() throws Exception {
+		MockWebServiceMessage request = new MockWebServiceMessage("<root xmlns='http://springframework.org'/>");
+		MessageContext messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+		Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(
+				new StringReader("<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' " +
+						"targetNamespace='http://springframework.org'><xs:element name='root' type='xs:int'/>" +
+						"</xs:schema>")));
+		DeferredRequestValidation validation = new DeferredRequestValidation(request, schema, null) {
+			@Override
+			protected boolean handleErrors(MessageContext messageContext, SAXParseException[] errors) {
+				return false;
+			}
+		};
+		DeferredRequestValidation.bind(messageContext, validation);
+
+		expect(argumentResolver1.supportsParameter(isA(MethodParameter.class))).andReturn(true);
+		expect(argumentResolver1.resolveArgument(eq(messageContext), isA(MethodParameter.class))).andReturn("42");
+
+		replay(argumentResolver1, argumentResolver2, returnValueHandler);
+
+		adapter.invoke(messageContext, nullReturnValue);
+		assertNull("Endpoint invoked", supportedArgument);
+		assertTrue("Request not rejected", DeferredRequestValidation.isRejected(messageContext));
+
+		verify(argumentResolver1, argumentResolver2, returnValueHandler);
+	}
+
 	public String supported(String s, Integer i) {
 		supportedArgument = s;
 		return s;
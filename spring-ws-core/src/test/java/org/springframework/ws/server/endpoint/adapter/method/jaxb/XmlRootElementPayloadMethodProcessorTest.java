@@ -19,7 +19,11 @@ package org.springframework.ws.server.endpoint.adapter.method.jaxb;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
@@ -239,6 +243,62 @@ public class XmlRootElementPayloadMethodProcessorTest {
 
 	}
 
+	@Test
+	public void marshallersAndUnmarshallersArePooled() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			WebServiceMessage request =
+					new MockWebServiceMessage("<root xmlns='http://springframework.org'><string>Foo</string></root>");
+			MessageContext messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+			Object result = processor.resolveArgument(messageContext, rootElementParameter);
+			processor.handleReturnValue(messageContext, rootElementReturnType, result);
+		}
+		assertEquals("Invalid amount of unmarshallers created", 1, processor.getUnmarshallersCreated());
+		assertEquals("Invalid amount of unmarshallers reused", 2, processor.getUnmarshallersReused());
+		assertEquals("Invalid amount of marshallers created", 1, processor.getMarshallersCreated());
+		assertEquals("Invalid amount of marshallers reused", 2, processor.getMarshallersReused());
+	}
+
+	@Test
+	public void streamingPayloadReleasesMarshaller() throws Exception {
+		final List<Marshaller> marshallers = new ArrayList<Marshaller>();
+		processor = new XmlRootElementPayloadMethodProcessor() {
+
+			@Override
+			protected Marshaller createMarshaller(JAXBContext jaxbContext) throws JAXBException {
+				Marshaller marshaller = super.createMarshaller(jaxbContext);
+				marshallers.add(marshaller);
+				return marshaller;
+			}
+		};
+		AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+		messageFactory.setPayloadCaching(false);
+		MyRootElement rootElement = new MyRootElement();
+		rootElement.setString("Foo");
+
+		for (int i = 0; i < 2; i++) {
+			MessageContext messageContext = new DefaultMessageContext(messageFactory);
+			processor.handleReturnValue(messageContext, rootElementReturnType, rootElement);
+			messageContext.getResponse().writeTo(new ByteArrayOutputStream());
+		}
+		assertEquals("Invalid amount of marshallers created", 1, marshallers.size());
+		assertEquals("Invalid amount of marshallers reused", 1, processor.getMarshallersReused());
+		assertEquals("Fragment property not reset", Boolean.FALSE,
+				marshallers.get(0).getProperty(Marshaller.JAXB_FRAGMENT));
+	}
+
+	@Test
+	public void noPooling() throws Exception {
+		processor.setPoolSize(0);
+		for (int i = 0; i < 2; i++) {
+			WebServiceMessage request =
+					new MockWebServiceMessage("<root xmlns='http://springframework.org'><string>Foo</string></root>");
+			MessageContext messageContext = new DefaultMessageContext(request, new MockWebServiceMessageFactory());
+			processor.resolveArgument(messageContext, rootElementParameter);
+		}
+		assertEquals("Invalid amount of unmarshallers created", 2, processor.getUnmarshallersCreated());
+		assertEquals("Invalid amount of unmarshallers reused", 0, processor.getUnmarshallersReused());
+	}
+
 	@ResponsePayload
 	public MyRootElement rootElement(@RequestPayload MyRootElement rootElement) {
 		return rootElement;
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.index;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.ws.server.endpoint.annotation.Endpoint;
+
+public class EndpointIndexProcessorTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File outputDirectory;
+
+	@Before
+	public void setUp() throws Exception {
+		outputDirectory = temporaryFolder.newFolder("classes");
+	}
+
+	@Test
+	public void index() throws Exception {
+		Properties index = compile(
+				source("test.MyEndpoint",
+						"package test;\n" +
+						"import org.springframework.ws.server.endpoint.annotation.*;\n" +
+						"@Endpoint public class MyEndpoint {\n" +
+						"  @PayloadRoot(localPart = \"Request\") public void doIt() {}\n" +
+						"  @Endpoint public static class Nested {}\n" +
+						"}"),
+				source("test.SubEndpoint",
+						"package test;\n" +
+						"public class SubEndpoint extends MyEndpoint {}"),
+				source("test.NoEndpoint",
+						"package test;\n" +
+						"public class NoEndpoint {\n" +
+						"  @org.springframework.ws.server.endpoint.annotation.PayloadRoot(localPart = \"Request\")" +
+						"  public void doIt() {}\n" +
+						"}"));
+
+		Assert.assertEquals("Invalid number of entries", 3, index.size());
+		List<String> stereotypes = Arrays.asList(StringUtils.commaDelimitedListToStringArray(
+				index.getProperty("test.MyEndpoint")));
+		Assert.assertTrue("Endpoint not indexed", stereotypes.contains(Endpoint.class.getName()));
+		Assert.assertTrue("Meta-annotation not indexed", stereotypes.contains(Component.class.getName()));
+		Assert.assertTrue("Method annotation not indexed",
+				stereotypes.contains("org.springframework.ws.server.endpoint.annotation.PayloadRoot"));
+		Assert.assertEquals("Invalid inherited stereotypes", index.getProperty("test.MyEndpoint"),
+				index.getProperty("test.SubEndpoint"));
+		Assert.assertNotNull("Nested endpoint not indexed", index.getProperty("test.MyEndpoint$Nested"));
+		Assert.assertFalse("Nested endpoint has method annotations",
+				index.getProperty("test.MyEndpoint$Nested").contains("PayloadRoot"));
+		Assert.assertNull("Non-endpoint indexed", index.getProperty("test.NoEndpoint"));
+	}
+
+	@Test
+	public void noEndpoints() throws Exception {
+		compile(source("test.NoEndpoint", "package test;\npublic class NoEndpoint {}"));
+		Assert.assertFalse("Empty index written",
+				new File(outputDirectory, EndpointIndexLoader.INDEX_LOCATION).exists());
+	}
+
+	@Test
+	public void incremental() throws Exception {
+		compile(source("test.MyEndpoint",
+				"package test;\n@org.springframework.ws.server.endpoint.annotation.Endpoint public class MyEndpoint {}"),
+				source("test.OtherEndpoint",
+						"package test;\n@org.springframework.ws.server.endpoint.annotation.Endpoint " +
+								"public class OtherEndpoint {}"));
+		Properties index = compile(source("test.OtherEndpoint", "package test;\npublic class OtherEndpoint {}"));
+
+		Assert.assertNotNull("Previous entry removed", index.getProperty("test.MyEndpoint"));
+		Assert.assertNull("Stale entry kept", index.getProperty("test.OtherEndpoint"));
+	}
+
+	private Properties compile(JavaFileObject... sources) throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		String classPath = outputDirectory.getAbsolutePath() + File.pathSeparator + getLocation(Endpoint.class) +
+				File.pathSeparator + getLocation(Component.class);
+		JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+				Arrays.asList("-d", outputDirectory.getAbsolutePath(), "-classpath", classPath), null,
+				Arrays.asList(sources));
+		task.setProcessors(Collections.singletonList(new EndpointIndexProcessor()));
+		Assert.assertTrue("Compilation failed", task.call());
+
+		Properties index = new Properties();
+		File indexFile = new File(outputDirectory, EndpointIndexLoader.INDEX_LOCATION);
+		if (indexFile.exists()) {
+			InputStream is = new FileInputStream(indexFile);
+			try {
+				index.load(is);
+			}
+			finally {
+				is.close();
+			}
+		}
+		return index;
+	}
+
+	private String getLocation(Class<?> clazz) throws Exception {
+		return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+	}
+
+	private JavaFileObject source(String className, final String content) {
+		return new SimpleJavaFileObject(new File(className.replace('.', '/') + ".java").toURI(),
+				JavaFileObject.Kind.SOURCE) {
+
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return content;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.index;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
+import org.springframework.ws.soap.server.endpoint.annotation.SoapAction;
+
+public class EndpointIndexTest {
+
+	private EndpointIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		Properties first = new Properties();
+		first.setProperty(MyEndpoint.class.getName(), Endpoint.class.getName() + "," + PayloadRoot.class.getName());
+		Properties second = new Properties();
+		second.setProperty(MyEndpoint.class.getName(), SoapAction.class.getName());
+		second.setProperty(MyInterface.class.getName(), Endpoint.class.getName());
+		index = new EndpointIndex(Arrays.asList(first, second));
+	}
+
+	@Test
+	public void stereotypes() throws Exception {
+		Assert.assertTrue("Not indexed", index.isIndexed(MyEndpoint.class));
+		Assert.assertTrue("No endpoint", index.hasStereotype(MyEndpoint.class, Endpoint.class));
+		Assert.assertTrue("Files not merged", index.hasStereotype(MyEndpoint.class, SoapAction.class));
+		Assert.assertTrue("No stereotype found", index.hasAnyStereotype(MyEndpoint.class,
+				Collections.<Class<? extends Annotation>>singletonList(PayloadRoot.class)));
+		Assert.assertFalse("Indexed", index.isIndexed(String.class));
+		Assert.assertFalse("Stereotype found", index.hasStereotype(String.class, Endpoint.class));
+	}
+
+	@Test
+	public void types() throws Exception {
+		Assert.assertEquals("Invalid types", 2, index.getTypes(Endpoint.class).size());
+		Assert.assertTrue("Type not found", index.getTypes(Endpoint.class).contains(MyInterface.class.getName()));
+		Assert.assertEquals("Invalid types", Collections.singleton(MyEndpoint.class.getName()),
+				index.getTypes(SoapAction.class));
+	}
+
+	@Test
+	public void cglibProxy() throws Exception {
+		ProxyFactory proxyFactory = new ProxyFactory(new MyEndpoint());
+		proxyFactory.setProxyTargetClass(true);
+		Class<?> proxyClass = proxyFactory.getProxy().getClass();
+		Assert.assertNotEquals("No subclass", MyEndpoint.class, proxyClass);
+		Assert.assertTrue("No endpoint", index.hasStereotype(proxyClass, Endpoint.class));
+	}
+
+	@Test
+	public void jdkProxy() throws Exception {
+		Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{MyInterface.class},
+				new InvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						return null;
+					}
+				});
+		Assert.assertTrue("No endpoint", index.hasStereotype(proxy.getClass(), Endpoint.class));
+	}
+
+	@Test
+	public void noIndex() throws Exception {
+		Assert.assertNull("Index found", EndpointIndexLoader.loadIndex(getClass().getClassLoader()));
+		Assert.assertNull("Index found", EndpointIndexLoader.loadIndex(getClass().getClassLoader()));
+	}
+
+	public static class MyEndpoint {
+
+	}
+
+	public interface MyInterface {
+
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.interceptor;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ws.EndpointUnavailableException;
+import org.springframework.ws.MockWebServiceMessage;
+import org.springframework.ws.MockWebServiceMessageFactory;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.annotation.Bulkhead;
+
+public class BulkheadInterceptorTest {
+
+	private BulkheadInterceptor interceptor;
+
+	@Before
+	public void setUp() throws Exception {
+		interceptor = new BulkheadInterceptor();
+	}
+
+	@Test
+	public void testAnnotatedMethod() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(new MethodBulkheadEndpoint(), "limited");
+		MessageContext first = createMessageContext();
+		MessageContext second = createMessageContext();
+
+		Assert.assertTrue("First request rejected", interceptor.handleRequest(first, endpoint));
+		try {
+			interceptor.handleRequest(second, endpoint);
+			Assert.fail("EndpointUnavailableException expected");
+		}
+		catch (EndpointUnavailableException ex) {
+			Assert.assertEquals("Invalid endpoint", endpoint, ex.getEndpoint());
+		}
+		interceptor.afterCompletion(second, endpoint, null);
+		interceptor.afterCompletion(first, endpoint, null);
+
+		Assert.assertTrue("Request rejected after completion", interceptor.handleRequest(second, endpoint));
+	}
+
+	@Test
+	public void testUnannotatedMethod() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(new MethodBulkheadEndpoint(), "unlimited");
+
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(createMessageContext(), endpoint));
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(createMessageContext(), endpoint));
+	}
+
+	@Test
+	public void testMaxConcurrentInvocations() throws Exception {
+		interceptor.setMaxConcurrentInvocations(2);
+		MethodEndpoint endpoint = new MethodEndpoint(new MethodBulkheadEndpoint(), "unlimited");
+
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(createMessageContext(), endpoint));
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(createMessageContext(), endpoint));
+		try {
+			interceptor.handleRequest(createMessageContext(), endpoint);
+			Assert.fail("EndpointUnavailableException expected");
+		}
+		catch (EndpointUnavailableException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testAnnotatedClassSharesPermits() throws Exception {
+		ClassBulkheadEndpoint bean = new ClassBulkheadEndpoint();
+		MethodEndpoint first = new MethodEndpoint(bean, "first");
+		MethodEndpoint second = new MethodEndpoint(bean, "second");
+
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(createMessageContext(), first));
+		try {
+			interceptor.handleRequest(createMessageContext(), second);
+			Assert.fail("EndpointUnavailableException expected");
+		}
+		catch (EndpointUnavailableException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		interceptor.setMaxConcurrentInvocations(1);
+		interceptor.setTimeout(1000);
+		final Object endpoint = new Object();
+		final MessageContext first = createMessageContext();
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(first, endpoint));
+
+		Thread thread = new Thread(new Runnable() {
+
+			public void run() {
+				try {
+					Thread.sleep(50);
+					interceptor.afterCompletion(first, endpoint, null);
+				}
+				catch (Exception ex) {
+					// ignore
+				}
+			}
+		});
+		thread.start();
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(createMessageContext(), endpoint));
+		thread.join();
+	}
+
+	private MessageContext createMessageContext() {
+		return new DefaultMessageContext(new MockWebServiceMessage(), new MockWebServiceMessageFactory());
+	}
+
+	private static class MethodBulkheadEndpoint {
+
+		@Bulkhead(1)
+		public void limited() {
+		}
+
+		public void unlimited() {
+		}
+	}
+
+	@Bulkhead(1)
+	private static class ClassBulkheadEndpoint {
+
+		public void first() {
+		}
+
+		public void second() {
+		}
+	}
+
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import javax.xml.namespace.QName;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.EndpointAdapter;
+import org.springframework.ws.server.EndpointInterceptor;
+import org.springframework.ws.server.EndpointInvocationChain;
+import org.springframework.ws.server.EndpointMapping;
+import org.springframework.ws.server.MessageDispatcher;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.annotation.CacheableResponse;
+import org.springframework.ws.soap.SoapHeaderElement;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.MockTransportInputStream;
+import org.springframework.xml.transform.StringSource;
+
+public class ResponseCachingInterceptorTest {
+
+	private static final QName TOKEN_NAME = new QName("http://example.com", "Token");
+
+	private static final QName SIGNATURE_NAME = new QName("http://example.com", "Signature");
+
+	private ResponseCachingInterceptor interceptor;
+
+	private SaajSoapMessageFactory messageFactory;
+
+	private Transformer transformer;
+
+	@Before
+	public void setUp() throws Exception {
+		interceptor = new ResponseCachingInterceptor();
+		messageFactory = new SaajSoapMessageFactory();
+		messageFactory.afterPropertiesSet();
+		transformer = TransformerFactory.newInstance().newTransformer();
+	}
+
+	@Test
+	public void testCacheHit() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+		MessageContext first = createMessageContext("<request id='1'/>");
+		Assert.assertTrue("Request answered from empty cache", interceptor.handleRequest(first, endpoint));
+		respond(first, "<response>1</response>");
+		Assert.assertTrue("Response not handled", interceptor.handleResponse(first, endpoint));
+		Assert.assertEquals("Response not cached", 1, interceptor.getCacheSize());
+
+		// differently encoded, but equal request
+		MessageContext second = createMessageContext("<request id=\"1\" />");
+		Assert.assertFalse("Request not answered from cache", interceptor.handleRequest(second, endpoint));
+		Assert.assertTrue("No response", second.hasResponse());
+		Assert.assertTrue("Cached response not a regular message", second.getResponse() instanceof SoapMessage);
+		Assert.assertEquals("Invalid cached payload", "1", getPayload(second.getResponse()).getTextContent());
+	}
+
+	@Test
+	public void testHeadersNotReplayed() throws Exception {
+		QName headerName = new QName("http://example.com", "RelatesTo");
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+		MessageContext first = createMessageContext("<request/>");
+		interceptor.handleRequest(first, endpoint);
+		respond(first, "<response/>");
+		((SoapMessage) first.getResponse()).getSoapHeader().addHeaderElement(headerName).setText("first");
+		interceptor.handleResponse(first, endpoint);
+
+		MessageContext second = createMessageContext("<request/>");
+		Assert.assertFalse("Request not answered from cache", interceptor.handleRequest(second, endpoint));
+		Iterator<SoapHeaderElement> headerElements =
+				((SoapMessage) second.getResponse()).getSoapHeader().examineAllHeaderElements();
+		Assert.assertFalse("Header of cached response replayed", headerElements.hasNext());
+	}
+
+	@Test
+	public void testCacheMiss() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+		MessageContext first = createMessageContext("<request id='1'/>");
+		interceptor.handleRequest(first, endpoint);
+		respond(first, "<response>1</response>");
+		interceptor.handleResponse(first, endpoint);
+
+		MessageContext second = createMessageContext("<request id='2'/>");
+		Assert.assertTrue("Request answered from cache", interceptor.handleRequest(second, endpoint));
+		Assert.assertFalse("Response created", second.hasResponse());
+	}
+
+	@Test
+	public void testUnannotatedMethod() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "uncached");
+		MessageContext first = createMessageContext("<request/>");
+		interceptor.handleRequest(first, endpoint);
+		respond(first, "<response/>");
+		interceptor.handleResponse(first, endpoint);
+
+		Assert.assertEquals("Response cached", 0, interceptor.getCacheSize());
+		Assert.assertTrue("Request answered from cache",
+				interceptor.handleRequest(createMessageContext("<request/>"), endpoint));
+	}
+
+	@Test
+	public void testExpired() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "expiring");
+		MessageContext first = createMessageContext("<request/>");
+		interceptor.handleRequest(first, endpoint);
+		respond(first, "<response/>");
+		interceptor.handleResponse(first, endpoint);
+		Thread.sleep(10);
+
+		Assert.assertTrue("Request answered from cache",
+				interceptor.handleRequest(createMessageContext("<request/>"), endpoint));
+		Assert.assertEquals("Expired response not evicted", 0, interceptor.getCacheSize());
+	}
+
+	@Test
+	public void testFault() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+		MessageContext context = createMessageContext("<request/>");
+		interceptor.handleRequest(context, endpoint);
+		((SoapMessage) context.getResponse()).getSoapBody().addServerOrReceiverFault("Error", null);
+		interceptor.handleFault(context, endpoint);
+
+		Assert.assertEquals("Fault cached", 0, interceptor.getCacheSize());
+	}
+
+	@Test
+	public void testMaxEntries() throws Exception {
+		interceptor.setMaxEntries(1);
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+		for (int i = 0; i < 3; i++) {
+			MessageContext context = createMessageContext("<request id='" + i + "'/>");
+			interceptor.handleRequest(context, endpoint);
+			respond(context, "<response/>");
+			interceptor.handleResponse(context, endpoint);
+		}
+		Assert.assertEquals("Cache not bounded", 1, interceptor.getCacheSize());
+	}
+
+	@Test
+	public void testKeyHeaderNames() throws Exception {
+		QName headerName = new QName("http://example.com", "Locale");
+		interceptor.setKeyHeaderNames(headerName);
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+		MessageContext first = createMessageContext("<request/>");
+		((SoapMessage) first.getRequest()).getSoapHeader().addHeaderElement(headerName).setText("en");
+		interceptor.handleRequest(first, endpoint);
+		respond(first, "<response/>");
+		interceptor.handleResponse(first, endpoint);
+
+		MessageContext second = createMessageContext("<request/>");
+		((SoapMessage) second.getRequest()).getSoapHeader().addHeaderElement(headerName).setText("nl");
+		Assert.assertTrue("Request answered from cache", interceptor.handleRequest(second, endpoint));
+
+		MessageContext third = createMessageContext("<request/>");
+		((SoapMessage) third.getRequest()).getSoapHeader().addHeaderElement(headerName).setText("en");
+		Assert.assertFalse("Request not answered from cache", interceptor.handleRequest(third, endpoint));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+		MessageContext first = createMessageContext("<request/>");
+		interceptor.handleRequest(first, endpoint);
+		respond(first, "<response/>");
+		interceptor.handleResponse(first, endpoint);
+
+		interceptor.invalidate(new MethodEndpoint(new CachingEndpoint(), "expiring"));
+		Assert.assertEquals("Response of other endpoint invalidated", 1, interceptor.getCacheSize());
+		interceptor.invalidate(endpoint);
+		Assert.assertEquals("Response not invalidated", 0, interceptor.getCacheSize());
+	}
+
+	@Test
+	public void testSecurityInterceptorBeforeCache() throws Exception {
+		final CachingEndpoint cachingEndpoint = new CachingEndpoint();
+		final MethodEndpoint endpoint = new MethodEndpoint(cachingEndpoint, "cached");
+		final EndpointInterceptor securityInterceptor = new TokenCheckingInterceptor();
+		MessageDispatcher dispatcher = new MessageDispatcher();
+		dispatcher.setEndpointMappings(Collections.<EndpointMapping>singletonList(new EndpointMapping() {
+
+			@Override
+			public EndpointInvocationChain getEndpoint(MessageContext messageContext) {
+				return new EndpointInvocationChain(endpoint,
+						new EndpointInterceptor[]{securityInterceptor, interceptor});
+			}
+		}));
+		dispatcher.setEndpointAdapters(Collections.<EndpointAdapter>singletonList(new EndpointAdapter() {
+
+			@Override
+			public boolean supports(Object endpoint) {
+				return true;
+			}
+
+			@Override
+			public void invoke(MessageContext messageContext, Object endpoint) throws Exception {
+				cachingEndpoint.invocations++;
+				respond(messageContext, "<response>" + cachingEndpoint.invocations + "</response>");
+			}
+		}));
+
+		MessageContext first = createMessageContext("<request/>", "secret");
+		dispatcher.receive(first);
+		Assert.assertEquals("Endpoint not invoked", 1, cachingEndpoint.invocations);
+
+		MessageContext unauthorized = createMessageContext("<request/>", "guess");
+		dispatcher.receive(unauthorized);
+		Assert.assertTrue("Unauthorized request answered from cache",
+				((SoapMessage) unauthorized.getResponse()).hasFault());
+
+		MessageContext second = createMessageContext("<request/>", "secret");
+		dispatcher.receive(second);
+		Assert.assertEquals("Request not answered from cache", 1, cachingEndpoint.invocations);
+		Assert.assertEquals("Invalid cached payload", "1", getPayload(second.getResponse()).getTextContent());
+		Iterator<SoapHeaderElement> headerElements =
+				((SoapMessage) second.getResponse()).getSoapHeader().examineAllHeaderElements();
+		Assert.assertTrue("Response not secured", headerElements.hasNext());
+		Assert.assertEquals("Header not added for this request", "secret", headerElements.next().getText());
+	}
+
+	@Test
+	public void testNonCachingAxiomRequest() throws Exception {
+		AxiomSoapMessageFactory axiomFactory = new AxiomSoapMessageFactory();
+		axiomFactory.setPayloadCaching(false);
+		axiomFactory.afterPropertiesSet();
+		String envelope = "<SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<SOAP-ENV:Body><request/></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+		WebServiceMessage request = axiomFactory.createWebServiceMessage(
+				new MockTransportInputStream(new ByteArrayInputStream(envelope.getBytes("UTF-8"))));
+		MessageContext context = new DefaultMessageContext(request, axiomFactory);
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+
+		Assert.assertTrue("Invalid result", interceptor.handleRequest(context, endpoint));
+		Assert.assertEquals("Request payload consumed", "request", getPayload(request).getLocalName());
+		respond(context, "<response/>");
+		interceptor.handleResponse(context, endpoint);
+		Assert.assertEquals("Response cached", 0, interceptor.getCacheSize());
+	}
+
+	@Test
+	public void testNonCachingAxiomResponse() throws Exception {
+		AxiomSoapMessageFactory axiomFactory = new AxiomSoapMessageFactory();
+		axiomFactory.setPayloadCaching(false);
+		axiomFactory.afterPropertiesSet();
+		SoapMessage request = messageFactory.createWebServiceMessage();
+		transformer.transform(new StringSource("<request/>"), request.getPayloadResult());
+		MessageContext context = new DefaultMessageContext(request, axiomFactory);
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+
+		interceptor.handleRequest(context, endpoint);
+		respond(context, "<response/>");
+		interceptor.handleResponse(context, endpoint);
+		Assert.assertEquals("Response cached", 0, interceptor.getCacheSize());
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		context.getResponse().writeTo(os);
+		Assert.assertTrue("Response consumed", os.toString("UTF-8").contains("response"));
+	}
+
+	@Test
+	public void testCachingAxiom() throws Exception {
+		AxiomSoapMessageFactory axiomFactory = new AxiomSoapMessageFactory();
+		axiomFactory.afterPropertiesSet();
+		MethodEndpoint endpoint = new MethodEndpoint(new CachingEndpoint(), "cached");
+		MessageContext first = createMessageContext("<request/>", axiomFactory);
+		interceptor.handleRequest(first, endpoint);
+		respond(first, "<response>1</response>");
+		interceptor.handleResponse(first, endpoint);
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		first.getResponse().writeTo(os);
+		Assert.assertTrue("Response consumed", os.toString("UTF-8").contains("response"));
+
+		MessageContext second = createMessageContext("<request/>", axiomFactory);
+		Assert.assertFalse("Request not answered from cache", interceptor.handleRequest(second, endpoint));
+		Assert.assertEquals("Invalid cached payload", "1", getPayload(second.getResponse()).getTextContent());
+	}
+
+	private Element getPayload(WebServiceMessage message) throws Exception {
+		DOMResult result = new DOMResult();
+		transformer.transform(message.getPayloadSource(), result);
+		return ((Document) result.getNode()).getDocumentElement();
+	}
+
+	private MessageContext createMessageContext(String payload, String token) throws Exception {
+		MessageContext messageContext = createMessageContext(payload);
+		((SoapMessage) messageContext.getRequest()).getSoapHeader().addHeaderElement(TOKEN_NAME).setText(token);
+		return messageContext;
+	}
+
+	private MessageContext createMessageContext(String payload, WebServiceMessageFactory factory) throws Exception {
+		WebServiceMessage request = factory.createWebServiceMessage();
+		transformer.transform(new StringSource(payload), request.getPayloadResult());
+		return new DefaultMessageContext(request, factory);
+	}
+
+	private MessageContext createMessageContext(String payload) throws Exception {
+		SoapMessage request = messageFactory.createWebServiceMessage();
+		transformer.transform(new StringSource(payload), request.getPayloadResult());
+		return new DefaultMessageContext(request, messageFactory);
+	}
+
+	private void respond(MessageContext messageContext, String payload) throws Exception {
+		transformer.transform(new StringSource(payload), messageContext.getResponse().getPayloadResult());
+	}
+
+	private static class CachingEndpoint {
+
+		private int invocations;
+
+		@CacheableResponse
+		public void cached() {
+		}
+
+		@CacheableResponse(timeToLive = 1)
+		public void expiring() {
+		}
+
+		public void uncached() {
+		}
+	}
+
+	/** Rejects requests without the right token, and signs responses, like a security interceptor would. */
+	private static class TokenCheckingInterceptor extends EndpointInterceptorAdapter {
+
+		@Override
+		public boolean handleRequest(MessageContext messageContext, Object endpoint) throws Exception {
+			if (!"secret".equals(getToken(messageContext.getRequest()))) {
+				((SoapMessage) messageContext.getResponse()).getSoapBody()
+						.addClientOrSenderFault("Unauthorized", null);
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean handleResponse(MessageContext messageContext, Object endpoint) throws Exception {
+			((SoapMessage) messageContext.getResponse()).getSoapHeader().addHeaderElement(SIGNATURE_NAME)
+					.setText(getToken(messageContext.getRequest()));
+			return true;
+		}
+
+		private String getToken(WebServiceMessage message) {
+			Iterator<SoapHeaderElement> iterator =
+					((SoapMessage) message).getSoapHeader().examineHeaderElements(TOKEN_NAME);
+			return iterator.hasNext() ? iterator.next().getText() : null;
+		}
+	}
+
+}
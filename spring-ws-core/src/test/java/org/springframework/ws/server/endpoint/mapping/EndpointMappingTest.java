@@ -176,6 +176,66 @@ public class EndpointMappingTest {
 		result = mapping.getEndpoint(messageContext);
 		assertNotNull("No endpoint returned", result);
 		assertEquals("Prototype endpoint was not constructed twice", 2, MyEndpoint.constructorCount);
+		assertNotSame("Prototype endpoint reused", result.getEndpoint(),
+				mapping.getEndpoint(messageContext).getEndpoint());
+	}
+
+	@Test
+	public void invocationChainCached() throws Exception {
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("smartInterceptor", MyPropertySmartEndpointInterceptor.class);
+
+		final Object endpoint = new Object();
+		AbstractEndpointMapping mapping = new AbstractEndpointMapping() {
+			@Override
+			protected Object getEndpointInternal(MessageContext givenRequest) throws Exception {
+				return endpoint;
+			}
+		};
+		mapping.setApplicationContext(applicationContext);
+
+		EndpointInvocationChain result = mapping.getEndpoint(messageContext);
+		assertEquals("Unexpected amount of EndpointInterceptors returned", 0, result.getInterceptors().length);
+		assertSame("EndpointInvocationChain not reused", result,
+				mapping.getEndpoint(new DefaultMessageContext(new MockWebServiceMessageFactory())));
+
+		MessageContext interceptedContext = new DefaultMessageContext(new MockWebServiceMessageFactory());
+		interceptedContext.setProperty(MyPropertySmartEndpointInterceptor.PROPERTY, Boolean.TRUE);
+		EndpointInvocationChain intercepted = mapping.getEndpoint(interceptedContext);
+		assertEquals("Unexpected amount of EndpointInterceptors returned", 1, intercepted.getInterceptors().length);
+		assertSame("EndpointInvocationChain not reused", intercepted, mapping.getEndpoint(interceptedContext));
+		assertSame("EndpointInvocationChain not reused", result, mapping.getEndpoint(messageContext));
+	}
+
+	@Test
+	public void invocationChainNotCached() throws Exception {
+		final Object endpoint = new Object();
+		AbstractEndpointMapping mapping = new AbstractEndpointMapping() {
+			@Override
+			protected Object getEndpointInternal(MessageContext givenRequest) throws Exception {
+				return endpoint;
+			}
+		};
+		mapping.setCacheInvocationChains(false);
+
+		EndpointInvocationChain result = mapping.getEndpoint(messageContext);
+		assertNotSame("EndpointInvocationChain reused", result, mapping.getEndpoint(messageContext));
+	}
+
+	@Test
+	public void invocationChainClearedOnInterceptorChange() throws Exception {
+		final Object endpoint = new Object();
+		AbstractEndpointMapping mapping = new AbstractEndpointMapping() {
+			@Override
+			protected Object getEndpointInternal(MessageContext givenRequest) throws Exception {
+				return endpoint;
+			}
+		};
+		mapping.getEndpoint(messageContext);
+		mapping.setInterceptors(new EndpointInterceptor[]{new EndpointInterceptorAdapter()});
+
+		EndpointInvocationChain result = mapping.getEndpoint(messageContext);
+		assertEquals("Unexpected amount of EndpointInterceptors returned", 1, result.getInterceptors().length);
 	}
 
 	private static class MyEndpoint {
@@ -194,4 +254,18 @@ public class EndpointMappingTest {
 		}
 	}
 
+	private static class MyPropertySmartEndpointInterceptor extends DelegatingSmartEndpointInterceptor {
+
+		private static final String PROPERTY = "intercept";
+
+		private MyPropertySmartEndpointInterceptor() {
+			super(new EndpointInterceptorAdapter());
+		}
+
+		@Override
+		public boolean shouldIntercept(MessageContext messageContext, Object endpoint) {
+			return messageContext.containsProperty(PROPERTY);
+		}
+	}
+
 }
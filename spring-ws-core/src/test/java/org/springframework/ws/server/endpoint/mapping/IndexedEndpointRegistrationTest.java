@@ -0,0 +1,142 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.mapping;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import javax.xml.namespace.QName;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.ws.server.endpoint.annotation.Endpoint;
+import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
+import org.springframework.ws.server.endpoint.index.EndpointIndexLoader;
+import org.springframework.ws.soap.server.endpoint.annotation.SoapAction;
+import org.springframework.ws.soap.server.endpoint.mapping.SoapActionAnnotationMethodEndpointMapping;
+
+public class IndexedEndpointRegistrationTest {
+
+	private static final String NAMESPACE = "http://springframework.org/spring-ws";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private StaticApplicationContext applicationContext;
+
+	@Before
+	public void setUp() throws Exception {
+		File root = temporaryFolder.getRoot();
+		File indexFile = new File(root, EndpointIndexLoader.INDEX_LOCATION);
+		indexFile.getParentFile().mkdirs();
+		Writer writer = new FileWriter(indexFile);
+		try {
+			writer.write(PayloadRootEndpoint.class.getName() + "=" + Endpoint.class.getName() + "," +
+					PayloadRoot.class.getName() + "\n");
+			writer.write(SoapActionEndpoint.class.getName() + "=" + Endpoint.class.getName() + "," +
+					SoapAction.class.getName() + "\n");
+		}
+		finally {
+			writer.close();
+		}
+		applicationContext = new StaticApplicationContext();
+		applicationContext.setClassLoader(new URLClassLoader(new URL[]{root.toURI().toURL()}, getClass().getClassLoader()));
+		applicationContext.registerSingleton("payloadRootEndpoint", PayloadRootEndpoint.class);
+		applicationContext.registerSingleton("soapActionEndpoint", SoapActionEndpoint.class);
+		applicationContext.registerSingleton("unindexedEndpoint", UnindexedEndpoint.class);
+		applicationContext.registerSingleton("payloadRootMapping", PayloadRootAnnotationMethodEndpointMapping.class);
+		applicationContext.registerSingleton("soapActionMapping", SoapActionAnnotationMethodEndpointMapping.class);
+		applicationContext.refresh();
+	}
+
+	@Test
+	public void registration() throws Exception {
+		PayloadRootAnnotationMethodEndpointMapping payloadRootMapping =
+				applicationContext.getBean(PayloadRootAnnotationMethodEndpointMapping.class);
+		Assert.assertNotNull("Indexed endpoint not registered",
+				payloadRootMapping.lookupEndpoint(new QName(NAMESPACE, "Request")));
+		Assert.assertNull("Unindexed endpoint registered",
+				payloadRootMapping.lookupEndpoint(new QName(NAMESPACE, "Unindexed")));
+
+		SoapActionAnnotationMethodEndpointMapping soapActionMapping =
+				applicationContext.getBean(SoapActionAnnotationMethodEndpointMapping.class);
+		Assert.assertNotNull("Indexed endpoint not registered",
+				soapActionMapping.lookupEndpoint("http://example.com/action"));
+	}
+
+	@Test
+	public void indexWithoutEndpointBeans() throws Exception {
+		File root = temporaryFolder.newFolder();
+		File indexFile = new File(root, EndpointIndexLoader.INDEX_LOCATION);
+		indexFile.getParentFile().mkdirs();
+		Writer writer = new FileWriter(indexFile);
+		try {
+			writer.write("com.example.MissingEndpoint=" + Endpoint.class.getName() + "\n");
+		}
+		finally {
+			writer.close();
+		}
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.setClassLoader(new URLClassLoader(new URL[]{root.toURI().toURL()}, getClass().getClassLoader()));
+		applicationContext.registerSingleton("unindexedEndpoint", UnindexedEndpoint.class);
+		applicationContext.refresh();
+
+		Assert.assertEquals("Unindexed endpoint not detected", UnindexedEndpoint.class,
+				AnnotatedEndpointBeans.detect(applicationContext, false, Endpoint.class).get("unindexedEndpoint"));
+	}
+
+	@Test
+	public void sharedDetection() throws Exception {
+		Assert.assertSame("Endpoints detected twice",
+				AnnotatedEndpointBeans.detect(applicationContext, false, Endpoint.class),
+				AnnotatedEndpointBeans.detect(applicationContext, false, Endpoint.class));
+		Assert.assertEquals("Invalid endpoints", 2,
+				AnnotatedEndpointBeans.detect(applicationContext, false, Endpoint.class).size());
+	}
+
+	@Endpoint
+	public static class PayloadRootEndpoint {
+
+		@PayloadRoot(localPart = "Request", namespace = NAMESPACE)
+		public void doIt() {
+		}
+	}
+
+	@Endpoint
+	public static class SoapActionEndpoint {
+
+		@SoapAction("http://example.com/action")
+		public void doIt() {
+		}
+	}
+
+	@Endpoint
+	public static class UnindexedEndpoint {
+
+		@PayloadRoot(localPart = "Unindexed", namespace = NAMESPACE)
+		public void doIt() {
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.endpoint.support;
+
+import java.io.StringReader;
+import java.net.URI;
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.springframework.ws.MockWebServiceMessage;
+import org.springframework.ws.MockWebServiceMessageFactory;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.addressing.core.MessageAddressingProperties;
+import org.springframework.ws.soap.addressing.version.AddressingVersion;
+import org.springframework.xml.transform.TransformerHelper;
+
+import static org.easymock.EasyMock.*;
+
+public class RoutingFactsTest {
+
+	@Test
+	public void testPayloadRootQNameResolvedOnce() throws Exception {
+		WebServiceMessage requestMock = createMock(WebServiceMessage.class);
+		expect(requestMock.getPayloadSource())
+				.andReturn(new StreamSource(new StringReader("<root xmlns='http://example.com'/>"))).once();
+		replay(requestMock);
+		MessageContext messageContext = new DefaultMessageContext(requestMock, new MockWebServiceMessageFactory());
+
+		QName expected = new QName("http://example.com", "root");
+		Assert.assertEquals("Invalid payload root", expected,
+				RoutingFacts.get(messageContext).getPayloadRootQName(new TransformerHelper()));
+		Assert.assertEquals("Invalid payload root", expected,
+				RoutingFacts.get(messageContext).getPayloadRootQName(new TransformerHelper()));
+
+		verify(requestMock);
+	}
+
+	@Test
+	public void testSoapAction() throws Exception {
+		SoapMessage requestMock = createMock(SoapMessage.class);
+		expect(requestMock.getSoapAction()).andReturn("\"http://example.com/action\"").once();
+		replay(requestMock);
+		MessageContext messageContext = new DefaultMessageContext(requestMock, new MockWebServiceMessageFactory());
+
+		Assert.assertEquals("Invalid SOAP action", "http://example.com/action",
+				RoutingFacts.get(messageContext).getSoapAction());
+		Assert.assertEquals("Invalid SOAP action", "http://example.com/action",
+				RoutingFacts.get(messageContext).getSoapAction());
+
+		verify(requestMock);
+	}
+
+	@Test
+	public void testNoSoapMessage() throws Exception {
+		MessageContext messageContext = new DefaultMessageContext(new MockWebServiceMessage("<root/>"), new MockWebServiceMessageFactory());
+		RoutingFacts facts = RoutingFacts.get(messageContext);
+		Assert.assertNull("SOAP action for non-SOAP message", facts.getSoapAction());
+		Assert.assertTrue("Header elements for non-SOAP message", facts.getSoapHeaderElements().isEmpty());
+		Assert.assertNull("Addressing properties for non-SOAP message",
+				facts.getMessageAddressingProperties(createMock(AddressingVersion.class)));
+	}
+
+	@Test
+	public void testMessageAddressingPropertiesResolvedOncePerVersion() throws Exception {
+		SoapMessage requestMock = createMock(SoapMessage.class);
+		MessageAddressingProperties properties =
+				new MessageAddressingProperties(new URI("http://example.com/to"), null, null, null, null, null);
+		AddressingVersion versionMock = createMock(AddressingVersion.class);
+		expect(versionMock.getMessageAddressingProperties(requestMock)).andReturn(properties).once();
+		replay(requestMock, versionMock);
+		MessageContext messageContext = new DefaultMessageContext(requestMock, new MockWebServiceMessageFactory());
+
+		Assert.assertSame("Invalid properties", properties,
+				RoutingFacts.get(messageContext).getMessageAddressingProperties(versionMock));
+		Assert.assertSame("Invalid properties", properties,
+				RoutingFacts.get(messageContext).getMessageAddressingProperties(versionMock));
+
+		verify(requestMock, versionMock);
+	}
+
+}
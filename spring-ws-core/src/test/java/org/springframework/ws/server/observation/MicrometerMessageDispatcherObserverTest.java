@@ -0,0 +1,145 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.server.observation;
+
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ws.MockWebServiceMessage;
+import org.springframework.ws.MockWebServiceMessageFactory;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.EndpointInterceptor;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.interceptor.EndpointInterceptorAdapter;
+import org.springframework.ws.server.endpoint.mapping.PayloadRootQNameEndpointMapping;
+import org.springframework.ws.transport.context.DefaultTransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+import org.springframework.ws.transport.http.HttpServletConnection;
+
+public class MicrometerMessageDispatcherObserverTest {
+
+	private MeterRegistry registry;
+
+	private MicrometerMessageDispatcherObserver observer;
+
+	private MessageContext messageContext;
+
+	@Before
+	public void setUp() throws Exception {
+		registry = new SimpleMeterRegistry();
+		observer = new MicrometerMessageDispatcherObserver(registry);
+		messageContext = new DefaultMessageContext(new MockWebServiceMessage(), new MockWebServiceMessageFactory());
+	}
+
+	@Test
+	public void testEndpointMapped() throws Exception {
+		observer.endpointMapped(messageContext, new PayloadRootQNameEndpointMapping(), 1000);
+		observer.endpointMapped(messageContext, null, 2000);
+
+		Timer timer = registry.find(MicrometerMessageDispatcherObserver.ENDPOINT_MAPPING_METER)
+				.tag("mapping", "PayloadRootQNameEndpointMapping").timer();
+		Assert.assertNotNull("No timer registered for mapping", timer);
+		Assert.assertEquals("Invalid count", 1, timer.count());
+		Assert.assertEquals("Invalid total time", 1000, timer.totalTime(TimeUnit.NANOSECONDS), 0);
+		timer = registry.find(MicrometerMessageDispatcherObserver.ENDPOINT_MAPPING_METER).tag("mapping", "none")
+				.timer();
+		Assert.assertNotNull("No timer registered for missing mapping", timer);
+		Assert.assertEquals("Invalid count", 1, timer.count());
+	}
+
+	@Test
+	public void testIntercepted() throws Exception {
+		EndpointInterceptor interceptor = new EndpointInterceptorAdapter();
+		observer.requestIntercepted(messageContext, interceptor, 1000);
+		observer.responseIntercepted(messageContext, interceptor, false, 1000);
+		observer.responseIntercepted(messageContext, interceptor, true, 1000);
+		observer.responseIntercepted(messageContext, interceptor, true, 1000);
+
+		Assert.assertEquals("Invalid request count", 1, interceptorTimer("request").count());
+		Assert.assertEquals("Invalid response count", 1, interceptorTimer("response").count());
+		Assert.assertEquals("Invalid fault count", 2, interceptorTimer("fault").count());
+	}
+
+	private Timer interceptorTimer(String phase) {
+		return registry.find(MicrometerMessageDispatcherObserver.INTERCEPTOR_METER)
+				.tags("interceptor", "EndpointInterceptorAdapter", "phase", phase).timer();
+	}
+
+	@Test
+	public void testEndpointInvoked() throws Exception {
+		MethodEndpoint endpoint = new MethodEndpoint(this, "handle");
+		observer.endpointInvoked(messageContext, endpoint, 1000, null);
+		observer.endpointInvoked(messageContext, endpoint, 1000, null);
+		observer.endpointInvoked(messageContext, endpoint, 1000, new IllegalArgumentException());
+
+		Timer timer = registry.find(MicrometerMessageDispatcherObserver.ENDPOINT_INVOCATION_METER)
+				.tags("endpoint", "MicrometerMessageDispatcherObserverTest.handle", "exception", "none").timer();
+		Assert.assertNotNull("No timer registered for endpoint", timer);
+		Assert.assertEquals("Invalid count", 2, timer.count());
+		timer = registry.find(MicrometerMessageDispatcherObserver.ENDPOINT_INVOCATION_METER)
+				.tag("exception", "IllegalArgumentException").timer();
+		Assert.assertNotNull("No timer registered for exception", timer);
+		Assert.assertEquals("Invalid count", 1, timer.count());
+	}
+
+	@Test
+	public void testMessageDispatchedFault() throws Exception {
+		MockWebServiceMessage response = (MockWebServiceMessage) messageContext.getResponse();
+		response.setFault(true);
+		response.setFaultCode(new QName("http://example.com", "Client"));
+
+		observer.messageDispatched(messageContext, 1000, null);
+
+		Assert.assertEquals("Invalid dispatch count", 1,
+				registry.find(MicrometerMessageDispatcherObserver.DISPATCH_METER).timer().count());
+		Assert.assertEquals("Invalid fault count", 1,
+				registry.find(MicrometerMessageDispatcherObserver.FAULTS_METER).tag("code", "Client").counter()
+						.count(), 0);
+	}
+
+	@Test
+	public void testMessageDispatchedRequestSize() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Content-Length", "42");
+		HttpServletConnection connection = new HttpServletConnection(request, new MockHttpServletResponse()) {
+		};
+		TransportContextHolder.setTransportContext(new DefaultTransportContext(connection));
+		try {
+			observer.messageDispatched(messageContext, 1000, null);
+		}
+		finally {
+			TransportContextHolder.setTransportContext(null);
+		}
+
+		Assert.assertEquals("Invalid request size", 42,
+				registry.find(MicrometerMessageDispatcherObserver.REQUEST_SIZE_METER).summary().totalAmount(), 0);
+	}
+
+	public void handle() {
+	}
+
+}
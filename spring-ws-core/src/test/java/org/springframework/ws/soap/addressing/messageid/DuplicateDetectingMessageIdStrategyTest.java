@@ -0,0 +1,107 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.addressing.messageid;
+
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DuplicateDetectingMessageIdStrategyTest {
+
+	private DuplicateDetectingMessageIdStrategy strategy;
+
+	private long now;
+
+	@Before
+	public void setUp() throws Exception {
+		now = 0;
+		strategy = new DuplicateDetectingMessageIdStrategy() {
+			@Override
+			protected long currentTimeMillis() {
+				return now;
+			}
+		};
+		strategy.setWindow(1000);
+		strategy.setMaximumSize(100);
+	}
+
+	@Test
+	public void testNewMessageId() {
+		URI messageId1 = strategy.newMessageId(null);
+		assertNotNull("Empty messageId", messageId1);
+		URI messageId2 = strategy.newMessageId(null);
+		assertFalse("Equal messageIds", messageId1.equals(messageId2));
+	}
+
+	@Test
+	public void testDuplicate() throws Exception {
+		URI messageId = new URI("urn:uuid:1234");
+		assertFalse("New messageId is duplicate", strategy.isDuplicate(messageId));
+		now = 500;
+		assertTrue("Redelivered messageId is not duplicate", strategy.isDuplicate(messageId));
+		assertFalse("Other messageId is duplicate", strategy.isDuplicate(new URI("urn:uuid:5678")));
+	}
+
+	@Test
+	public void testProcessingFailed() throws Exception {
+		URI messageId = new URI("urn:uuid:1234");
+		assertFalse("New messageId is duplicate", strategy.isDuplicate(messageId));
+		strategy.processingFailed(messageId);
+		assertFalse("Redelivered failed messageId is duplicate", strategy.isDuplicate(messageId));
+		assertTrue("Redelivered messageId is not duplicate", strategy.isDuplicate(messageId));
+		strategy.processingFailed(null);
+	}
+
+	@Test
+	public void testNull() throws Exception {
+		assertFalse("null is duplicate", strategy.isDuplicate(null));
+		assertFalse("null is duplicate", strategy.isDuplicate(null));
+	}
+
+	@Test
+	public void testWindowExpired() throws Exception {
+		URI messageId = new URI("urn:uuid:1234");
+		assertFalse("New messageId is duplicate", strategy.isDuplicate(messageId));
+		now = 999;
+		assertTrue("Redelivered messageId is not duplicate", strategy.isDuplicate(messageId));
+		now = 1000;
+		assertFalse("Expired messageId is duplicate", strategy.isDuplicate(messageId));
+		now = 1500;
+		assertTrue("Redelivered messageId is not duplicate", strategy.isDuplicate(messageId));
+	}
+
+	@Test
+	public void testMaximumSize() throws Exception {
+		URI first = new URI("urn:uuid:0");
+		assertFalse("New messageId is duplicate", strategy.isDuplicate(first));
+		for (int i = 1; i <= 100; i++) {
+			assertFalse("New messageId is duplicate", strategy.isDuplicate(new URI("urn:uuid:" + i)));
+		}
+		assertFalse("Evicted messageId is duplicate", strategy.isDuplicate(first));
+		assertTrue("Recent messageId is not duplicate", strategy.isDuplicate(new URI("urn:uuid:100")));
+	}
+
+	@Test
+	public void testManyUniqueMessageIds() throws Exception {
+		for (int i = 0; i < 10000; i++) {
+			assertFalse("Unique messageId is duplicate", strategy.isDuplicate(strategy.newMessageId(null)));
+		}
+	}
+}
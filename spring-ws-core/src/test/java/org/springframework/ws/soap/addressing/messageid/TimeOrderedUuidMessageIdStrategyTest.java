@@ -0,0 +1,79 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.addressing.messageid;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeOrderedUuidMessageIdStrategyTest {
+
+	private long now;
+
+	private TimeOrderedUuidMessageIdStrategy strategy;
+
+	@Before
+	public void setUp() throws Exception {
+		now = 0x0123456789ABL;
+		strategy = new TimeOrderedUuidMessageIdStrategy() {
+			@Override
+			protected long currentTimeMillis() {
+				return now;
+			}
+		};
+	}
+
+	@Test
+	public void testFormat() {
+		URI messageId = strategy.newMessageId(null);
+		String s = messageId.toString();
+		assertTrue("Invalid prefix", s.startsWith(UuidMessageIdStrategy.PREFIX));
+		UUID uuid = UUID.fromString(s.substring(UuidMessageIdStrategy.PREFIX.length()));
+		assertEquals("Invalid representation", s, UuidMessageIdStrategy.PREFIX + uuid.toString());
+		assertEquals("Invalid version", 7, uuid.version());
+		assertEquals("Invalid variant", 2, uuid.variant());
+		assertEquals("Invalid timestamp", now, uuid.getMostSignificantBits() >>> 16);
+		assertTrue("Invalid time prefix", s.startsWith("urn:uuid:01234567-89ab-7"));
+	}
+
+	@Test
+	public void testUnique() {
+		Set<URI> messageIds = new HashSet<URI>();
+		for (int i = 0; i < 10000; i++) {
+			assertTrue("Duplicate messageId", messageIds.add(strategy.newMessageId(null)));
+		}
+	}
+
+	@Test
+	public void testTimeOrdered() {
+		String messageId1 = strategy.newMessageId(null).toString();
+		now++;
+		String messageId2 = strategy.newMessageId(null).toString();
+		assertTrue("MessageIds not ordered", messageId1.compareTo(messageId2) < 0);
+	}
+
+	@Test
+	public void testIsDuplicate() {
+		assertFalse("MessageId is duplicate", strategy.isDuplicate(strategy.newMessageId(null)));
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.addressing.AbstractWsAddressingTestCase;
+import org.springframework.ws.soap.addressing.messageid.DuplicateDetectingMessageIdStrategy;
 import org.springframework.ws.soap.addressing.messageid.MessageIdStrategy;
 import org.springframework.ws.soap.addressing.version.AddressingVersion;
 import org.springframework.ws.soap.saaj.SaajSoapMessage;
@@ -85,6 +86,28 @@ public abstract class AbstractAddressingInterceptorTestCase extends AbstractWsAd
 		verify(strategyMock);
 	}
 
+	@Test
+	public void testRedeliveryAfterFailure() throws Exception {
+		interceptor = new AddressingEndpointInterceptor(getVersion(), new DuplicateDetectingMessageIdStrategy(),
+				new WebServiceMessageSender[0], new URI("urn:replyAction"), new URI("urn:faultAction"));
+		SaajSoapMessage valid = loadSaajMessage(getTestPath() + "/valid.xml");
+		MessageContext context = new DefaultMessageContext(valid, new SaajSoapMessageFactory(messageFactory));
+
+		assertTrue("Valid request not handled", interceptor.handleRequest(context, null));
+		interceptor.afterCompletion(context, null, new IllegalStateException());
+
+		context = new DefaultMessageContext(valid, new SaajSoapMessageFactory(messageFactory));
+		assertTrue("Redelivery after failure not handled", interceptor.handleRequest(context, null));
+		interceptor.afterCompletion(context, null, null);
+
+		context = new DefaultMessageContext(valid, new SaajSoapMessageFactory(messageFactory));
+		assertFalse("Redelivery after success handled", interceptor.handleRequest(context, null));
+		interceptor.afterCompletion(context, null, null);
+
+		context = new DefaultMessageContext(valid, new SaajSoapMessageFactory(messageFactory));
+		assertFalse("Rejected duplicate released message id", interceptor.handleRequest(context, null));
+	}
+
 	@Test
 	public void testNoMessageId() throws Exception {
 		SaajSoapMessage valid = loadSaajMessage(getTestPath() + "/request-no-message-id.xml");
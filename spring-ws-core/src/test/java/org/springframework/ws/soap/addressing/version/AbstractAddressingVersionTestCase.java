@@ -0,0 +1,95 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.addressing.version;
+
+import java.io.InputStream;
+import java.net.URI;
+
+import org.junit.Test;
+
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.SoapVersion;
+import org.springframework.ws.soap.addressing.AbstractWsAddressingTestCase;
+import org.springframework.ws.soap.addressing.core.MessageAddressingProperties;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
+import org.springframework.ws.transport.MockTransportInputStream;
+
+import static org.junit.Assert.*;
+
+public abstract class AbstractAddressingVersionTestCase extends AbstractWsAddressingTestCase {
+
+	protected AddressingVersion version = getVersion();
+
+	@Test
+	public void testGetMessageAddressingPropertiesSaaj() throws Exception {
+		SoapMessage message = loadSaajMessage(getTestPath() + "/valid.xml");
+		assertValid(version.getMessageAddressingProperties(message));
+	}
+
+	@Test
+	public void testGetMessageAddressingPropertiesAxiom() throws Exception {
+		SoapMessage message = loadAxiomMessage(getTestPath() + "/valid.xml");
+		assertValid(version.getMessageAddressingProperties(message));
+	}
+
+	@Test
+	public void testGetMessageAddressingPropertiesFaultTo() throws Exception {
+		SoapMessage message = loadSaajMessage(getTestPath() + "/request-fault-to.xml");
+		MessageAddressingProperties map = version.getMessageAddressingProperties(message);
+		assertNotNull("No ReplyTo", map.getReplyTo());
+		assertEquals("Invalid ReplyTo", new URI("http://example.com/business/client1"),
+				map.getReplyTo().getAddress());
+		assertNotNull("No FaultTo", map.getFaultTo());
+		assertTrue("FaultTo not anonymous", version.hasAnonymousAddress(map.getFaultTo()));
+	}
+
+	@Test
+	public void testGetMessageAddressingPropertiesNoReplyTo() throws Exception {
+		SoapMessage message = loadSaajMessage(getTestPath() + "/request-no-reply-to.xml");
+		MessageAddressingProperties map = version.getMessageAddressingProperties(message);
+		assertNotNull("No default ReplyTo", map.getReplyTo());
+		assertEquals("FaultTo does not default to ReplyTo", map.getReplyTo(), map.getFaultTo());
+	}
+
+	private void assertValid(MessageAddressingProperties map) throws Exception {
+		assertEquals("Invalid MessageID", new URI("http://example.com/someuniquestring"), map.getMessageId());
+		assertEquals("Invalid To", new URI("mailto:fabrikam@example.com"), map.getTo());
+		assertEquals("Invalid Action", new URI("http://example.com/fabrikam/mail/Delete"), map.getAction());
+		assertNotNull("No ReplyTo", map.getReplyTo());
+		assertEquals("Invalid ReplyTo", new URI("http://example.com/business/client1"),
+				map.getReplyTo().getAddress());
+		assertEquals("FaultTo does not default to ReplyTo", map.getReplyTo(), map.getFaultTo());
+		assertNull("Invalid From", map.getFrom());
+	}
+
+	private SoapMessage loadAxiomMessage(String fileName) throws Exception {
+		AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+		messageFactory.setSoapVersion(SoapVersion.SOAP_12);
+		InputStream is = AbstractWsAddressingTestCase.class.getResourceAsStream(fileName);
+		assertNotNull("Could not load " + fileName, is);
+		try {
+			return messageFactory.createWebServiceMessage(new MockTransportInputStream(is));
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	protected abstract AddressingVersion getVersion();
+
+	protected abstract String getTestPath();
+}
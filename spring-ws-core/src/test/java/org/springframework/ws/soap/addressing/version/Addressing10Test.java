@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -14,16 +14,17 @@
  * limitations under the License.
  */
 
-package org.springframework.ws.soap.stroap;
+package org.springframework.ws.soap.addressing.version;
 
-import org.springframework.ws.soap.SoapFault;
+public class Addressing10Test extends AbstractAddressingVersionTestCase {
 
-/**
- * @author Arjen Poutsma
- */
-abstract class StroapFault extends StroapElement implements SoapFault {
+	@Override
+	protected AddressingVersion getVersion() {
+		return new Addressing10();
+	}
 
-	protected StroapFault(StroapMessageFactory messageFactory) {
-		super(messageFactory.getSoapVersion().getFaultName(), messageFactory);
+	@Override
+	protected String getTestPath() {
+		return "10";
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2012 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,14 +17,19 @@
 package org.springframework.ws.soap.axiom;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
+import java.util.Collections;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 
+import org.springframework.util.FileCopyUtils;
 import org.springframework.ws.InvalidXmlException;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.mime.Attachment;
 import org.springframework.ws.soap.soap11.AbstractSoap11MessageFactoryTestCase;
 import org.springframework.ws.transport.MockTransportInputStream;
 import org.springframework.ws.transport.TransportInputStream;
@@ -32,13 +37,20 @@ import org.springframework.xml.transform.StringResult;
 
 import org.custommonkey.xmlunit.XMLAssert;
 import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class AxiomSoap11MessageFactoryTest extends AbstractSoap11MessageFactoryTestCase {
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private Transformer transformer;
 
 	@Override
@@ -142,4 +154,29 @@ public class AxiomSoap11MessageFactoryTest extends AbstractSoap11MessageFactoryT
 
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testAttachmentCacheDeletedOnClose() throws Exception {
+		File cacheDir = temporaryFolder.newFolder();
+		AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+		messageFactory.setAttachmentCaching(true);
+		messageFactory.setAttachmentCacheDir(cacheDir);
+		messageFactory.setAttachmentCacheThreshold(1);
+		messageFactory.afterPropertiesSet();
+
+		InputStream is = AbstractSoap11MessageFactoryTestCase.class.getResourceAsStream("soap11-attachment.bin");
+		TransportInputStream tis = new MockTransportInputStream(is, Collections.singletonMap("Content-Type",
+				"multipart/related;" + "type=\"text/xml\";" + "boundary=\"----=_Part_0_11416420.1149699787554\""));
+		AxiomSoapMessage message = messageFactory.createWebServiceMessage(tis);
+		Attachment attachment = message.getAttachment("interface21");
+		assertTrue("Invalid size", attachment.getSize() > 0);
+		assertEquals("Attachment not cached", 1, cacheDir.list().length);
+		InputStream attachmentStream = attachment.getInputStream();
+		assertFalse("Cached attachment not read through channel", attachmentStream instanceof FileInputStream);
+		assertEquals("Invalid attachment contents", attachment.getSize(),
+				FileCopyUtils.copyToByteArray(attachmentStream).length);
+
+		message.close();
+		assertEquals("Cached attachment not deleted", 0, cacheDir.list().length);
+	}
+
+}
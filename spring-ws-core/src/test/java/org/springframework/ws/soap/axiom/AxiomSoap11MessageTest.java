@@ -16,10 +16,21 @@
 
 package org.springframework.ws.soap.axiom;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
 import org.apache.axiom.om.OMAbstractFactory;
 import org.apache.axiom.soap.SOAPFactory;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.ws.mime.AbstractMimeMessageTestCase;
+import org.springframework.ws.mime.Attachment;
 import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.soap11.AbstractSoap11MessageTestCase;
+import org.springframework.ws.transport.MockTransportOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class AxiomSoap11MessageTest extends AbstractSoap11MessageTestCase {
 
@@ -34,4 +45,16 @@ public class AxiomSoap11MessageTest extends AbstractSoap11MessageTestCase {
 		return new AxiomSoapMessage(axiomFactory);
 	}
 
+	@Test
+	public void testWriteToFileAttachment() throws Exception {
+		File file = new ClassPathResource("spring-ws.png", AbstractMimeMessageTestCase.class).getFile();
+		Attachment attachment = soapMessage.addAttachment("contentId", file);
+		assertEquals("Invalid size", file.length(), attachment.getSize());
+		assertEquals("Invalid size", file.length(), soapMessage.getAttachment("contentId").getSize());
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		soapMessage.writeTo(new MockTransportOutputStream(bos));
+		assertTrue("Attachment not written", bos.size() > file.length());
+	}
+
 }
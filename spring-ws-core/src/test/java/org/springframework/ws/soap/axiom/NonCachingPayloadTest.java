@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,18 +16,27 @@
 
 package org.springframework.ws.soap.axiom;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.TransformerFactory;
 
 import org.springframework.util.xml.StaxUtils;
+import org.springframework.xml.transform.StringResult;
 
 import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMSourcedElement;
 import org.apache.axiom.soap.SOAPBody;
 import org.apache.axiom.soap.SOAPFactory;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @SuppressWarnings("Since15")
 public class NonCachingPayloadTest {
@@ -107,4 +116,62 @@ public class NonCachingPayloadTest {
 				"<root xmlns='http://springframework.org/spring-ws'>" + "<child />" + "</root></soapenv:Body>";
 		assertXMLEqual(expected, writer.toString());
 	}
+
+	@Test
+	public void testDelegatingStreamWriterIsRecorded() throws Exception {
+		XMLStreamWriter streamWriter = StaxUtils.getXMLStreamWriter(payload.getResult());
+
+		String namespace = "http://springframework.org/spring-ws";
+		streamWriter.writeStartElement("prefix", "root", namespace);
+		streamWriter.writeNamespace("prefix", namespace);
+		assertEquals("Invalid prefix", "prefix", streamWriter.getPrefix(namespace));
+		streamWriter.writeStartElement("prefix", "child", namespace);
+		streamWriter.writeCharacters("text".toCharArray(), 0, 4);
+		streamWriter.writeEndElement();
+		streamWriter.writeEndElement();
+		assertNull("Prefix still bound", streamWriter.getPrefix(namespace));
+
+		OMSourcedElement payloadElement = (OMSourcedElement) body.getFirstElement();
+		assertTrue("Payload not recorded", payloadElement.getDataSource() instanceof RecordingOMDataSource);
+		assertFalse("Payload expanded", payloadElement.isExpanded());
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		body.serializeAndConsume(os);
+
+		String expected = "<soapenv:Body xmlns:soapenv='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<prefix:root xmlns:prefix='http://springframework.org/spring-ws'>" +
+				"<prefix:child>text</prefix:child></prefix:root></soapenv:Body>";
+		assertXMLEqual(expected, os.toString("UTF-8"));
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testDelegatingStreamWriterUnboundNamespace() throws Exception {
+		XMLStreamWriter streamWriter = StaxUtils.getXMLStreamWriter(payload.getResult());
+
+		streamWriter.writeStartElement("http://springframework.org/spring-ws", "root");
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testDelegatingStreamWriterUnboundNamespaceEmptyElement() throws Exception {
+		XMLStreamWriter streamWriter = StaxUtils.getXMLStreamWriter(payload.getResult());
+
+		streamWriter.writeStartElement("root");
+		streamWriter.writeEmptyElement("http://springframework.org/spring-ws", "child");
+	}
+
+	@Test
+	public void testGetSourceAfterDeferredResult() throws Exception {
+		XMLStreamWriter streamWriter = StaxUtils.getXMLStreamWriter(payload.getResult());
+
+		String namespace = "http://springframework.org/spring-ws";
+		streamWriter.setDefaultNamespace(namespace);
+		streamWriter.writeStartElement(namespace, "root");
+		streamWriter.writeDefaultNamespace(namespace);
+		streamWriter.writeAttribute("attr", "value");
+		streamWriter.writeEndElement();
+
+		StringResult result = new StringResult();
+		TransformerFactory.newInstance().newTransformer().transform(payload.getSource(), result);
+		assertXMLEqual("<root xmlns='http://springframework.org/spring-ws' attr='value'/>", result.toString());
+	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.ws.soap.saaj;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Collections;
@@ -27,9 +28,18 @@ import javax.xml.soap.SOAPMessage;
 import org.springframework.ws.WebServiceMessageFactory;
 import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.soap11.AbstractSoap11MessageFactoryTestCase;
+import org.springframework.ws.transport.HeadersAwareReceiverWebServiceConnection;
+import org.springframework.ws.transport.MockTransportInputStream;
+import org.springframework.ws.transport.MockTransportOutputStream;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.context.DefaultTransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
 
+import org.junit.After;
 import org.junit.Test;
 
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class SaajSoap11MessageFactoryTest extends AbstractSoap11MessageFactoryTestCase {
@@ -51,5 +61,87 @@ public class SaajSoap11MessageFactoryTest extends AbstractSoap11MessageFactoryTe
 		assertTrue("XML declaration not written", result.startsWith("<?xml version=\"1.0\""));
 	}
 
+	@After
+	public void clearTransportContext() {
+		TransportContextHolder.setTransportContext(null);
+	}
+
+	@Test
+	public void fastInfosetAdvertised() throws IOException {
+		((SaajSoapMessageFactory) messageFactory).setFastInfoset(true);
+		SoapMessage soapMessage = (SoapMessage) messageFactory.createWebServiceMessage();
+		MockTransportOutputStream tos = new MockTransportOutputStream(new ByteArrayOutputStream());
+		soapMessage.writeTo(tos);
+		assertTrue("Fast Infoset not advertised", tos.getHeaders().get("Accept").startsWith("application/fastinfoset"));
+		assertTrue("Message not written as text XML", tos.getHeaders().get("Content-Type").startsWith("text/xml"));
+	}
+
+	@Test
+	public void fastInfosetResponse() throws IOException {
+		((SaajSoapMessageFactory) messageFactory).setFastInfoset(true);
+		receiveRequest("application/fastinfoset, text/xml");
+
+		SoapMessage response = (SoapMessage) messageFactory.createWebServiceMessage();
+		response.getSoapBody().addClientOrSenderFault("Invalid", null);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		MockTransportOutputStream tos = new MockTransportOutputStream(bos);
+		response.writeTo(tos);
+		String contentType = tos.getHeaders().get("Content-Type");
+		assertTrue("Response not written as Fast Infoset", contentType.startsWith("application/fastinfoset"));
+
+		TransportContextHolder.setTransportContext(null);
+		SoapMessage parsed = (SoapMessage) messageFactory.createWebServiceMessage(new MockTransportInputStream(
+				new ByteArrayInputStream(bos.toByteArray()), Collections.singletonMap("Content-Type", contentType)));
+		assertEquals("Invalid fault", "Invalid", parsed.getSoapBody().getFault().getFaultStringOrReason());
+	}
+
+	@Test
+	public void fastInfosetNotAccepted() throws IOException {
+		((SaajSoapMessageFactory) messageFactory).setFastInfoset(true);
+		receiveRequest("text/xml");
+
+		SoapMessage response = (SoapMessage) messageFactory.createWebServiceMessage();
+		MockTransportOutputStream tos = new MockTransportOutputStream(new ByteArrayOutputStream());
+		response.writeTo(tos);
+		assertTrue("Response not written as text XML", tos.getHeaders().get("Content-Type").startsWith("text/xml"));
+	}
+
+	@Test
+	public void fastInfosetNotAdvertisedOnResponse() throws IOException {
+		((SaajSoapMessageFactory) messageFactory).setFastInfoset(true);
+		receiveRequest("application/fastinfoset");
+
+		SoapMessage response = (SoapMessage) messageFactory.createWebServiceMessage();
+		MockTransportOutputStream tos = new MockTransportOutputStream(new ByteArrayOutputStream());
+		response.writeTo(tos);
+		String accept = tos.getHeaders().get("Accept");
+		assertTrue("Fast Infoset advertised on response", accept == null || !accept.contains("fastinfoset"));
+	}
+
+	@Test
+	public void fastInfosetNotAcceptedWithZeroQuality() throws IOException {
+		((SaajSoapMessageFactory) messageFactory).setFastInfoset(true);
+		receiveRequest("application/fastinfoset;q=0, text/xml");
+
+		SoapMessage response = (SoapMessage) messageFactory.createWebServiceMessage();
+		MockTransportOutputStream tos = new MockTransportOutputStream(new ByteArrayOutputStream());
+		response.writeTo(tos);
+		assertTrue("Response not written as text XML", tos.getHeaders().get("Content-Type").startsWith("text/xml"));
+	}
+
+	private void receiveRequest(String accept) throws IOException {
+		ReceiverConnection connectionMock = createMock(ReceiverConnection.class);
+		expect(connectionMock.getRequestHeaders("Accept"))
+				.andReturn(Collections.singletonList(accept).iterator()).anyTimes();
+		expect(connectionMock.getRequestHeaders("Content-Type"))
+				.andReturn(Collections.singletonList("text/xml").iterator()).anyTimes();
+		replay(connectionMock);
+		TransportContextHolder.setTransportContext(new DefaultTransportContext(connectionMock));
+	}
+
+	private interface ReceiverConnection extends WebServiceConnection, HeadersAwareReceiverWebServiceConnection {
+
+	}
+
 
 }
\ No newline at end of file
@@ -65,6 +65,16 @@ public class SoapFaultAnnotationExceptionResolverTest {
 		Assert.assertNull("Detail on fault", fault.getFaultDetail());
 	}
 
+	@Test
+	public void testFaultDefinitionCached() throws Exception {
+		SoapFaultDefinition definition = resolver.getFaultDefinition(null, new MyClientException());
+		Assert.assertNotNull("No definition", definition);
+		Assert.assertSame("Definition not cached", definition,
+				resolver.getFaultDefinition(null, new MyClientException()));
+		Assert.assertNull("Definition for unannotated exception",
+				resolver.getFaultDefinition(null, new IllegalStateException()));
+	}
+
 	@Test
 	public void testResolveExceptionSenderSoap12() throws Exception {
 		MessageFactory saajFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_2_PROTOCOL);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -213,5 +213,34 @@ public class SoapFaultMappingExceptionResolverTest {
 		Assert.assertNull("Detail on fault", fault.getFaultDetail());
 	}
 
+	@Test
+	public void testFaultDefinitionCached() throws Exception {
+		final int[] depthCalls = new int[1];
+		resolver = new SoapFaultMappingExceptionResolver() {
+
+			@Override
+			protected int getDepth(String exceptionMapping, Exception ex) {
+				depthCalls[0]++;
+				return super.getDepth(exceptionMapping, ex);
+			}
+		};
+		Properties mappings = new Properties();
+		mappings.setProperty(IOException.class.getName(), "SERVER, Server error");
+		mappings.setProperty(IllegalArgumentException.class.getName(), "CLIENT, Client error");
+		resolver.setExceptionMappings(mappings);
+
+		SoapFaultDefinition definition = resolver.getFaultDefinition(null, new IllegalArgumentException());
+		Assert.assertEquals("Invalid fault code", SoapFaultDefinition.CLIENT, definition.getFaultCode());
+		definition.setFaultCode(SoapFaultDefinition.SERVER);
+		definition.setFaultStringOrReason("Modified");
+		SoapFaultDefinition other = resolver.getFaultDefinition(null, new IllegalArgumentException("other"));
+		Assert.assertNotSame("Cached definition not copied", definition, other);
+		Assert.assertEquals("Cached definition modified", SoapFaultDefinition.CLIENT, other.getFaultCode());
+		Assert.assertEquals("Cached definition modified", "Client error", other.getFaultStringOrReason());
+		Assert.assertEquals("Invalid locale", Locale.ENGLISH, other.getLocale());
+		Assert.assertNull("Definition for unmapped exception", resolver.getFaultDefinition(null, new IllegalStateException()));
+		Assert.assertNull("Definition for unmapped exception", resolver.getFaultDefinition(null, new IllegalStateException()));
+		Assert.assertEquals("Mappings searched more than once per class", 4, depthCalls[0]);
+	}
 
-}
\ No newline at end of file
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.util.Locale;
 import javax.xml.XMLConstants;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.soap.MessageFactory;
 import javax.xml.soap.SOAPConstants;
 import javax.xml.soap.SOAPMessage;
@@ -41,6 +43,10 @@ import org.springframework.ws.MockWebServiceMessageFactory;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.context.DefaultMessageContext;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.server.endpoint.adapter.method.jaxb.XmlRootElementPayloadMethodProcessor;
+import org.springframework.ws.server.endpoint.annotation.RequestPayload;
+import org.springframework.ws.server.endpoint.support.DeferredRequestValidation;
 import org.springframework.ws.soap.SoapMessage;
 import org.springframework.ws.soap.SoapVersion;
 import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
@@ -394,4 +400,109 @@ public class PayloadValidatingInterceptorTest {
 		Assert.assertFalse("Context has response", context.hasResponse());
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void deferredRequestValidation() throws Exception {
+		interceptor.setDeferRequestValidation(true);
+		interceptor.afterPropertiesSet();
+		SoapMessage invalidMessage = soap11Factory.createWebServiceMessage();
+		InputStream inputStream = getClass().getResourceAsStream(INVALID_MESSAGE);
+		transformer.transform(new StreamSource(inputStream), invalidMessage.getPayloadResult());
+		context = new DefaultMessageContext(invalidMessage, soap11Factory);
+		MethodEndpoint endpoint = new MethodEndpoint(this, getClass().getMethod("product", Product.class));
+
+		boolean result = interceptor.handleRequest(context, endpoint);
+		Assert.assertTrue("Invalid response from interceptor", result);
+		Assert.assertFalse("Context has response", context.hasResponse());
+		Assert.assertNotNull("No deferred validation", DeferredRequestValidation.get(context));
+
+		XmlRootElementPayloadMethodProcessor processor = new XmlRootElementPayloadMethodProcessor();
+		Object product = processor.resolveArgument(context, endpoint.getMethodParameters()[0]);
+		Assert.assertNull("Argument resolved", product);
+		Assert.assertTrue("Request not rejected", DeferredRequestValidation.isRejected(context));
+		Assert.assertNull("Deferred validation not completed", DeferredRequestValidation.get(context));
+		SoapMessage response = (SoapMessage) context.getResponse();
+		Assert.assertTrue("Response has no fault", response.getSoapBody().hasFault());
+		Assert.assertEquals("Invalid fault string on fault", PayloadValidatingInterceptor.DEFAULT_FAULTSTRING_OR_REASON,
+				response.getSoapBody().getFault().getFaultStringOrReason());
+	}
+
+	@Test
+	public void deferredRequestValidationValid() throws Exception {
+		interceptor.setDeferRequestValidation(true);
+		interceptor.afterPropertiesSet();
+		SoapMessage validMessage = soap11Factory.createWebServiceMessage();
+		InputStream inputStream = getClass().getResourceAsStream(VALID_MESSAGE);
+		transformer.transform(new StreamSource(inputStream), validMessage.getPayloadResult());
+		context = new DefaultMessageContext(validMessage, soap11Factory);
+		MethodEndpoint endpoint = new MethodEndpoint(this, getClass().getMethod("product", Product.class));
+
+		Assert.assertTrue("Invalid response from interceptor", interceptor.handleRequest(context, endpoint));
+		XmlRootElementPayloadMethodProcessor processor = new XmlRootElementPayloadMethodProcessor();
+		Product product = (Product) processor.resolveArgument(context, endpoint.getMethodParameters()[0]);
+		Assert.assertEquals("Invalid argument", 10, product.getSize());
+		Assert.assertFalse("Request rejected", DeferredRequestValidation.isRejected(context));
+		Assert.assertFalse("Context has response", context.hasResponse());
+	}
+
+	@Test
+	public void deferredRequestValidationNotUnmarshalled() throws Exception {
+		interceptor.setDeferRequestValidation(true);
+		interceptor.afterPropertiesSet();
+		SoapMessage invalidMessage = soap11Factory.createWebServiceMessage();
+		InputStream inputStream = getClass().getResourceAsStream(INVALID_MESSAGE);
+		transformer.transform(new StreamSource(inputStream), invalidMessage.getPayloadResult());
+		context = new DefaultMessageContext(invalidMessage, soap11Factory);
+		MethodEndpoint endpoint = new MethodEndpoint(this, getClass().getMethod("product", Product.class));
+
+		Assert.assertTrue("Invalid response from interceptor", interceptor.handleRequest(context, endpoint));
+		Assert.assertFalse("Request not rejected", DeferredRequestValidation.validatePending(context));
+		Assert.assertNull("Deferred validation not completed", DeferredRequestValidation.get(context));
+		SoapMessage response = (SoapMessage) context.getResponse();
+		Assert.assertTrue("Response has no fault", response.getSoapBody().hasFault());
+	}
+
+	@Test
+	public void deferredRequestValidationNotDeferrable() throws Exception {
+		interceptor.setDeferRequestValidation(true);
+		interceptor.afterPropertiesSet();
+		SoapMessage invalidMessage = soap11Factory.createWebServiceMessage();
+		InputStream inputStream = getClass().getResourceAsStream(INVALID_MESSAGE);
+		transformer.transform(new StreamSource(inputStream), invalidMessage.getPayloadResult());
+		context = new DefaultMessageContext(invalidMessage, soap11Factory);
+
+		boolean result = interceptor.handleRequest(context, null);
+		Assert.assertFalse("Invalid response from interceptor", result);
+		Assert.assertTrue("Context has no response", context.hasResponse());
+		Assert.assertNull("Deferred validation bound", DeferredRequestValidation.get(context));
+	}
+
+	public void product(@RequestPayload Product product) {
+	}
+
+	@XmlRootElement(name = "product", namespace = "http://www.springframework.org/spring-ws/test/validation")
+	public static class Product {
+
+		private int number;
+
+		private int size;
+
+		@XmlElement(name = "number", namespace = "http://www.springframework.org/spring-ws/test/validation")
+		public int getNumber() {
+			return number;
+		}
+
+		public void setNumber(int number) {
+			this.number = number;
+		}
+
+		@XmlElement(name = "size", namespace = "http://www.springframework.org/spring-ws/test/validation")
+		public int getSize() {
+			return size;
+		}
+
+		public void setSize(int size) {
+			this.size = size;
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.server.endpoint.interceptor;
+
+import javax.xml.soap.MessageFactory;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapFault;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.SoapVersion;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+
+public class SoapBulkheadInterceptorTest {
+
+	private SoapBulkheadInterceptor interceptor;
+
+	private SaajSoapMessageFactory messageFactory;
+
+	@Before
+	public void setUp() throws Exception {
+		interceptor = new SoapBulkheadInterceptor();
+		interceptor.setMaxConcurrentInvocations(1);
+		messageFactory = new SaajSoapMessageFactory(MessageFactory.newInstance());
+	}
+
+	@Test
+	public void testRejectedRequestCreatesFault() throws Exception {
+		Object endpoint = new Object();
+		Assert.assertTrue("Request rejected", interceptor.handleRequest(createMessageContext(), endpoint));
+
+		MessageContext messageContext = createMessageContext();
+		Assert.assertFalse("Request not rejected", interceptor.handleRequest(messageContext, endpoint));
+		Assert.assertTrue("No response created", messageContext.hasResponse());
+		SoapMessage response = (SoapMessage) messageContext.getResponse();
+		Assert.assertTrue("Response has no fault", response.getSoapBody().hasFault());
+		SoapFault fault = response.getSoapBody().getFault();
+		Assert.assertEquals("Invalid fault code", SoapVersion.SOAP_11.getServerOrReceiverFaultName(),
+				fault.getFaultCode());
+		Assert.assertEquals("Invalid fault string", SoapBulkheadInterceptor.DEFAULT_FAULTSTRING_OR_REASON,
+				fault.getFaultStringOrReason());
+	}
+
+	private MessageContext createMessageContext() {
+		return new DefaultMessageContext(messageFactory.createWebServiceMessage(), messageFactory);
+	}
+
+}
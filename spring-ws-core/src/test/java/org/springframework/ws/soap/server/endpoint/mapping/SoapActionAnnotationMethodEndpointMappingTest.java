@@ -82,6 +82,7 @@ public class SoapActionAnnotationMethodEndpointMappingTest {
 		Assert.assertNotNull("MethodEndpoint not registered", chain);
 		Assert.assertEquals("Invalid endpoint registered", expected, chain.getEndpoint());
 
+		context = new DefaultMessageContext(requestMock, factoryMock);
 		chain = mapping.getEndpoint(context);
 		Assert.assertNotNull("MethodEndpoint not registered", chain);
 		Assert.assertEquals("Invalid endpoint registered", expected, chain.getEndpoint());
@@ -105,6 +106,7 @@ public class SoapActionAnnotationMethodEndpointMappingTest {
 		Assert.assertNotNull("MethodEndpoint not registered", chain);
 		Assert.assertEquals("Invalid endpoint registered", expected, chain.getEndpoint());
 
+		context = new DefaultMessageContext(requestMock, factoryMock);
 		chain = mapping.getEndpoint(context);
 		Assert.assertNotNull("MethodEndpoint not registered", chain);
 		Assert.assertEquals("Invalid endpoint registered", expected, chain.getEndpoint());
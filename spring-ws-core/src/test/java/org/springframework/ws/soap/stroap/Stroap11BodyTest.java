@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,12 +26,4 @@ public class Stroap11BodyTest extends AbstractSoap11BodyTestCase {
 		StroapMessageFactory messageFactory = new StroapMessageFactory();
 		return new Stroap11Body(messageFactory);
 	}
-
-	@Override
-	public void testAddFaultWithDetail() throws Exception {
-	}
-
-	@Override
-	public void testAddFaultWithDetailResult() throws Exception {
-	}
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import javax.xml.namespace.QName;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+import org.junit.Test;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.mime.Attachment;
+import org.springframework.ws.soap.SoapFaultDetailElement;
+import org.springframework.ws.soap.SoapHeaderElement;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.soap11.AbstractSoap11MessageFactoryTestCase;
+import org.springframework.ws.soap.soap11.Soap11Fault;
+import org.springframework.ws.transport.MockTransportInputStream;
+import org.springframework.ws.transport.MockTransportOutputStream;
+import org.springframework.xml.transform.StringResult;
+import org.springframework.xml.transform.StringSource;
+
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.*;
+
+public class Stroap11MessageFactoryTest extends AbstractSoap11MessageFactoryTestCase {
+
+	private final Transformer transformer = createTransformer();
+
+	@Override
+	protected WebServiceMessageFactory createMessageFactory() throws Exception {
+		return new StroapMessageFactory();
+	}
+
+	@Test
+	public void testReadHeaderAndFault() throws Exception {
+		SoapMessage message = (SoapMessage) messageFactory.createWebServiceMessage();
+		SoapHeaderElement headerElement =
+				message.getSoapHeader().addHeaderElement(new QName("http://www.springframework.org", "header", "spring"));
+		headerElement.setMustUnderstand(true);
+		headerElement.setText("value");
+		Soap11Fault fault = (Soap11Fault) message.getSoapBody()
+				.addServerOrReceiverFault("faultString", Locale.ENGLISH);
+		SoapFaultDetailElement detailElement =
+				fault.addFaultDetail().addFaultDetailElement(new QName("http://www.springframework.org", "detail"));
+		detailElement.addText("detailText");
+
+		SoapMessage result = roundTrip(message);
+
+		Iterator<SoapHeaderElement> headerElements = result.getSoapHeader().examineAllHeaderElements();
+		assertTrue("No header element read", headerElements.hasNext());
+		headerElement = headerElements.next();
+		assertEquals("Invalid header element name", new QName("http://www.springframework.org", "header"),
+				headerElement.getName());
+		assertTrue("Header element not mustUnderstand", headerElement.getMustUnderstand());
+		assertEquals("Invalid header element text", "value", headerElement.getText());
+		assertFalse("Too many header elements read", headerElements.hasNext());
+
+		assertTrue("No fault read", result.getSoapBody().hasFault());
+		fault = (Soap11Fault) result.getSoapBody().getFault();
+		assertEquals("Invalid fault code", message.getVersion().getServerOrReceiverFaultName(), fault.getFaultCode());
+		assertEquals("Invalid fault string", "faultString", fault.getFaultStringOrReason());
+		assertEquals("Invalid fault string locale", Locale.ENGLISH, fault.getFaultStringLocale());
+		Iterator<SoapFaultDetailElement> detailEntries = fault.getFaultDetail().getDetailEntries();
+		assertTrue("No detail entry read", detailEntries.hasNext());
+		StringResult detailResult = new StringResult();
+		transformer.transform(detailEntries.next().getSource(), detailResult);
+		assertXMLEqual("Invalid detail entry", "<detail xmlns='http://www.springframework.org'>detailText</detail>",
+				detailResult.toString());
+	}
+
+	@Test
+	public void testReadNonCachingPayload() throws Exception {
+		StroapMessageFactory nonCachingFactory = new StroapMessageFactory();
+		nonCachingFactory.setPayloadCaching(false);
+		String envelope = "<SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<SOAP-ENV:Body> <payload xmlns='http://www.springframework.org'/> </SOAP-ENV:Body></SOAP-ENV:Envelope>";
+		SoapMessage message =
+				nonCachingFactory.createWebServiceMessage(new ByteArrayInputStream(envelope.getBytes("UTF-8")));
+		StringResult result = new StringResult();
+		transformer.transform(message.getPayloadSource(), result);
+		assertXMLEqual("Invalid payload", "<payload xmlns='http://www.springframework.org'/>", result.toString());
+	}
+
+	@Test
+	public void testReadAttachment() throws Exception {
+		SoapMessage message = (SoapMessage) messageFactory.createWebServiceMessage();
+		transformer.transform(new StringSource("<payload xmlns='http://www.springframework.org'/>"),
+				message.getPayloadResult());
+		message.addAttachment("contentId", new ByteArrayResource("contents".getBytes("UTF-8")), "text/plain");
+
+		SoapMessage result = roundTrip(message);
+
+		Attachment attachment = result.getAttachment("contentId");
+		assertNotNull("No attachment read", attachment);
+		assertEquals("Invalid content type", "text/plain", attachment.getContentType());
+		assertEquals("Invalid contents", "contents",
+				new String(FileCopyUtils.copyToByteArray(attachment.getInputStream()), "UTF-8"));
+		StringResult payload = new StringResult();
+		transformer.transform(result.getPayloadSource(), payload);
+		assertXMLEqual("Invalid payload", "<payload xmlns='http://www.springframework.org'/>", payload.toString());
+	}
+
+	private static Transformer createTransformer() {
+		try {
+			return TransformerFactory.newInstance().newTransformer();
+		}
+		catch (TransformerConfigurationException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private SoapMessage roundTrip(SoapMessage message) throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		MockTransportOutputStream tos = new MockTransportOutputStream(bos);
+		message.writeTo(tos);
+		MockTransportInputStream tis =
+				new MockTransportInputStream(new ByteArrayInputStream(bos.toByteArray()), tos.getHeaders());
+		return (SoapMessage) messageFactory.createWebServiceMessage(tis);
+	}
+
+}
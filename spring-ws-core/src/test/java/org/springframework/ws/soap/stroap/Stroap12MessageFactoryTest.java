@@ -0,0 +1,76 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.soap.stroap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.SoapVersion;
+import org.springframework.ws.soap.soap12.AbstractSoap12MessageFactoryTestCase;
+import org.springframework.ws.soap.soap12.Soap12Fault;
+import org.springframework.ws.transport.MockTransportInputStream;
+import org.springframework.ws.transport.MockTransportOutputStream;
+
+import static org.junit.Assert.*;
+
+public class Stroap12MessageFactoryTest extends AbstractSoap12MessageFactoryTestCase {
+
+	@Override
+	protected WebServiceMessageFactory createMessageFactory() throws Exception {
+		StroapMessageFactory messageFactory = new StroapMessageFactory();
+		messageFactory.setSoapVersion(SoapVersion.SOAP_12);
+		return messageFactory;
+	}
+
+	@Test
+	public void testReadFault() throws Exception {
+		SoapMessage message = (SoapMessage) messageFactory.createWebServiceMessage();
+		message.setSoapAction("http://springframework.org/spring-ws/Action");
+		Soap12Fault fault = (Soap12Fault) message.getSoapBody().addClientOrSenderFault("reason", Locale.ENGLISH);
+		QName subcode = new QName("http://www.springframework.org", "Subcode", "spring-ws");
+		fault.addFaultSubcode(subcode);
+		fault.setFaultReasonText(Locale.GERMAN, "Grund");
+		fault.setFaultActorOrRole("http://www.springframework.org/role");
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		MockTransportOutputStream tos = new MockTransportOutputStream(bos);
+		message.writeTo(tos);
+		MockTransportInputStream tis =
+				new MockTransportInputStream(new ByteArrayInputStream(bos.toByteArray()), tos.getHeaders());
+		SoapMessage result = (SoapMessage) messageFactory.createWebServiceMessage(tis);
+
+		assertEquals("Invalid soap action", "\"http://springframework.org/spring-ws/Action\"", result.getSoapAction());
+		assertTrue("No fault read", result.getSoapBody().hasFault());
+		fault = (Soap12Fault) result.getSoapBody().getFault();
+		assertEquals("Invalid fault code", SoapVersion.SOAP_12.getClientOrSenderFaultName(), fault.getFaultCode());
+		Iterator<QName> subcodes = fault.getFaultSubcodes();
+		assertTrue("No subcode read", subcodes.hasNext());
+		assertEquals("Invalid subcode", subcode, subcodes.next());
+		assertFalse("Too many subcodes read", subcodes.hasNext());
+		assertEquals("Invalid reason", "reason", fault.getFaultStringOrReason());
+		assertEquals("Invalid reason", "Grund", fault.getFaultReasonText(Locale.GERMAN));
+		assertEquals("Invalid role", "http://www.springframework.org/role", fault.getFaultActorOrRole());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,25 +16,26 @@
 
 package org.springframework.ws.soap.stroap;
 
-import org.springframework.ws.WebServiceMessageFactory;
-import org.springframework.ws.soap.soap11.AbstractSoap11MessageFactoryTestCase;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.SoapVersion;
+import org.springframework.ws.soap.soap12.AbstractSoap12MessageTestCase;
 
-public class Stroap11MessageFactoryTest extends AbstractSoap11MessageFactoryTestCase {
+public class Stroap12MessageTest extends AbstractSoap12MessageTestCase {
 
 	@Override
-	protected WebServiceMessageFactory createMessageFactory() throws Exception {
-		return new StroapMessageFactory();
+	protected String getNS() {
+		return "SOAP-ENV";
 	}
 
 	@Override
-	public void testCreateSoapMessageMtom() throws Exception {
+	protected String getHeader() {
+		return "";
 	}
 
 	@Override
-	public void testCreateSoapMessageSwA() throws Exception {
+	protected final SoapMessage createSoapMessage() throws Exception {
+		StroapMessageFactory messageFactory = new StroapMessageFactory();
+		messageFactory.setSoapVersion(SoapVersion.SOAP_12);
+		return new StroapMessage(messageFactory);
 	}
-
-	@Override
-	public void testCreateSoapMessageMtomWeirdStartInfo() throws Exception {
-	}
-}
\ No newline at end of file
+}
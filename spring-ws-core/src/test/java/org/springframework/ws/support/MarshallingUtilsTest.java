@@ -16,22 +16,31 @@
 
 package org.springframework.ws.support;
 
+import java.io.ByteArrayOutputStream;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.namespace.QName;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 
 import org.springframework.oxm.Marshaller;
 import org.springframework.oxm.Unmarshaller;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.oxm.mime.MimeContainer;
 import org.springframework.oxm.mime.MimeMarshaller;
 import org.springframework.oxm.mime.MimeUnmarshaller;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.mime.MimeMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
+import org.springframework.ws.stream.StreamingPayload;
 import org.springframework.xml.transform.StringResult;
 import org.springframework.xml.transform.StringSource;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
 import static org.easymock.EasyMock.*;
 
 public class MarshallingUtilsTest {
@@ -121,5 +130,43 @@ public class MarshallingUtilsTest {
 		verify(marshallerMock, messageMock);
 	}
 
+	@Test
+	public void testCreateStreamingPayload() throws Exception {
+		Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+		marshaller.setClassesToBeBound(MyRootElement.class);
+		marshaller.afterPropertiesSet();
+		MyRootElement rootElement = new MyRootElement();
+		rootElement.string = "Foo";
+
+		StreamingPayload payload = MarshallingUtils.createStreamingPayload(marshaller, rootElement);
+		Assert.assertNotNull("No streaming payload created", payload);
+		Assert.assertEquals("Invalid name", new QName("http://springframework.org", "root"), payload.getName());
+
+		AxiomSoapMessage message = new AxiomSoapMessageFactory().createWebServiceMessage();
+		message.setStreamingPayload(payload);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		message.writeTo(os);
+		assertXMLEqual("<soapenv:Envelope xmlns:soapenv='http://schemas.xmlsoap.org/soap/envelope/'>" +
+				"<soapenv:Header/><soapenv:Body><root xmlns='http://springframework.org'><string>Foo</string></root>" +
+				"</soapenv:Body></soapenv:Envelope>", os.toString("UTF-8"));
+	}
+
+	@Test
+	public void testCreateStreamingPayloadUnknownName() throws Exception {
+		Marshaller marshallerMock = createMock(Marshaller.class);
+		replay(marshallerMock);
+
+		Assert.assertNull("Streaming payload created",
+				MarshallingUtils.createStreamingPayload(marshallerMock, new Object()));
+
+		verify(marshallerMock);
+	}
+
+	@XmlRootElement(name = "root", namespace = "http://springframework.org")
+	public static class MyRootElement {
+
+		@XmlElement(namespace = "http://springframework.org")
+		public String string;
+	}
 
-}
\ No newline at end of file
+}
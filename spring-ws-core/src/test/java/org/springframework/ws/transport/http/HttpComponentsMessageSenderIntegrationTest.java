@@ -35,6 +35,9 @@ import org.apache.commons.httpclient.URIException;
 import org.apache.http.HttpHost;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.mortbay.jetty.Server;
 import org.mortbay.jetty.servlet.Context;
@@ -95,6 +98,30 @@ public class HttpComponentsMessageSenderIntegrationTest extends AbstractHttpWebS
 		assertThat(poolingClientConnectionManager.getMaxPerRoute(route3), equalTo(10));
 	}
 
+	@Test
+	public void testConnectionPoolStats() throws URISyntaxException {
+		HttpComponentsMessageSender messageSender = new HttpComponentsMessageSender();
+		messageSender.setMaxTotalConnections(5);
+		Map<String, String> maxConnectionsPerHost = new HashMap<String, String>();
+		maxConnectionsPerHost.put("http://www.example.com:8080", "3");
+		messageSender.setMaxConnectionsPerHost(maxConnectionsPerHost);
+
+		PoolStats totalStats = messageSender.getConnectionPoolStats();
+		assertThat(totalStats.getMax(), equalTo(5));
+		assertThat(totalStats.getLeased(), equalTo(0));
+		PoolStats routeStats = messageSender.getConnectionPoolStats(new URI("http://www.example.com:8080"));
+		assertThat(routeStats.getMax(), equalTo(3));
+
+		MeterRegistry registry = new SimpleMeterRegistry();
+		new HttpComponentsConnectionPoolMetrics(messageSender, new URI("http://www.example.com:8080")).bindTo(registry);
+		assertThat(registry.find(HttpComponentsConnectionPoolMetrics.METER_PREFIX + "max").tag("destination", "all")
+				.gauge().value(), equalTo(5.0));
+		assertThat(registry.find(HttpComponentsConnectionPoolMetrics.METER_PREFIX + "max")
+				.tag("destination", "http://www.example.com:8080").gauge().value(), equalTo(3.0));
+		assertThat(registry.find(HttpComponentsConnectionPoolMetrics.METER_PREFIX + "pending")
+				.tag("destination", "all").gauge().value(), equalTo(0.0));
+	}
+
 	@Test
 	public void testContextClose() throws Exception {
 		MessageFactory messageFactory = MessageFactory.newInstance();
@@ -121,4 +121,11 @@ public class HttpServletConnectionTest {
 		assertEquals(500, httpServletResponse.getStatus());
 	}
 
+	@Test
+	public void endpointUnavailable() throws IOException {
+		connection.endpointUnavailable();
+		connection.close();
+		assertEquals(503, httpServletResponse.getStatus());
+	}
+
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,11 +23,13 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.springframework.ws.EndpointUnavailableException;
 import org.springframework.ws.MockWebServiceMessage;
 import org.springframework.ws.MockWebServiceMessageFactory;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.soap.SoapVersion;
+import org.springframework.ws.transport.EndpointAvailabilityAwareWebServiceConnection;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
 import org.springframework.ws.transport.WebServiceMessageReceiver;
 
@@ -124,6 +126,56 @@ public class WebServiceMessageReceiverObjectSupportTest {
 		verify(connectionMock);
 	}
 
+	@Test
+	public void handleConnectionEndpointUnavailable() throws Exception {
+		EndpointAvailabilityAwareWebServiceConnection connectionMock =
+				createStrictMock(EndpointAvailabilityAwareWebServiceConnection.class);
+		expect(connectionMock.getUri()).andReturn(new URI("http://example.com"));
+		expect(connectionMock.receive(messageFactory)).andReturn(request);
+		connectionMock.endpointUnavailable();
+		connectionMock.close();
+
+		replay(connectionMock);
+
+		WebServiceMessageReceiver receiver = new WebServiceMessageReceiver() {
+
+			public void receive(MessageContext messageContext) throws Exception {
+				throw new EndpointUnavailableException(new Object());
+			}
+		};
+
+		receiverSupport.handleConnection(connectionMock, receiver);
+
+		verify(connectionMock);
+	}
+
+	@Test
+	public void handleConnectionEndpointUnavailableNotAware() throws Exception {
+		expect(connectionMock.getUri()).andReturn(new URI("jms:RequestQueue"));
+		expect(connectionMock.receive(messageFactory)).andReturn(request);
+		connectionMock.close();
+
+		replay(connectionMock);
+
+		final EndpointUnavailableException exception = new EndpointUnavailableException(new Object());
+		WebServiceMessageReceiver receiver = new WebServiceMessageReceiver() {
+
+			public void receive(MessageContext messageContext) throws Exception {
+				throw exception;
+			}
+		};
+
+		try {
+			receiverSupport.handleConnection(connectionMock, receiver);
+			Assert.fail("EndpointUnavailableException expected");
+		}
+		catch (EndpointUnavailableException ex) {
+			Assert.assertSame("Invalid exception", exception, ex);
+		}
+
+		verify(connectionMock);
+	}
+
 	private static class MyReceiverSupport extends WebServiceMessageReceiverObjectSupport {
 
 	}
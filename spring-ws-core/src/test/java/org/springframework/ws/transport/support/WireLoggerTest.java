@@ -0,0 +1,148 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.util.FileCopyUtils;
+import org.springframework.ws.transport.MockTransportInputStream;
+import org.springframework.ws.transport.MockTransportOutputStream;
+import org.springframework.ws.transport.TransportInputStream;
+import org.springframework.ws.transport.TransportOutputStream;
+import org.springframework.ws.transport.WebServiceConnection;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+public class WireLoggerTest {
+
+	private TestWireLogger wireLogger;
+
+	private WebServiceConnection connection;
+
+	@Before
+	public void setUp() throws Exception {
+		wireLogger = new TestWireLogger();
+		connection = createMock(WebServiceConnection.class);
+		expect(connection.getUri()).andReturn(new URI("http://example.com/services/orders")).anyTimes();
+		replay(connection);
+	}
+
+	@After
+	public void tearDown() {
+		wireLogger.destroy();
+	}
+
+	@Test
+	public void captureInput() throws Exception {
+		byte[] content = "<request/>".getBytes("UTF-8");
+		TransportInputStream inputStream = wireLogger.capture(new MockTransportInputStream(
+				new ByteArrayInputStream(content), Collections.singletonMap("Header", "value")), connection);
+
+		assertArrayEquals("Invalid content read", content, FileCopyUtils.copyToByteArray(inputStream));
+		assertEquals("Invalid header", "value", inputStream.getHeaders("Header").next());
+		assertEquals("Invalid record", "Received [http://example.com/services/orders] (10 bytes) [<request/>]",
+				wireLogger.records.poll(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void captureOutputTruncated() throws Exception {
+		wireLogger.setMaxBytes(4);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		MockTransportOutputStream mockOutputStream = new MockTransportOutputStream(bos);
+		TransportOutputStream outputStream = wireLogger.capture(mockOutputStream, connection);
+		outputStream.addHeader("Header", "value");
+		outputStream.write("<response/>".getBytes("UTF-8"));
+		outputStream.close();
+
+		assertEquals("Invalid content written", "<response/>", bos.toString("UTF-8"));
+		assertEquals("Invalid header", "value", mockOutputStream.getHeaders().get("Header"));
+		assertEquals("Invalid record", "Sent [http://example.com/services/orders] (11 bytes) [<res...]",
+				wireLogger.records.poll(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void isLogged() throws Exception {
+		assertTrue("Connection not logged", wireLogger.isLogged(connection));
+		wireLogger.setUriPatterns("/services/orders/**");
+		assertTrue("Connection not logged", wireLogger.isLogged(connection));
+		wireLogger.setUriPatterns("/services/customers/**");
+		assertFalse("Connection logged", wireLogger.isLogged(connection));
+		wireLogger.setUriPatterns();
+		wireLogger.setSamplingRate(0);
+		assertFalse("Connection logged", wireLogger.isLogged(connection));
+		wireLogger.enabled = false;
+		wireLogger.setSamplingRate(1);
+		assertFalse("Connection logged", wireLogger.isLogged(connection));
+	}
+
+	@Test
+	public void queueFull() throws Exception {
+		wireLogger.destroy();
+		wireLogger = new TestWireLogger(1);
+		wireLogger.blocked = true;
+		for (int i = 0; i < 3; i++) {
+			wireLogger.capture(new MockTransportOutputStream(new ByteArrayOutputStream()), connection).close();
+		}
+		assertTrue("No records dropped", wireLogger.getDroppedRecords() > 0);
+	}
+
+	private static class TestWireLogger extends WireLogger {
+
+		private final BlockingQueue<String> records = new LinkedBlockingQueue<String>();
+
+		private volatile boolean enabled = true;
+
+		private volatile boolean blocked;
+
+		private TestWireLogger() {
+		}
+
+		private TestWireLogger(int queueCapacity) {
+			super(queueCapacity);
+		}
+
+		@Override
+		protected boolean isLogEnabled() {
+			return enabled;
+		}
+
+		@Override
+		protected void log(String record) {
+			while (blocked) {
+				try {
+					Thread.sleep(10);
+				}
+				catch (InterruptedException ex) {
+					return;
+				}
+			}
+			records.add(record);
+		}
+	}
+
+}
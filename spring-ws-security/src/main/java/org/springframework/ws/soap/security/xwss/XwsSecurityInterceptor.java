@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,27 +18,39 @@ package org.springframework.ws.soap.security.xwss;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.CallbackHandler;
 import javax.security.auth.callback.UnsupportedCallbackException;
+import javax.xml.soap.AttachmentPart;
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPConstants;
+import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPMessage;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
 
 import com.sun.xml.wss.ProcessingContext;
 import com.sun.xml.wss.XWSSProcessor;
 import com.sun.xml.wss.XWSSProcessorFactory;
 import com.sun.xml.wss.XWSSecurityException;
 import com.sun.xml.wss.impl.WssSoapFaultException;
+import org.w3c.dom.Document;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.mime.Attachment;
 import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.SoapVersion;
 import org.springframework.ws.soap.saaj.SaajSoapMessage;
 import org.springframework.ws.soap.security.AbstractWsSecurityInterceptor;
 import org.springframework.ws.soap.security.WsSecurityValidationException;
 import org.springframework.ws.soap.security.callback.CleanupCallback;
 import org.springframework.ws.soap.security.xwss.callback.XwssCallbackHandlerChain;
+import org.springframework.xml.transform.TransformerHelper;
 
 /**
  * WS-Security endpoint interceptor	 that is based on Sun's XML and Web Services Security package (XWSS). This
@@ -52,8 +64,11 @@ import org.springframework.ws.soap.security.xwss.callback.XwssCallbackHandlerCha
  * the policy file is documented in the <a href="http://java.sun.com/webservices/docs/1.6/tutorial/doc/XWS-SecurityIntro4.html#wp529900">Java
  * Web Services Tutorial</a>.
  *
- * <p><b>Note</b> that this interceptor depends on SAAJ, and thus requires {@code SaajSoapMessage}s to operate. This
- * means that you must use a {@code SaajSoapMessageFactory} to create the SOAP messages.
+ * <p><b>Note</b> that this interceptor depends on SAAJ. {@code SaajSoapMessage}s are processed directly; other SOAP
+ * messages (such as those created by the {@code AxiomSoapMessageFactory}) are converted to a SAAJ message for the
+ * duration of the security processing only, and the resulting envelope is written back afterwards. Attachments are
+ * made available to XWSS, but are not replaced. Using a {@code SaajSoapMessageFactory} avoids this conversion
+ * altogether.
  *
  * @author Arjen Poutsma
  * @see #setCallbackHandler(javax.security.auth.callback.CallbackHandler)
@@ -71,6 +86,12 @@ public class XwsSecurityInterceptor extends AbstractWsSecurityInterceptor implem
 
 	private Resource policyConfiguration;
 
+	private MessageFactory soap11MessageFactory;
+
+	private MessageFactory soap12MessageFactory;
+
+	private final TransformerHelper transformerHelper = new TransformerHelper();
+
 	/**
 	 * Sets the handler to resolve XWSS callbacks. Setting either this propery, or {@code callbackHandlers}, is
 	 * required.
@@ -117,6 +138,8 @@ public class XwsSecurityInterceptor extends AbstractWsSecurityInterceptor implem
 				is.close();
 			}
 		}
+		soap11MessageFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_1_PROTOCOL);
+		soap12MessageFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_2_PROTOCOL);
 	}
 
 	/**
@@ -124,22 +147,24 @@ public class XwsSecurityInterceptor extends AbstractWsSecurityInterceptor implem
 	 *
 	 * @param soapMessage the message to be secured
 	 * @throws XwsSecuritySecurementException in case of errors
-	 * @throws IllegalArgumentException		  when soapMessage is not a {@code SaajSoapMessage}
 	 */
 	@Override
 	protected void secureMessage(SoapMessage soapMessage, MessageContext messageContext)
 			throws XwsSecuritySecurementException {
-		Assert.isTrue(soapMessage instanceof SaajSoapMessage, "XwsSecurityInterceptor requires a SaajSoapMessage. " +
-				"Use a SaajSoapMessageFactory to create the SOAP messages.");
-		SaajSoapMessage saajSoapMessage = (SaajSoapMessage) soapMessage;
 		try {
-			ProcessingContext context = processor.createProcessingContext(saajSoapMessage.getSaajMessage());
+			ProcessingContext context = processor.createProcessingContext(getSaajMessage(soapMessage));
 			SOAPMessage result = processor.secureOutboundMessage(context);
-			saajSoapMessage.setSaajMessage(result);
+			setSaajMessage(soapMessage, result);
 		}
 		catch (XWSSecurityException ex) {
 			throw new XwsSecuritySecurementException(ex.getMessage(), ex);
 		}
+		catch (SOAPException ex) {
+			throw new XwsSecuritySecurementException("Could not convert message to SAAJ: " + ex.getMessage(), ex);
+		}
+		catch (TransformerException ex) {
+			throw new XwsSecuritySecurementException("Could not convert message from SAAJ: " + ex.getMessage(), ex);
+		}
 		catch (WssSoapFaultException ex) {
 			throw new XwsSecurityFaultException(ex.getFaultCode(), ex.getFaultString(), ex.getFaultActor());
 		}
@@ -150,27 +175,66 @@ public class XwsSecurityInterceptor extends AbstractWsSecurityInterceptor implem
 	 *
 	 * @param soapMessage the message to be validated
 	 * @throws XwsSecurityValidationException in case of errors
-	 * @throws IllegalArgumentException		  when soapMessage is not a {@code SaajSoapMessage}
 	 */
 	@Override
 	protected void validateMessage(SoapMessage soapMessage, MessageContext messageContext)
 			throws WsSecurityValidationException {
-		Assert.isTrue(soapMessage instanceof SaajSoapMessage, "XwsSecurityInterceptor requires a SaajSoapMessage. " +
-				"Use a SaajSoapMessageFactory to create the SOAP messages.");
-		SaajSoapMessage saajSoapMessage = (SaajSoapMessage) soapMessage;
 		try {
-			ProcessingContext context = processor.createProcessingContext(saajSoapMessage.getSaajMessage());
+			ProcessingContext context = processor.createProcessingContext(getSaajMessage(soapMessage));
 			SOAPMessage result = processor.verifyInboundMessage(context);
-			saajSoapMessage.setSaajMessage(result);
+			setSaajMessage(soapMessage, result);
 		}
 		catch (XWSSecurityException ex) {
 			throw new XwsSecurityValidationException(ex.getMessage(), ex);
 		}
+		catch (SOAPException ex) {
+			throw new XwsSecurityValidationException("Could not convert message to SAAJ: " + ex.getMessage(), ex);
+		}
+		catch (TransformerException ex) {
+			throw new XwsSecurityValidationException("Could not convert message from SAAJ: " + ex.getMessage(), ex);
+		}
 		catch (WssSoapFaultException ex) {
 			throw new XwsSecurityFaultException(ex.getFaultCode(), ex.getFaultString(), ex.getFaultActor());
 		}
 	}
 
+	/**
+	 * Returns the SAAJ message to be processed by XWSS. For a {@code SaajSoapMessage}, the wrapped SAAJ message is
+	 * returned as is; for other SOAP messages, a SAAJ copy of the envelope and attachments is created.
+	 */
+	private SOAPMessage getSaajMessage(SoapMessage soapMessage) throws SOAPException {
+		if (soapMessage instanceof SaajSoapMessage) {
+			return ((SaajSoapMessage) soapMessage).getSaajMessage();
+		}
+		MessageFactory messageFactory =
+				SoapVersion.SOAP_12 == soapMessage.getVersion() ? soap12MessageFactory : soap11MessageFactory;
+		Assert.state(messageFactory != null, "XwsSecurityInterceptor has not been initialized");
+		SOAPMessage saajMessage = messageFactory.createMessage();
+		saajMessage.getSOAPPart().setContent(new DOMSource(soapMessage.getDocument()));
+		for (Iterator<Attachment> iterator = soapMessage.getAttachments(); iterator.hasNext();) {
+			Attachment attachment = iterator.next();
+			AttachmentPart attachmentPart = saajMessage.createAttachmentPart(attachment.getDataHandler());
+			attachmentPart.setContentId(attachment.getContentId());
+			saajMessage.addAttachmentPart(attachmentPart);
+		}
+		return saajMessage;
+	}
+
+	/**
+	 * Stores the result of XWSS processing in the given SOAP message. For a {@code SaajSoapMessage}, the SAAJ message
+	 * is replaced; for other SOAP messages, the envelope is replaced by a copy of the processed SAAJ envelope.
+	 */
+	private void setSaajMessage(SoapMessage soapMessage, SOAPMessage result) throws TransformerException {
+		if (soapMessage instanceof SaajSoapMessage) {
+			((SaajSoapMessage) soapMessage).setSaajMessage(result);
+		}
+		else {
+			DOMResult domResult = new DOMResult();
+			transformerHelper.transform(new DOMSource(result.getSOAPPart()), domResult);
+			soapMessage.setDocument((Document) domResult.getNode());
+		}
+	}
+
 	@Override
 	protected void cleanUp() {
 		if (callbackHandler != null) {
@@ -63,8 +63,14 @@ public abstract class AbstractXwssMessageInterceptorTestCase {
 										  String expectedValue,
 										  String xpathExpression,
 										  SOAPMessage soapMessage) {
+		assertXpathEvaluatesTo(message, expectedValue, xpathExpression, soapMessage.getSOAPPart());
+	}
+
+	protected void assertXpathEvaluatesTo(String message,
+										  String expectedValue,
+										  String xpathExpression,
+										  Document document) {
 		XPathExpression expression = XPathExpressionFactory.createXPathExpression(xpathExpression, namespaces);
-		Document document = soapMessage.getSOAPPart();
 		String actualValue = expression.evaluateAsString(document);
 		Assert.assertEquals(message, expectedValue, actualValue);
 	}
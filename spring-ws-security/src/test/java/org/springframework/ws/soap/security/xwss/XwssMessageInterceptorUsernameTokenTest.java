@@ -21,6 +21,8 @@ import javax.security.auth.callback.CallbackHandler;
 import javax.xml.soap.SOAPMessage;
 
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.axiom.AxiomSoapMessageFactory;
 import org.springframework.ws.soap.saaj.SaajSoapMessage;
 import org.springframework.ws.soap.security.callback.AbstractCallbackHandler;
 
@@ -106,6 +108,38 @@ public class XwssMessageInterceptorUsernameTokenTest extends AbstractXwssMessage
 				result);
 	}
 
+	@Test
+	public void testAddUsernameTokenPlainTextAxiom() throws Exception {
+		interceptor.setPolicyConfiguration(new ClassPathResource("usernameToken-plainText-config.xml", getClass()));
+		CallbackHandler handler = new AbstractCallbackHandler() {
+
+			@Override
+			protected void handleInternal(Callback callback) {
+				if (callback instanceof UsernameCallback) {
+					((UsernameCallback) callback).setUsername("Bert");
+				}
+				else if (callback instanceof PasswordCallback) {
+					PasswordCallback passwordCallback = (PasswordCallback) callback;
+					passwordCallback.setPassword("Ernie");
+				}
+				else {
+					fail("Unexpected callback");
+				}
+			}
+		};
+		interceptor.setCallbackHandler(handler);
+		interceptor.afterPropertiesSet();
+		AxiomSoapMessageFactory messageFactory = new AxiomSoapMessageFactory();
+		SoapMessage message = messageFactory.createWebServiceMessage();
+		interceptor.secureMessage(message, null);
+		assertXpathEvaluatesTo("Invalid Username", "Bert",
+				"/SOAP-ENV:Envelope/SOAP-ENV:Header/wsse:Security/wsse:UsernameToken/wsse:Username/text()",
+				message.getDocument());
+		assertXpathEvaluatesTo("Invalid Password", "Ernie",
+				"/SOAP-ENV:Envelope/SOAP-ENV:Header/wsse:Security/wsse:UsernameToken/wsse:Password[@Type='http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-username-token-profile-1.0#PasswordText']/text()",
+				message.getDocument());
+	}
+
 	@Test
 	public void testAddUsernameTokenPlainTextNonce() throws Exception {
 		interceptor.setPolicyConfiguration(
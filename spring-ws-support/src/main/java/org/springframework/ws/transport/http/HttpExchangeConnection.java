@@ -34,6 +34,7 @@ import org.springframework.util.Assert;
 import org.springframework.util.FileCopyUtils;
 import org.springframework.ws.WebServiceMessage;
 import org.springframework.ws.transport.AbstractReceiverConnection;
+import org.springframework.ws.transport.EndpointAvailabilityAwareWebServiceConnection;
 import org.springframework.ws.transport.EndpointAwareWebServiceConnection;
 import org.springframework.ws.transport.FaultAwareWebServiceConnection;
 import org.springframework.ws.transport.WebServiceConnection;
@@ -46,7 +47,8 @@ import org.springframework.ws.transport.WebServiceConnection;
  * @since 1.5.0
  */
 public class HttpExchangeConnection extends AbstractReceiverConnection
-		implements EndpointAwareWebServiceConnection, FaultAwareWebServiceConnection {
+		implements EndpointAwareWebServiceConnection, EndpointAvailabilityAwareWebServiceConnection,
+		FaultAwareWebServiceConnection {
 
 	private final HttpExchange httpExchange;
 
@@ -81,6 +83,11 @@ public class HttpExchangeConnection extends AbstractReceiverConnection
 		responseStatusCode = HttpTransportConstants.STATUS_NOT_FOUND;
 	}
 
+	@Override
+	public void endpointUnavailable() {
+		responseStatusCode = HttpTransportConstants.STATUS_SERVICE_UNAVAILABLE;
+	}
+
 	/*
 	 * Errors
 	 */
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.jms;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jms.listener.SessionAwareMessageListener;
+import org.springframework.util.Assert;
+
+/**
+ * Spring {@link SessionAwareMessageListener} that handles incoming service requests in batches, so that a transacted
+ * session is committed once per batch, rather than once per request.
+ *
+ * <p>When invoked with a message from a queue, this listener receives up to {@link #setMaxBatchSize(int)
+ * maxBatchSize} messages in total from the same queue, through the same session, waiting at most {@link
+ * #setBatchTimeout(long) batchTimeout} milliseconds for them. All messages of the batch are then handled, and their
+ * responses sent, before the listener returns, and the message listener container commits the session. Messages from
+ * topics are handled one at a time, like the {@link WebServiceMessageListener} does.
+ *
+ * <p>Batching requires a transacted session, as provided by a {@link
+ * org.springframework.jms.listener.DefaultMessageListenerContainer} with the {@code sessionTransacted} property set
+ * to {@code true}. Without one, the additional messages of a batch are acknowledged as soon as they are received.
+ *
+ * <p>Messages are handled one after the other, unless a {@link #setTaskExecutor(TaskExecutor) taskExecutor} is set,
+ * in which case they are handled in parallel, with access to the session serialized.
+ *
+ * <p>A SOAP fault is a regular response, and does not count as a failure. If handling a message throws an
+ * exception, the outcome depends on the {@link #setRollbackOnFailure(boolean) rollbackOnFailure} property:
+ * <ul>
+ * <li>If {@code true}, which is the default, the exception is rethrown after the batch has been handled, so that
+ * the container rolls back the entire batch: none of the responses are delivered, and all requests are redelivered.
+ * Poison messages are best dealt with by the redelivery policy of the broker.</li>
+ * <li>If {@code false}, the exception is passed on to {@link #handleFailure(Message, Exception)}, and the other
+ * messages of the batch are committed. The failed message is consumed without response.</li>
+ * </ul>
+ *
+ * @author agent
+ * @see WebServiceMessageListener
+ * @since 3.0.1
+ */
+public class BatchingWebServiceMessageListener extends JmsMessageReceiver
+		implements SessionAwareMessageListener<Message> {
+
+	/** The default maximum number of messages in a batch. */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 10;
+
+	/** The default time, in milliseconds, to wait for the messages of a batch. */
+	public static final long DEFAULT_BATCH_TIMEOUT = 100;
+
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+	private long batchTimeout = DEFAULT_BATCH_TIMEOUT;
+
+	private String messageSelector;
+
+	private TaskExecutor taskExecutor;
+
+	private boolean rollbackOnFailure = true;
+
+	/** Sets the maximum number of messages in a batch. Defaults to {@link #DEFAULT_MAX_BATCH_SIZE}. */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "'maxBatchSize' must be larger than 0");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Sets the time, in milliseconds, to wait for the messages of a batch after the first one has been received. When
+	 * it has elapsed, the batch is handled with the messages received so far. Defaults to {@link
+	 * #DEFAULT_BATCH_TIMEOUT}.
+	 */
+	public void setBatchTimeout(long batchTimeout) {
+		Assert.isTrue(batchTimeout >= 0, "'batchTimeout' must not be negative");
+		this.batchTimeout = batchTimeout;
+	}
+
+	/**
+	 * Sets the message selector used to receive the additional messages of a batch. Should be the same as the selector
+	 * of the message listener container, if any.
+	 */
+	public void setMessageSelector(String messageSelector) {
+		this.messageSelector = messageSelector;
+	}
+
+	/**
+	 * Sets the {@link TaskExecutor} used to handle the messages of a batch in parallel. By default, the messages are
+	 * handled one after the other, in the thread of the message listener container.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Indicates whether the entire batch is rolled back when handling one of its messages fails. Defaults to {@code
+	 * true}. When set to {@code false}, failures are passed on to {@link #handleFailure(Message, Exception)}.
+	 */
+	public void setRollbackOnFailure(boolean rollbackOnFailure) {
+		this.rollbackOnFailure = rollbackOnFailure;
+	}
+
+	@Override
+	public void onMessage(Message message, Session session) throws JMSException {
+		List<Message> batch = receiveBatch(message, session);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Handling batch of " + batch.size() + " message(s)");
+		}
+		List<Exception> failures = taskExecutor != null ? handleInParallel(batch, session) : handleInOrder(batch, session);
+		for (int i = 0; i < batch.size(); i++) {
+			Exception failure = failures.get(i);
+			if (failure == null) {
+				continue;
+			}
+			if (rollbackOnFailure) {
+				throw convertException(failure);
+			}
+			handleFailure(batch.get(i), failure);
+		}
+	}
+
+	/**
+	 * Template method that is called when handling a message failed, and {@link #setRollbackOnFailure(boolean)
+	 * rollbackOnFailure} is {@code false}. Default implementation logs the exception.
+	 *
+	 * @param message the message that could not be handled
+	 * @param ex	  the exception that was thrown
+	 * @throws JMSException to roll back the entire batch after all
+	 */
+	protected void handleFailure(Message message, Exception ex) throws JMSException {
+		logger.error("Could not handle message [" + message.getJMSMessageID() + "]; discarding it", ex);
+	}
+
+	/**
+	 * Receives the batch that starts with the given message. Additional messages are only received from queues.
+	 *
+	 * @param first   the message the listener was invoked with
+	 * @param session the session to receive with
+	 * @return the messages of the batch, starting with the given message
+	 */
+	private List<Message> receiveBatch(Message first, Session session) throws JMSException {
+		List<Message> batch = new ArrayList<Message>(maxBatchSize);
+		batch.add(first);
+		Destination destination = first.getJMSDestination();
+		if (maxBatchSize == 1 || !(destination instanceof Queue)) {
+			return batch;
+		}
+		MessageConsumer consumer = session.createConsumer(destination, messageSelector);
+		try {
+			long deadline = System.currentTimeMillis() + batchTimeout;
+			while (batch.size() < maxBatchSize) {
+				long remaining = deadline - System.currentTimeMillis();
+				Message message = remaining > 0 ? consumer.receive(remaining) : consumer.receiveNoWait();
+				if (message == null) {
+					break;
+				}
+				batch.add(message);
+			}
+		}
+		finally {
+			consumer.close();
+		}
+		return batch;
+	}
+
+	private List<Exception> handleInOrder(List<Message> batch, Session session) {
+		List<Exception> failures = new ArrayList<Exception>(batch.size());
+		boolean failed = false;
+		for (Message message : batch) {
+			if (failed && rollbackOnFailure) {
+				// the batch will be rolled back anyway
+				failures.add(null);
+				continue;
+			}
+			try {
+				handleMessage(message, session);
+				failures.add(null);
+			}
+			catch (Exception ex) {
+				failures.add(ex);
+				failed = true;
+			}
+		}
+		return failures;
+	}
+
+	private List<Exception> handleInParallel(List<Message> batch, Session session) {
+		final Session synchronizedSession = (Session) createSynchronizedProxy(session, Session.class, session);
+		List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>(batch.size());
+		for (final Message message : batch) {
+			FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+
+				@Override
+				public Object call() throws Exception {
+					handleMessage(message, synchronizedSession);
+					return null;
+				}
+			});
+			tasks.add(task);
+			taskExecutor.execute(task);
+		}
+		// the tasks use the session, so wait for all of them to finish before returning, even when interrupted
+		List<Exception> failures = new ArrayList<Exception>(batch.size());
+		boolean interrupted = false;
+		for (FutureTask<Object> task : tasks) {
+			Exception failure = null;
+			while (true) {
+				try {
+					task.get();
+					break;
+				}
+				catch (InterruptedException ex) {
+					interrupted = true;
+				}
+				catch (ExecutionException ex) {
+					Throwable cause = ex.getCause();
+					failure = cause instanceof Exception ? (Exception) cause : ex;
+					break;
+				}
+			}
+			failures.add(failure);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return failures;
+	}
+
+	private JMSException convertException(Exception ex) {
+		if (ex instanceof JmsTransportException) {
+			return ((JmsTransportException) ex).getJmsException();
+		}
+		else if (ex instanceof JMSException) {
+			return (JMSException) ex;
+		}
+		JMSException jmsException = new JMSException(ex.getMessage());
+		jmsException.setLinkedException(ex);
+		return jmsException;
+	}
+
+	/**
+	 * Creates a proxy that serializes all invocations on the given target, as well as on the message producers it
+	 * creates, since JMS sessions do not support concurrent use.
+	 */
+	private static Object createSynchronizedProxy(Object target, Class<?> targetInterface, Object lock) {
+		return Proxy.newProxyInstance(BatchingWebServiceMessageListener.class.getClassLoader(),
+				new Class<?>[]{targetInterface}, new SynchronizingInvocationHandler(target, lock));
+	}
+
+	private static class SynchronizingInvocationHandler implements InvocationHandler {
+
+		private final Object target;
+
+		private final Object lock;
+
+		private SynchronizingInvocationHandler(Object target, Object lock) {
+			this.target = target;
+			this.lock = lock;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result;
+			synchronized (lock) {
+				try {
+					result = method.invoke(target, args);
+				}
+				catch (InvocationTargetException ex) {
+					throw ex.getTargetException();
+				}
+			}
+			if (result instanceof MessageProducer) {
+				result = createSynchronizedProxy(result, MessageProducer.class, lock);
+			}
+			return result;
+		}
+	}
+
+}
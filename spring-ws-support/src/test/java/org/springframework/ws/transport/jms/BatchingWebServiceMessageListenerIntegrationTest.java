@@ -0,0 +1,154 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ws.transport.jms;
+
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Resource;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("jms-batching-receiver-applicationContext.xml")
+public class BatchingWebServiceMessageListenerIntegrationTest {
+
+	private static final String CONTENT =
+			"<SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>" + "<SOAP-ENV:Body>\n" +
+					"<m:GetLastTradePrice xmlns:m='http://www.springframework.org/spring-ws'>\n" +
+					"<symbol>DIS</symbol>\n" + "</m:GetLastTradePrice>\n" + "</SOAP-ENV:Body></SOAP-ENV:Envelope>";
+
+	private static final int MESSAGE_COUNT = 7;
+
+	@Autowired
+	private JmsTemplate jmsTemplate;
+
+	@Resource
+	private Queue requestQueue;
+
+	@Resource
+	private Queue parallelRequestQueue;
+
+	@Resource
+	private Queue rollbackRequestQueue;
+
+	@Resource
+	private Queue discardRequestQueue;
+
+	@Resource
+	private Queue responseQueue;
+
+	@Resource
+	private Queue deadLetterQueue;
+
+	@Test
+	public void testReceiveBatches() throws Exception {
+		sendAndReceive(requestQueue);
+	}
+
+	@Test
+	public void testReceiveBatchesInParallel() throws Exception {
+		sendAndReceive(parallelRequestQueue);
+	}
+
+	@Test
+	public void testRollbackOnFailure() throws Exception {
+		send(rollbackRequestQueue, "rollback-0", true);
+		send(rollbackRequestQueue, "rollback-1", false);
+		send(rollbackRequestQueue, "rollback-2", true);
+		// the message received by the container is not redelivered, but moved to the dead letter queue
+		assertNotNull("Batch not rolled back", receive(deadLetterQueue, "rollback-0", jmsTemplate));
+		JmsTemplate noWaitTemplate = createNoWaitTemplate();
+		for (int i = 0; i < 3; i++) {
+			assertNull("Response for rolled back batch", receive(responseQueue, "rollback-" + i, noWaitTemplate));
+		}
+		// the messages received by the listener itself are available again
+		assertNotNull("Message not rolled back", receive(rollbackRequestQueue, "rollback-1", jmsTemplate));
+		assertNotNull("Message not rolled back", receive(rollbackRequestQueue, "rollback-2", jmsTemplate));
+	}
+
+	@Test
+	public void testDiscardOnFailure() throws Exception {
+		send(discardRequestQueue, "discard-0", true);
+		send(discardRequestQueue, "discard-1", false);
+		send(discardRequestQueue, "discard-2", true);
+		assertNotNull("No response received", receive(responseQueue, "discard-0", jmsTemplate));
+		assertNotNull("No response received", receive(responseQueue, "discard-2", jmsTemplate));
+		JmsTemplate noWaitTemplate = createNoWaitTemplate();
+		assertNull("Response for failed message", receive(responseQueue, "discard-1", noWaitTemplate));
+		assertNull("Failed message rolled back", receive(deadLetterQueue, "discard-1", noWaitTemplate));
+		assertNull("Failed message not consumed", receive(discardRequestQueue, "discard-1", noWaitTemplate));
+	}
+
+	private void send(Queue destination, final String correlationId, final boolean valid) {
+		jmsTemplate.send(destination, new MessageCreator() {
+			public Message createMessage(Session session) throws JMSException {
+				// only text and bytes messages can be handled
+				Message request = valid ? session.createTextMessage(CONTENT) : session.createMapMessage();
+				request.setJMSReplyTo(responseQueue);
+				request.setJMSCorrelationID(correlationId);
+				return request;
+			}
+		});
+	}
+
+	private Message receive(Queue destination, String correlationId, JmsTemplate template) {
+		return template.receiveSelected(destination, "JMSCorrelationID = '" + correlationId + "'");
+	}
+
+	private JmsTemplate createNoWaitTemplate() {
+		JmsTemplate template = new JmsTemplate(jmsTemplate.getConnectionFactory());
+		template.setReceiveTimeout(JmsTemplate.RECEIVE_TIMEOUT_NO_WAIT);
+		return template;
+	}
+
+	private void sendAndReceive(Queue destination) throws Exception {
+		Set<String> correlationIds = new HashSet<String>();
+		for (int i = 0; i < MESSAGE_COUNT; i++) {
+			final String correlationId = destination.getQueueName() + "-" + i;
+			jmsTemplate.send(destination, new MessageCreator() {
+				public Message createMessage(Session session) throws JMSException {
+					TextMessage request = session.createTextMessage(CONTENT);
+					request.setJMSReplyTo(responseQueue);
+					request.setJMSCorrelationID(correlationId);
+					return request;
+				}
+			});
+			correlationIds.add(correlationId);
+		}
+		for (int i = 0; i < MESSAGE_COUNT; i++) {
+			Message response = jmsTemplate.receive(responseQueue);
+			assertNotNull("No response received", response);
+			assertTrue("Unexpected response", correlationIds.remove(response.getJMSCorrelationID()));
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.ws.transport.jms;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Resource;
 import javax.jms.BytesMessage;
+import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.Queue;
@@ -28,12 +30,18 @@ import javax.jms.Topic;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.ws.EndpointUnavailableException;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.SimpleTestingMessageReceiver;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -45,6 +53,9 @@ public class WebServiceMessageListenerIntegrationTest {
 					"<m:GetLastTradePrice xmlns:m='http://www.springframework.org/spring-ws'>\n" +
 					"<symbol>DIS</symbol>\n" + "</m:GetLastTradePrice>\n" + "</SOAP-ENV:Body></SOAP-ENV:Envelope>";
 
+	@Autowired
+	private ConnectionFactory connectionFactory;
+
 	@Autowired
 	private JmsTemplate jmsTemplate;
 
@@ -86,6 +97,50 @@ public class WebServiceMessageListenerIntegrationTest {
 		assertNotNull("No response received", response);
 	}
 
+	@Test
+	public void testEndpointUnavailableRolledBack() throws Exception {
+		final AtomicInteger deliveries = new AtomicInteger();
+		SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+		messageFactory.afterPropertiesSet();
+		WebServiceMessageListener messageListener = new WebServiceMessageListener();
+		messageListener.setMessageFactory(messageFactory);
+		messageListener.setMessageReceiver(new SimpleTestingMessageReceiver() {
+
+			@Override
+			public void receive(MessageContext messageContext) throws Exception {
+				// reject the first delivery, as a full bulkhead does
+				if (deliveries.incrementAndGet() == 1) {
+					throw new EndpointUnavailableException(this);
+				}
+				super.receive(messageContext);
+			}
+		});
+		DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.setDestinationName("UnavailableRequestQueue");
+		container.setSessionTransacted(true);
+		container.setMessageListener(messageListener);
+		container.afterPropertiesSet();
+		container.start();
+		try {
+			jmsTemplate.send("UnavailableRequestQueue", new MessageCreator() {
+				public Message createMessage(Session session) throws JMSException {
+					TextMessage request = session.createTextMessage(CONTENT);
+					request.setJMSReplyTo(responseQueue);
+					return request;
+				}
+			});
+			JmsTemplate receiveTemplate = new JmsTemplate(connectionFactory);
+			receiveTemplate.setReceiveTimeout(10000);
+			TextMessage response = (TextMessage) receiveTemplate.receive(responseQueue);
+			assertNotNull("No response received", response);
+			assertEquals("Rejected request not redelivered", 2, deliveries.get());
+		}
+		finally {
+			container.shutdown();
+		}
+	}
+
 	@Test
 	public void testReceiveTopic() throws Exception {
 		final byte[] b = CONTENT.getBytes("UTF-8");
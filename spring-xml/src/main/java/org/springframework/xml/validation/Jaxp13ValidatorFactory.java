@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,7 +38,7 @@ abstract class Jaxp13ValidatorFactory {
 
 	static XmlValidator createValidator(Resource[] resources, String schemaLanguage) throws IOException {
 		try {
-			Schema schema = SchemaLoaderUtils.loadSchema(resources, schemaLanguage);
+			Schema schema = SchemaRegistry.getSchema(resources, schemaLanguage);
 			return new Jaxp13Validator(schema);
 		}
 		catch (SAXException ex) {
@@ -46,9 +46,13 @@ abstract class Jaxp13ValidatorFactory {
 		}
 	}
 
+	static Schema getSchema(XmlValidator validator) {
+		return validator instanceof Jaxp13Validator ? ((Jaxp13Validator) validator).schema : null;
+	}
+
 	private static class Jaxp13Validator implements XmlValidator {
 
-		private Schema schema;
+		private final Schema schema;
 
 		public Jaxp13Validator(Schema schema) {
 			this.schema = schema;
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.xml.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import javax.xml.validation.Schema;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.xml.sax.SAXException;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Process-wide registry of compiled {@link Schema} objects. Schemas are keyed by the resources they are loaded from, as
+ * well as the schema language, so that every validator that refers to the same set of schema documents shares a single
+ * compiled {@code Schema}, rather than compiling it separately.
+ *
+ * <p>Schemas are compiled at most once, even when requested concurrently. Independent schema sets can be {@linkplain
+ * #preloadSchema(Resource[], String) preloaded} in parallel on the common {@link ForkJoinPool}.
+ *
+ * <p>The registry holds its schemas through soft references, so that they are released under memory pressure once no
+ * validator uses them anymore, and do not keep the class loader of an undeployed application alive.
+ *
+ * <p>The contents of resources that have a modification time, such as files, are hashed when the schema is loaded.
+ * When the modification time of such a resource changes, its contents are hashed again, and the schema is reloaded if
+ * they changed. Since only the given resources are checked, a change to a schema that is imported or included by them
+ * is not noticed until the registry is {@linkplain #clear() cleared}.
+ *
+ * @author agent
+ * @see XmlValidatorFactory
+ * @since 3.0.1
+ */
+public abstract class SchemaRegistry {
+
+	private static final Log logger = LogFactory.getLog(SchemaRegistry.class);
+
+	private static final ConcurrentMap<SchemaKey, RegisteredSchema> schemas =
+			new ConcurrentReferenceHashMap<SchemaKey, RegisteredSchema>(16,
+					ConcurrentReferenceHashMap.ReferenceType.SOFT);
+
+	/**
+	 * Returns the schema for the given resources and schema language, loading it if necessary. If the schema is being
+	 * loaded by another thread, waits for that thread to finish.
+	 *
+	 * @param resources		 the resources to load from
+	 * @param schemaLanguage the language of the schema
+	 * @return the compiled schema
+	 * @throws IOException	if loading failed
+	 * @throws SAXException if loading failed
+	 * @see SchemaLoaderUtils#loadSchema(Resource[], String)
+	 */
+	public static Schema getSchema(Resource[] resources, String schemaLanguage) throws IOException, SAXException {
+		RegisteredSchema schema = getRegisteredSchema(resources, schemaLanguage);
+		schema.task.run();
+		return getResult(schema);
+	}
+
+	/**
+	 * Starts loading the schema for the given resources and schema language in the background, unless it is already
+	 * loaded or being loaded. A later call to {@link #getSchema(Resource[], String)} for the same resources returns the
+	 * preloaded schema, or waits for it.
+	 *
+	 * @param resources		 the resources to load from
+	 * @param schemaLanguage the language of the schema
+	 * @return a future for the compiled schema
+	 * @throws IOException if the resources could not be read
+	 */
+	public static Future<Schema> preloadSchema(Resource[] resources, String schemaLanguage) throws IOException {
+		RegisteredSchema schema = getRegisteredSchema(resources, schemaLanguage);
+		if (!schema.task.isDone()) {
+			ForkJoinPool.commonPool().execute(schema.task);
+		}
+		return schema.task;
+	}
+
+	/** Removes all schemas from this registry, so that they are loaded again when next requested. */
+	public static void clear() {
+		schemas.clear();
+	}
+
+	private static RegisteredSchema getRegisteredSchema(Resource[] resources, String schemaLanguage)
+			throws IOException {
+		SchemaKey key = new SchemaKey(resources, schemaLanguage);
+		RegisteredSchema schema = schemas.get(key);
+		if (schema != null && schema.isModified()) {
+			schemas.remove(key, schema);
+			schema = null;
+		}
+		if (schema == null) {
+			schema = new RegisteredSchema(key);
+			RegisteredSchema existing = schemas.putIfAbsent(key, schema);
+			if (existing != null) {
+				schema = existing;
+			}
+		}
+		return schema;
+	}
+
+	private static Schema getResult(RegisteredSchema schema) throws IOException, SAXException {
+		try {
+			return schema.task.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new XmlValidationException("Interrupted while loading schema", ex);
+		}
+		catch (ExecutionException ex) {
+			schemas.remove(schema.key, schema);
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			else if (cause instanceof SAXException) {
+				throw (SAXException) cause;
+			}
+			else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new XmlValidationException("Could not load schema: " + cause.getMessage(), cause);
+		}
+	}
+
+	/** Key of the registry, consisting of the schema language and the resources, which are compared by equality. */
+	private static class SchemaKey {
+
+		private final Resource[] resources;
+
+		private final String schemaLanguage;
+
+		private SchemaKey(Resource[] resources, String schemaLanguage) {
+			Assert.notEmpty(resources, "No resources given");
+			Assert.hasLength(schemaLanguage, "No schema language provided");
+			for (Resource resource : resources) {
+				Assert.notNull(resource, "Resource is null");
+				Assert.isTrue(resource.exists(), "Resource " + resource + " does not exist");
+			}
+			this.resources = resources.clone();
+			this.schemaLanguage = schemaLanguage;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof SchemaKey)) {
+				return false;
+			}
+			SchemaKey otherKey = (SchemaKey) other;
+			return schemaLanguage.equals(otherKey.schemaLanguage) && Arrays.equals(resources, otherKey.resources);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * schemaLanguage.hashCode() + Arrays.hashCode(resources);
+		}
+	}
+
+	/**
+	 * A schema in the registry, together with the modification times and the digests of the contents of its resources.
+	 */
+	private static class RegisteredSchema {
+
+		private final SchemaKey key;
+
+		private final FutureTask<Schema> task;
+
+		private final long[] lastModified;
+
+		private final String[] digests;
+
+		private RegisteredSchema(SchemaKey key) throws IOException {
+			this.key = key;
+			this.task = new FutureTask<Schema>(new SchemaLoader(key.resources, key.schemaLanguage));
+			this.lastModified = new long[key.resources.length];
+			this.digests = new String[key.resources.length];
+			for (int i = 0; i < key.resources.length; i++) {
+				lastModified[i] = getLastModified(key.resources[i]);
+				if (lastModified[i] > 0) {
+					digests[i] = getDigest(key.resources[i]);
+				}
+			}
+		}
+
+		/**
+		 * Indicates whether the contents of any of the resources changed since this schema was registered. Only the
+		 * resources with a modified modification time are read again.
+		 */
+		private synchronized boolean isModified() throws IOException {
+			for (int i = 0; i < key.resources.length; i++) {
+				if (digests[i] == null) {
+					continue;
+				}
+				long resourceLastModified = getLastModified(key.resources[i]);
+				if (resourceLastModified != lastModified[i]) {
+					if (!digests[i].equals(getDigest(key.resources[i]))) {
+						return true;
+					}
+					lastModified[i] = resourceLastModified;
+				}
+			}
+			return false;
+		}
+
+		private static long getLastModified(Resource resource) {
+			try {
+				return resource.lastModified();
+			}
+			catch (IOException ex) {
+				// not determinable, e.g. for byte array and input stream resources
+				return 0;
+			}
+		}
+
+		private static String getDigest(Resource resource) throws IOException {
+			InputStream inputStream = resource.getInputStream();
+			try {
+				return DigestUtils.md5DigestAsHex(inputStream);
+			}
+			finally {
+				inputStream.close();
+			}
+		}
+	}
+
+	private static class SchemaLoader implements Callable<Schema> {
+
+		private final Resource[] resources;
+
+		private final String schemaLanguage;
+
+		private final ClassLoader classLoader;
+
+		private SchemaLoader(Resource[] resources, String schemaLanguage) {
+			this.resources = resources;
+			this.schemaLanguage = schemaLanguage;
+			this.classLoader = Thread.currentThread().getContextClassLoader();
+		}
+
+		@Override
+		public Schema call() throws Exception {
+			Thread currentThread = Thread.currentThread();
+			ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+			currentThread.setContextClassLoader(classLoader);
+			try {
+				long start = System.nanoTime();
+				Schema schema = SchemaLoaderUtils.loadSchema(resources, schemaLanguage);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Compiled schema from " + StringUtils.arrayToCommaDelimitedString(resources) + " in " +
+							(System.nanoTime() - start) / 1000000 + " ms");
+				}
+				return schema;
+			}
+			finally {
+				currentThread.setContextClassLoader(previousClassLoader);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2011 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.xml.validation;
 
 import java.io.IOException;
+import javax.xml.validation.Schema;
 import javax.xml.validation.Validator;
 
 import org.springframework.core.io.Resource;
@@ -33,6 +34,9 @@ import org.apache.commons.logging.LogFactory;
  * <p>The goal of this class is to avoid runtime dependencies on JAXP 1.3 by using the best validation implementation that
  * is available. Prefers JAXP 1.3 {@link XmlValidator} implementations to a custom, SAX-based implementation.
  *
+ * <p>The compiled schemas are obtained from the {@link SchemaRegistry}, so validators created for the same schema
+ * resources share a single compiled schema.
+ *
  * @author Arjen Poutsma
  * @see XmlValidator
  * @since 1.0.0
@@ -96,4 +100,15 @@ public abstract class XmlValidatorFactory {
 		}
 	}
 
+	/**
+	 * Returns the compiled schema that the given validator validates against.
+	 *
+	 * @param validator the validator, as created by this factory
+	 * @return the compiled schema, or {@code null} if the validator was not created by this factory
+	 * @since 3.0.1
+	 */
+	public static Schema getSchema(XmlValidator validator) {
+		return Jaxp13ValidatorFactory.getSchema(validator);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,8 +40,10 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.UrlResource;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.xml.sax.SaxUtils;
+import org.springframework.xml.validation.SchemaRegistry;
 import org.springframework.xml.validation.XmlValidator;
 import org.springframework.xml.validation.XmlValidatorFactory;
 import org.springframework.xml.xsd.XsdSchema;
@@ -70,6 +72,8 @@ public class CommonsXsdSchemaCollection implements XsdSchemaCollection, Initiali
 
 	private boolean inline = false;
 
+	private boolean preloadValidator = false;
+
 	private URIResolver uriResolver = new ClasspathUriResolver();
 
 	private ResourceLoader resourceLoader;
@@ -109,6 +113,19 @@ public class CommonsXsdSchemaCollection implements XsdSchemaCollection, Initiali
 		this.inline = inline;
 	}
 
+	/**
+	 * Defines whether the schema used by {@linkplain #createValidator() validators} should be compiled in the
+	 * background as soon as this collection is loaded, so that collections with many schemas are compiled in parallel,
+	 * and the first validator does not have to wait for it.
+	 *
+	 * <p>Defaults to {@code false}, in which case the schema is compiled when the first validator is created.
+	 *
+	 * @see SchemaRegistry
+	 */
+	public void setPreloadValidator(boolean preloadValidator) {
+		this.preloadValidator = preloadValidator;
+	}
+
 	/**
 	 * Sets the WS-Commons uri resolver to use when resolving (relative) schemas.
 	 *
@@ -152,7 +169,12 @@ public class CommonsXsdSchemaCollection implements XsdSchemaCollection, Initiali
 		if (logger.isInfoEnabled()) {
 			logger.info("Loaded " + StringUtils.arrayToCommaDelimitedString(xsdResources));
 		}
-
+		if (preloadValidator) {
+			Resource[] validatorResources = getValidatorResources();
+			if (!ObjectUtils.containsElement(validatorResources, null)) {
+				SchemaRegistry.preloadSchema(validatorResources, XmlValidatorFactory.SCHEMA_W3C_XML);
+			}
+		}
 	}
 
 	@Override
@@ -168,21 +190,25 @@ public class CommonsXsdSchemaCollection implements XsdSchemaCollection, Initiali
 	@Override
 	public XmlValidator createValidator() {
 		try {
-			Resource[] resources = new Resource[xmlSchemas.size()];
-			for (int i = xmlSchemas.size() - 1; i >= 0; i--) {
-				XmlSchema xmlSchema = xmlSchemas.get(i);
-				String sourceUri = xmlSchema.getSourceURI();
-				if (StringUtils.hasLength(sourceUri)) {
-					resources[i] = new UrlResource(sourceUri);
-				}
-			}
 			return XmlValidatorFactory
-					.createValidator(resources, XmlValidatorFactory.SCHEMA_W3C_XML);
+					.createValidator(getValidatorResources(), XmlValidatorFactory.SCHEMA_W3C_XML);
 		} catch (IOException ex) {
 			throw new CommonsXsdSchemaException(ex.getMessage(), ex);
 		}
 	}
 
+	private Resource[] getValidatorResources() throws IOException {
+		Resource[] resources = new Resource[xmlSchemas.size()];
+		for (int i = xmlSchemas.size() - 1; i >= 0; i--) {
+			XmlSchema xmlSchema = xmlSchemas.get(i);
+			String sourceUri = xmlSchema.getSourceURI();
+			if (StringUtils.hasLength(sourceUri)) {
+				resources[i] = new UrlResource(sourceUri);
+			}
+		}
+		return resources;
+	}
+
 	private void inlineIncludes(XmlSchema schema, Set<XmlSchema> processedIncludes, Set<XmlSchema> processedImports) {
 		processedIncludes.add(schema);
 
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.xml.stream;
+
+import java.io.StringWriter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FragmentXMLStreamWriterTest {
+
+	@Test
+	public void testWriteFragment() throws Exception {
+		StringWriter stringWriter = new StringWriter();
+		XMLStreamWriter enclosing = XMLOutputFactory.newInstance().createXMLStreamWriter(stringWriter);
+		enclosing.writeStartElement("envelope");
+
+		XMLStreamWriter fragmentWriter = new FragmentXMLStreamWriter(enclosing);
+		fragmentWriter.writeStartDocument("UTF-8", "1.0");
+		fragmentWriter.writeStartElement("root");
+		fragmentWriter.writeStartElement("child");
+		fragmentWriter.writeCharacters("text");
+		fragmentWriter.writeEndDocument();
+		fragmentWriter.close();
+
+		enclosing.writeEmptyElement("sibling");
+		enclosing.writeEndElement();
+		enclosing.flush();
+
+		Assert.assertEquals("Invalid result",
+				"<envelope><root><child>text</child></root><sibling/></envelope>",
+				stringWriter.toString());
+	}
+
+}
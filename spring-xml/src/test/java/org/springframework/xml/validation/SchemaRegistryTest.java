@@ -0,0 +1,126 @@
+/*
+ * Copyright 2005-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.xml.validation;
+
+import java.io.File;
+import java.util.concurrent.Future;
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+
+import org.xml.sax.SAXException;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SchemaRegistryTest {
+
+	private static final String SCHEMA = "<schema xmlns='http://www.w3.org/2001/XMLSchema' " +
+			"targetNamespace='http://springframework.org/spring-ws'><element name='%s' type='string'/></schema>";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@After
+	public void tearDown() {
+		SchemaRegistry.clear();
+	}
+
+	@Test
+	public void testGetSchemaShared() throws Exception {
+		Resource resource = new ClassPathResource("schema.xsd", getClass());
+		Schema schema = SchemaRegistry.getSchema(new Resource[]{resource}, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		Assert.assertNotNull("No schema returned", schema);
+		Assert.assertSame("Schema not shared", schema, SchemaRegistry
+				.getSchema(new Resource[]{new ClassPathResource("schema.xsd", getClass())},
+						XMLConstants.W3C_XML_SCHEMA_NS_URI));
+		Assert.assertFalse("Resource not closed", resource.isOpen());
+	}
+
+	@Test
+	public void testGetSchemaKeyedByContent() throws Exception {
+		Resource first = new ByteArrayResource(String.format(SCHEMA, "first").getBytes("UTF-8"));
+		Resource second = new ByteArrayResource(String.format(SCHEMA, "second").getBytes("UTF-8"));
+		Schema firstSchema = SchemaRegistry.getSchema(new Resource[]{first}, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		Schema secondSchema = SchemaRegistry.getSchema(new Resource[]{second}, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		Assert.assertNotSame("Schema shared for different contents", firstSchema, secondSchema);
+	}
+
+	@Test
+	public void testGetSchemaModified() throws Exception {
+		File file = temporaryFolder.newFile("schema.xsd");
+		FileCopyUtils.copy(String.format(SCHEMA, "first").getBytes("UTF-8"), file);
+		Resource[] resources = new Resource[]{new FileSystemResource(file)};
+		Schema schema = SchemaRegistry.getSchema(resources, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+
+		Assert.assertTrue("Could not touch file", file.setLastModified(file.lastModified() - 10000));
+		Assert.assertSame("Schema reloaded for same contents", schema,
+				SchemaRegistry.getSchema(resources, XMLConstants.W3C_XML_SCHEMA_NS_URI));
+
+		FileCopyUtils.copy(String.format(SCHEMA, "second").getBytes("UTF-8"), file);
+		Assert.assertTrue("Could not touch file", file.setLastModified(file.lastModified() - 20000));
+		Assert.assertNotSame("Schema not reloaded for modified contents", schema,
+				SchemaRegistry.getSchema(resources, XMLConstants.W3C_XML_SCHEMA_NS_URI));
+	}
+
+	@Test
+	public void testGetSchemaClear() throws Exception {
+		Resource[] resources = new Resource[]{new ClassPathResource("schema.xsd", getClass())};
+		Schema schema = SchemaRegistry.getSchema(resources, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		SchemaRegistry.clear();
+		Assert.assertNotSame("Schema not reloaded", schema,
+				SchemaRegistry.getSchema(resources, XMLConstants.W3C_XML_SCHEMA_NS_URI));
+	}
+
+	@Test
+	public void testPreloadSchema() throws Exception {
+		Resource envelope = new ClassPathResource("envelope.xsd", getClass());
+		Resource encoding = new ClassPathResource("encoding.xsd", getClass());
+		Resource[] resources = new Resource[]{envelope, encoding};
+		Future<Schema> future = SchemaRegistry.preloadSchema(resources, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		Schema schema = SchemaRegistry.getSchema(resources, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		Assert.assertSame("Preloaded schema not returned", future.get(), schema);
+	}
+
+	@Test
+	public void testGetInvalidSchemaNotRegistered() throws Exception {
+		Resource[] resources = new Resource[]{new ByteArrayResource("<schema/>".getBytes("UTF-8"))};
+		for (int i = 0; i < 2; i++) {
+			try {
+				SchemaRegistry.getSchema(resources, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+				Assert.fail("SAXException expected");
+			}
+			catch (SAXException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetNonExistentSchema() throws Exception {
+		SchemaRegistry.getSchema(new Resource[]{new ClassPathResource("bla")}, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2014 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,14 @@ public class XmlValidatorFactoryTest {
 		Assert.assertNotNull("No validator returned", validator);
 	}
 
+	@Test
+	public void testGetSchema() throws Exception {
+		Resource resource = new ClassPathResource("schema.xsd", AbstractValidatorFactoryTestCase.class);
+		XmlValidator validator = XmlValidatorFactory.createValidator(resource, XmlValidatorFactory.SCHEMA_W3C_XML);
+		Assert.assertSame("Invalid schema", SchemaRegistry.getSchema(new Resource[]{resource},
+				XmlValidatorFactory.SCHEMA_W3C_XML), XmlValidatorFactory.getSchema(validator));
+	}
+
 	@Test
 	public void testNonExistentResource() throws Exception {
 		Resource resource = new NonExistentResource();
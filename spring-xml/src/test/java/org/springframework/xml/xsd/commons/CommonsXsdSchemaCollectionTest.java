@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2010 the original author or authors.
+ * Copyright 2005-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -119,6 +119,18 @@ public class CommonsXsdSchemaCollectionTest {
 		Assert.assertNotNull("No XmlValidator returned", validator);
 	}
 
+	@Test
+	public void testCreateValidatorPreloaded() throws Exception {
+		Resource a = new ClassPathResource("A.xsd", AbstractXsdSchemaTestCase.class);
+		collection.setXsds(a);
+		collection.setInline(true);
+		collection.setPreloadValidator(true);
+		collection.afterPropertiesSet();
+
+		XmlValidator validator = collection.createValidator();
+		Assert.assertNotNull("No XmlValidator returned", validator);
+	}
+
 	@Test
 	public void testInvalidSchema() throws Exception {
 		Resource invalid = new ClassPathResource("invalid.xsd", AbstractXsdSchemaTestCase.class);